@@ -0,0 +1,32 @@
+package com.kAIS.KAIMyEntity.mixin;
+
+import com.kAIS.KAIMyEntity.urdf.control.URDFBlockCollisionCache;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.state.BlockState;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * 클라이언트 월드 블록/청크 변경 → URDF 블록 충돌 캐시에 알림
+ * (캐시는 알림받은 블록만 다시 읽음 → 매 틱 주변 전체를 훑지 않음)
+ */
+@Mixin(ClientLevel.class)
+public abstract class KAIMyEntityClientLevelMixin {
+
+    @Inject(method = "sendBlockUpdated", at = @At("HEAD"))
+    private void kaimyentity$onBlockUpdated(BlockPos pos, BlockState oldState, BlockState newState, int flags,
+                                            CallbackInfo ci) {
+        if (oldState != newState) {
+            URDFBlockCollisionCache.notifyBlockChanged(pos);
+        }
+    }
+
+    @Inject(method = "onChunkLoaded", at = @At("TAIL"))
+    private void kaimyentity$onChunkLoaded(ChunkPos chunkPos, CallbackInfo ci) {
+        URDFBlockCollisionCache.notifyChunkLoaded(chunkPos.x, chunkPos.z);
+    }
+}
@@ -86,13 +86,6 @@ public abstract class KAIMyEntityPlayerRendererMixin
             }
         }
 
-        ResourceLocation whiteTexture = ResourceLocation.parse("minecraft:textures/misc/white.png");
-        ResourceLocation tex = (generic != null ? generic.getTexture() : null);
-        RenderType renderType = (tex != null)
-                ? RenderType.entitySolid(tex)
-                : RenderType.entitySolid(whiteTexture);
-        VertexConsumer vertexConsumer = buffers.getBuffer(renderType);
-
         pose.pushPose();
 
         pose.translate(0.0f, 0.0f, 0.0f);
@@ -127,16 +120,27 @@ public abstract class KAIMyEntityPlayerRendererMixin
 
         // ✅ render에서는 상태 업데이트 절대 하지 않음 (tickUpdate 제거)
         if (urdf != null) {
-            urdf.Render(
+            // 엔티티 패스 버퍼에 기록만 함 → 로봇 N개도 패스 끝에서 한 번에 flush
+            urdf.renderToBufferSource(
                     player,
                     entityYaw,
                     player.getXRot(),
                     new Vector3f(0f, 0f, 0f),
                     tickDelta,
                     pose,
-                    adjustedLight
+                    buffers,
+                    adjustedLight,
+                    OverlayTexture.NO_OVERLAY
             );
         } else {
+            // generic 모델만 버퍼를 미리 잡음 (URDF 경로에서 다른 RenderType 버퍼를 열면 공유 버퍼가 매번 flush됨)
+            ResourceLocation whiteTexture = ResourceLocation.parse("minecraft:textures/misc/white.png");
+            ResourceLocation tex = generic.getTexture();
+            RenderType renderType = (tex != null)
+                    ? RenderType.entitySolid(tex)
+                    : RenderType.entitySolid(whiteTexture);
+            VertexConsumer vertexConsumer = buffers.getBuffer(renderType);
+
             generic.renderToBuffer(
                     player,
                     entityYaw,
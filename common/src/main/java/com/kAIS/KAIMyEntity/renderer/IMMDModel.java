@@ -2,6 +2,8 @@ package com.kAIS.KAIMyEntity.renderer;
 
 import com.mojang.blaze3d.vertex.PoseStack;
 import com.mojang.blaze3d.vertex.VertexConsumer;
+import net.minecraft.client.renderer.MultiBufferSource;
+import net.minecraft.client.renderer.RenderType;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.entity.Entity;
 import org.joml.Vector3f;
@@ -20,6 +22,9 @@ public interface IMMDModel {
     long GetModelLong();
     String GetModelDir();
 
+    /** 모델을 버릴 때 호출 (리로드 등) - GPU 텍스처/렌더 타깃 같은 네이티브 리소스 해제 */
+    default void Dispose() { }
+
     /** ✅ 새 경로: VertexConsumer로 버텍스를 기록해서 MC 렌더 파이프라인을 사용 */
     default void renderToBuffer(Entity entityIn,
                                 float entityYaw, float entityPitch, Vector3f entityTrans, float tickDelta,
@@ -31,6 +36,23 @@ public interface IMMDModel {
         Render(entityIn, entityYaw, entityPitch, entityTrans, tickDelta, pose, packedLight);
     }
 
+    /**
+     * ✅ 배치 경로: 호출측(엔티티 패스) 버퍼 소스에 기록만 하고 flush는 호출측에 맡김.
+     * 모델이 RenderType을 직접 고를 수 있도록 MultiBufferSource를 그대로 넘긴다.
+     */
+    default void renderToBufferSource(Entity entityIn,
+                                      float entityYaw, float entityPitch, Vector3f entityTrans, float tickDelta,
+                                      PoseStack pose,
+                                      MultiBufferSource buffers,
+                                      int packedLight,
+                                      int overlay) {
+        ResourceLocation tex = getTexture();
+        RenderType type = RenderType.entitySolid(
+                tex != null ? tex : ResourceLocation.parse("minecraft:textures/misc/white.png"));
+        renderToBuffer(entityIn, entityYaw, entityPitch, entityTrans, tickDelta,
+                pose, buffers.getBuffer(type), packedLight, overlay);
+    }
+
     /** 선택: 텍스처가 있으면 반환(없으면 null). */
     default ResourceLocation getTexture() { return null; }
 }
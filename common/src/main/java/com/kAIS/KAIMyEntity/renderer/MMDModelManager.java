@@ -90,6 +90,10 @@ public class MMDModelManager {
     }
 
     public static void ReloadModel() {
+        // 교체될 모델의 리소스(임포스터 렌더 타깃 등) 먼저 해제
+        for (Model m : models.values()) {
+            if (m.model != null) m.model.Dispose();
+        }
         models.clear();
     }
 
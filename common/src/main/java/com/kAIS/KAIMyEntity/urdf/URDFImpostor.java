@@ -0,0 +1,309 @@
+package com.kAIS.KAIMyEntity.urdf;
+
+import com.mojang.blaze3d.pipeline.TextureTarget;
+import com.mojang.blaze3d.platform.Lighting;
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.blaze3d.vertex.ByteBufferBuilder;
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import com.mojang.blaze3d.vertex.VertexSorting;
+import com.mojang.math.Axis;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.MultiBufferSource;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.texture.AbstractTexture;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.ResourceManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joml.Matrix3f;
+import org.joml.Matrix4f;
+import org.joml.Matrix4fStack;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+
+/**
+ * 원거리 로봇용 임포스터 (빌보드)
+ *
+ * - 로봇을 수평 N개 시점에서 오프스크린 텍스처 한 장(가로로 나열)에 렌더
+ * - 원거리에서는 카메라 방향에 가장 가까운 시점을 카메라를 향한 사각형 하나로 그림
+ * - 포즈(조인트/루트 회전)가 임계값 이상 바뀌었을 때만 다시 캡처, 틱당 전체 캡처 수도 제한
+ *
+ * 캡처는 엔티티 패스 도중이 아니라 다음 프레임 시작 시 렌더 큐(recordRenderCall)에서 실행된다.
+ */
+public final class URDFImpostor {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** 이 이상 바뀐 조인트가 있으면 다시 캡처 (rad 또는 m) */
+    private static final float REFRESH_JOINT_DELTA = 0.08f;
+    /** 루트 회전이 이 각도(rad) 이상 바뀌면 다시 캡처 */
+    private static final float REFRESH_ROOT_ANGLE = 0.06f;
+    /** 모든 로봇 합산 틱당 최대 캡처 수 */
+    private static final int MAX_CAPTURES_PER_TICK = 2;
+
+    private static long budgetTick = Long.MIN_VALUE;
+    private static int capturesThisTick = 0;
+
+    /** 캡처 시 로봇 본체를 그리는 콜백 (원점 = 로봇 루트, 월드 축 기준) */
+    public interface Drawer {
+        void draw(PoseStack poseStack, MultiBufferSource buffers);
+    }
+
+    private final String name;
+    private final Drawer drawer;
+    /** 캡처 직교 투영 반경 = 사각형 반 크기 (블록) */
+    private final float extent;
+
+    private int views;
+    private int resolution;
+    private TextureTarget target;
+    private ResourceLocation location;
+    private RenderType renderType;
+    private ByteBufferBuilder captureBuffer;
+
+    private boolean captured = false;
+    private boolean capturePending = false;
+    private boolean dirty = true;
+    private boolean disposed = false;
+    private float[] capturedJoints;
+    private final Quaternionf capturedRoot = new Quaternionf();
+
+    // 사각형 렌더 스크래치
+    private final Matrix4f quadPose = new Matrix4f();
+    private final Matrix3f quadNormal = new Matrix3f();
+    private final Vector3f quadNormalVec = new Vector3f();
+
+    public URDFImpostor(String name, float extent, Drawer drawer) {
+        this.name = name;
+        this.extent = extent;
+        this.drawer = drawer;
+    }
+
+    /** 캡처가 한 번이라도 끝나서 그릴 수 있는 상태인지 */
+    public boolean isReady() {
+        return captured && target != null;
+    }
+
+    public float getExtent() {
+        return extent;
+    }
+
+    /** 리셋/리로드 등으로 포즈가 불연속일 때 강제 재캡처 */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     * 현재 포즈가 마지막 캡처와 크게 다르면 재캡처 예약
+     * @param rootRotation 물리 루트 회전 (키네마틱이면 null)
+     */
+    public void refreshIfChanged(URDFPoseBuffer.Pose pose, Quaternionf rootRotation, long gameTime) {
+        if (!dirty && captured && capturedJoints != null) {
+            float[] cur = pose.jointPositions;
+            int n = Math.min(cur.length, capturedJoints.length);
+            for (int i = 0; i < n && !dirty; i++) {
+                if (Math.abs(cur[i] - capturedJoints[i]) > REFRESH_JOINT_DELTA) dirty = true;
+            }
+            if (!dirty && rootRotation != null) {
+                float dot = Math.abs(capturedRoot.dot(rootRotation));
+                float angle = 2f * (float) Math.acos(Math.min(dot, 1f));
+                if (angle > REFRESH_ROOT_ANGLE) dirty = true;
+            }
+        }
+        if (!dirty || capturePending || disposed) return;
+
+        if (budgetTick != gameTime) {
+            budgetTick = gameTime;
+            capturesThisTick = 0;
+        }
+        if (capturesThisTick >= MAX_CAPTURES_PER_TICK) return;
+        capturesThisTick++;
+
+        // 캡처 기준 포즈는 예약 시점 값 (캡처 자체는 다음 프레임 초반에 실행)
+        if (capturedJoints == null || capturedJoints.length != pose.jointPositions.length) {
+            capturedJoints = new float[pose.jointPositions.length];
+        }
+        System.arraycopy(pose.jointPositions, 0, capturedJoints, 0, capturedJoints.length);
+        if (rootRotation != null) capturedRoot.set(rootRotation);
+        else capturedRoot.identity();
+
+        dirty = false;
+        capturePending = true;
+        RenderSystem.recordRenderCall(this::capture);
+    }
+
+    /**
+     * 카메라를 향한 사각형으로 그리기 (엔티티 패스 버퍼에 기록만 함)
+     * base 원점 = 엔티티 위치(월드 축), offset = 엔티티 → 로봇 루트
+     * @param toCameraX 로봇 → 카메라 방향 X (월드)
+     * @param toCameraZ 로봇 → 카메라 방향 Z (월드)
+     */
+    public void render(PoseStack.Pose base, Vector3f offset, MultiBufferSource buffers,
+                       double toCameraX, double toCameraZ, int packedLight, int overlay) {
+        if (!isReady()) return;
+
+        int view = viewIndexFor(toCameraX, toCameraZ);
+        float u0 = (float) view / views;
+        float u1 = (float) (view + 1) / views;
+
+        Quaternionf camera = Minecraft.getInstance().getEntityRenderDispatcher().cameraOrientation();
+        Matrix4f m = quadPose.set(base.pose())
+                .translate(offset.x(), offset.y(), offset.z())
+                .rotate(camera);
+        quadNormal.set(base.normal()).rotate(camera).transform(0f, 0f, 1f, quadNormalVec);
+
+        VertexConsumer vc = buffers.getBuffer(renderType);
+        float e = extent;
+
+        // 렌더 타깃 텍스처는 GL 원점(좌하단) 기준 → 위쪽 정점이 v=1
+        vertex(vc, m, -e, -e, u0, 0f, packedLight, overlay);
+        vertex(vc, m,  e, -e, u1, 0f, packedLight, overlay);
+        vertex(vc, m,  e,  e, u1, 1f, packedLight, overlay);
+        vertex(vc, m, -e,  e, u0, 1f, packedLight, overlay);
+    }
+
+    private void vertex(VertexConsumer vc, Matrix4f m,
+                        float x, float y, float u, float v, int light, int overlay) {
+        Vector3f n = quadNormalVec;
+        vc.addVertex(m, x, y, 0f)
+                .setColor(255, 255, 255, 255)
+                .setUv(u, v)
+                .setOverlay(overlay)
+                .setLight(light)
+                .setNormal(n.x, n.y, n.z);
+    }
+
+    /** 시점 i는 월드 yaw = i * 2π/N 방향(+Z에서 +X 쪽으로)에 놓인 카메라 */
+    private int viewIndexFor(double dx, double dz) {
+        double step = Math.PI * 2.0 / views;
+        double yaw = Math.atan2(dx, dz);
+        int i = (int) Math.round(yaw / step);
+        i %= views;
+        return i < 0 ? i + views : i;
+    }
+
+    private float viewYaw(int i) {
+        return (float) (Math.PI * 2.0 * i / views);
+    }
+
+    // ========================================================================
+    // 캡처 (렌더 스레드, 프레임 시작 시)
+    // ========================================================================
+
+    private void capture() {
+        capturePending = false;
+        if (disposed || !ensureTarget()) return;
+
+        Matrix4f savedProjection = new Matrix4f(RenderSystem.getProjectionMatrix());
+        VertexSorting savedSorting = RenderSystem.getVertexSorting();
+        Matrix4fStack modelView = RenderSystem.getModelViewStack();
+        modelView.pushMatrix();
+        modelView.identity();
+        RenderSystem.applyModelViewMatrix();
+
+        float e = extent;
+        RenderSystem.setProjectionMatrix(
+                new Matrix4f().setOrtho(-e, e, -e, e, -e * 4f, e * 4f), VertexSorting.ORTHOGRAPHIC_Z);
+        Lighting.setupFor3DItems();
+
+        target.setClearColor(0f, 0f, 0f, 0f);
+        target.clear(Minecraft.ON_OSX);
+        target.bindWrite(false);
+
+        MultiBufferSource.BufferSource source = MultiBufferSource.immediate(captureBuffer);
+        PoseStack ps = new PoseStack();
+        try {
+            for (int i = 0; i < views; i++) {
+                RenderSystem.viewport(i * resolution, 0, resolution, resolution);
+                ps.pushPose();
+                // 카메라를 +Z에 두고 -Z를 바라보도록 월드를 -yaw 회전
+                ps.mulPose(Axis.YP.rotation(-viewYaw(i)));
+                drawer.draw(ps, source);
+                source.endBatch();
+                ps.popPose();
+            }
+            captured = true;
+        } catch (Exception ex) {
+            logger.warn("URDF impostor capture failed for '{}': {}", name, ex.getMessage());
+        } finally {
+            modelView.popMatrix();
+            RenderSystem.applyModelViewMatrix();
+            RenderSystem.setProjectionMatrix(savedProjection, savedSorting);
+            Minecraft.getInstance().getMainRenderTarget().bindWrite(true);
+        }
+    }
+
+    private boolean ensureTarget() {
+        int v = URDFLodSettings.getImpostorViews();
+        int res = URDFLodSettings.getImpostorResolution();
+        if (target != null && v == views && res == resolution) return true;
+
+        // 설정이 바뀌었으면 다시 만듦 (이전 캡처는 무효)
+        close();
+        views = v;
+        resolution = res;
+        try {
+            target = new TextureTarget(views * resolution, resolution, true, Minecraft.ON_OSX);
+            target.setFilterMode(9729); // GL_LINEAR
+            if (captureBuffer == null) captureBuffer = new ByteBufferBuilder(1 << 16);
+
+            location = ResourceLocation.fromNamespaceAndPath(
+                    "kaimyentity", "urdf_impostor/" + URDFTextureAtlas.sanitize(name) + "_" + Integer.toHexString(System.identityHashCode(this)));
+            Minecraft.getInstance().getTextureManager().register(location, new TargetTexture(target));
+            renderType = RenderType.entityCutoutNoCull(location);
+            logger.info("URDF impostor '{}': {} views x {}px, extent {}", name, views, resolution, extent);
+            return true;
+        } catch (Exception ex) {
+            logger.warn("URDF impostor target creation failed for '{}': {}", name, ex.getMessage());
+            target = null;
+            return false;
+        }
+    }
+
+    /** GPU 리소스 해제 (렌더 스레드) */
+    public void close() {
+        captured = false;
+        dirty = true;
+        if (location != null) {
+            Minecraft.getInstance().getTextureManager().release(location);
+            location = null;
+        }
+        if (target != null) {
+            target.destroyBuffers();
+            target = null;
+        }
+    }
+
+    /** 모델 폐기 시 (렌더 스레드) - 예약된 캡처가 타깃을 다시 만들지 않도록 막고 전부 해제 */
+    public void dispose() {
+        disposed = true;
+        close();
+        if (captureBuffer != null) {
+            captureBuffer.close();
+            captureBuffer = null;
+        }
+    }
+
+    /** 렌더 타깃의 컬러 텍스처를 RenderType에서 쓸 수 있게 감싸는 텍스처 (GL 이름은 타깃 소유) */
+    private static final class TargetTexture extends AbstractTexture {
+        private final TextureTarget target;
+
+        TargetTexture(TextureTarget target) {
+            this.target = target;
+        }
+
+        @Override
+        public void load(ResourceManager resourceManager) { }
+
+        @Override
+        public int getId() {
+            return target.getColorTextureId();
+        }
+
+        @Override
+        public void releaseId() {
+            // 텍스처는 TextureTarget.destroyBuffers()에서 해제
+        }
+    }
+}
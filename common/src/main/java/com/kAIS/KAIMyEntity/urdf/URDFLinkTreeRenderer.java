@@ -0,0 +1,237 @@
+package com.kAIS.KAIMyEntity.urdf;
+
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import org.joml.Matrix3f;
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * URDF 링크 트리 → VertexConsumer 기록 (URDFModelOpenGLWithSTL의 본체 렌더 순회)
+ *
+ * - 깊이별 행렬 슬롯 + 스크래치 재사용 → 프레임당 할당 없음 (PoseStack.pushPose는 Pose를 새로 할당)
+ * - RenderType / 텍스처 / Minecraft 전역 상태를 모름 → 버퍼 선택과 루트 변환은 호출측 담당
+ */
+final class URDFLinkTreeRenderer {
+
+    private static final boolean FLIP_NORMALS = true;
+
+    /** 링크 하나의 draw 정보 (로드 시 머티리얼 → 색 / 아틀라스 UV / RenderType 버킷 확정) */
+    static final class LinkDraw {
+        final STLLoader.STLMesh mesh;
+        final int r, g, b, a;
+        final boolean translucent;
+        /** 삼각형당 3정점 × (u,v), 아틀라스 좌표. 정점 순서는 STL 순서 그대로 */
+        final float[] uvs;
+
+        LinkDraw(STLLoader.STLMesh mesh, int r, int g, int b, int a, boolean translucent, float[] uvs) {
+            this.mesh = mesh;
+            this.r = r;
+            this.g = g;
+            this.b = b;
+            this.a = a;
+            this.translucent = translucent;
+            this.uvs = uvs;
+        }
+    }
+
+    private final URDFModel model;
+    private final URDFPoseBuffer poseBuffer;
+    private final Map<String, LinkDraw> draws;
+
+    // 링크 트리 깊이별 변환
+    private final Matrix4f[] matStack;
+    private final Matrix3f[] normalStack;
+
+    private final Vector3f normalScratch = new Vector3f();
+    private final Vector3f axisScratch = new Vector3f();
+    private final Quaternionf quatScratch = new Quaternionf();
+
+    /** 이번 패스의 조인트 값 (null이면 URDFJoint.currentPosition) */
+    private URDFPoseBuffer.Pose pose;
+
+    URDFLinkTreeRenderer(URDFModel model, URDFPoseBuffer poseBuffer, Map<String, LinkDraw> draws) {
+        this.model = model;
+        this.poseBuffer = poseBuffer;
+        this.draws = draws;
+
+        // 트리 깊이는 링크 수를 넘지 않음 (+ 루트 / visual origin 슬롯)
+        int stackDepth = model.getLinkCount() + 2;
+        this.matStack = new Matrix4f[stackDepth];
+        this.normalStack = new Matrix3f[stackDepth];
+        for (int i = 0; i < stackDepth; i++) {
+            matStack[i] = new Matrix4f();
+            normalStack[i] = new Matrix3f();
+        }
+    }
+
+    /** 루트 링크 프레임 (호출측이 채운 뒤 render) */
+    Matrix4f rootPose() {
+        return matStack[0];
+    }
+
+    Matrix3f rootNormal() {
+        return normalStack[0];
+    }
+
+    /**
+     * rootPose()/rootNormal() 기준으로 한 버킷(불투명 또는 반투명)의 링크를 전부 기록.
+     * 루트 슬롯은 바꾸지 않으므로 같은 루트로 여러 번 호출 가능.
+     * @param pose 보간된 조인트 값 (없으면 null)
+     */
+    void render(VertexConsumer vc, URDFPoseBuffer.Pose pose, boolean translucentPass,
+                int packedLight, int overlay) {
+        if (model.rootLinkName == null) return;
+        this.pose = pose;
+        renderLinkRecursive(model.rootLinkName, 0, vc, packedLight, overlay, translucentPass);
+    }
+
+    /**
+     * 링크 트리 순회. matStack[depth] = 이 링크의 프레임.
+     * 자식 조인트 변환은 depth+1 슬롯에 복사 후 적용하므로 push/pop 할당이 없다.
+     */
+    private void renderLinkRecursive(String linkName, int depth,
+                                     VertexConsumer vc, int packedLight, int overlay, boolean translucentPass) {
+        URDFLink link = model.getLink(linkName);
+        if (link == null || depth + 1 >= matStack.length) return;
+
+        if (link.visual != null) {
+            renderVisual(link, depth, vc, packedLight, overlay, translucentPass);
+        }
+
+        List<URDFJoint> children = model.getChildJoints(linkName);
+        for (int i = 0, size = children.size(); i < size; i++) {
+            URDFJoint childJoint = children.get(i);
+            matStack[depth + 1].set(matStack[depth]);
+            normalStack[depth + 1].set(normalStack[depth]);
+            applyJointTransform(childJoint, matStack[depth + 1], normalStack[depth + 1]);
+            renderLinkRecursive(childJoint.childLinkName, depth + 1, vc, packedLight, overlay, translucentPass);
+        }
+    }
+
+    private void renderVisual(URDFLink link, int depth,
+                              VertexConsumer vc, int packedLight, int overlay, boolean translucentPass) {
+        if (link.visual == null || link.visual.geometry == null) return;
+
+        LinkDraw draw = draws.get(link.name);
+        if (draw == null || draw.translucent != translucentPass) return;
+
+        Matrix4f m = matStack[depth];
+        Matrix3f n = normalStack[depth];
+        if (link.visual.origin != null) {
+            // 자식 순회 전이므로 depth+1 슬롯을 임시로 사용
+            m = matStack[depth + 1].set(m);
+            n = normalStack[depth + 1].set(n);
+            applyLinkOriginTransform(link.visual.origin, m, n);
+        }
+
+        renderMesh(draw, m, n, vc, packedLight, overlay);
+    }
+
+    private void renderMesh(LinkDraw draw, Matrix4f matrix, Matrix3f normalMatrix,
+                            VertexConsumer vc, int packedLight, int overlay) {
+        int r = draw.r, g = draw.g, b = draw.b, a = draw.a;
+        float[] uvs = draw.uvs;
+
+        int blockLight = Math.max((packedLight & 0xFFFF), 0xA0);
+        int skyLight   = Math.max((packedLight >> 16) & 0xFFFF, 0xA0);
+        int light = (skyLight << 16) | blockLight;
+
+        Vector3f nv = normalScratch;
+        float sign = FLIP_NORMALS ? -1f : 1f;
+        List<STLLoader.Triangle> triangles = draw.mesh.triangles;
+        int base = 0;
+        for (int t = 0, count = triangles.size(); t < count; t++) {
+            STLLoader.Triangle tri = triangles.get(t);
+            Vector3f n = tri.normal;
+            normalMatrix.transform(n.x * sign, n.y * sign, n.z * sign, nv);
+
+            for (int i = 2; i >= 0; i--) {
+                Vector3f v = tri.vertices[i];
+                vc.addVertex(matrix, v.x, v.y, v.z)
+                        .setColor(r, g, b, a)
+                        .setUv(uvs[base + i * 2], uvs[base + i * 2 + 1])
+                        .setOverlay(overlay)
+                        .setLight(light)
+                        .setNormal(nv.x, nv.y, nv.z);
+            }
+            base += 6;
+        }
+    }
+
+    // ========================================================================
+    // 변환 유틸 (행렬 스택 슬롯에 직접 적용, 회전은 quatScratch 재사용)
+    // ========================================================================
+
+    private void applyLinkOriginTransform(URDFLink.Origin origin, Matrix4f m, Matrix3f n) {
+        m.translate(origin.xyz.x, origin.xyz.y, origin.xyz.z);
+        if (origin.rpy.x != 0f || origin.rpy.y != 0f || origin.rpy.z != 0f) {
+            rotate(m, n, quatScratch.rotationZYX(origin.rpy.z, origin.rpy.y, origin.rpy.x));
+        }
+    }
+
+    private void applyJointOriginTransform(URDFJoint.Origin origin, Matrix4f m, Matrix3f n) {
+        m.translate(origin.xyz.x, origin.xyz.y, origin.xyz.z);
+        if (origin.rpy.x != 0f || origin.rpy.y != 0f || origin.rpy.z != 0f) {
+            // qz * qy * qx (RPY, ZYX 순서)
+            rotate(m, n, quatScratch.rotationZYX(origin.rpy.z, origin.rpy.y, origin.rpy.x));
+        }
+    }
+
+    private static void rotate(Matrix4f m, Matrix3f n, Quaternionf q) {
+        m.rotate(q);
+        n.rotate(q);
+    }
+
+    private void applyJointTransform(URDFJoint joint, Matrix4f m, Matrix3f n) {
+        if (joint.origin != null) {
+            applyJointOriginTransform(joint.origin, m, n);
+        }
+        if (joint.isMovable()) {
+            applyJointMotion(joint, m, n);
+        }
+    }
+
+    /** 렌더에 사용할 조인트 값: 보간 스냅샷 우선, 없으면 현재 값 */
+    private float renderJointPosition(URDFJoint joint) {
+        if (pose != null) {
+            int i = poseBuffer.indexOf(joint);
+            if (i >= 0) return pose.jointPositions[i];
+        }
+        return joint.currentPosition;
+    }
+
+    /** 조인트 축 (정규화, 없거나 0이면 +X) → axisScratch */
+    private Vector3f jointAxis(URDFJoint joint) {
+        Vector3f axis = axisScratch;
+        if (joint.axis == null || joint.axis.xyz == null ||
+                joint.axis.xyz.lengthSquared() < 1e-12f) {
+            return axis.set(1, 0, 0);
+        }
+        return axis.set(joint.axis.xyz).normalize();
+    }
+
+    private void applyJointMotion(URDFJoint joint, Matrix4f m, Matrix3f n) {
+        if (joint == null) return;
+        float position = renderJointPosition(joint);
+
+        switch (joint.type) {
+            case REVOLUTE:
+            case CONTINUOUS: {
+                Vector3f axis = jointAxis(joint);
+                rotate(m, n, quatScratch.rotationAxis(position, axis.x, axis.y, axis.z));
+                break;
+            }
+            case PRISMATIC: {
+                Vector3f axis = jointAxis(joint);
+                m.translate(axis.x * position, axis.y * position, axis.z * position);
+                break;
+            }
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.kAIS.KAIMyEntity.urdf;
+
+/**
+ * URDF 로봇 거리 기반 LOD 설정 (카메라 ↔ 로봇, 블록 단위)
+ *
+ * - NEAR : near 거리 이내 → 전체 품질
+ * - MID  : near ~ far
+ * - FAR  : far 거리 이상 → 렌더는 임포스터(카메라를 향한 사각형)로 대체
+ *
+ * 시뮬레이션 LOD (렌더 LOD와 같은 near/far 거리 - 보이는 품질과 시뮬레이션 품질이 같은 지점에서 바뀜):
+ * - NEAR : 전체 물리 (설정된 백엔드, 전체 스텝 속도)
+ * - MID  : 키네마틱 백엔드로 전환, 1/simMidRateDivisor 속도로 스텝 (시뮬레이션 스레드/틱 구동 모두)
+ * - FAR  : 모션 재생(목표값)만 따라감, 동역학 없음
+ *
+ * 단계 경계에서 매 프레임 깜빡이지 않도록 되돌아갈 때는 HYSTERESIS 비율만큼 더 가까워져야 한다.
+ * 값은 로더 config에서 주입되며 (setThresholds 등), 렌더/틱 어느 스레드에서 읽어도 된다.
+ */
+public final class URDFLodSettings {
+
+    public enum Tier { NEAR, MID, FAR }
+
+    /** 단계를 내려갈(가까워질) 때 적용하는 거리 여유 비율 */
+    private static final float HYSTERESIS = 0.9f;
+
+    private static volatile float nearDistance = 24f;
+    private static volatile float farDistance = 64f;
+
+    private static volatile boolean impostorsEnabled = true;
+    private static volatile int impostorViews = 8;
+    private static volatile int impostorResolution = 128;
+
+    private static volatile boolean simulationLodEnabled = true;
+    private static volatile int simMidRateDivisor = 2;
+    /** FAR 단계는 MID보다 이 배수만큼 더 드물게 갱신 */
+    private static final int SIM_FAR_RATE_FACTOR = 4;
+
+    private URDFLodSettings() { }
+
+    public static float getNearDistance() {
+        return nearDistance;
+    }
+
+    public static float getFarDistance() {
+        return farDistance;
+    }
+
+    /** near/far 거리 설정 (far는 항상 near 이상으로 보정) */
+    public static void setThresholds(float near, float far) {
+        float n = Math.max(0f, near);
+        nearDistance = n;
+        farDistance = Math.max(n, far);
+    }
+
+    public static boolean isImpostorsEnabled() {
+        return impostorsEnabled;
+    }
+
+    public static void setImpostorsEnabled(boolean enabled) {
+        impostorsEnabled = enabled;
+    }
+
+    /** 임포스터 시점 수 (수평 방향 등분) */
+    public static int getImpostorViews() {
+        return impostorViews;
+    }
+
+    public static void setImpostorViews(int views) {
+        impostorViews = Math.max(1, Math.min(views, 16));
+    }
+
+    /** 임포스터 시점 하나의 해상도 (px) */
+    public static int getImpostorResolution() {
+        return impostorResolution;
+    }
+
+    public static void setImpostorResolution(int px) {
+        impostorResolution = Math.max(32, Math.min(px, 512));
+    }
+
+    // ========== 시뮬레이션 LOD ==========
+
+    public static boolean isSimulationLodEnabled() {
+        return simulationLodEnabled;
+    }
+
+    public static void setSimulationLodEnabled(boolean enabled) {
+        simulationLodEnabled = enabled;
+    }
+
+    /** MID 단계 스텝 간격 (2 = 절반 속도, 4 = 1/4 속도) */
+    public static int getSimMidRateDivisor() {
+        return simMidRateDivisor;
+    }
+
+    public static void setSimMidRateDivisor(int divisor) {
+        simMidRateDivisor = divisor >= 4 ? 4 : 2;
+    }
+
+    /** 단계별 스텝 간격 (NEAR = 1) */
+    public static int simRateDivisor(Tier tier) {
+        switch (tier) {
+            case MID:
+                return simMidRateDivisor;
+            case FAR:
+                return simMidRateDivisor * SIM_FAR_RATE_FACTOR;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * 거리 제곱으로 단계 판정
+     * @param previous 직전 단계 (없으면 null) → 가까워지는 방향에만 히스테리시스 적용
+     */
+    public static Tier tierFor(double distanceSq, Tier previous) {
+        return tierFor(distanceSq, previous, nearDistance, farDistance);
+    }
+
+    /** 시뮬레이션 LOD 단계 판정 - 렌더와 같은 거리 (꺼져 있으면 항상 NEAR) */
+    public static Tier simTierFor(double distanceSq, Tier previous) {
+        if (!simulationLodEnabled) return Tier.NEAR;
+        return tierFor(distanceSq, previous, nearDistance, farDistance);
+    }
+
+    private static Tier tierFor(double distanceSq, Tier previous, float near, float far) {
+        float farIn = (previous == Tier.FAR) ? far * HYSTERESIS : far;
+        if (distanceSq >= (double) farIn * farIn) return Tier.FAR;
+
+        float nearIn = (previous == Tier.FAR || previous == Tier.MID) ? near * HYSTERESIS : near;
+        if (distanceSq >= (double) nearIn * nearIn) return Tier.MID;
+
+        return Tier.NEAR;
+    }
+}
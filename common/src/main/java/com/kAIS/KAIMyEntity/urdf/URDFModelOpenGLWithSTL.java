@@ -1,23 +1,34 @@
 package com.kAIS.KAIMyEntity.urdf;
 
 import com.kAIS.KAIMyEntity.renderer.IMMDModel;
+import com.kAIS.KAIMyEntity.urdf.control.URDFPhysicsBackend;
+import com.kAIS.KAIMyEntity.urdf.control.URDFPhysicsSnapshot;
 import com.kAIS.KAIMyEntity.urdf.control.URDFSimpleController;
 import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.blaze3d.vertex.PoseStack;
 import com.mojang.blaze3d.vertex.VertexConsumer;
 import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.LightTexture;
 import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.texture.OverlayTexture;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.Mth;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.phys.Vec3;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.joml.Matrix3f;
 import org.joml.Matrix4f;
 import org.joml.Quaternionf;
 import org.joml.Vector3f;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -34,11 +45,52 @@ public class URDFModelOpenGLWithSTL implements IMMDModel {
     private final URDFSimpleController controller;
     private final Map<String, STLLoader.STLMesh> meshCache = new HashMap<>();
 
+    // 틱 ↔ 프레임 보간 (틱 끝에 발행된 스냅샷만 렌더에서 읽음)
+    private final URDFPoseBuffer poseBuffer;
+    private final URDFPoseBuffer.Pose renderPose;
+    private boolean renderPoseValid = false;
+
     // 렌더 전용 스케일 (물리는 1블록 = 1m 기준으로 동작)
     // 물리 스케일과 맞추려면 1.0f, 시각적으로만 크게 보이고 싶으면 5.0f 등으로 조정
     private static final float GLOBAL_SCALE = 1.0f;
 
-    private static final boolean FLIP_NORMALS = true;
+    private static final ResourceLocation WHITE_TEXTURE =
+            ResourceLocation.parse("minecraft:textures/misc/white.png");
+
+    // 머티리얼: 로봇당 텍스처 아틀라스 1장 → 불투명/반투명 RenderType 최대 2개
+    // (엔티티 패스용, 컬링 없음 → RenderSystem.disableCull 토글 불필요)
+    private URDFTextureAtlas atlas;
+    private RenderType opaqueType;
+    private RenderType translucentType;
+    private boolean hasTranslucentDraws = false;
+    private final Map<String, URDFLinkTreeRenderer.LinkDraw> linkDraws = new HashMap<>();
+    // 링크 트리 순회 (깊이별 행렬 슬롯 재사용, 프레임당 할당 없음)
+    private final URDFLinkTreeRenderer linkTree;
+
+    // 렌더 경로 스크래치 (프레임당 할당 없음)
+    private final Vector3f rootOffsetScratch = new Vector3f();
+    private final Quaternionf quatScratch = new Quaternionf();
+    private final float[] rootQuatScratch = new float[4];
+    private final float[] rootLocalScratch = new float[3];
+
+    // 원거리 임포스터 (URDFLodSettings의 FAR 단계에서 사용)
+    private final URDFImpostor impostor;
+    private URDFLodSettings.Tier lodTier = URDFLodSettings.Tier.NEAR;
+
+    // 시뮬레이션 LOD (카메라 ↔ 마지막 렌더 루트 위치, 클라이언트 틱에서 판정)
+    private volatile URDFLodSettings.Tier simTier = URDFLodSettings.Tier.NEAR;
+    private URDFPhysicsBackend.Kind fullBackend;   // MID/FAR에서 NEAR로 돌아갈 때 복귀할 백엔드
+    private int simStepCounter = 0;
+    private boolean simPoseDirty = true;           // 마지막 발행 이후 스텝했는지 (시뮬레이션 스레드)
+    private double lodRootX, lodRootY, lodRootZ;
+    private boolean lodRootValid = false;
+
+    /** true면 컨트롤러 스텝/포즈 발행은 URDFSimulationThread가 담당 */
+    private volatile boolean simulationOwned = false;
+
+    private static final String REST_POINT_FILE = "physics_rest.bin";
+    private boolean restPointSaved = false;
+
     private static final boolean DEBUG_MODE = false;
 
     /**
@@ -70,6 +122,7 @@ public class URDFModelOpenGLWithSTL implements IMMDModel {
         OTHER
     }
 
+
     private static final class JointControlState {
         private boolean manualLocked = false;
         private long manualLockExpiresAt = 0L;
@@ -115,23 +168,31 @@ public class URDFModelOpenGLWithSTL implements IMMDModel {
     public URDFModelOpenGLWithSTL(URDFModel robotModel, String modelDir) {
         this.robotModel = robotModel;
         this.modelDir = modelDir;
+        this.poseBuffer = new URDFPoseBuffer(robotModel.joints);
+        this.renderPose = poseBuffer.newPose();
+        this.linkTree = new URDFLinkTreeRenderer(robotModel, poseBuffer, linkDraws);
 
         initJointNameMapping();
 
-        // 물리 모드 켜서 컨트롤러 생성 (ODE4J + BlockCollisionManager 사용)
+        // 물리 모드 켜서 컨트롤러 생성 (ODE4J + URDFBlockCollisionCache 영역 사용)
         this.controller = new URDFSimpleController(
                 robotModel,
                 robotModel.joints,
                 true,
                 jointNameMapping
         );
+        // 동역학 백엔드는 루트 회전을 렌더와 같은 ROS→MC 기준으로 내보냄
+        controller.setUprightRotation(Q_ROS2MC);
 
-        logger.info("=== URDFSimpleController created (physics mode: {}) ===",
-                controller.isUsingPhysics());
+        logger.info("=== URDFSimpleController created (physics mode: {}, backend: {}) ===",
+                controller.isUsingPhysics(), controller.getBackendKind());
 
         logger.info("=== URDF renderer Created (Scale: {}) ===", GLOBAL_SCALE);
 
         loadAllMeshes();
+        initMaterials();
+        this.impostor = new URDFImpostor(robotModel.name, estimateVisualExtent(), this::drawForImpostor);
+        loadRestPoint();
         // STL 기반 groundOffset 보정은 제거 (물리/렌더 좌표 일치시키기 위함)
         // calculateGroundOffset();
     }
@@ -168,6 +229,117 @@ public class URDFModelOpenGLWithSTL implements IMMDModel {
                 loadedCount, robotModel.getLinkCount());
     }
 
+    /**
+     * 머티리얼 텍스처를 아틀라스로 패킹하고 링크별 draw 정보(색, UV, 버킷)를 만든다.
+     * STL에는 UV가 없으므로 삼각형 법선의 주축 방향 평면 투영으로 생성 후 아틀라스 영역으로 리맵.
+     */
+    private void initMaterials() {
+        atlas = URDFTextureAtlas.build(robotModel.name, robotModel);
+        ResourceLocation tex = atlas.hasTextures() ? atlas.getLocation() : WHITE_TEXTURE;
+        opaqueType = RenderType.entityCutoutNoCull(tex);
+        translucentType = RenderType.entityTranslucent(tex);
+
+        linkDraws.clear();
+        hasTranslucentDraws = false;
+        int textured = 0;
+
+        for (URDFLink link : robotModel.links) {
+            STLLoader.STLMesh mesh = meshCache.get(link.name);
+            if (mesh == null || link.visual == null) continue;
+
+            int r = 220, g = 220, b = 220, a = 255;
+            String texFile = null;
+            URDFLink.Material mat = link.visual.material;
+            if (mat != null) {
+                if (mat.color != null) {
+                    r = (int) (mat.color.x * 255);
+                    g = (int) (mat.color.y * 255);
+                    b = (int) (mat.color.z * 255);
+                    a = (int) (mat.color.w * 255);
+                }
+                texFile = mat.textureFilename;
+            }
+
+            URDFTextureAtlas.Region region = atlas.get(texFile);
+            if (region != atlas.white()) textured++;
+
+            boolean translucent = a < 255;
+            hasTranslucentDraws |= translucent;
+            linkDraws.put(link.name, new URDFLinkTreeRenderer.LinkDraw(mesh, r, g, b, a, translucent, projectUVs(mesh, region)));
+        }
+
+        logger.info("=== Materials: {} draws ({} textured, atlas textures: {}, translucent bucket: {}) ===",
+                linkDraws.size(), textured, atlas.getTextureCount(), hasTranslucentDraws);
+    }
+
+    /**
+     * 임포스터 캡처 반경 추정: 루트에서 조인트 오프셋 + 메쉬 바운드를 누적한 최대 도달 거리
+     * (관절 운동 범위 여유로 10% 확대)
+     */
+    private float estimateVisualExtent() {
+        float reach = linkReach(robotModel.rootLinkName, 0);
+        return Math.max(0.5f, reach * GLOBAL_SCALE * 1.1f);
+    }
+
+    private float linkReach(String linkName, int depth) {
+        if (linkName == null || depth > 64) return 0f;
+        float reach = 0f;
+        STLLoader.STLMesh mesh = meshCache.get(linkName);
+        URDFLink link = robotModel.getLink(linkName);
+        if (mesh != null) {
+            Vector3f min = mesh.minBounds;
+            Vector3f max = mesh.maxBounds;
+            float mx = Math.max(Math.abs(min.x), Math.abs(max.x));
+            float my = Math.max(Math.abs(min.y), Math.abs(max.y));
+            float mz = Math.max(Math.abs(min.z), Math.abs(max.z));
+            reach = (float) Math.sqrt(mx * mx + my * my + mz * mz);
+            if (link != null && link.visual != null && link.visual.origin != null) {
+                reach += link.visual.origin.xyz.length();
+            }
+        }
+        for (URDFJoint child : robotModel.getChildJoints(linkName)) {
+            float offset = child.origin != null ? child.origin.xyz.length() : 0f;
+            if (child.type == URDFJoint.JointType.PRISMATIC && child.limit != null) {
+                offset += Math.max(Math.abs(child.limit.lower), Math.abs(child.limit.upper));
+            }
+            reach = Math.max(reach, offset + linkReach(child.childLinkName, depth + 1));
+        }
+        return reach;
+    }
+
+    private static float[] projectUVs(STLLoader.STLMesh mesh, URDFTextureAtlas.Region region) {
+        float[] uvs = new float[mesh.triangles.size() * 6];
+        Vector3f min = mesh.minBounds;
+        Vector3f max = mesh.maxBounds;
+        float sx = Math.max(max.x - min.x, 1e-6f);
+        float sy = Math.max(max.y - min.y, 1e-6f);
+        float sz = Math.max(max.z - min.z, 1e-6f);
+
+        int k = 0;
+        for (STLLoader.Triangle tri : mesh.triangles) {
+            float ax = Math.abs(tri.normal.x);
+            float ay = Math.abs(tri.normal.y);
+            float az = Math.abs(tri.normal.z);
+            for (int i = 0; i < 3; i++) {
+                Vector3f v = tri.vertices[i];
+                float lu, lv;
+                if (ax >= ay && ax >= az) {
+                    lu = (v.y - min.y) / sy;
+                    lv = (v.z - min.z) / sz;
+                } else if (ay >= az) {
+                    lu = (v.x - min.x) / sx;
+                    lv = (v.z - min.z) / sz;
+                } else {
+                    lu = (v.x - min.x) / sx;
+                    lv = (v.y - min.y) / sy;
+                }
+                uvs[k++] = region.u(lu);
+                uvs[k++] = region.v(1f - lv);
+            }
+        }
+        return uvs;
+    }
+
     // ========================================================================
     // 조인트 이름 매핑
     // ========================================================================
@@ -224,13 +396,169 @@ public class URDFModelOpenGLWithSTL implements IMMDModel {
      */
     public void tickUpdate(float dt, Entity entity) {
         if (controller != null) {
+            updateSimulationLod();
             if (entity != null) {
                 controller.setWorldContext(entity.level(), entity.position());
             }
-            controller.update(dt);
+            persistRestPointOnce();
+            if (simulationOwned) {
+                // 스텝은 시뮬레이션 스레드 담당 → 여기서는 Level 접근이 필요한 블록 충돌 캡처만
+                // (섹션 스냅샷만 넘기고 geom은 시뮬레이션 스레드가 만듦 → WORLD_LOCK 불필요)
+                controller.updateBlockCollision(entity != null ? entity.position() : null);
+                return;
+            }
+            // 시뮬레이션 스레드와 같은 간격으로 솎아냄 (건너뛴 틱은 직전 포즈 유지)
+            stepAtTier(dt);
         }
     }
 
+    // ========================================================================
+    // 시뮬레이션 LOD
+    // ========================================================================
+
+    /**
+     * 카메라 거리로 시뮬레이션 단계 갱신 (클라이언트 틱)
+     * NEAR를 벗어나면 키네마틱 백엔드로, 돌아오면 원래 백엔드로 교체.
+     * 조인트 상태는 조인트 테이블에 남으므로 포즈는 이어지고, 물리로 돌아올 때는 다시 앵커링한다.
+     */
+    private void updateSimulationLod() {
+        if (!lodRootValid) return;
+        Vec3 cam = Minecraft.getInstance().gameRenderer.getMainCamera().getPosition();
+        double dx = cam.x - lodRootX;
+        double dy = cam.y - lodRootY;
+        double dz = cam.z - lodRootZ;
+        URDFLodSettings.Tier previous = simTier;
+        URDFLodSettings.Tier next = URDFLodSettings.simTierFor(dx * dx + dy * dy + dz * dz, previous);
+        if (next == previous) return;
+
+        if (previous == URDFLodSettings.Tier.NEAR) {
+            URDFPhysicsBackend.Kind kind = controller.getBackendKind();
+            if (kind != URDFPhysicsBackend.Kind.KINEMATIC) {
+                fullBackend = kind;
+                controller.switchBackend(URDFPhysicsBackend.Kind.KINEMATIC);
+            }
+        } else if (next == URDFLodSettings.Tier.NEAR && fullBackend != null) {
+            controller.switchBackend(fullBackend);
+            fullBackend = null;
+        }
+        simStepCounter = 0;
+        simTier = next;
+        logger.debug("URDF simulation LOD {} -> {} ({})", previous, next, controller.getBackendKind());
+    }
+
+    public URDFLodSettings.Tier getSimulationTier() {
+        return simTier;
+    }
+
+    // ========================================================================
+    // 물리 rest point 저장/로드 (재접속 시 안착 과정 생략)
+    // ========================================================================
+
+    private Path restPointFile() {
+        return modelDir != null ? Paths.get(modelDir, REST_POINT_FILE) : null;
+    }
+
+    private void loadRestPoint() {
+        Path file = restPointFile();
+        if (controller == null || !controller.isUsingPhysics() || file == null || !Files.isRegularFile(file)) return;
+        try {
+            controller.setSpawnSnapshot(URDFPhysicsSnapshot.readFrom(file));
+            restPointSaved = true;
+            logger.info("Loaded physics rest point: {}", file);
+        } catch (IOException e) {
+            logger.warn("Failed to load physics rest point {}: {}", file, e.getMessage());
+        }
+    }
+
+    /** 처음 안정 상태가 잡히면 한 번만 디스크에 기록 (클라이언트 틱) */
+    private void persistRestPointOnce() {
+        if (restPointSaved) return;
+        URDFPhysicsSnapshot rp = controller.getRestPoint();
+        Path file = restPointFile();
+        if (rp == null || file == null) return;
+        restPointSaved = true;
+        try {
+            rp.writeTo(file);
+            logger.info("Saved physics rest point: {}", file);
+        } catch (IOException e) {
+            logger.warn("Failed to save physics rest point {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * 시뮬레이션 스레드 소유 전환 (URDFSimulationThread.register/unregister에서 호출)
+     * on이면 컨트롤러 입력은 메일박스 경유, 포즈 발행은 시뮬레이션 스텝 경계 시각으로 한다.
+     */
+    void setSimulationOwned(boolean owned) {
+        if (controller != null) {
+            controller.setAsyncInputs(owned);
+        }
+        simulationOwned = owned;
+    }
+
+    public boolean isSimulationOwned() {
+        return simulationOwned;
+    }
+
+    /** 로봇 루트 기준 대략적인 반경 (블록) - 섬 분할/임포스터 크기용 */
+    public float getBoundingRadius() {
+        return impostor.getExtent();
+    }
+
+    /** 시뮬레이션 스레드 고정 스텝 (WORLD_LOCK 안에서 호출됨) */
+    void simulationStep(float dt) {
+        if (controller == null) return;
+        // 발행도 스텝했을 때만 → 렌더는 스텝 시각 사이를 보간
+        if (stepAtTier(dt)) simPoseDirty = true;
+    }
+
+    /**
+     * MID/FAR: 단계별 간격마다 누적 dt로 한 번 스텝 (NEAR는 매번).
+     * 시뮬레이션 스레드와 틱 구동이 같이 쓰지만 simulationOwned로 어느 한쪽만 호출한다.
+     * @return 이번에 스텝했으면 true
+     */
+    private boolean stepAtTier(float dt) {
+        URDFLodSettings.Tier tier = simTier;
+        int divisor = URDFLodSettings.simRateDivisor(tier);
+        if (divisor > 1 && ++simStepCounter < divisor) return false;
+        simStepCounter = 0;
+
+        if (tier == URDFLodSettings.Tier.FAR) controller.followTargets();
+        else controller.update(dt * divisor);
+        return true;
+    }
+
+    /** 시뮬레이션 스레드: 스텝 경계 시각으로 스냅샷 발행 (WORLD_LOCK 안에서 호출됨) */
+    void commitSimulationPose(long timeNanos) {
+        // 공유 월드 물리 로봇은 simulationStep을 거치지 않으므로 NEAR는 항상 발행
+        if (simTier != URDFLodSettings.Tier.NEAR && !simPoseDirty) return;
+        simPoseDirty = false;
+        if (controller != null && controller.isUsingPhysics()) {
+            poseBuffer.commit(controller.getRootBodyWorldPosition(),
+                    controller.getRootBodyWorldQuaternionWXYZ(), timeNanos);
+        } else {
+            poseBuffer.commit(null, null, timeNanos);
+        }
+    }
+
+    /**
+     * 틱 종료 시 호출 (컨트롤러 업데이트 + 입력 적용이 모두 끝난 뒤).
+     * 현재 조인트/루트 상태를 스냅샷으로 발행해서 렌더가 tickDelta로 보간하게 한다.
+     */
+    public void commitTickPose() {
+        if (simulationOwned) return; // 시뮬레이션 스레드가 발행
+        if (controller != null && controller.isUsingPhysics()) {
+            poseBuffer.commit(controller.getRootBodyWorldPosition(),
+                    controller.getRootBodyWorldQuaternionWXYZ());
+        } else {
+            poseBuffer.commit(null, null);
+        }
+    }
+
+    public URDFPoseBuffer getPoseBuffer() {
+        return poseBuffer;
+    }
+
     // ========================================================================
     // 조인트 제어 유틸
     // ========================================================================
@@ -445,10 +773,31 @@ public class URDFModelOpenGLWithSTL implements IMMDModel {
     // 렌더링
     // ========================================================================
 
+    /**
+     * 레거시 경로: 호출측 버퍼 소스가 없으므로 전역 버퍼에 기록한 뒤 직접 flush.
+     */
     @Override
     public void Render(Entity entityIn, float entityYaw, float entityPitch,
                        Vector3f entityTrans, float tickDelta, PoseStack poseStack, int packedLight) {
+        MultiBufferSource.BufferSource bufferSource =
+                Minecraft.getInstance().renderBuffers().bufferSource();
+        renderToBufferSource(entityIn, entityYaw, entityPitch, entityTrans, tickDelta,
+                poseStack, bufferSource, packedLight, OverlayTexture.NO_OVERLAY);
+        bufferSource.endBatch(opaqueType);
+        if (hasTranslucentDraws) {
+            bufferSource.endBatch(translucentType);
+        }
+    }
 
+    /**
+     * ✅ 엔티티 패스의 MultiBufferSource에 버텍스만 기록한다 (flush / RenderSystem 상태 토글 없음).
+     * 같은 RenderType을 쓰는 로봇들은 한 버퍼에 모였다가 엔티티 패스가 끝날 때 한 번에 그려진다.
+     * draw는 RenderType 순서(불투명 → 반투명)로 정렬되어 로봇당 배치는 최대 2개.
+     */
+    @Override
+    public void renderToBufferSource(Entity entityIn, float entityYaw, float entityPitch,
+                                     Vector3f entityTrans, float tickDelta, PoseStack poseStack,
+                                     MultiBufferSource buffers, int packedLight, int overlay) {
         renderCount++;
 
         // 컨트롤러에 월드 컨텍스트 전달 (블록 충돌/물리에서 사용)
@@ -463,35 +812,73 @@ public class URDFModelOpenGLWithSTL implements IMMDModel {
                     renderCount, GLOBAL_SCALE, isUsingPhysics());
         }
 
-        RenderSystem.enableBlend();
-        RenderSystem.defaultBlendFunc();
-        RenderSystem.enableDepthTest();
-        RenderSystem.disableCull();
-
-        MultiBufferSource.BufferSource bufferSource =
-                Minecraft.getInstance().renderBuffers().bufferSource();
-        VertexConsumer vc = bufferSource.getBuffer(RenderType.solid());
+        // 이전/현재 틱 스냅샷 보간 (발행 전이면 URDFJoint 값으로 폴백)
+        // 시뮬레이션 스레드 구동 시에는 발행 간격만큼 늦게 (sampleAt이 지연 포함) → 두 발행 스냅샷 사이를 보간
+        if (simulationOwned) {
+            renderPoseValid = poseBuffer.sampleAt(System.nanoTime(), renderPose);
+        } else {
+            renderPoseValid = poseBuffer.sample(tickDelta, renderPose);
+        }
 
         if (robotModel.rootLinkName != null) {
-            poseStack.pushPose();
+            // 보간된 엔티티 위치 (poseStack 원점)
+            double ex = 0.0, ey = 0.0, ez = 0.0;
+            if (entityIn != null) {
+                ex = Mth.lerp(tickDelta, entityIn.xo, entityIn.getX());
+                ey = Mth.lerp(tickDelta, entityIn.yo, entityIn.getY());
+                ez = Mth.lerp(tickDelta, entityIn.zo, entityIn.getZ());
+            }
 
-            Vector3f rootOffset = entityTrans != null ? new Vector3f(entityTrans) : new Vector3f();
-            if (controller != null) {
-                if (controller.isUsingPhysics()) {
+            Vector3f rootOffset = rootOffsetScratch;
+            if (entityTrans != null) rootOffset.set(entityTrans);
+            else rootOffset.zero();
+
+            boolean physicsRoot = controller != null && controller.isUsingPhysics();
+            if (physicsRoot) {
+                if (renderPoseValid && renderPose.hasRoot && entityIn != null) {
+                    // poseStack 원점 = 보간된 엔티티 위치 → 보간된 루트 위치와의 차이만 적용
+                    rootOffset.add(
+                            (float) (renderPose.rootX - ex),
+                            (float) (renderPose.rootY - ey),
+                            (float) (renderPose.rootZ - ez));
+                } else {
                     Vec3 baseWorldPos = entityIn != null ? entityIn.position() : null;
-                    float[] rootLocal = controller.getRootLinkLocalPosition(baseWorldPos);
-                    if (rootLocal != null && rootLocal.length >= 3) {
+                    float[] rootLocal = rootLocalScratch;
+                    if (controller.getRootLinkLocalPosition(baseWorldPos, rootLocal)) {
                         rootOffset.add(rootLocal[0], rootLocal[1], rootLocal[2]);
                     }
                 }
             }
 
-            poseStack.translate(rootOffset.x(), rootOffset.y(), rootOffset.z());
+            if (entityIn != null) {
+                // 시뮬레이션 LOD 거리 기준 (다음 클라이언트 틱에서 사용)
+                lodRootX = ex + rootOffset.x();
+                lodRootY = ey + rootOffset.y();
+                lodRootZ = ez + rootOffset.z();
+                lodRootValid = true;
+            }
+
+            // 원거리: 캡처해 둔 임포스터 사각형 하나로 대체
+            if (entityIn != null && renderImpostorIfFar(entityIn,
+                    ex + rootOffset.x(), ey + rootOffset.y(), ez + rootOffset.z(),
+                    physicsRoot, poseStack, buffers, packedLight, overlay)) {
+                return;
+            }
+
+            // 루트 변환은 poseStack을 push하지 않고 순회용 루트 슬롯에 바로 적용
+            PoseStack.Pose base = poseStack.last();
+            Matrix4f m = linkTree.rootPose().set(base.pose());
+            Matrix3f n = linkTree.rootNormal().set(base.normal());
+            m.translate(rootOffset.x(), rootOffset.y(), rootOffset.z());
 
             // ✅ PATCH: 물리 루트 바디 회전(roll/pitch 포함)을 렌더에 반영
-            if (controller != null && controller.isUsingPhysics()) {
-                float[] qWxyz = controller.getRootBodyWorldQuaternionWXYZ();
-                if (qWxyz != null && qWxyz.length >= 4) {
+            if (physicsRoot) {
+                if (renderPoseValid && renderPose.hasRoot) {
+                    m.rotate(renderPose.rootRotation);
+                    n.rotate(renderPose.rootRotation);
+                } else {
+                    float[] qWxyz = rootQuatScratch;
+                    controller.getRootBodyWorldQuaternionWXYZ(qWxyz);
                     float w = qWxyz[0];
                     float x = qWxyz[1];
                     float y = qWxyz[2];
@@ -499,166 +886,80 @@ public class URDFModelOpenGLWithSTL implements IMMDModel {
 
                     if (Float.isFinite(w) && Float.isFinite(x) && Float.isFinite(y) && Float.isFinite(z)) {
                         // JOML Quaternionf는 (x,y,z,w) 순서
-                        Quaternionf qPhys = new Quaternionf(x, y, z, w).normalize();
-                        poseStack.mulPose(qPhys);
+                        Quaternionf qPhys = quatScratch.set(x, y, z, w).normalize();
+                        m.rotate(qPhys);
+                        n.rotate(qPhys);
                     }
                 }
             }
 
-            // ROS → Minecraft 좌표계 회전 (기존 유지)
-            poseStack.mulPose(new Quaternionf(Q_ROS2MC));
-
-            // 메쉬 스케일
-            poseStack.scale(GLOBAL_SCALE, GLOBAL_SCALE, GLOBAL_SCALE);
-
-            renderLinkRecursive(robotModel.rootLinkName, poseStack, vc, packedLight);
-            poseStack.popPose();
+            renderRobotTree(buffers, packedLight, overlay);
         }
-
-        bufferSource.endBatch(RenderType.solid());
-        RenderSystem.enableCull();
     }
 
-    private void renderLinkRecursive(String linkName, PoseStack poseStack,
-                                     VertexConsumer vc, int packedLight) {
-        URDFLink link = robotModel.getLink(linkName);
-        if (link == null) return;
-
-        poseStack.pushPose();
-
-        if (link.visual != null) {
-            renderVisual(link, poseStack, vc, packedLight);
-        }
-
-        for (URDFJoint childJoint : robotModel.getChildJoints(linkName)) {
-            poseStack.pushPose();
-            applyJointTransform(childJoint, poseStack);
-            renderLinkRecursive(childJoint.childLinkName, poseStack, vc, packedLight);
-            poseStack.popPose();
-        }
-
-        poseStack.popPose();
-    }
-
-    private void renderVisual(URDFLink link, PoseStack poseStack,
-                              VertexConsumer vc, int packedLight) {
-        if (link.visual == null || link.visual.geometry == null) return;
-
-        poseStack.pushPose();
-
-        if (link.visual.origin != null) {
-            applyLinkOriginTransform(link.visual.origin, poseStack);
-        }
-
-        STLLoader.STLMesh mesh = meshCache.get(link.name);
-        if (mesh != null) {
-            renderMesh(mesh, link, poseStack, vc, packedLight);
+    /**
+     * 링크 트리 루트 슬롯에 루트 위치/회전이 들어있는 상태에서 ROS→MC 보정 + 스케일 후 링크 트리를 그린다.
+     * RenderType별로 트리를 한 번씩 순회 (버퍼를 번갈아 열면 공유 버퍼가 flush됨)
+     */
+    private void renderRobotTree(MultiBufferSource buffers, int packedLight, int overlay) {
+        // ROS → Minecraft 좌표계 회전 (기존 유지)
+        linkTree.rootPose().rotate(Q_ROS2MC);
+        linkTree.rootNormal().rotate(Q_ROS2MC);
+
+        // 메쉬 스케일 (양의 균일 스케일 → 법선 행렬 변화 없음)
+        linkTree.rootPose().scale(GLOBAL_SCALE);
+
+        URDFPoseBuffer.Pose pose = renderPoseValid ? renderPose : null;
+        VertexConsumer vc = buffers.getBuffer(opaqueType);
+        linkTree.render(vc, pose, false, packedLight, overlay);
+        if (hasTranslucentDraws) {
+            VertexConsumer tvc = buffers.getBuffer(translucentType);
+            linkTree.render(tvc, pose, true, packedLight, overlay);
         }
-
-        poseStack.popPose();
     }
 
-    private void renderMesh(STLLoader.STLMesh mesh, URDFLink link,
-                            PoseStack poseStack, VertexConsumer vc, int packedLight) {
-        Matrix4f matrix = poseStack.last().pose();
-
-        int r = 220, g = 220, b = 220, a = 255;
-        if (link.visual.material != null && link.visual.material.color != null) {
-            URDFLink.Material.Vector4f color = link.visual.material.color;
-            r = (int) (color.x * 255);
-            g = (int) (color.y * 255);
-            b = (int) (color.z * 255);
-            a = (int) (color.w * 255);
-        }
-
-        int blockLight = Math.max((packedLight & 0xFFFF), 0xA0);
-        int skyLight   = Math.max((packedLight >> 16) & 0xFFFF, 0xA0);
-
-        for (STLLoader.Triangle tri : mesh.triangles) {
-            for (int i = 2; i >= 0; i--) {
-                Vector3f v = tri.vertices[i];
-                Vector3f n = tri.normal;
-
-                float nx = FLIP_NORMALS ? -n.x : n.x;
-                float ny = FLIP_NORMALS ? -n.y : n.y;
-                float nz = FLIP_NORMALS ? -n.z : n.z;
-
-                vc.addVertex(matrix, v.x, v.y, v.z)
-                        .setColor(r, g, b, a)
-                        .setUv(0.5f, 0.5f)
-                        .setUv2(blockLight, skyLight)
-                        .setNormal(nx, ny, nz);
-            }
+    /**
+     * 카메라 거리로 LOD 단계를 갱신하고, FAR이면 임포스터를 그린다.
+     * @return 임포스터로 그렸으면 true (첫 캡처 전이면 false → 전체 렌더)
+     */
+    private boolean renderImpostorIfFar(Entity entityIn, double rootX, double rootY, double rootZ,
+                                        boolean physicsRoot, PoseStack poseStack,
+                                        MultiBufferSource buffers, int packedLight, int overlay) {
+        if (!URDFLodSettings.isImpostorsEnabled()) {
+            lodTier = URDFLodSettings.Tier.NEAR;
+            return false;
         }
-    }
-
-    // ========================================================================
-    // 변환 유틸
-    // ========================================================================
 
-    private void applyLinkOriginTransform(URDFLink.Origin origin, PoseStack poseStack) {
-        poseStack.translate(origin.xyz.x, origin.xyz.y, origin.xyz.z);
-        if (origin.rpy.x != 0f || origin.rpy.y != 0f || origin.rpy.z != 0f) {
-            poseStack.mulPose(origin.getQuaternion());
-        }
-    }
+        Vec3 cam = Minecraft.getInstance().gameRenderer.getMainCamera().getPosition();
+        double dx = cam.x - rootX;
+        double dy = cam.y - rootY;
+        double dz = cam.z - rootZ;
+        lodTier = URDFLodSettings.tierFor(dx * dx + dy * dy + dz * dz, lodTier);
+        if (lodTier != URDFLodSettings.Tier.FAR || !renderPoseValid) return false;
 
-    private void applyJointOriginTransform(URDFJoint.Origin origin, PoseStack poseStack) {
-        poseStack.translate(origin.xyz.x, origin.xyz.y, origin.xyz.z);
-        if (origin.rpy.x != 0f || origin.rpy.y != 0f || origin.rpy.z != 0f) {
-            Quaternionf qx = new Quaternionf().rotateX(origin.rpy.x);
-            Quaternionf qy = new Quaternionf().rotateY(origin.rpy.y);
-            Quaternionf qz = new Quaternionf().rotateZ(origin.rpy.z);
-            poseStack.mulPose(qz.mul(qy).mul(qx));
-        }
-    }
+        Quaternionf rootRot = (physicsRoot && renderPose.hasRoot) ? renderPose.rootRotation : null;
+        impostor.refreshIfChanged(renderPose, rootRot, entityIn.level().getGameTime());
+        if (!impostor.isReady()) return false;
 
-    private void applyJointTransform(URDFJoint joint, PoseStack poseStack) {
-        if (joint.origin != null) {
-            applyJointOriginTransform(joint.origin, poseStack);
-        }
-        if (joint.isMovable()) {
-            applyJointMotion(joint, poseStack);
-        }
+        impostor.render(poseStack.last(), rootOffsetScratch, buffers, dx, dz, packedLight, overlay);
+        return true;
     }
 
-    private void applyJointMotion(URDFJoint joint, PoseStack poseStack) {
-        if (joint == null) return;
-
-        switch (joint.type) {
-            case REVOLUTE:
-            case CONTINUOUS: {
-                Vector3f axis;
-                if (joint.axis == null || joint.axis.xyz == null ||
-                        joint.axis.xyz.lengthSquared() < 1e-12f) {
-                    axis = new Vector3f(1, 0, 0);
-                } else {
-                    axis = new Vector3f(joint.axis.xyz);
-                    if (axis.lengthSquared() < 1e-12f) axis.set(1, 0, 0);
-                    else axis.normalize();
-                }
-                Quaternionf quat = new Quaternionf()
-                        .rotateAxis(joint.currentPosition, axis.x, axis.y, axis.z);
-                poseStack.mulPose(quat);
-                break;
-            }
-            case PRISMATIC: {
-                Vector3f axis;
-                if (joint.axis == null || joint.axis.xyz == null ||
-                        joint.axis.xyz.lengthSquared() < 1e-12f) {
-                    axis = new Vector3f(1, 0, 0);
-                } else {
-                    axis = new Vector3f(joint.axis.xyz);
-                    if (axis.lengthSquard() < 1e-12f) axis.set(1, 0, 0);
-                    else axis.normalize();
-                }
-                Vector3f t = axis.mul(joint.currentPosition);
-                poseStack.translate(t.x, t.y, t.z);
-                break;
-            }
-            default:
-                break;
+    /**
+     * 임포스터 캡처용 본체 렌더 (렌더 스레드, 프레임 시작 시)
+     * 최신 틱 포즈 + 루트 회전을 풀브라이트로 그림 → 월드 조명은 사각형에서 적용
+     */
+    private void drawForImpostor(PoseStack poseStack, MultiBufferSource buffers) {
+        renderPoseValid = poseBuffer.sample(1f, renderPose);
+
+        PoseStack.Pose base = poseStack.last();
+        linkTree.rootPose().set(base.pose());
+        linkTree.rootNormal().set(base.normal());
+        if (controller != null && controller.isUsingPhysics() && renderPoseValid && renderPose.hasRoot) {
+            linkTree.rootPose().rotate(renderPose.rootRotation);
+            linkTree.rootNormal().rotate(renderPose.rootRotation);
         }
+        renderRobotTree(buffers, LightTexture.FULL_BRIGHT, OverlayTexture.NO_OVERLAY);
     }
 
     // ========================================================================
@@ -671,9 +972,33 @@ public class URDFModelOpenGLWithSTL implements IMMDModel {
     @Override
     public void ResetPhysics() {
         logger.info("ResetPhysics called");
-        if (controller != null) {
+        if (controller != null && !controller.resetToRestPoint()) {
             controller.resetPhysics();
         }
+        poseBuffer.reset();
+        impostor.invalidate();
+    }
+
+    @Override
+    public void Dispose() {
+        // 시뮬레이션 스레드에서 빼고 (다음 스텝부터 이 로봇을 건너뜀) 공유 월드의 바디/geom/블록 영역 해제
+        // - cleanup은 WORLD_LOCK 안에서 백엔드를 정리하므로 진행 중인 월드 스텝과 겹치지 않음
+        URDFSimulationThread.getInstance().unregister(this);
+        if (controller != null) {
+            controller.cleanup();
+        }
+
+        // 임포스터 FBO/텍스처, 아틀라스 텍스처는 렌더 스레드에서 해제
+        if (RenderSystem.isOnRenderThread()) {
+            releaseGpuResources();
+        } else {
+            RenderSystem.recordRenderCall(this::releaseGpuResources);
+        }
+    }
+
+    private void releaseGpuResources() {
+        impostor.dispose();
+        if (atlas != null) atlas.close();
     }
 
     @Override
@@ -431,7 +431,12 @@ public class URDFParser {
             NodeList list = materialElement.getElementsByTagName("texture");
             if (list.getLength() > 0) texEl = (Element) list.item(0);
         }
-        if (texEl != null) material.textureFilename = safeOrLocal(texEl, "filename");
+        if (texEl != null) {
+            // 메시와 같은 규칙(package://, 상대 경로, meshes/)으로 해석
+            String rawTex = safeOrLocal(texEl, "filename");
+            String resolvedTex = resolveMeshPath(rawTex);
+            material.textureFilename = (resolvedTex != null) ? resolvedTex : rawTex;
+        }
 
         return material;
     }
@@ -0,0 +1,217 @@
+package com.kAIS.KAIMyEntity.urdf;
+
+import org.joml.Quaternionf;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 틱 ↔ 프레임 포즈 보간용 더블 버퍼
+ *
+ * - 틱 스레드: 매 틱 끝에 commit()으로 조인트/루트 상태를 불변 스냅샷으로 발행
+ * - 렌더 스레드: (이전, 현재) 스냅샷 쌍을 tickDelta로 보간해서 읽음
+ * - 시뮬레이션 스레드가 발행하는 경우: 스냅샷 시각(nanoTime) 기준으로 보간 (sampleAt)
+ *
+ * 렌더는 URDFJoint.currentPosition을 직접 읽지 않으므로, 틱 도중에 값이 바뀌어도 찢어진 포즈가 그려지지 않는다.
+ */
+public final class URDFPoseBuffer {
+
+    /** 한 틱 사이에 루트가 이 거리(블록) 이상 움직이면 보간하지 않고 스냅 (리셋/텔레포트) */
+    private static final double SNAP_DISTANCE_SQ = 4.0 * 4.0;
+
+    private final URDFJoint[] joints;
+    private final boolean[] wrapToPi;
+    private final Map<URDFJoint, Integer> indexOf = new IdentityHashMap<>();
+
+    /** 이전/현재 스냅샷 쌍. 쌍 단위로 교체해서 렌더가 항상 일관된 두 틱을 보게 함 */
+    private volatile Frame frame;
+
+    public URDFPoseBuffer(List<URDFJoint> modelJoints) {
+        this.joints = modelJoints.toArray(new URDFJoint[0]);
+        this.wrapToPi = new boolean[joints.length];
+        for (int i = 0; i < joints.length; i++) {
+            indexOf.put(joints[i], i);
+            wrapToPi[i] = joints[i].type == URDFJoint.JointType.CONTINUOUS;
+        }
+    }
+
+    /** 불변 포즈 스냅샷 (한 틱) */
+    public static final class Snapshot {
+        public final float[] jointPositions;
+        public final boolean hasRoot;
+        public final double rootX, rootY, rootZ;
+        public final float qx, qy, qz, qw;
+        /** 이 상태에 해당하는 System.nanoTime() */
+        public final long timeNanos;
+
+        Snapshot(float[] jointPositions, double[] rootWorldPos, float[] rootQuatWxyz, long timeNanos) {
+            this.jointPositions = jointPositions;
+            this.timeNanos = timeNanos;
+            this.hasRoot = rootWorldPos != null && rootWorldPos.length >= 3;
+            this.rootX = hasRoot ? rootWorldPos[0] : 0.0;
+            this.rootY = hasRoot ? rootWorldPos[1] : 0.0;
+            this.rootZ = hasRoot ? rootWorldPos[2] : 0.0;
+            if (rootQuatWxyz != null && rootQuatWxyz.length >= 4) {
+                this.qw = rootQuatWxyz[0];
+                this.qx = rootQuatWxyz[1];
+                this.qy = rootQuatWxyz[2];
+                this.qz = rootQuatWxyz[3];
+            } else {
+                this.qw = 1f;
+                this.qx = this.qy = this.qz = 0f;
+            }
+        }
+    }
+
+    private static final class Frame {
+        final Snapshot previous;
+        final Snapshot current;
+
+        Frame(Snapshot previous, Snapshot current) {
+            this.previous = previous;
+            this.current = current;
+        }
+    }
+
+    /** 렌더 측 보간 결과 (렌더러 인스턴스당 하나를 재사용) */
+    public static final class Pose {
+        public final float[] jointPositions;
+        public boolean hasRoot;
+        public double rootX, rootY, rootZ;
+        public final Quaternionf rootRotation = new Quaternionf();
+
+        public Pose(int jointCount) {
+            this.jointPositions = new float[jointCount];
+        }
+    }
+
+    public int getJointCount() {
+        return joints.length;
+    }
+
+    /** 조인트의 버퍼 인덱스 (모델에 없는 조인트면 -1) */
+    public int indexOf(URDFJoint joint) {
+        Integer i = indexOf.get(joint);
+        return i != null ? i : -1;
+    }
+
+    public Pose newPose() {
+        return new Pose(joints.length);
+    }
+
+    /**
+     * 틱 종료 시 호출: 현재 조인트 상태 + 루트 바디 월드 위치/회전을 발행
+     * @param rootWorldPos 루트 바디 월드 위치 (키네마틱이면 null)
+     * @param rootQuatWxyz 루트 바디 회전 (w,x,y,z; 키네마틱이면 null)
+     */
+    public void commit(double[] rootWorldPos, float[] rootQuatWxyz) {
+        commit(rootWorldPos, rootQuatWxyz, System.nanoTime());
+    }
+
+    /**
+     * 시각을 지정해서 발행 (고정 스텝 시뮬레이션: 마지막으로 끝난 스텝의 경계 시각)
+     */
+    public void commit(double[] rootWorldPos, float[] rootQuatWxyz, long timeNanos) {
+        float[] positions = new float[joints.length];
+        for (int i = 0; i < joints.length; i++) {
+            positions[i] = joints[i].currentPosition;
+        }
+        Snapshot next = new Snapshot(positions, rootWorldPos, rootQuatWxyz, timeNanos);
+
+        Frame f = frame;
+        Snapshot prev = (f != null) ? f.current : next;
+        if (prev.hasRoot != next.hasRoot || distanceSq(prev, next) > SNAP_DISTANCE_SQ) {
+            prev = next;
+        }
+        frame = new Frame(prev, next);
+    }
+
+    /** 리셋/리로드 후 첫 틱이 이전 포즈에서 보간되지 않도록 비움 */
+    public void reset() {
+        frame = null;
+    }
+
+    /** 가장 최근에 발행된 스냅샷 (없으면 null) */
+    public Snapshot latest() {
+        Frame f = frame;
+        return f != null ? f.current : null;
+    }
+
+    /**
+     * 두 틱 사이를 alpha(0=이전 틱, 1=현재 틱)로 보간
+     * @return 발행된 스냅샷이 없으면 false (호출측은 URDFJoint 값으로 폴백)
+     */
+    public boolean sample(float alpha, Pose out) {
+        Frame f = frame;
+        if (f == null) return false;
+        sample(f, alpha, out);
+        return true;
+    }
+
+    /**
+     * 스냅샷 시각 기준 보간: 이전→현재 간격만큼 늦게 따라가며 (nowNanos - 현재 시각) / 간격을 alpha로 사용.
+     * 지연은 여기서 한 번만 들어가므로 호출측은 현재 시각을 그대로 넘긴다.
+     * @return 발행된 스냅샷이 없으면 false
+     */
+    public boolean sampleAt(long nowNanos, Pose out) {
+        Frame f = frame;
+        if (f == null) return false;
+        long span = f.current.timeNanos - f.previous.timeNanos;
+        float alpha = span > 0 ? (float) ((double) (nowNanos - f.current.timeNanos) / span) : 1f;
+        sample(f, alpha, out);
+        return true;
+    }
+
+    private void sample(Frame f, float alpha, Pose out) {
+        Snapshot a = f.previous;
+        Snapshot b = f.current;
+        float t = alpha < 0f ? 0f : Math.min(alpha, 1f);
+
+        int n = Math.min(out.jointPositions.length, b.jointPositions.length);
+        for (int i = 0; i < n; i++) {
+            float p0 = a.jointPositions[i];
+            float d = b.jointPositions[i] - p0;
+            if (wrapToPi[i]) {
+                d = wrapToPi(d);
+            }
+            out.jointPositions[i] = p0 + d * t;
+        }
+
+        out.hasRoot = b.hasRoot;
+        if (b.hasRoot) {
+            out.rootX = a.rootX + (b.rootX - a.rootX) * t;
+            out.rootY = a.rootY + (b.rootY - a.rootY) * t;
+            out.rootZ = a.rootZ + (b.rootZ - a.rootZ) * t;
+
+            // 최단 경로 nlerp (틱 간 회전이 작으므로 slerp와 시각적으로 동일)
+            float dot = a.qx * b.qx + a.qy * b.qy + a.qz * b.qz + a.qw * b.qw;
+            float s = dot < 0f ? -t : t;
+            float u = 1f - t;
+            out.rootRotation.set(
+                    a.qx * u + b.qx * s,
+                    a.qy * u + b.qy * s,
+                    a.qz * u + b.qz * s,
+                    a.qw * u + b.qw * s);
+            if (!Float.isFinite(out.rootRotation.lengthSquared()) || out.rootRotation.lengthSquared() < 1e-12f) {
+                out.rootRotation.set(b.qx, b.qy, b.qz, b.qw);
+            }
+            out.rootRotation.normalize();
+        }
+    }
+
+    private static double distanceSq(Snapshot a, Snapshot b) {
+        double dx = b.rootX - a.rootX;
+        double dy = b.rootY - a.rootY;
+        double dz = b.rootZ - a.rootZ;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static float wrapToPi(float a) {
+        float twoPi = (float) (Math.PI * 2.0);
+        a = a % twoPi;
+        if (a > Math.PI) a -= twoPi;
+        if (a < -Math.PI) a += twoPi;
+        return a;
+    }
+}
@@ -0,0 +1,441 @@
+package com.kAIS.KAIMyEntity.urdf;
+
+import com.kAIS.KAIMyEntity.PhysicsManager;
+import com.kAIS.KAIMyEntity.urdf.control.URDFSimStats;
+import com.kAIS.KAIMyEntity.urdf.control.URDFSimpleController;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * URDF 컨트롤러 + 물리를 고정 주기(기본 200Hz)로 돌리는 전용 스레드
+ *
+ * - System.nanoTime 누산기: 실제 경과 시간만큼 고정 dt 스텝을 실행 (클라이언트 틱 20Hz와 무관)
+ * - 스텝이 끝날 때마다 각 로봇이 스텝 경계 시각으로 포즈 스냅샷 발행 → 렌더는 시각 기준 보간
+ * - 클라이언트 스레드는 컨트롤러 메일박스에 입력만 넣음 (setTarget 등은 다음 스텝 시작 시 반영)
+ *
+ * ODE 월드는 전역 하나 - 블록 충돌은 클라이언트 스레드가 Level에서 섹션 스냅샷만 캡처하고,
+ * geom 생성/해제는 이 스레드가 스텝 시작 때 한다. WORLD_LOCK은 백엔드 교체 등 다른 스레드의 월드 접근과의 직렬화용.
+ *
+ * 섬(island) 병렬 스텝:
+ * - 루트끼리 반경이 겹치는(접촉 가능한) 물리 로봇들을 한 섬으로 묶음 (주기적으로 재분할)
+ * - 섬 단위로 입력 반영 / 상태 동기화를 ForkJoin 풀에서 동시에 실행 (스텝당 한 번)
+ * - 서브스텝 모터 적용은 가벼워서 fork/join 없이 순차 실행
+ * - 공유 월드 스텝은 서브스텝당 한 번만 (예전처럼 로봇 수만큼 반복하지 않음)
+ * - 키네마틱 로봇은 월드를 건드리지 않으므로 락 밖에서 병렬 실행
+ */
+public final class URDFSimulationThread {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** ODE 월드 접근 직렬화 (시뮬레이션 스텝 ↔ 클라이언트 스레드의 블록 충돌 갱신) */
+    public static final Object WORLD_LOCK = new Object();
+
+    /** 한 번 깨어날 때 최대 스텝 수 (넘는 시간은 버림 → 죽음의 나선 방지) */
+    private static final int MAX_STEPS_PER_WAKE = 10;
+    /** 섬 재분할 주기 (스텝) */
+    private static final int ISLAND_REBUILD_STEPS = 20;
+
+    private static final URDFSimulationThread INSTANCE = new URDFSimulationThread();
+
+    public static URDFSimulationThread getInstance() {
+        return INSTANCE;
+    }
+
+    private final CopyOnWriteArrayList<URDFModelOpenGLWithSTL> robots = new CopyOnWriteArrayList<>();
+
+    private volatile boolean enabled = true;
+    private volatile int rateHz = 200;
+    private volatile boolean parallelIslands = true;
+    private volatile Thread thread;
+
+    // 섬 분할 결과 (시뮬레이션 스레드 전용)
+    private final List<List<URDFModelOpenGLWithSTL>> islands = new ArrayList<>();
+    private final List<URDFModelOpenGLWithSTL> kinematicRobots = new ArrayList<>();
+    private int islandRobotCount = -1;
+    private int stepsSinceRebuild = 0;
+    private volatile boolean islandsDirty = true;
+    private int[] unionParent = new int[0];
+    private ForkJoinPool pool;
+
+    // 스텝 단계별 작업 (스텝마다 람다 할당 안 하도록 필드로 보관)
+    private float stepDt;
+    private final Consumer<URDFModelOpenGLWithSTL> kinematicStep = r -> r.simulationStep(stepDt);
+    private final Consumer<List<URDFModelOpenGLWithSTL>> islandBegin = island -> {
+        for (int i = 0; i < island.size(); i++) island.get(i).getController().beginSharedStep(stepDt);
+    };
+    private final Consumer<List<URDFModelOpenGLWithSTL>> islandEnd = island -> {
+        for (int i = 0; i < island.size(); i++) island.get(i).getController().endSharedStep();
+    };
+
+    // 통계
+    private volatile long stepCount = 0L;
+    private volatile long droppedNanos = 0L;
+
+    private URDFSimulationThread() { }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** false면 스레드를 멈추고 로봇을 클라이언트 틱 구동(동기 모드)으로 되돌림 */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            stop();
+            for (URDFModelOpenGLWithSTL r : robots) {
+                r.setSimulationOwned(false);
+            }
+            robots.clear();
+        }
+    }
+
+    public int getRateHz() {
+        return rateHz;
+    }
+
+    public void setRateHz(int hz) {
+        this.rateHz = Math.max(20, Math.min(hz, 1000));
+    }
+
+    /** 고정 스텝 길이 (ns) */
+    public long getStepNanos() {
+        return 1_000_000_000L / rateHz;
+    }
+
+    public boolean isParallelIslands() {
+        return parallelIslands;
+    }
+
+    /** false면 섬을 순서대로 스텝 (디버깅용) */
+    public void setParallelIslands(boolean parallel) {
+        this.parallelIslands = parallel;
+    }
+
+    /** 최근 분할된 물리 섬 수 */
+    public int getIslandCount() {
+        return islands.size();
+    }
+
+    public boolean isActive() {
+        Thread t = thread;
+        return t != null && t.isAlive();
+    }
+
+    public boolean isRegistered(URDFModelOpenGLWithSTL robot) {
+        return robots.contains(robot);
+    }
+
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /** MAX_STEPS_PER_WAKE 초과로 버린 시뮬레이션 시간 누계 (ns) */
+    public long getDroppedNanos() {
+        return droppedNanos;
+    }
+
+    // ========================================================================
+    // 등록
+    // ========================================================================
+
+    public void register(URDFModelOpenGLWithSTL robot) {
+        if (!enabled || robot == null) return;
+        if (robots.addIfAbsent(robot)) {
+            islandsDirty = true;
+            robot.setSimulationOwned(true);
+            logger.info("URDF simulation thread: robot registered ({} total, {} Hz)", robots.size(), rateHz);
+        }
+        start();
+    }
+
+    public void unregister(URDFModelOpenGLWithSTL robot) {
+        if (robot == null) return;
+        if (robots.remove(robot)) {
+            islandsDirty = true;
+            robot.setSimulationOwned(false);
+        }
+        if (robots.isEmpty()) {
+            stop();
+        }
+    }
+
+    /** 로봇의 물리 백엔드가 바뀌었을 때 (공유 월드 여부가 달라짐) 다음 스텝 전에 섬 재분할 */
+    public void invalidateIslands() {
+        islandsDirty = true;
+    }
+
+    private synchronized void start() {
+        if (isActive()) return;
+        Thread t = new Thread(this::run, "URDF-Sim");
+        t.setDaemon(true);
+        thread = t;
+        t.start();
+    }
+
+    /**
+     * 루프가 끝날 때까지 기다림 - 바로 다시 start()해도 이전 루프와 겹치거나
+     * 이전 루프의 종료 처리(풀 shutdown)가 새 루프의 풀을 닫지 않도록.
+     * 시뮬레이션 스레드는 클라이언트 스레드를 기다리지 않으므로 최대 한 스텝 대기.
+     */
+    private synchronized void stop() {
+        Thread t = thread;
+        thread = null;
+        if (t == null || t == Thread.currentThread()) return;
+        LockSupport.unpark(t);
+        try {
+            t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ========================================================================
+    // 루프
+    // ========================================================================
+
+    private void run() {
+        Thread self = Thread.currentThread();
+        logger.info("URDF simulation thread started");
+
+        long last = System.nanoTime();
+        long accumulator = 0L;
+
+        while (thread == self) {
+            long stepNanos = getStepNanos();
+            float dt = stepNanos / 1_000_000_000f;
+
+            long now = System.nanoTime();
+            accumulator += now - last;
+            last = now;
+
+            int steps = 0;
+            while (accumulator >= stepNanos && steps < MAX_STEPS_PER_WAKE) {
+                if (islandsDirty || ++stepsSinceRebuild >= ISLAND_REBUILD_STEPS
+                        || islandRobotCount != robots.size()) {
+                    rebuildIslands();
+                }
+                stepAll(dt);
+                accumulator -= stepNanos;
+                steps++;
+                stepCount++;
+            }
+
+            if (steps > 0) {
+                // 발행 시각 = 방금 끝난 스텝의 경계 (남은 누산 시간만큼 과거)
+                // 루트 바디 상태를 읽으므로 락 안에서 - LOD 전환(switchBackend)이 이전 백엔드를 해제하는 것과 겹치지 않게
+                long boundary = now - accumulator;
+                synchronized (WORLD_LOCK) {
+                    for (URDFModelOpenGLWithSTL r : robots) {
+                        r.commitSimulationPose(boundary);
+                    }
+                }
+            }
+
+            if (accumulator >= stepNanos) {
+                droppedNanos += accumulator;
+                accumulator = 0L;
+            }
+
+            long sleep = stepNanos - accumulator - (System.nanoTime() - now);
+            if (sleep > 0L) {
+                LockSupport.parkNanos(sleep);
+            }
+        }
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+        logger.info("URDF simulation thread stopped ({} steps, {} ms dropped)",
+                stepCount, droppedNanos / 1_000_000L);
+    }
+
+    private void stepAll(float dt) {
+        stepDt = dt;
+
+        // 키네마틱: 월드 접근 없음
+        forEach(kinematicRobots, kinematicStep);
+        if (islands.isEmpty()) return;
+
+        PhysicsManager physics = PhysicsManager.GetInst();
+        int subSteps = 1;
+        for (int i = 0; i < islands.size(); i++) {
+            List<URDFModelOpenGLWithSTL> island = islands.get(i);
+            for (int j = 0; j < island.size(); j++) {
+                subSteps = Math.max(subSteps, island.get(j).getController().getPhysicsSubSteps());
+            }
+        }
+        float subDt = dt / subSteps;
+
+        synchronized (WORLD_LOCK) {
+            // 클라이언트 스레드가 캡처한 블록 섹션 스냅샷 → geom (Level 접근 없음)
+            URDFSimpleController.applyBlockCollisionUpdates();
+            forEach(islands, islandBegin);
+            if (allSleeping()) return; // 모든 물리 로봇이 잠들었으면 월드 스텝도 생략
+            for (int s = 0; s < subSteps; s++) {
+                applySubstepControls();
+                long t0 = URDFSimStats.start();
+                physics.step(subDt);
+                URDFSimStats.stop(URDFSimStats.Metric.WORLD_STEP, t0);
+            }
+            forEach(islands, islandEnd);
+        }
+    }
+
+    private boolean allSleeping() {
+        for (int i = 0; i < islands.size(); i++) {
+            List<URDFModelOpenGLWithSTL> island = islands.get(i);
+            for (int j = 0; j < island.size(); j++) {
+                if (!island.get(j).getController().isSleeping()) return false;
+            }
+        }
+        return true;
+    }
+
+    // ========================================================================
+    // 섬 분할
+    // ========================================================================
+
+    /** 마지막 발행 루트 위치 기준으로 반경이 겹치는 물리 로봇끼리 union-find로 묶음 */
+    private void rebuildIslands() {
+        stepsSinceRebuild = 0;
+        islandsDirty = false;
+        int previousCount = islands.size();
+        islands.clear();
+        kinematicRobots.clear();
+
+        List<URDFModelOpenGLWithSTL> physicsRobots = new ArrayList<>();
+        for (URDFModelOpenGLWithSTL r : robots) {
+            URDFSimpleController c = r.getController();
+            if (c == null) continue;
+            if (c.isPhysicsActive()) physicsRobots.add(r);
+            else kinematicRobots.add(r);
+        }
+        islandRobotCount = robots.size();
+
+        int n = physicsRobots.size();
+        if (unionParent.length < n) unionParent = new int[n];
+        for (int i = 0; i < n; i++) unionParent[i] = i;
+
+        for (int i = 0; i < n; i++) {
+            URDFPoseBuffer.Snapshot a = physicsRobots.get(i).getPoseBuffer().latest();
+            if (a == null || !a.hasRoot) continue;
+            float ra = physicsRobots.get(i).getBoundingRadius();
+            for (int j = i + 1; j < n; j++) {
+                URDFPoseBuffer.Snapshot b = physicsRobots.get(j).getPoseBuffer().latest();
+                if (b == null || !b.hasRoot) continue;
+                double reach = ra + physicsRobots.get(j).getBoundingRadius();
+                double dx = a.rootX - b.rootX, dy = a.rootY - b.rootY, dz = a.rootZ - b.rootZ;
+                if (dx * dx + dy * dy + dz * dz <= reach * reach) {
+                    union(i, j);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        List<URDFModelOpenGLWithSTL>[] byRoot = new List[n];
+        for (int i = 0; i < n; i++) {
+            int root = find(i);
+            if (byRoot[root] == null) {
+                byRoot[root] = new ArrayList<>(2);
+                islands.add(byRoot[root]);
+            }
+            byRoot[root].add(physicsRobots.get(i));
+        }
+
+        if (islands.size() != previousCount) {
+            logger.debug("URDF simulation islands: {} ({} physics robots, {} kinematic)",
+                    islands.size(), n, kinematicRobots.size());
+        }
+    }
+
+    private int find(int i) {
+        while (unionParent[i] != i) {
+            unionParent[i] = unionParent[unionParent[i]];
+            i = unionParent[i];
+        }
+        return i;
+    }
+
+    private void union(int a, int b) {
+        int ra = find(a), rb = find(b);
+        if (ra != rb) unionParent[rb] = ra;
+    }
+
+    /**
+     * 서브스텝 모터 적용은 시뮬레이션 스레드에서 순차 실행 - 로봇당 조인트 몇 개 분량이라
+     * 서브스텝마다 풀에 fork/join 하는 왕복이 작업보다 비쌈 (월드 스텝 자체는 어차피 직렬)
+     */
+    private void applySubstepControls() {
+        for (int i = 0; i < islands.size(); i++) {
+            List<URDFModelOpenGLWithSTL> island = islands.get(i);
+            for (int j = 0; j < island.size(); j++) island.get(j).getController().applySubstepControls();
+        }
+    }
+
+    // ========================================================================
+    // 병렬 실행
+    // ========================================================================
+
+    private <T> void forEach(List<T> items, Consumer<T> op) {
+        int n = items.size();
+        if (n == 0) return;
+        if (n == 1 || !parallelIslands) {
+            for (int i = 0; i < n; i++) runSafely(items.get(i), op);
+            return;
+        }
+        pool().invoke(new RangeTask<>(items, 0, n, op));
+    }
+
+    private ForkJoinPool pool() {
+        if (pool == null) {
+            int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            pool = new ForkJoinPool(parallelism, p -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                t.setName("URDF-Island-" + t.getPoolIndex());
+                t.setDaemon(true);
+                return t;
+            }, null, false);
+        }
+        return pool;
+    }
+
+    private static <T> void runSafely(T item, Consumer<T> op) {
+        try {
+            op.accept(item);
+        } catch (Exception e) {
+            logger.warn("URDF simulation step failed: {}", e.getMessage());
+        }
+    }
+
+    /** 항목 범위를 반씩 쪼개 병렬 실행 (항목 하나 = 로봇 하나 또는 섬 하나) */
+    private static final class RangeTask<T> extends RecursiveAction {
+        private final List<T> items;
+        private final int from, to;
+        private final Consumer<T> op;
+
+        RangeTask(List<T> items, int from, int to, Consumer<T> op) {
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.op = op;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                for (int i = from; i < to; i++) runSafely(items.get(i), op);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask<>(items, from, mid, op), new RangeTask<>(items, mid, to, op));
+        }
+    }
+}
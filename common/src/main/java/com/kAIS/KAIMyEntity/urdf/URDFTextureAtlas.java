@@ -0,0 +1,268 @@
+package com.kAIS.KAIMyEntity.urdf;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.texture.DynamicTexture;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.Mth;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 로봇 하나의 URDF 머티리얼 텍스처를 로드 시점에 한 장의 아틀라스로 패킹
+ *
+ * - 링크마다 텍스처가 달라도 RenderType(=텍스처 바인딩)이 하나로 유지되어 배치가 끊기지 않음
+ * - 텍스처 없는 머티리얼은 아틀라스 안의 흰색 영역을 샘플링 (버텍스 컬러만 적용)
+ * - 셸프(shelf) 패킹: 높이 내림차순으로 줄 단위 배치
+ */
+public final class URDFTextureAtlas {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int MAX_ATLAS_SIZE = 4096;
+    private static final int PADDING = 2;
+    /** 같은 이름(또는 sanitize 후 같아지는 이름)의 로봇끼리 위치가 겹치지 않도록 붙이는 순번 */
+    private static final AtomicInteger ATLAS_SEQ = new AtomicInteger();
+    private static final int WHITE_SIZE = 4;
+
+    /** 아틀라스 내 UV 영역 (반 텍셀 안쪽으로 줄여 인접 영역 번짐 방지) */
+    public static final class Region {
+        public final float u0, v0, u1, v1;
+
+        Region(float u0, float v0, float u1, float v1) {
+            this.u0 = u0;
+            this.v0 = v0;
+            this.u1 = u1;
+            this.v1 = v1;
+        }
+
+        public float u(float localU) {
+            return u0 + (u1 - u0) * localU;
+        }
+
+        public float v(float localV) {
+            return v0 + (v1 - v0) * localV;
+        }
+    }
+
+    /** 텍스처가 하나도 없을 때 쓰는 영역 (흰색 텍스처 전체) */
+    private static final Region FULL = new Region(0f, 0f, 1f, 1f);
+
+    private final ResourceLocation location;
+    private final Map<String, Region> regions;
+    private final Region white;
+
+    private URDFTextureAtlas(ResourceLocation location, Map<String, Region> regions, Region white) {
+        this.location = location;
+        this.regions = regions;
+        this.white = white;
+    }
+
+    /** 아틀라스 텍스처 위치 (텍스처가 없으면 null → 호출측이 흰색 텍스처 사용) */
+    public ResourceLocation getLocation() {
+        return location;
+    }
+
+    public boolean hasTextures() {
+        return location != null;
+    }
+
+    /** 텍스처 파일의 영역 (없거나 패킹 실패면 흰색 영역) */
+    public Region get(String textureFile) {
+        if (textureFile == null) return white;
+        Region r = regions.get(textureFile);
+        return r != null ? r : white;
+    }
+
+    public Region white() {
+        return white;
+    }
+
+    public int getTextureCount() {
+        return regions.size();
+    }
+
+    /** 아틀라스 텍스처 해제 (모델 폐기 시, 렌더 스레드) */
+    public void close() {
+        if (location != null) {
+            Minecraft.getInstance().getTextureManager().release(location);
+        }
+    }
+
+    // ========================================================================
+    // 빌드
+    // ========================================================================
+
+    private static final class Entry {
+        final String file;
+        final NativeImage image;
+        int x, y;
+
+        Entry(String file, NativeImage image) {
+            this.file = file;
+            this.image = image;
+        }
+    }
+
+    /**
+     * 모델의 모든 visual 머티리얼 텍스처를 모아 아틀라스 생성
+     * @param atlasName 리소스 경로용 이름 (로봇 이름)
+     */
+    public static URDFTextureAtlas build(String atlasName, URDFModel model) {
+        Set<String> files = new LinkedHashSet<>();
+        for (URDFLink link : model.links) {
+            if (link.visual != null && link.visual.material != null
+                    && link.visual.material.textureFilename != null) {
+                files.add(link.visual.material.textureFilename);
+            }
+        }
+        if (files.isEmpty()) {
+            return new URDFTextureAtlas(null, Collections.emptyMap(), FULL);
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        for (String file : files) {
+            NativeImage img = loadImage(file);
+            if (img != null) {
+                entries.add(new Entry(file, img));
+            }
+        }
+        if (entries.isEmpty()) {
+            return new URDFTextureAtlas(null, Collections.emptyMap(), FULL);
+        }
+
+        // 높이 내림차순 → 셸프 패킹
+        entries.sort((a, b) -> Integer.compare(b.image.getHeight(), a.image.getHeight()));
+
+        int width = 256;
+        int height = -1;
+        while (width <= MAX_ATLAS_SIZE) {
+            height = pack(entries, width);
+            if (height > 0 && height <= MAX_ATLAS_SIZE) break;
+            width <<= 1;
+        }
+        if (width > MAX_ATLAS_SIZE || height <= 0) {
+            logger.warn("URDF texture atlas '{}' exceeds {}px, textures ignored", atlasName, MAX_ATLAS_SIZE);
+            for (Entry e : entries) e.image.close();
+            return new URDFTextureAtlas(null, Collections.emptyMap(), FULL);
+        }
+        height = Mth.smallestEncompassingPowerOfTwo(height);
+
+        NativeImage atlas = new NativeImage(width, height, true);
+        atlas.fillRect(0, 0, width, height, 0x00000000);
+
+        // 흰색 영역: 좌상단 고정 (pack()이 이 자리를 비워둠)
+        atlas.fillRect(0, 0, WHITE_SIZE, WHITE_SIZE, 0xFFFFFFFF);
+        Region white = region(0, 0, WHITE_SIZE, WHITE_SIZE, width, height);
+
+        Map<String, Region> regions = new HashMap<>();
+        for (Entry e : entries) {
+            int w = e.image.getWidth();
+            int h = e.image.getHeight();
+            e.image.copyRect(atlas, 0, 0, e.x, e.y, w, h, false, false);
+            regions.put(e.file, region(e.x, e.y, w, h, width, height));
+            e.image.close();
+        }
+
+        ResourceLocation location = ResourceLocation.fromNamespaceAndPath(
+                "kaimyentity", "urdf_atlas/" + sanitize(atlasName) + "_" + ATLAS_SEQ.incrementAndGet());
+        upload(location, atlas);
+
+        logger.info("URDF texture atlas '{}': {} textures packed into {}x{}",
+                atlasName, regions.size(), width, height);
+        return new URDFTextureAtlas(location, regions, white);
+    }
+
+    /** @return 필요한 높이 (폭이 모자라면 -1) */
+    private static int pack(List<Entry> entries, int width) {
+        // 첫 줄 왼쪽에 흰색 영역 예약
+        int x = WHITE_SIZE + PADDING;
+        int y = 0;
+        int shelfHeight = WHITE_SIZE;
+
+        for (Entry e : entries) {
+            int w = e.image.getWidth();
+            int h = e.image.getHeight();
+            if (w > width) return -1;
+
+            if (x + w > width) {
+                y += shelfHeight + PADDING;
+                x = 0;
+                shelfHeight = 0;
+            }
+            e.x = x;
+            e.y = y;
+            x += w + PADDING;
+            shelfHeight = Math.max(shelfHeight, h);
+        }
+        return y + shelfHeight;
+    }
+
+    private static Region region(int x, int y, int w, int h, int atlasW, int atlasH) {
+        float hu = 0.5f / atlasW;
+        float hv = 0.5f / atlasH;
+        return new Region(
+                (float) x / atlasW + hu,
+                (float) y / atlasH + hv,
+                (float) (x + w) / atlasW - hu,
+                (float) (y + h) / atlasH - hv);
+    }
+
+    private static void upload(ResourceLocation location, NativeImage atlas) {
+        // 위치는 아틀라스마다 고유 → 이전 텍스처는 모델 폐기 시 close()로 해제
+        if (RenderSystem.isOnRenderThread()) {
+            Minecraft.getInstance().getTextureManager().register(location, new DynamicTexture(atlas));
+        } else {
+            RenderSystem.recordRenderCall(() ->
+                    Minecraft.getInstance().getTextureManager().register(location, new DynamicTexture(atlas)));
+        }
+    }
+
+    private static NativeImage loadImage(String file) {
+        File f = new File(file);
+        if (!f.isFile()) {
+            logger.warn("URDF texture not found: {}", file);
+            return null;
+        }
+
+        // PNG는 NativeImage로 직접, 그 외(JPG 등)는 ImageIO로 디코딩 후 복사
+        try (InputStream in = new FileInputStream(f)) {
+            return NativeImage.read(in);
+        } catch (Exception ignored) { }
+
+        try {
+            BufferedImage bi = ImageIO.read(f);
+            if (bi == null) {
+                logger.warn("Unsupported URDF texture format: {}", file);
+                return null;
+            }
+            NativeImage img = new NativeImage(bi.getWidth(), bi.getHeight(), true);
+            for (int y = 0; y < bi.getHeight(); y++) {
+                for (int x = 0; x < bi.getWidth(); x++) {
+                    int argb = bi.getRGB(x, y);
+                    // NativeImage 픽셀 순서는 ABGR
+                    int abgr = (argb & 0xFF00FF00) | ((argb >> 16) & 0xFF) | ((argb & 0xFF) << 16);
+                    img.setPixelRGBA(x, y, abgr);
+                }
+            }
+            return img;
+        } catch (Exception e) {
+            logger.warn("Failed to load URDF texture {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /** 리소스 경로에 쓸 수 있는 이름 (소문자, 허용 문자 외는 '_') - 임포스터와 공유 */
+    static String sanitize(String name) {
+        String s = (name == null || name.isEmpty()) ? "robot" : name.toLowerCase(Locale.ROOT);
+        return s.replaceAll("[^a-z0-9/._-]", "_");
+    }
+}
@@ -0,0 +1,179 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import com.kAIS.KAIMyEntity.urdf.URDFLink;
+import com.kAIS.KAIMyEntity.urdf.URDFModel;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.phys.Vec3;
+import net.minecraft.world.phys.shapes.VoxelShape;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joml.Quaternionf;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 내장 축약 좌표 솔버(URDFArticulatedBody) 백엔드
+ *
+ * 전역 ODE 월드를 쓰지 않으므로 시뮬레이션 스레드에서 로봇별로 병렬 스텝된다.
+ * 지면은 루트 바로 아래 블록 윗면 하나의 평면 (클라이언트 틱마다 갱신).
+ */
+final class ArticulatedBackend implements URDFPhysicsBackend {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int GROUND_SEARCH_BLOCKS = 16;
+
+    private final URDFJointTable t;
+    private final URDFArticulatedBody body;
+    private final Executor simulation;
+    private final BlockPos.MutableBlockPos groundCursor = new BlockPos.MutableBlockPos();
+    private volatile boolean anchored = false;
+
+    ArticulatedBackend(URDFModel model, URDFJointTable table, Executor simulation) {
+        this.t = table;
+        this.simulation = simulation;
+        this.body = new URDFArticulatedBody(model, table.indexMap(), null);
+
+        // URDF 관례: 루트 링크가 "world"면 고정 베이스
+        URDFLink rootLink = model.getLink(model.rootLinkName);
+        body.setFixedBase(rootLink != null && "world".equals(rootLink.name));
+        // 현재 조인트 상태에서 시작 (런타임 백엔드 교체/LOD 복귀 시 포즈 유지)
+        float[] current = new float[table.size()];
+        for (int i = 0; i < current.length; i++) current[i] = table.jointArray[i].currentPosition;
+        body.setJointPositions(current);
+        body.setWorldScale(table.scale);
+
+        logger.info("Articulated backend: {} links, {} dof, fixed base: {}",
+                body.getLinkCount(), body.getDofCount(), body.isFixedBase());
+    }
+
+    @Override
+    public Kind getKind() {
+        return Kind.ARTICULATED;
+    }
+
+    @Override
+    public boolean isDynamic() {
+        return true;
+    }
+
+    // ========== 월드 배치 ==========
+
+    @Override
+    public Vec3 anchor(Level level, Vec3 worldPos, double margin) {
+        // 발 밑 블록 윗면을 지면 평면으로, 가장 낮은 접촉점이 그 위 margin에 오도록 세움
+        double ground = findGroundWorldY(level, worldPos.x, worldPos.y + 1.0, worldPos.z);
+        double groundY = Double.isNaN(ground) ? worldPos.y : ground;
+        float scale = t.scale;
+        simulation.execute(() -> {
+            body.setWorldScale(scale);
+            body.anchor(worldPos.x, groundY, worldPos.z, margin);
+            anchored = true;
+        });
+        logger.info("Anchored articulated body at ({}, {}, {})", worldPos.x, groundY, worldPos.z);
+        return worldPos;
+    }
+
+    @Override
+    public void updateEnvironment(Level level, Vec3 center) {
+        if (level == null || !anchored) return;
+        double[] root = new double[3];
+        body.getRootWorldPosition(root);
+        double ground = findGroundWorldY(level, root[0], root[1], root[2]);
+        if (!Double.isNaN(ground)) {
+            body.setGroundWorldY(ground);
+        }
+    }
+
+    /** (x, z) 열에서 y 아래로 가장 먼저 만나는 충돌 형상의 윗면 Y (없으면 NaN) */
+    private double findGroundWorldY(Level level, double x, double y, double z) {
+        if (level == null || !Double.isFinite(y)) return Double.NaN;
+        int bx = Mth.floor(x), bz = Mth.floor(z);
+        int top = Mth.floor(y);
+        for (int by = top; by > top - GROUND_SEARCH_BLOCKS; by--) {
+            groundCursor.set(bx, by, bz);
+            VoxelShape shape = level.getBlockState(groundCursor).getCollisionShape(level, groundCursor);
+            if (shape.isEmpty()) continue;
+            double surface = by + shape.max(Direction.Axis.Y);
+            if (surface <= y + 0.5) return surface;
+        }
+        return Double.NaN;
+    }
+
+    // ========== 스텝 ==========
+
+    @Override
+    public void step(float dt) {
+        if (!anchored) return; // 원점이 정해지기 전에는 떨어뜨리지 않음
+        body.step(dt, t.targetPos, t.targetVel, t.jointKp, t.jointKd, t.effortLimit, t.maxTorque, t.maxForce,
+                t.hasLimits, t.lowerLimit, t.upperLimit, t.motorsEnabled);
+        body.readJointState(t.jointArray);
+    }
+
+    // ========== 상태 ==========
+
+    @Override
+    public boolean getRootWorldPosition(double[] out) {
+        body.getRootWorldPosition(out);
+        return true;
+    }
+
+    @Override
+    public boolean getRootWorldQuaternionWXYZ(float[] out) {
+        body.getRootWorldQuaternionWXYZ(out);
+        return true;
+    }
+
+    @Override
+    public boolean getLinkWorldPosition(String linkName, double[] out) {
+        int li = body.indexOfLink(linkName);
+        if (li < 0) return false;
+        body.getLinkWorldPosition(li, out);
+        return true;
+    }
+
+    @Override
+    public double getLowestPointWorldY() {
+        return body.getLowestPointWorldY();
+    }
+
+    // ========== 입력 ==========
+
+    @Override
+    public void setJointPosition(int joint, float value) {
+        body.setJointPosition(joint, value);
+    }
+
+    @Override
+    public void applyForce(String linkName, float fx, float fy, float fz) {
+        body.addWorldForce(body.indexOfLink(linkName), fx, fy, fz);
+    }
+
+    @Override
+    public void applyTorque(String linkName, float tx, float ty, float tz) {
+        body.addWorldTorque(body.indexOfLink(linkName), tx, ty, tz);
+    }
+
+    @Override
+    public void setGravity(float x, float y, float z) {
+        body.setWorldGravity(x, y, z);
+    }
+
+    @Override
+    public void setUprightRotation(Quaternionf upright) {
+        body.setUpright(upright);
+    }
+
+    @Override
+    public void reset() {
+        anchored = false;
+        body.reset();
+    }
+
+    @Override
+    public void dispose() {
+        anchored = false;
+    }
+}
@@ -0,0 +1,84 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import com.kAIS.KAIMyEntity.urdf.URDFJoint;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.phys.Vec3;
+
+/**
+ * 키네마틱 백엔드 - 조인트마다 가속/속도 제한 PD로 목표값 추종 (강체 없음)
+ * 루트 위치/회전은 내보내지 않으므로 렌더러는 엔티티 위치를 그대로 쓴다.
+ */
+final class KinematicBackend implements URDFPhysicsBackend {
+
+    private final URDFJointTable t;
+
+    KinematicBackend(URDFJointTable table) {
+        this.t = table;
+    }
+
+    @Override
+    public Kind getKind() {
+        return Kind.KINEMATIC;
+    }
+
+    @Override
+    public boolean isDynamic() {
+        return false;
+    }
+
+    @Override
+    public Vec3 anchor(Level level, Vec3 worldPos, double margin) {
+        return worldPos;
+    }
+
+    @Override
+    public void step(float dt) {
+        final float maxAcc = t.maxAcc;
+        final float kp = t.kinematicKp;
+        final float kd = t.kinematicKd;
+        for (int i = 0; i < t.jointArray.length; i++) {
+            byte type = t.jointType[i];
+            if (type == URDFJointTable.JT_FIXED) continue;
+            URDFJoint j = t.jointArray[i];
+
+            float tgt = t.targetPos[i];
+            float pos = j.currentPosition;
+            float vel = j.currentVelocity;
+
+            if (type == URDFJointTable.JT_CONTINUOUS) {
+                tgt = pos + URDFJointTable.wrapToPi(tgt - pos);
+            }
+
+            float err = tgt - pos;
+            float acc = kp * err - kd * vel;
+
+            float maxVel = t.velLimit[i] > 0f ? t.velLimit[i] : t.maxVel;
+
+            acc = Mth.clamp(acc, -maxAcc, maxAcc);
+            vel += acc * dt;
+            vel = Mth.clamp(vel, -maxVel, maxVel);
+            pos += vel * dt;
+
+            if (t.hasLimits[i]) {
+                pos = Mth.clamp(pos, t.lowerLimit[i], t.upperLimit[i]);
+                if (pos == t.lowerLimit[i] || pos == t.upperLimit[i]) vel = 0f;
+            }
+
+            if (type == URDFJointTable.JT_CONTINUOUS) {
+                pos = URDFJointTable.wrapToPi(pos);
+            }
+
+            j.currentVelocity = vel;
+            j.currentPosition = pos;
+        }
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    @Override
+    public void dispose() {
+    }
+}
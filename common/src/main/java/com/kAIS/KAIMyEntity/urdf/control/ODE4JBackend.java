@@ -0,0 +1,2181 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import com.kAIS.KAIMyEntity.PhysicsManager;
+import com.kAIS.KAIMyEntity.urdf.URDFJoint;
+import com.kAIS.KAIMyEntity.urdf.URDFLink;
+import com.kAIS.KAIMyEntity.urdf.URDFModel;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.phys.Vec3;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ODE4J 백엔드 - 물리 + 블록 충돌 통합 (Geom 추가)
+ *
+ * 좌표계:
+ * - ODE World = 마인크래프트 월드 좌표계 (PhysicsManager 전역 월드를 모든 로봇이 공유)
+ * - 각 링크 Body = 월드 좌표에서의 위치/회전
+ * - 위치 계산은 실시간으로 전달받은 엔티티 위치 기준
+ */
+final class ODE4JBackend implements URDFPhysicsBackend {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final byte JT_FIXED = URDFJointTable.JT_FIXED;
+    private static final byte JT_REVOLUTE = URDFJointTable.JT_REVOLUTE;
+    private static final byte JT_CONTINUOUS = URDFJointTable.JT_CONTINUOUS;
+    private static final byte JT_PRISMATIC = URDFJointTable.JT_PRISMATIC;
+
+    // ========== 조인트 (컨트롤러와 공유하는 테이블) ==========
+    private final URDFJointTable t;
+    private final URDFJoint[] jointArray;
+    private final byte[] jointType;
+    private final float[] targetPos;
+    private final float[] targetVel;
+    private final float[] effortLimit;
+    private final float[] jointKp;
+    private final float[] jointKd;
+    private final Object[] odeJointHandles;
+    private int odeJointCount = 0;
+
+    // ========== 슬립 (정지 상태 로봇 비활성화) ==========
+    private static final float SLEEP_LINEAR_SPEED = 0.02f;   // m/s
+    private static final float SLEEP_ANGULAR_SPEED = 0.05f;  // rad/s
+    private static final float SLEEP_TRACKING_ERROR = 0.01f; // rad 또는 m
+    private static final int SLEEP_STEPS = 60;               // 연속 정지 스텝 수
+    private static volatile boolean sleepEnabled = true;
+    private static final AtomicInteger SLEEPING_ROBOTS = new AtomicInteger();
+
+    private volatile boolean sleeping = false;
+    private volatile boolean wakeRequested = false;
+    private boolean stepActive = true;
+    private boolean nativeStep = false;
+    private int restSteps = 0;
+    private Object[] bodyHandles;
+
+    // ========== 스냅샷 ==========
+    private String[] snapshotBodyNames;   // 링크 이름 정렬 (스냅샷 바디 순서)
+    private long layoutHash;
+    private volatile URDFPhysicsSnapshot restPoint; // 처음 안정(슬립)된 상태 → 리셋 시 복원
+
+    // ========== 물리 모드 ==========
+    private final URDFModel urdfModel;
+    private final PhysicsManager physics;
+
+    private final Map<String, Object> bodies = new HashMap<>();
+    private final Map<String, Object> geoms = new HashMap<>();
+    private final Map<String, Float> linkRadii = new HashMap<>();
+
+    // ========== 충돌 형상 ==========
+    // <collision> 메쉬는 정점 수 상한이 있는 볼록 껍질로 (메쉬 옆 .hull 파일에 캐시)
+    private static volatile int hullVertexLimit = 32;
+    private final Map<String, URDFConvexHull> linkHulls = new HashMap<>();
+    private Method convexFactory;        // PhysicsManager.createConvexGeom 또는 OdeHelper.createConvex
+    private boolean convexFromManager;
+    private boolean convexUnavailable = false;
+
+    // ========== 초기 배치 (정기구학) ==========
+    // 링크 좌표계 (URDF 단위, 루트 링크 = 원점/무회전). 바디/geom/조인트 축·앵커를 이 자세에서 만들어
+    // 스폰 직후부터 구속이 맞아 있게 함 (예전: 바디마다 자기 visual origin에 → 솔버가 로봇을 펼치느라 수십 스텝 소모)
+    private final Map<String, Vector3f> linkFramePos = new HashMap<>();
+    private final Map<String, Quaternionf> linkFrameRot = new HashMap<>();
+    private double[] hingeAnchorLocal;   // 힌지 앵커 (기준 바디 좌표계, 물리 단위) - refreshHingeAnchors용
+
+    // ========== 블록 충돌 ==========
+    private URDFBlockCollisionCache.Region blockRegion;
+    private static final double BLOCK_MARGIN = 1.5;   // 로봇 AABB 바깥으로 블록 geom을 유지할 여유 (블록)
+    private static final int BOUNDS_PUBLISH_STEPS = 10;
+    // 스텝 스레드가 주기적으로 발행하는 바디 AABB (클라이언트 스레드는 바디를 직접 읽지 않음)
+    private volatile double[] publishedBounds;
+    private int boundsStepCounter = 0;
+
+    // 로봇 geom 전용 서브 스페이스 (null이면 전역 스페이스에 그대로)
+    private URDFCollisionSpaces collisionSpace;
+
+    // 대표 루트 바디 (전신 위치/엔티티 이동 기준으로 사용할 링크 이름)
+    private String rootBodyLinkName;
+
+    // 한 번 월드 위치에 정렬(앵커)되었는지 여부
+    private volatile boolean anchored = false;
+
+    // ODE4J 버전
+    private enum ODE4JVersion { V03X, V04X, V05X, UNKNOWN }
+    private ODE4JVersion odeVersion = ODE4JVersion.UNKNOWN;
+
+    // 리플렉션 캐시
+    private Class<?> dHingeJointClass;
+    private Class<?> dSliderJointClass;
+    private Class<?> dFixedJointClass;
+    private Class<?> dMassClass;
+    private Class<?> dBodyClass;
+    private Class<?> dWorldClass;
+    private Class<?> odeHelperClass;
+    private Class<?> dJointGroupClass;
+    private Class<?> dGeomClass;
+
+    // 핫패스(조인트 제어/상태 동기화/루트 회전) ODE4J 호출은 초기화 시 바인딩한 핸들 사용
+    private ODE4JBindings ode;
+
+    // 네이티브 모터 (ODE가 LCP 안에서 암시적으로 풂 → 큰 dt에서도 안정)
+    private boolean nativeMotorsActive = false;
+
+    // ========== 적응형 서브스텝 ==========
+    private final URDFAdaptiveSubsteps adaptive = new URDFAdaptiveSubsteps();
+    private Object anchorScratchA, anchorScratchB; // 힌지 구속 오차 측정용 DVector3
+    private float stepMaxSpeed = 0f;
+
+    private Method massSetBoxMethod;
+    private Method massSetSphereMethod;
+    private Method bodySetMassMethod;
+    private Method createMassMethod;
+
+    // ========================================================================
+    // 생성
+    // ========================================================================
+
+    /**
+     * @throws IllegalStateException PhysicsManager가 없거나 초기화 전 (호출측은 키네마틱으로 폴백)
+     */
+    ODE4JBackend(URDFModel model, URDFJointTable table) throws Exception {
+        if (model == null) {
+            throw new IllegalStateException("URDFModel is null");
+        }
+        PhysicsManager pm = PhysicsManager.GetInst();
+        if (pm == null || !pm.isInitialized()) {
+            throw new IllegalStateException("PhysicsManager not initialized");
+        }
+
+        this.physics = pm;
+        this.urdfModel = model;
+        this.t = table;
+        this.jointArray = table.jointArray;
+        this.jointType = table.jointType;
+        this.targetPos = table.targetPos;
+        this.targetVel = table.targetVel;
+        this.effortLimit = table.effortLimit;
+        this.jointKp = table.jointKp;
+        this.jointKd = table.jointKd;
+        this.odeJointHandles = new Object[table.size()];
+        this.rootBodyLinkName = model.rootLinkName;
+
+        initializeODE4JClasses();
+        detectODE4JVersion();
+        buildPhysicsModel();
+
+        this.blockRegion = URDFBlockCollisionCache.getInstance().newRegion();
+
+        logger.info("ODE4J backend ready");
+        logger.info("  ODE4J version: {}", odeVersion);
+        logger.info("  Bodies: {}, Geoms: {}, Joints: {}",
+                bodies.size(), geoms.size(), odeJointCount);
+        logger.info("  Block collision cache: active");
+
+        physics.setGravity(0, -9.81f, 0);
+        try {
+            physics.setWorldTuning(0.8, 1e-5, 50);
+            physics.setContactTuning(true, 0.8, 1e-5, 1.0);
+            physics.setDebugContacts(false);
+            logger.info("Applied recommended physics tuning (firm ground contact)");
+        } catch (Exception e) {
+            logger.warn("Failed to apply physics tuning: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Kind getKind() {
+        return Kind.ODE4J;
+    }
+
+    @Override
+    public boolean isDynamic() {
+        return true;
+    }
+
+    @Override
+    public boolean usesSharedWorld() {
+        return true;
+    }
+
+    // ========================================================================
+    // 월드 배치
+    // ========================================================================
+
+    /** 루트 바디를 스폰 위치 + 여유 높이에 정렬, 주변 블록 충돌 즉시 구성 */
+    @Override
+    public Vec3 anchor(Level level, Vec3 worldPos, double margin) {
+        double clearance = computeRootClearance();
+        double targetY = worldPos.y + clearance + margin;
+        if (!Double.isFinite(targetY)) {
+            targetY = worldPos.y + 1.0;
+        }
+
+        Vec3 safePos = new Vec3(worldPos.x, targetY, worldPos.z);
+        anchorPhysicsToWorld(safePos);
+        publishedBounds = computeBodyBounds();
+        anchored = true;
+        requestWake();
+
+        if (blockRegion != null && level != null) {
+            updateEnvironment(level, safePos);
+            logger.info("Block collision region built at spawn position. activeBlocks={}",
+                    URDFBlockCollisionCache.getInstance().getActiveBlockCount());
+        }
+        return safePos;
+    }
+
+    private double computeRootClearance() {
+        double fallback = estimateFallbackClearance();
+        if (bodies.isEmpty()) {
+            return fallback;
+        }
+
+        try {
+            Object root = getRootBody();
+            if (root == null) {
+                return fallback;
+            }
+            double[] rootPos = physics.getBodyPosition(root);
+            if (rootPos == null || rootPos.length < 3) {
+                return fallback;
+            }
+
+            double baseBottom = getLowestPointWorldY();
+            double clearance = rootPos[1] - baseBottom;
+            if (!Double.isFinite(clearance) || clearance <= 0.0) {
+                return fallback;
+            }
+            return clearance;
+        } catch (Exception e) {
+            logger.debug("computeRootClearance fallback: {}", e.getMessage());
+            return fallback;
+        }
+    }
+
+    private double estimateFallbackClearance() {
+        double maxRadius = 0.0;
+        for (float r : linkRadii.values()) {
+            if (Float.isFinite(r)) {
+                maxRadius = Math.max(maxRadius, r);
+            }
+        }
+        if (maxRadius > 0.0) {
+            return maxRadius;
+        }
+        return 1.0;
+    }
+
+    /**
+     * 루트 바디 기준으로 모든 바디를 주어진 월드 위치로 평행 이동시킨다.
+     *
+     * ✅ 중요: 바디만 이동하면 힌지 앵커는 "월드 고정"이라서 뒤에 남는다.
+     * 따라서 이동 후 힌지 앵커를 다시 세팅(refresh)해야 관통/폭주가 줄어든다.
+     */
+    private void anchorPhysicsToWorld(Vec3 anchorWorldPos) {
+        try {
+            Object root = getRootBody();
+            if (root == null || physics == null) return;
+
+            double[] rootPos = physics.getBodyPosition(root);
+            if (rootPos == null || rootPos.length < 3) return;
+
+            double dx = anchorWorldPos.x - rootPos[0];
+            double dy = anchorWorldPos.y - rootPos[1];
+            double dz = anchorWorldPos.z - rootPos[2];
+
+            for (Object body : bodies.values()) {
+                if (body == null) continue;
+                double[] p = physics.getBodyPosition(body);
+                if (p == null || p.length < 3) continue;
+                physics.setBodyPosition(body, p[0] + dx, p[1] + dy, p[2] + dz);
+            }
+
+            // ✅ PATCH: 힌지 앵커 월드좌표 재설정
+            refreshHingeAnchors();
+
+            logger.info("Anchored physics to world at ({}, {}, {})",
+                    anchorWorldPos.x, anchorWorldPos.y, anchorWorldPos.z);
+
+        } catch (Exception e) {
+            logger.warn("anchorPhysicsToWorld failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * ✅ PATCH: 힌지 조인트 앵커를 "현재 바디 위치/회전" 기반으로 다시 월드좌표에 세팅.
+     * 앵커는 생성 시 기준 바디(자식, 없으면 부모) 좌표계로 기록해 둔 값 → 바디를 옮긴 뒤에도 같은 점.
+     */
+    private void refreshHingeAnchors() {
+        if (physics == null || ode == null || hingeAnchorLocal == null) return;
+
+        try {
+            float[] q = new float[4];
+            Quaternionf rot = new Quaternionf();
+            Vector3f local = new Vector3f();
+            for (int i = 0; i < jointArray.length; i++) {
+                byte type = jointType[i];
+                if (type != JT_REVOLUTE && type != JT_CONTINUOUS) continue;
+
+                Object odeJoint = odeJointHandles[i];
+                if (odeJoint == null) continue;
+                Object body = anchorBody(jointArray[i]);
+                if (body == null) continue;
+                double[] p = physics.getBodyPosition(body);
+                if (p == null || p.length < 3) continue;
+
+                if (ode.bodyQuaternionWXYZ(body, q)) {
+                    rot.set(q[1], q[2], q[3], q[0]);
+                } else {
+                    rot.identity();
+                }
+                local.set((float) hingeAnchorLocal[3 * i], (float) hingeAnchorLocal[3 * i + 1],
+                        (float) hingeAnchorLocal[3 * i + 2]);
+                rot.transform(local);
+                ode.hingeSetAnchor(odeJoint, p[0] + local.x, p[1] + local.y, p[2] + local.z);
+            }
+
+            logger.info("Refreshed hinge anchors for {} joints", odeJointCount);
+        } catch (Exception e) {
+            // 메서드가 없거나 버전 차이인 경우 무시
+            logger.debug("refreshHingeAnchors skipped: {}", e.getMessage());
+        }
+    }
+
+    /** 힌지 앵커 기준 바디 (자식 바디, 없으면 부모) */
+    private Object anchorBody(URDFJoint joint) {
+        Object body = bodies.get(joint.childLinkName);
+        return body != null ? body : bodies.get(joint.parentLinkName);
+    }
+
+    /**
+     * 로봇 AABB 주변 블록 충돌 캡처 (Level 접근 → 클라이언트 스레드에서만 호출, WORLD_LOCK 불필요)
+     * 바뀐 섹션만 스냅샷으로 넘기고, geom 생성/해제는 다음 스텝 시작 때 스텝 스레드가 한다.
+     * AABB는 스텝 스레드가 발행한 값 (발행 전이면 center 한 점)
+     */
+    @Override
+    public void updateEnvironment(Level level, Vec3 center) {
+        URDFBlockCollisionCache.Region region = blockRegion;
+        if (region == null || level == null || center == null) return;
+        double[] b = anchored ? publishedBounds : null;
+        boolean changed = b != null
+                ? region.update(level, b[0] - BLOCK_MARGIN, b[1] - BLOCK_MARGIN, b[2] - BLOCK_MARGIN,
+                        b[3] + BLOCK_MARGIN, b[4] + BLOCK_MARGIN, b[5] + BLOCK_MARGIN)
+                : region.update(level, center.x - BLOCK_MARGIN, center.y - BLOCK_MARGIN, center.z - BLOCK_MARGIN,
+                        center.x + BLOCK_MARGIN, center.y + BLOCK_MARGIN, center.z + BLOCK_MARGIN);
+        // 주변 블록 구성이 바뀌었으면 (설치/파괴/새 섹션) 자고 있던 로봇 깨움
+        if (changed) requestWake();
+    }
+
+    /** 바디 위치 ± 링크 반경의 월드 AABB (min xyz, max xyz), 바디가 없으면 null - 스텝 스레드 또는 WORLD_LOCK 안에서만 */
+    private double[] computeBodyBounds() {
+        double[] out = null;
+        for (Map.Entry<String, Object> e : bodies.entrySet()) {
+            double[] p = physics.getBodyPosition(e.getValue());
+            if (p == null || p.length < 3 || !Double.isFinite(p[0] + p[1] + p[2])) continue;
+            double r = getLinkRadius(e.getKey());
+            if (out == null) out = new double[]{p[0], p[1], p[2], p[0], p[1], p[2]};
+            out[0] = Math.min(out[0], p[0] - r); out[3] = Math.max(out[3], p[0] + r);
+            out[1] = Math.min(out[1], p[1] - r); out[4] = Math.max(out[4], p[1] + r);
+            out[2] = Math.min(out[2], p[2] - r); out[5] = Math.max(out[5], p[2] + r);
+        }
+        return out;
+    }
+
+    static int getActiveBlockGeomCount() {
+        return URDFBlockCollisionCache.getInstance().getActiveGeomCount();
+    }
+
+    // ========================================================================
+    // 스텝
+    // ========================================================================
+
+    @Override
+    public void step(float dt) {
+        // 시뮬레이션 스레드 없이 틱에서 스텝하는 경우: 여기서 블록 geom 반영
+        URDFBlockCollisionCache.getInstance().applyPending();
+        if (!prepareStep()) return;
+
+        int subSteps = getSubSteps();
+        float subDt = dt / subSteps;
+        boolean nativeStep = updateNativeMotors(dt);
+
+        for (int i = 0; i < subSteps; i++) {
+            if (t.motorsEnabled && !nativeStep) {
+                long t0 = URDFSimStats.start();
+                applyJointControls();
+                URDFSimStats.stop(URDFSimStats.Metric.JOINT_CONTROL, t0);
+            }
+            physics.step(subDt);
+        }
+
+        finishStep(subSteps);
+    }
+
+    // 로봇마다 physics.step()을 부르면 전역 ODE 월드가 로봇 수만큼 스텝됨 →
+    // 시뮬레이션 스레드는 아래 단계로 쪼개서 모든 로봇의 제어 적용 후 월드를 서브스텝당 한 번만 스텝한다.
+    // begin/substep/end는 로봇 자신의 바디/조인트만 건드리므로 로봇(섬) 간 병렬 호출 가능.
+
+    /** 적응형이면 직전 스텝 상태로 고른 수 (잠든 동안 최소), 아니면 고정값 */
+    @Override
+    public int getSubSteps() {
+        if (!URDFAdaptiveSubsteps.isEnabled()) return Math.max(1, t.subSteps);
+        return sleeping ? URDFAdaptiveSubsteps.getMinSubSteps() : adaptive.get();
+    }
+
+    /** 스텝 시작: 슬립/깨우기 판정, 네이티브 모터면 목표 속도 설정 */
+    @Override
+    public void beginSharedStep(float dt) {
+        stepActive = prepareStep();
+        nativeStep = stepActive && updateNativeMotors(dt);
+    }
+
+    /** 서브스텝마다: 조인트 PD 토크/힘 적용 (월드 스텝 직전, 네이티브 모터면 생략) */
+    @Override
+    public void applySubstepControls() {
+        if (!stepActive || !t.motorsEnabled || nativeStep) return;
+        long t0 = URDFSimStats.start();
+        applyJointControls();
+        URDFSimStats.stop(URDFSimStats.Metric.JOINT_CONTROL, t0);
+    }
+
+    /** 스텝 종료: 조인트 상태 읽어오기 */
+    @Override
+    public void endSharedStep() {
+        if (!stepActive) return;
+        finishStep(getSubSteps());
+    }
+
+    private void finishStep(int subSteps) {
+        syncJointStates();
+        updateAdaptiveSubsteps();
+        if (URDFSimStats.isEnabled()) recordStability(subSteps);
+        updateRestState();
+        if (++boundsStepCounter >= BOUNDS_PUBLISH_STEPS) {
+            boundsStepCounter = 0;
+            publishedBounds = computeBodyBounds();
+        }
+    }
+
+    // ========================================================================
+    // 적응형 서브스텝
+    // ========================================================================
+
+    /** 방금 끝난 스텝의 조인트 속도/추종 오차/접촉/구속 오차로 다음 스텝 서브스텝 수 결정 */
+    private void updateAdaptiveSubsteps() {
+        float maxSpeed = 0f;
+        float maxError = 0f;
+        float maxConstraint = -1f;
+        boolean anchors = ode != null && ode.hasHingeAnchors() && URDFAdaptiveSubsteps.isEnabled();
+        if (anchors && anchorScratchA == null) {
+            anchorScratchA = ode.newVector();
+            anchorScratchB = ode.newVector();
+        }
+
+        for (int i = 0; i < odeJointHandles.length; i++) {
+            Object odeJoint = odeJointHandles[i];
+            if (odeJoint == null) continue;
+            URDFJoint j = jointArray[i];
+            float v = Math.abs(j.currentVelocity);
+            if (!(v <= maxSpeed)) maxSpeed = v; // NaN도 그대로 전달 → 최대 서브스텝
+
+            byte type = jointType[i];
+            if (t.motorsEnabled) {
+                float err = targetPos[i] - j.currentPosition;
+                if (type == JT_CONTINUOUS) err = wrapToPi(err);
+                maxError = Math.max(maxError, Math.abs(err));
+            }
+            if (anchors && type != JT_PRISMATIC) {
+                float e = ode.hingeAnchorError(odeJoint, anchorScratchA, anchorScratchB);
+                if (e > maxConstraint) maxConstraint = e;
+            }
+        }
+        stepMaxSpeed = maxSpeed;
+
+        if (URDFAdaptiveSubsteps.isEnabled()) {
+            adaptive.update(maxSpeed, maxError, URDFCollisionSpaces.readContactCount(physics), maxConstraint);
+        }
+    }
+
+    // ========================================================================
+    // 루트 바디 / 루트 바디 위치 (렌더러/엔티티용)
+    // ========================================================================
+
+    private Object getRootBody() {
+        if (bodies.isEmpty()) return null;
+
+        if (rootBodyLinkName != null) {
+            Object root = bodies.get(rootBodyLinkName);
+            if (root != null) return root;
+        }
+        return bodies.values().iterator().next();
+    }
+
+    /** 루트 바디의 월드 회전 (ODE 관례: w,x,y,z) - 렌더러에서 roll/pitch까지 반영 */
+    @Override
+    public boolean getRootWorldQuaternionWXYZ(float[] out) {
+        Object root = getRootBody();
+        if (root == null) return false;
+
+        // 바인딩된 핸들로 바로 읽기 (할당/메서드 탐색 없음)
+        if (ode != null && ode.bodyQuaternionWXYZ(root, out)) {
+            return true;
+        }
+
+        // 폴백: 버전 차이 흡수용 리플렉션 탐색
+        float[] q = tryReadBodyQuaternionWXYZ(root);
+        if (q == null) return false;
+
+        System.arraycopy(q, 0, out, 0, 4);
+        return true;
+    }
+
+    @Override
+    public boolean getRootWorldPosition(double[] out) {
+        Object root = getRootBody();
+        if (root == null) return false;
+        double[] pos = physics.getBodyPosition(root);
+        if (pos == null || pos.length < 3) return false;
+        out[0] = pos[0];
+        out[1] = pos[1];
+        out[2] = pos[2];
+        return true;
+    }
+
+    @Override
+    public boolean getLinkWorldPosition(String linkName, double[] out) {
+        Object body = bodies.get(linkName);
+        if (body == null) return false;
+        double[] pos = physics.getBodyPosition(body);
+        if (pos == null || pos.length < 3) return false;
+        out[0] = pos[0];
+        out[1] = pos[1];
+        out[2] = pos[2];
+        return true;
+    }
+
+    /** 모든 바디 중 가장 낮은 바닥면 Y (월드 좌표계) */
+    @Override
+    public double getLowestPointWorldY() {
+        double minBottomWorldY = Double.POSITIVE_INFINITY;
+
+        for (Map.Entry<String, Object> entry : bodies.entrySet()) {
+            Object body = entry.getValue();
+            if (body == null) continue;
+
+            double[] pos = physics.getBodyPosition(body);
+            if (pos == null || pos.length < 2) continue;
+
+            float radius = getLinkRadius(entry.getKey());
+            double bottomY = pos[1] - radius;
+
+            if (bottomY < minBottomWorldY) {
+                minBottomWorldY = bottomY;
+            }
+        }
+
+        if (!Double.isFinite(minBottomWorldY) && !bodies.isEmpty()) {
+            double[] pos = physics.getBodyPosition(bodies.values().iterator().next());
+            if (pos == null || pos.length < 2) return Double.NaN;
+            minBottomWorldY = pos[1];
+        }
+
+        return Double.isFinite(minBottomWorldY) ? minBottomWorldY : Double.NaN;
+    }
+
+    // ========================================================================
+    // 입력
+    // ========================================================================
+
+    @Override
+    public void applyForce(String linkName, float fx, float fy, float fz) {
+        Object body = bodies.get(linkName);
+        if (body == null) return;
+        wakeNow("force");
+        physics.addForce(body, fx, fy, fz);
+    }
+
+    @Override
+    public void applyTorque(String linkName, float tx, float ty, float tz) {
+        Object body = bodies.get(linkName);
+        if (body == null) return;
+        wakeNow("torque");
+        physics.addTorque(body, tx, ty, tz);
+    }
+
+    @Override
+    public void setGravity(float x, float y, float z) {
+        physics.setGravity(x, y, z);
+    }
+
+    @Override
+    public void reset() {
+        wakeNow("reset");
+        adaptive.reset();
+        for (Object body : bodies.values()) {
+            if (body != null) {
+                physics.setBodyLinearVel(body, 0, 0, 0);
+                physics.setBodyAngularVel(body, 0, 0, 0);
+            }
+        }
+        anchored = false;
+    }
+
+    // ========================================================================
+    // 슬립 / 깨우기
+    // ========================================================================
+    // 모든 바디 선속도/각속도와 모든 조인트 추종 오차가 SLEEP_STEPS 스텝 연속 임계값 이하면
+    // 바디를 ODE에서 비활성화하고 모터 제어/상태 동기화를 건너뜀.
+    // 새 목표값, 외력, 주변 블록 변화, 접촉으로 인한 ODE 자동 활성화 시 깨어남.
+
+    static boolean isSleepEnabled() {
+        return sleepEnabled;
+    }
+
+    static void setSleepEnabled(boolean enabled) {
+        sleepEnabled = enabled;
+    }
+
+    /** 현재 잠든 ODE 로봇 수 */
+    static int getSleepingRobotCount() {
+        return SLEEPING_ROBOTS.get();
+    }
+
+    @Override
+    public boolean isSleeping() {
+        return sleeping;
+    }
+
+    /** 다음 스텝 시작 시 깨움 (어느 스레드에서나 호출 가능) */
+    @Override
+    public void requestWake() {
+        restSteps = 0;
+        if (sleeping) wakeRequested = true;
+    }
+
+    /** @return 이번 스텝에 제어/동기화를 진행하면 true */
+    private boolean prepareStep() {
+        if (wakeRequested) {
+            wakeRequested = false;
+            wakeNow("input");
+        }
+        if (sleeping && anyBodyEnabledByOde()) {
+            // 깨어 있는 다른 바디와 접촉 → ODE가 섬을 다시 활성화함
+            wakeNow("contact");
+        }
+        return !sleeping;
+    }
+
+    private Object[] bodyHandles() {
+        if (bodyHandles == null || bodyHandles.length != bodies.size()) {
+            bodyHandles = bodies.values().toArray();
+        }
+        return bodyHandles;
+    }
+
+    private boolean anyBodyEnabledByOde() {
+        if (ode == null || !ode.hasEnable()) return false;
+        for (Object body : bodyHandles()) {
+            if (body != null && ode.bodyIsEnabled(body)) return true;
+        }
+        return false;
+    }
+
+    private void updateRestState() {
+        if (!sleepEnabled || ode == null || !ode.hasVelocity() || !ode.hasEnable()) {
+            restSteps = 0;
+            return;
+        }
+
+        for (int i = 0; i < jointArray.length; i++) {
+            byte type = jointType[i];
+            if (type == JT_FIXED || odeJointHandles[i] == null) continue;
+            if (targetVel[i] != 0f) {
+                restSteps = 0;
+                return;
+            }
+            float err = targetPos[i] - jointArray[i].currentPosition;
+            if (type == JT_CONTINUOUS) err = wrapToPi(err);
+            if (Math.abs(err) > SLEEP_TRACKING_ERROR) {
+                restSteps = 0;
+                return;
+            }
+        }
+
+        final float linSq = SLEEP_LINEAR_SPEED * SLEEP_LINEAR_SPEED;
+        final float angSq = SLEEP_ANGULAR_SPEED * SLEEP_ANGULAR_SPEED;
+        for (Object body : bodyHandles()) {
+            if (body == null) continue;
+            float lin = ode.bodyLinearSpeedSq(body);
+            float ang = ode.bodyAngularSpeedSq(body);
+            if (lin < 0f || ang < 0f || lin > linSq || ang > angSq) {
+                restSteps = 0;
+                return;
+            }
+        }
+
+        if (++restSteps >= SLEEP_STEPS) {
+            sleepNow();
+        }
+    }
+
+    private void sleepNow() {
+        if (sleeping) return;
+        if (restPoint == null && anchored) {
+            // 안착 후 처음 정지한 상태 = 알려진 안정 상태
+            restPoint = captureSnapshot();
+        }
+        for (Object body : bodyHandles()) {
+            if (body == null) continue;
+            physics.setBodyLinearVel(body, 0, 0, 0);
+            physics.setBodyAngularVel(body, 0, 0, 0);
+            ode.bodySetEnabled(body, false);
+        }
+        for (URDFJoint j : jointArray) {
+            j.currentVelocity = 0f;
+        }
+        sleeping = true;
+        restSteps = 0;
+        SLEEPING_ROBOTS.incrementAndGet();
+        logger.debug("URDF robot asleep ({} sleeping)", getSleepingRobotCount());
+    }
+
+    /** 시뮬레이션 측에서 즉시 깨움 */
+    private void wakeNow(String reason) {
+        restSteps = 0;
+        if (!sleeping) return;
+        if (ode != null) {
+            for (Object body : bodyHandles()) {
+                if (body != null) ode.bodySetEnabled(body, true);
+            }
+        }
+        sleeping = false;
+        SLEEPING_ROBOTS.decrementAndGet();
+        adaptive.reset();
+        logger.debug("URDF robot woke up ({})", reason);
+    }
+
+    // ========================================================================
+    // 스냅샷 / 복원
+    // ========================================================================
+
+    private void ensureSnapshotLayout() {
+        if (snapshotBodyNames != null && snapshotBodyNames.length == bodies.size()) return;
+        String[] names = bodies.keySet().toArray(new String[0]);
+        Arrays.sort(names);
+
+        // FNV-1a: 바디 이름 + 조인트 이름 구성
+        long h = 0xcbf29ce484222325L;
+        for (String n : names) h = fnv(h, n);
+        h = fnv(h, "|");
+        for (URDFJoint j : jointArray) h = fnv(h, j.name);
+
+        snapshotBodyNames = names;
+        layoutHash = h;
+    }
+
+    private static long fnv(long h, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h * 0x100000001b3L;
+    }
+
+    /**
+     * 현재 물리 상태 캡처 (바디 위치/회전/속도 + 조인트 목표/상태)
+     */
+    @Override
+    public URDFPhysicsSnapshot captureSnapshot() {
+        ensureSnapshotLayout();
+
+        String[] names = snapshotBodyNames;
+        double[] state = new double[names.length * URDFPhysicsSnapshot.BODY_STRIDE];
+        float[] q = new float[4];
+        int rootIndex = -1;
+
+        for (int b = 0; b < names.length; b++) {
+            Object body = bodies.get(names[b]);
+            int o = b * URDFPhysicsSnapshot.BODY_STRIDE;
+            if (names[b].equals(rootBodyLinkName)) rootIndex = b;
+            if (body == null) {
+                state[o + 3] = 1.0;
+                continue;
+            }
+
+            double[] p = physics.getBodyPosition(body);
+            if (p != null && p.length >= 3) {
+                state[o] = p[0];
+                state[o + 1] = p[1];
+                state[o + 2] = p[2];
+            }
+            if (ode != null && ode.bodyQuaternionWXYZ(body, q)) {
+                state[o + 3] = q[0];
+                state[o + 4] = q[1];
+                state[o + 5] = q[2];
+                state[o + 6] = q[3];
+            } else {
+                state[o + 3] = 1.0;
+            }
+            if (ode != null) {
+                ode.bodyLinearVel(body, state, o + 7);
+                ode.bodyAngularVel(body, state, o + 10);
+            }
+        }
+
+        int n = jointArray.length;
+        float[] positions = new float[n];
+        float[] velocities = new float[n];
+        for (int i = 0; i < n; i++) {
+            positions[i] = jointArray[i].currentPosition;
+            velocities[i] = jointArray[i].currentVelocity;
+        }
+        return new URDFPhysicsSnapshot(layoutHash, rootIndex, state,
+                targetPos.clone(), positions, velocities);
+    }
+
+    /** 스냅샷이 이 로봇 구성과 맞는지 */
+    @Override
+    public boolean isSnapshotCompatible(URDFPhysicsSnapshot snapshot) {
+        if (snapshot == null) return false;
+        ensureSnapshotLayout();
+        return snapshot.layoutHash == layoutHash
+                && snapshot.getBodyCount() == snapshotBodyNames.length
+                && snapshot.getJointCount() == jointArray.length;
+    }
+
+    /** 바디 위치/회전/속도 복원 (조인트 테이블은 컨트롤러가 복원), rootWorldPos가 있으면 평행이동 */
+    @Override
+    public void restoreSnapshot(URDFPhysicsSnapshot snapshot, Vec3 rootWorldPos) {
+        double[] st = snapshot.bodyState;
+        double dx = 0, dy = 0, dz = 0;
+        if (rootWorldPos != null && snapshot.rootBody >= 0) {
+            int r = snapshot.rootBody * URDFPhysicsSnapshot.BODY_STRIDE;
+            dx = rootWorldPos.x - st[r];
+            dy = rootWorldPos.y - st[r + 1];
+            dz = rootWorldPos.z - st[r + 2];
+        }
+
+        String[] names = snapshotBodyNames;
+        for (int b = 0; b < names.length; b++) {
+            Object body = bodies.get(names[b]);
+            if (body == null) continue;
+            int o = b * URDFPhysicsSnapshot.BODY_STRIDE;
+            physics.setBodyPosition(body, st[o] + dx, st[o + 1] + dy, st[o + 2] + dz);
+            if (ode != null) {
+                ode.bodySetQuaternionWXYZ(body, st[o + 3], st[o + 4], st[o + 5], st[o + 6]);
+            }
+            physics.setBodyLinearVel(body, st[o + 7], st[o + 8], st[o + 9]);
+            physics.setBodyAngularVel(body, st[o + 10], st[o + 11], st[o + 12]);
+        }
+
+        anchored = true;
+        wakeNow("restore");
+        adaptive.reset();
+        logger.info("Physics snapshot restored ({} bodies, {} joints)",
+                snapshot.getBodyCount(), snapshot.getJointCount());
+    }
+
+    /** 스냅샷에서 루트 바디가 가장 낮은 바디 바닥면보다 얼마나 위에 있는지 */
+    @Override
+    public double snapshotRootHeight(URDFPhysicsSnapshot snapshot) {
+        double[] st = snapshot.bodyState;
+        int stride = URDFPhysicsSnapshot.BODY_STRIDE;
+        int lowest = 0;
+        for (int b = 1; b < snapshot.getBodyCount(); b++) {
+            if (st[b * stride + 1] < st[lowest * stride + 1]) lowest = b;
+        }
+        double rootY = snapshot.rootBody >= 0 ? st[snapshot.rootBody * stride + 1] : st[lowest * stride + 1];
+        return rootY - st[lowest * stride + 1] + getLinkRadius(snapshotBodyNames[lowest]);
+    }
+
+    @Override
+    public URDFPhysicsSnapshot getRestPoint() {
+        return restPoint;
+    }
+
+    @Override
+    public void setRestPoint(URDFPhysicsSnapshot snapshot) {
+        this.restPoint = snapshot;
+    }
+
+    // ========================================================================
+    // 조인트 제어
+    // ========================================================================
+
+    /**
+     * 네이티브 모터 모드면 스텝마다 한 번 조인트 모터 목표 속도/최대 힘 설정.
+     * PD 토크 τ = kp·e + kd·(v* - v) = kd·((v* + kp/kd·e) - v) 이므로
+     * 목표 속도 v* + (kp/kd)·e 를 힘 상한 안에서 맞추는 속도 서보와 같다 (한 스텝에 오차 이상 넘지 않게 gain ≤ 1/dt).
+     * @return 이번 스텝을 네이티브 모터로 구동하면 true (서브스텝 PD 생략)
+     */
+    private boolean updateNativeMotors(float dt) {
+        boolean use = t.motorsEnabled && t.nativeMotors && ode != null && ode.hasJointMotors();
+        if (!use) {
+            if (nativeMotorsActive) releaseNativeMotors();
+            return false;
+        }
+        nativeMotorsActive = true;
+
+        final float maxGain = dt > 0f ? 1f / dt : Float.MAX_VALUE;
+        final Object[] handles = odeJointHandles;
+        for (int i = 0; i < handles.length; i++) {
+            Object odeJoint = handles[i];
+            if (odeJoint == null) continue;
+
+            switch (jointType[i]) {
+                case JT_REVOLUTE:
+                case JT_CONTINUOUS: {
+                    float err = targetPos[i] - getHingeAngle(odeJoint);
+                    if (jointType[i] == JT_CONTINUOUS) err = wrapToPi(err);
+                    float limit = effortLimit[i] > 0f ? effortLimit[i] : t.maxTorque;
+                    ode.hingeSetMotor(odeJoint, motorVelocity(i, err, maxGain), limit);
+                    break;
+                }
+                case JT_PRISMATIC: {
+                    float err = targetPos[i] - getSliderPosition(odeJoint);
+                    float limit = effortLimit[i] > 0f ? effortLimit[i] : t.maxForce;
+                    ode.sliderSetMotor(odeJoint, motorVelocity(i, err, maxGain), limit);
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+        return true;
+    }
+
+    private float motorVelocity(int i, float err, float maxGain) {
+        float gain = jointKd[i] > 1e-6f ? jointKp[i] / jointKd[i] : maxGain;
+        float v = targetVel[i] + Math.min(gain, maxGain) * err;
+        float limit = t.velLimit[i];
+        return limit > 0f ? Mth.clamp(v, -limit, limit) : v;
+    }
+
+    /** 모터 해제 (FMax 0) - PD 모드로 돌아가거나 모터를 끌 때 */
+    private void releaseNativeMotors() {
+        nativeMotorsActive = false;
+        if (ode == null) return;
+        for (int i = 0; i < odeJointHandles.length; i++) {
+            Object odeJoint = odeJointHandles[i];
+            if (odeJoint == null) continue;
+            if (jointType[i] == JT_PRISMATIC) ode.sliderSetMotor(odeJoint, 0.0, 0.0);
+            else ode.hingeSetMotor(odeJoint, 0.0, 0.0);
+        }
+    }
+
+    /** 스텝 후 조인트 최대 속도 / 서브스텝 수를 모터 방식별로 계측 훅에 기록 (발산하면 max가 튐) */
+    private void recordStability(int subSteps) {
+        boolean nativeMode = nativeMotorsActive;
+        URDFSimStats.record(nativeMode ? URDFSimStats.Metric.NATIVE_JOINT_SPEED : URDFSimStats.Metric.PD_JOINT_SPEED,
+                Float.isFinite(stepMaxSpeed) ? stepMaxSpeed : Float.MAX_VALUE);
+        URDFSimStats.record(nativeMode ? URDFSimStats.Metric.NATIVE_SUBSTEPS : URDFSimStats.Metric.PD_SUBSTEPS, subSteps);
+    }
+
+    private void applyJointControls() {
+        final Object[] handles = odeJointHandles;
+        final byte[] types = jointType;
+        for (int i = 0; i < handles.length; i++) {
+            Object odeJoint = handles[i];
+            if (odeJoint == null) continue;
+
+            switch (types[i]) {
+                case JT_REVOLUTE:
+                case JT_CONTINUOUS: {
+                    float currentPos = getHingeAngle(odeJoint);
+                    float currentVel = getHingeAngleRate(odeJoint);
+
+                    float posError = targetPos[i] - currentPos;
+                    if (types[i] == JT_CONTINUOUS) {
+                        posError = wrapToPi(posError);
+                    }
+
+                    float torque = jointKp[i] * posError + jointKd[i] * (targetVel[i] - currentVel);
+                    float limit = effortLimit[i] > 0f ? effortLimit[i] : t.maxTorque;
+                    addHingeTorque(odeJoint, Mth.clamp(torque, -limit, limit));
+                    break;
+                }
+                case JT_PRISMATIC: {
+                    float currentPos = getSliderPosition(odeJoint);
+                    float currentVel = getSliderPositionRate(odeJoint);
+
+                    float posError = targetPos[i] - currentPos;
+                    float force = jointKp[i] * posError + jointKd[i] * (targetVel[i] - currentVel);
+                    float limit = effortLimit[i] > 0f ? effortLimit[i] : t.maxForce;
+                    addSliderForce(odeJoint, Mth.clamp(force, -limit, limit));
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+    }
+
+    // ========================================================================
+    // ODE4J 초기화
+    // ========================================================================
+
+    private void initializeODE4JClasses() throws Exception {
+        ClassLoader cl = physics.getClassLoader();
+        String base = "com.kAIS.ode4j.ode.";
+
+        odeHelperClass    = cl.loadClass(base + "OdeHelper");
+        dWorldClass       = cl.loadClass(base + "DWorld");
+        dBodyClass        = cl.loadClass(base + "DBody");
+        dMassClass        = cl.loadClass(base + "DMass");
+        dGeomClass        = cl.loadClass(base + "DGeom");
+        dHingeJointClass  = cl.loadClass(base + "DHingeJoint");
+        dSliderJointClass = cl.loadClass(base + "DSliderJoint");
+        dFixedJointClass  = cl.loadClass(base + "DFixedJoint");
+        dJointGroupClass  = cl.loadClass(base + "DJointGroup");
+
+        createMassMethod = odeHelperClass.getMethod("createMass");
+        ode = ODE4JBindings.create(cl);
+    }
+
+    private void detectODE4JVersion() {
+        try {
+            bodySetMassMethod = dBodyClass.getMethod("setMass", dMassClass);
+            odeVersion = ODE4JVersion.V03X;
+            return;
+        } catch (NoSuchMethodException e) {
+            // ignore
+        }
+
+        try {
+            physics.getClassLoader().loadClass("com.kAIS.ode4j.ode.internal.DxMass");
+            odeVersion = ODE4JVersion.V05X;
+            return;
+        } catch (ClassNotFoundException e) {
+            // ignore
+        }
+
+        odeVersion = ODE4JVersion.V05X;
+        logger.info("Assuming ODE4J 0.5.x");
+    }
+
+    private void findMassSetMethods() {
+        try {
+            massSetBoxMethod = dMassClass.getMethod("setBox",
+                    double.class, double.class, double.class, double.class);
+        } catch (NoSuchMethodException e) {
+            try {
+                massSetBoxMethod = dMassClass.getMethod("setBoxTotal",
+                        double.class, double.class, double.class, double.class);
+            } catch (NoSuchMethodException e2) { }
+        }
+
+        try {
+            massSetSphereMethod = dMassClass.getMethod("setSphere", double.class, double.class);
+        } catch (NoSuchMethodException e) { }
+    }
+
+    // ========================================================================
+    // 물리 모델 빌드
+    // ========================================================================
+
+    private void buildPhysicsModel() throws Exception {
+        if (urdfModel == null) {
+            throw new IllegalStateException("URDFModel is null");
+        }
+
+        Object world = physics.getWorld();
+        findMassSetMethods();
+
+        // 영점 자세 링크 좌표계 (조인트 축/앵커/영점 각도 기준)
+        computeLinkFrames(false);
+        hingeAnchorLocal = new double[3 * jointArray.length];
+
+        // 링크 → body + geom
+        for (URDFLink link : urdfModel.links) {
+            if (link == null || isFixedLink(link)) continue;
+
+            Object body = createBodyForLink(link, world);
+            if (body != null) {
+                bodies.put(link.name, body);
+
+                float radius = estimateLinkRadius(link);
+                linkRadii.put(link.name, radius);
+            }
+        }
+
+        // 조인트 생성
+        for (int i = 0; i < jointArray.length; i++) {
+            URDFJoint joint = jointArray[i];
+            if (!joint.isMovable()) continue;
+
+            Object odeJoint = createODEJoint(joint, world);
+            if (odeJoint != null) {
+                odeJointHandles[i] = odeJoint;
+                odeJointCount++;
+            }
+        }
+
+        // 현재 조인트 값이 영점이 아니면 (백엔드 교체/LOD 복귀) 바디만 그 자세로 옮김
+        // ODE 조인트는 방금 영점 자세로 만들어 기준 각도/앵커가 바디 좌표계에 고정됨 → 구속은 그대로 맞음
+        poseBodiesFromJoints();
+
+        // 로봇 geom → 로봇 서브 스페이스 (인접 링크 쌍 제외)
+        adoptRobotGeoms();
+
+        // 루트 바디 이름 보정
+        if (rootBodyLinkName != null && !bodies.containsKey(rootBodyLinkName)) {
+            rootBodyLinkName = bodies.keySet().stream().findFirst().orElse(null);
+        }
+
+        logger.info("Physics model: {} bodies, {} geoms, {} joints (rootBody = {})",
+                bodies.size(), geoms.size(), odeJointCount, rootBodyLinkName);
+
+        if (bodies.isEmpty()) {
+            throw new IllegalStateException("No ODE bodies created");
+        }
+    }
+
+    /**
+     * 로봇 geom을 설정된 브로드페이즈의 서브 스페이스로 옮기고, 조인트로 직접 연결된 링크 쌍을 충돌에서 제외
+     * 링크마다 카테고리 비트 하나, collide 비트 = 인접 링크 비트를 뺀 나머지
+     */
+    private void adoptRobotGeoms() {
+        collisionSpace = URDFCollisionSpaces.create(physics, odeHelperClass);
+        if (collisionSpace == null || geoms.isEmpty()) return;
+
+        Map<String, Long> linkBits = new HashMap<>();
+        int index = 0;
+        for (String name : geoms.keySet()) {
+            linkBits.put(name, collisionSpace.linkBit(index++));
+        }
+        Map<String, Long> excluded = new HashMap<>();
+        for (URDFJoint joint : urdfModel.joints) {
+            Long parentBit = linkBits.get(joint.parentLinkName);
+            Long childBit = linkBits.get(joint.childLinkName);
+            if (parentBit == null || childBit == null) continue;
+            excluded.merge(joint.parentLinkName, childBit, (a, b) -> a | b);
+            excluded.merge(joint.childLinkName, parentBit, (a, b) -> a | b);
+        }
+        for (Map.Entry<String, Object> e : geoms.entrySet()) {
+            collisionSpace.adopt(e.getValue(), linkBits.get(e.getKey()), excluded.getOrDefault(e.getKey(), 0L));
+        }
+        logger.info("Robot collision space: {} ({} geoms, {} adjacent pairs excluded)",
+                collisionSpace.getKind(), collisionSpace.getGeomCount(),
+                excluded.values().stream().mapToInt(Long::bitCount).sum() / 2);
+    }
+
+    private float estimateLinkRadius(URDFLink link) {
+        float defaultRadius = 0.1f;
+
+        URDFConvexHull hull = linkHulls.get(link.name);
+        if (hull != null) {
+            return hull.boundingRadius();
+        }
+
+        URDFLink.Geometry g = collisionGeometry(link);
+        if (g != null) {
+            switch (g.type) {
+                case BOX:
+                    if (g.boxSize != null) {
+                        return (float) Math.sqrt(
+                                g.boxSize.x * g.boxSize.x +
+                                        g.boxSize.y * g.boxSize.y +
+                                        g.boxSize.z * g.boxSize.z
+                        ) * 0.5f;
+                    }
+                    break;
+                case SPHERE:
+                    return g.sphereRadius;
+                case CYLINDER:
+                    return Math.max(g.cylinderRadius, g.cylinderLength * 0.5f);
+                case MESH:
+                    if (g.scale != null) {
+                        return Math.max(g.scale.x, Math.max(g.scale.y, g.scale.z)) * 0.1f;
+                    }
+                    break;
+            }
+        }
+
+        String name = link.name.toLowerCase();
+        if (name.contains("torso") || name.contains("body") || name.contains("chest")) {
+            return 0.25f;
+        } else if (name.contains("head")) {
+            return 0.12f;
+        } else if (name.contains("arm") || name.contains("leg")) {
+            return 0.08f;
+        } else if (name.contains("hand") || name.contains("foot")) {
+            return 0.06f;
+        }
+
+        return defaultRadius;
+    }
+
+    // ========================================================================
+    // 충돌 형상 소스
+    // ========================================================================
+
+    static int getHullVertexLimit() {
+        return hullVertexLimit;
+    }
+
+    static void setHullVertexLimit(int limit) {
+        hullVertexLimit = Math.max(8, Math.min(limit, 256));
+    }
+
+    /** 충돌용 형상: <collision>이 있으면 그것, 없으면 <visual> */
+    // ========================================================================
+    // 정기구학 (초기 배치)
+    // ========================================================================
+
+    /**
+     * 루트 링크부터 조인트 체인을 따라 링크 좌표계 합성 (URDF 단위)
+     * child = parent ∘ joint origin(xyz, rpy) ∘ 조인트 운동 (회전: 축 회전 q, 직선: 축 방향 q)
+     * @param current true면 조인트 테이블의 현재 위치, false면 영점 자세
+     */
+    private void computeLinkFrames(boolean current) {
+        linkFramePos.clear();
+        linkFrameRot.clear();
+        String root = urdfModel.rootLinkName;
+        if (root == null) return;
+
+        linkFramePos.put(root, new Vector3f());
+        linkFrameRot.put(root, new Quaternionf());
+        ArrayDeque<String> open = new ArrayDeque<>();
+        open.push(root);
+
+        while (!open.isEmpty()) {
+            String parent = open.pop();
+            Vector3f parentPos = linkFramePos.get(parent);
+            Quaternionf parentRot = linkFrameRot.get(parent);
+
+            for (URDFJoint j : urdfModel.getChildJoints(parent)) {
+                String child = j.childLinkName;
+                if (child == null || linkFramePos.containsKey(child)) continue;
+
+                Vector3f pos = new Vector3f();
+                Quaternionf rot = new Quaternionf(parentRot);
+                if (j.origin != null) {
+                    if (j.origin.xyz != null) pos.set(j.origin.xyz);
+                    if (j.origin.rpy != null) {
+                        rot.mul(new Quaternionf().rotationZYX(j.origin.rpy.z, j.origin.rpy.y, j.origin.rpy.x));
+                    }
+                }
+                parentRot.transform(pos).add(parentPos);
+
+                int i = current ? t.indexOf(j.name) : -1;
+                float q = i >= 0 ? jointArray[i].currentPosition : 0f;
+                if (q != 0f && Float.isFinite(q)) {
+                    Vector3f axis = unitAxis(j);
+                    if (j.type == URDFJoint.JointType.PRISMATIC) {
+                        pos.add(rot.transform(axis).mul(q));
+                    } else if (j.type == URDFJoint.JointType.REVOLUTE || j.type == URDFJoint.JointType.CONTINUOUS) {
+                        rot.mul(new Quaternionf().fromAxisAngleRad(axis.x, axis.y, axis.z, q));
+                    }
+                }
+
+                linkFramePos.put(child, pos);
+                linkFrameRot.put(child, rot);
+                open.push(child);
+            }
+        }
+    }
+
+    /** URDF 조인트 축 (단위 벡터, 없거나 0이면 z) */
+    private static Vector3f unitAxis(URDFJoint joint) {
+        Vector3f a = joint.axis != null && joint.axis.xyz != null ? new Vector3f(joint.axis.xyz) : new Vector3f();
+        if (a.lengthSquared() < 1e-12f) return a.set(0f, 0f, 1f);
+        return a.normalize();
+    }
+
+    /**
+     * 바디를 링크 좌표계에 배치: 위치 = 링크 원점 + 링크 회전 · 바디 원점(visual origin), 회전 = 링크 회전
+     * 트리에 연결되지 않은 링크는 예전처럼 바디 원점 그대로.
+     */
+    private void placeBody(Object body, URDFLink link) {
+        float[] base = bodyOrigin(link);
+        Vector3f p = new Vector3f(base[0], base[1], base[2]);
+        Vector3f framePos = linkFramePos.get(link.name);
+        Quaternionf frameRot = linkFrameRot.get(link.name);
+        if (framePos != null) {
+            frameRot.transform(p).add(framePos);
+        }
+        physics.setBodyPosition(body, p.x * t.scale, p.y * t.scale, p.z * t.scale);
+        if (frameRot != null && ode != null) {
+            ode.bodySetQuaternionWXYZ(body, frameRot.w, frameRot.x, frameRot.y, frameRot.z);
+        }
+    }
+
+    /** 조인트 테이블의 현재 위치로 바디 자세 재배치 (모두 영점이면 아무것도 안 함) */
+    private void poseBodiesFromJoints() {
+        boolean posed = false;
+        for (URDFJoint j : jointArray) {
+            if (j.currentPosition != 0f) {
+                posed = true;
+                break;
+            }
+        }
+        if (!posed) return;
+
+        computeLinkFrames(true);
+        for (URDFLink link : urdfModel.links) {
+            Object body = bodies.get(link.name);
+            if (body != null) placeBody(body, link);
+        }
+        logger.info("Posed physics bodies from current joint positions");
+    }
+
+    private static URDFLink.Geometry collisionGeometry(URDFLink link) {
+        if (link.collision != null && link.collision.geometry != null) {
+            return link.collision.geometry;
+        }
+        return link.visual != null ? link.visual.geometry : null;
+    }
+
+    private static URDFLink.Origin collisionOrigin(URDFLink link) {
+        if (link.collision != null && link.collision.geometry != null) {
+            return link.collision.origin;
+        }
+        return link.visual != null ? link.visual.origin : null;
+    }
+
+    /** 바디 초기 위치로 쓰는 원점 (createBodyForLink와 같은 기준) */
+    private static float[] bodyOrigin(URDFLink link) {
+        if (link.visual != null && link.visual.origin != null && link.visual.origin.xyz != null) {
+            return new float[]{link.visual.origin.xyz.x, link.visual.origin.xyz.y, link.visual.origin.xyz.z};
+        }
+        return new float[3];
+    }
+
+    /** 충돌 형상 원점 - 바디 원점 (URDF 단위) */
+    private static void setGeomOffset(GeometryInfo info, URDFLink link) {
+        URDFLink.Origin o = collisionOrigin(link);
+        if (o == null || o.xyz == null) return;
+        float[] base = bodyOrigin(link);
+        info.ox = o.xyz.x - base[0];
+        info.oy = o.xyz.y - base[1];
+        info.oz = o.xyz.z - base[2];
+    }
+
+    /** 메쉬 충돌 형상 → 바디 좌표계 볼록 껍질 (충돌 원점 회전/이동 반영) */
+    private URDFConvexHull loadLinkHull(URDFLink link, URDFLink.Geometry g) {
+        URDFConvexHull hull = linkHulls.get(link.name);
+        if (hull != null) return hull;
+
+        URDFConvexHull meshHull = URDFConvexHull.forMesh(g.meshFilename, g.scale, hullVertexLimit);
+        if (meshHull == null) return null;
+
+        URDFLink.Origin o = collisionOrigin(link);
+        float[] base = bodyOrigin(link);
+        float tx = -base[0], ty = -base[1], tz = -base[2];
+        if (o != null && o.xyz != null) {
+            tx += o.xyz.x;
+            ty += o.xyz.y;
+            tz += o.xyz.z;
+        }
+        hull = meshHull.transformed(o != null && o.rpy != null ? o.getQuaternion() : null, tx, ty, tz);
+        linkHulls.put(link.name, hull);
+        return hull;
+    }
+
+    /** ODE convex geom (지원하지 않는 PhysicsManager/ODE4J면 null → 호출측이 껍질 AABB 박스로 대체) */
+    private Object createConvexGeom(URDFConvexHull hull) {
+        if (convexUnavailable) return null;
+        try {
+            if (convexFactory == null) {
+                resolveConvexFactory();
+                if (convexFactory == null) return null;
+            }
+
+            double scale = t.scale;
+            double[] planes = hull.odePlanes(scale);
+            double[] points = hull.odePoints(scale);
+            int[] polygons = hull.odePolygons();
+            if (convexFromManager) {
+                return convexFactory.invoke(physics, planes, hull.getFaceCount(), points, hull.getVertexCount(), polygons);
+            }
+            Object space = physics.getClass().getMethod("getSpace").invoke(physics);
+            return convexFactory.invoke(null, space, planes, hull.getFaceCount(), points, hull.getVertexCount(), polygons);
+        } catch (Exception e) {
+            convexUnavailable = true;
+            logger.warn("Convex geoms unavailable, using hull bounding boxes: {}", e.toString());
+            return null;
+        }
+    }
+
+    private void resolveConvexFactory() {
+        try {
+            convexFactory = physics.getClass().getMethod("createConvexGeom",
+                    double[].class, int.class, double[].class, int.class, int[].class);
+            convexFromManager = true;
+            return;
+        } catch (NoSuchMethodException e) {
+            // PhysicsManager에 없으면 OdeHelper 직접 (PhysicsManager의 space 필요)
+        }
+
+        for (Method m : odeHelperClass.getMethods()) {
+            if (m.getName().equals("createConvex") && m.getParameterCount() == 6) {
+                convexFactory = m;
+                convexFromManager = false;
+                return;
+            }
+        }
+        convexUnavailable = true;
+        logger.warn("No convex geom factory in ODE4J {}, using hull bounding boxes", odeVersion);
+    }
+
+    // ========================================================================
+    // Body + Geom 생성
+    // ========================================================================
+
+    private Object createBodyForLink(URDFLink link, Object world) {
+        try {
+            Object body = physics.createBody();
+            if (body == null) return null;
+
+            // 질량 + geom 정보
+            GeometryInfo geomInfo = setDefaultMass(body, link);
+
+            // 초기 위치/회전 (정기구학 링크 좌표계, 이후 anchorPhysicsToWorld 에서 월드 위치에 평행 이동)
+            placeBody(body, link);
+
+            Object geom = createGeomForLink(link, geomInfo);
+            if (geom != null) {
+                double[] bp = physics.getBodyPosition(body);
+                physics.setGeomPosition(geom, bp[0], bp[1], bp[2]);
+
+                physics.setGeomBody(geom, body);
+
+                try {
+                    // convex는 정점에 오프셋이 이미 들어 있음
+                    physics.setGeomOffsetPosition(geom,
+                            geomInfo.ox * t.scale, geomInfo.oy * t.scale, geomInfo.oz * t.scale);
+                } catch (Exception e) {
+                    logger.debug("setGeomOffsetPosition not available for link: {}", link.name);
+                }
+
+                geoms.put(link.name, geom);
+                physics.registerDynamicGeom(geom);
+
+                logger.debug("Created geom for link: {} (type: {}) offset ({}, {}, {})",
+                        link.name, geomInfo.type, geomInfo.ox, geomInfo.oy, geomInfo.oz);
+            } else {
+                logger.warn("Failed to create geom for link: {}", link.name);
+            }
+
+            return body;
+        } catch (Exception e) {
+            logger.error("Failed to create body for {}", link.name, e);
+            return null;
+        }
+    }
+
+    private static class GeometryInfo {
+        String type;
+        double lx, ly, lz;  // box dimensions
+        double radius;      // sphere/cylinder radius
+        double height;      // cylinder height
+        double ox, oy, oz;  // geom offset from body (URDF 단위)
+        URDFConvexHull hull;
+
+        GeometryInfo(String type) {
+            this.type = type;
+        }
+    }
+
+    private Object createGeomForLink(URDFLink link, GeometryInfo geomInfo) {
+        try {
+            Object geom;
+
+            switch (geomInfo.type) {
+                case "box":
+                    geom = physics.createBoxGeom(
+                            geomInfo.lx * t.scale,
+                            geomInfo.ly * t.scale,
+                            geomInfo.lz * t.scale
+                    );
+                    break;
+
+                case "sphere":
+                    geom = physics.createSphereGeom(geomInfo.radius * t.scale);
+                    break;
+
+                case "cylinder":
+                    geom = physics.createCylinderGeom(
+                            geomInfo.radius * t.scale,
+                            geomInfo.height * t.scale
+                    );
+                    break;
+
+                case "convex":
+                    geom = createConvexGeom(geomInfo.hull);
+                    if (geom == null) {
+                        // 껍질 AABB 박스 (중심 오프셋은 GeometryInfo에 이미 기록됨)
+                        geomInfo.type = "box";
+                        geom = physics.createBoxGeom(
+                                geomInfo.lx * t.scale,
+                                geomInfo.ly * t.scale,
+                                geomInfo.lz * t.scale
+                        );
+                    } else {
+                        geomInfo.ox = geomInfo.oy = geomInfo.oz = 0.0;
+                    }
+                    break;
+
+                default:
+                    float radius = estimateLinkRadius(link);
+                    geom = physics.createSphereGeom(radius * t.scale);
+                    break;
+            }
+
+            return geom;
+
+        } catch (Exception e) {
+            logger.error("Failed to create geom for {}", link.name, e);
+            return null;
+        }
+    }
+
+    // ========================================================================
+    // 질량 설정
+    // ========================================================================
+
+    private GeometryInfo setDefaultMass(Object body, URDFLink link) {
+        GeometryInfo geomInfo = new GeometryInfo("sphere");
+        geomInfo.radius = 0.1;
+
+        try {
+            Object mass = createMassMethod.invoke(null);
+            double density = 500.0;
+
+            double lx = 0.1, ly = 0.1, lz = 0.1;
+
+            URDFLink.Geometry geom = link != null ? collisionGeometry(link) : null;
+            if (geom != null) {
+                if (massSetBoxMethod == null && massSetSphereMethod == null) {
+                    findMassSetMethods();
+                }
+                setGeomOffset(geomInfo, link);
+
+                switch (geom.type) {
+                    case BOX:
+                        if (geom.boxSize != null) {
+                            lx = Math.max(0.05, Math.abs(geom.boxSize.x));
+                            ly = Math.max(0.05, Math.abs(geom.boxSize.y));
+                            lz = Math.max(0.05, Math.abs(geom.boxSize.z));
+
+                            geomInfo.type = "box";
+                            geomInfo.lx = lx;
+                            geomInfo.ly = ly;
+                            geomInfo.lz = lz;
+                        }
+                        break;
+
+                    case SPHERE:
+                        if (geom.sphereRadius > 0) {
+                            double r = Math.max(0.03, Math.abs(geom.sphereRadius));
+
+                            geomInfo.type = "sphere";
+                            geomInfo.radius = r;
+
+                            if (massSetSphereMethod != null) {
+                                massSetSphereMethod.invoke(mass, density, r * t.scale);
+                                applyMassToBody(body, mass);
+                                return geomInfo;
+                            } else {
+                                lx = ly = lz = r * 2.0;
+                            }
+                        }
+                        break;
+
+                    case CYLINDER:
+                        if (geom.cylinderRadius > 0 && geom.cylinderLength > 0) {
+                            double r = Math.max(0.03, Math.abs(geom.cylinderRadius));
+                            double h = Math.max(0.05, Math.abs(geom.cylinderLength));
+
+                            geomInfo.type = "cylinder";
+                            geomInfo.radius = r;
+                            geomInfo.height = h;
+
+                            lx = ly = r * 2.0;
+                            lz = h;
+                        }
+                        break;
+
+                    case MESH:
+                        URDFConvexHull hull = loadLinkHull(link, geom);
+                        if (hull != null) {
+                            // 질량은 껍질 AABB 박스로 근사, geom은 껍질 그대로
+                            float[] b = hull.bounds();
+                            lx = Math.max(0.05, b[3] - b[0]);
+                            ly = Math.max(0.05, b[4] - b[1]);
+                            lz = Math.max(0.05, b[5] - b[2]);
+
+                            geomInfo.type = "convex";
+                            geomInfo.hull = hull;
+                            geomInfo.lx = lx;
+                            geomInfo.ly = ly;
+                            geomInfo.lz = lz;
+                            geomInfo.ox = (b[0] + b[3]) * 0.5;
+                            geomInfo.oy = (b[1] + b[4]) * 0.5;
+                            geomInfo.oz = (b[2] + b[5]) * 0.5;
+                        } else if (geom.scale != null) {
+                            double s = Math.max(
+                                    Math.max(Math.abs(geom.scale.x), Math.abs(geom.scale.y)),
+                                    Math.abs(geom.scale.z)
+                            );
+                            s = Math.max(0.05, s);
+                            lx = ly = lz = s * 0.5;
+                        }
+                        break;
+                }
+            }
+
+            if (massSetBoxMethod != null) {
+                massSetBoxMethod.invoke(mass,
+                        density,
+                        lx * t.scale,
+                        ly * t.scale,
+                        lz * t.scale);
+            } else if (massSetSphereMethod != null) {
+                double r = Math.max(0.05, Math.max(lx, Math.max(ly, lz)) * 0.5);
+                massSetSphereMethod.invoke(mass, density, r * t.scale);
+            } else {
+                double fallbackMass = 1.0;
+                setMassValue(mass, fallbackMass);
+            }
+
+            if (link != null && link.inertial != null && link.inertial.mass != null) {
+                float mv = link.inertial.mass.value;
+                if (mv > 0 && Float.isFinite(mv)) {
+                    setMassValue(mass, mv);
+                }
+            }
+
+            applyMassToBody(body, mass);
+
+        } catch (Exception e) {
+            logger.warn("Failed to set mass for {}", link != null ? link.name : "unknown", e);
+        }
+
+        return geomInfo;
+    }
+
+    private void setMassValue(Object mass, double value) {
+        try {
+            Method setMass = dMassClass.getMethod("setMass", double.class);
+            setMass.invoke(mass, value);
+            return;
+        } catch (Exception e) { }
+
+        try {
+            Method adjust = dMassClass.getMethod("adjust", double.class);
+            adjust.invoke(mass, value);
+        } catch (Exception e) { }
+    }
+
+    private void applyMassToBody(Object body, Object mass) throws Exception {
+        if (bodySetMassMethod != null) {
+            bodySetMassMethod.invoke(body, mass);
+            return;
+        }
+
+        try {
+            for (Method m : body.getClass().getMethods()) {
+                if (m.getName().equals("setMass") && m.getParameterCount() == 1) {
+                    if (m.getParameterTypes()[0].isAssignableFrom(mass.getClass())) {
+                        m.invoke(body, mass);
+                        return;
+                    }
+                }
+            }
+        } catch (Exception e) { }
+
+        logger.warn("Could not apply mass to body");
+    }
+
+    // ========================================================================
+    // 조인트 생성
+    // ========================================================================
+
+    private Object createODEJoint(URDFJoint joint, Object world) {
+        try {
+            Object parentBody = bodies.get(joint.parentLinkName);
+            Object childBody  = bodies.get(joint.childLinkName);
+
+            if (parentBody == null && childBody == null) {
+                return null;
+            }
+
+            switch (joint.type) {
+                case REVOLUTE:
+                case CONTINUOUS:
+                    return createHingeJoint(joint, world, parentBody, childBody);
+                case PRISMATIC:
+                    return createSliderJoint(joint, world, parentBody, childBody);
+                case FIXED:
+                    return createFixedJoint(joint, world, parentBody, childBody);
+                default:
+                    return null;
+            }
+        } catch (Exception e) {
+            logger.error("Failed to create joint {}", joint.name, e);
+            return null;
+        }
+    }
+
+    private Object createHingeJoint(URDFJoint joint, Object world,
+                                    Object parentBody, Object childBody) throws Exception {
+        Method createHinge = odeHelperClass.getMethod(
+                "createHingeJoint", dWorldClass, dJointGroupClass);
+        Object odeJoint = createHinge.invoke(null, world, null);
+
+        Method attach = dHingeJointClass.getMethod("attach", dBodyClass, dBodyClass);
+        attach.invoke(odeJoint, childBody, parentBody);
+
+        double[] axis = getJointAxis(joint);
+        Method setAxis = dHingeJointClass.getMethod(
+                "setAxis", double.class, double.class, double.class);
+        setAxis.invoke(odeJoint, axis[0], axis[1], axis[2]);
+
+        // 앵커 = 조인트 좌표계 원점 (영점 자세의 자식 링크 원점)
+        try {
+            Method setAnchor = dHingeJointClass.getMethod(
+                    "setAnchor", double.class, double.class, double.class);
+            double[] anchor = getJointAnchor(joint, childBody, parentBody);
+            setAnchor.invoke(odeJoint, anchor[0], anchor[1], anchor[2]);
+            recordHingeAnchor(joint, anchor);
+        } catch (Exception e) {
+            // ignore
+        }
+
+        if (joint.type == URDFJoint.JointType.REVOLUTE &&
+                joint.limit != null && joint.limit.hasLimits()) {
+            setHingeJointLimits(odeJoint, joint.limit.lower, joint.limit.upper);
+        }
+
+        return odeJoint;
+    }
+
+    private void setHingeJointLimits(Object odeJoint, float lower, float upper) {
+        try {
+            Method setLo = dHingeJointClass.getMethod("setParamLoStop", double.class);
+            Method setHi = dHingeJointClass.getMethod("setParamHiStop", double.class);
+            setLo.invoke(odeJoint, (double) lower);
+            setHi.invoke(odeJoint, (double) upper);
+        } catch (Exception e) { }
+    }
+
+    private Object createSliderJoint(URDFJoint joint, Object world,
+                                     Object parentBody, Object childBody) throws Exception {
+        Method createSlider = odeHelperClass.getMethod(
+                "createSliderJoint", dWorldClass, dJointGroupClass);
+        Object odeJoint = createSlider.invoke(null, world, null);
+
+        Method attach = dSliderJointClass.getMethod("attach", dBodyClass, dBodyClass);
+        attach.invoke(odeJoint, childBody, parentBody);
+
+        double[] axis = getJointAxis(joint);
+        Method setAxis = dSliderJointClass.getMethod(
+                "setAxis", double.class, double.class, double.class);
+        setAxis.invoke(odeJoint, axis[0], axis[1], axis[2]);
+
+        return odeJoint;
+    }
+
+    private Object createFixedJoint(URDFJoint joint, Object world,
+                                    Object parentBody, Object childBody) throws Exception {
+        Method createFixed = odeHelperClass.getMethod(
+                "createFixedJoint", dWorldClass, dJointGroupClass);
+        Object odeJoint = createFixed.invoke(null, world, null);
+
+        Method attach = dFixedJointClass.getMethod("attach", dBodyClass, dBodyClass);
+        attach.invoke(odeJoint, childBody, parentBody);
+
+        Method setFixed = dFixedJointClass.getMethod("setFixed");
+        setFixed.invoke(odeJoint);
+
+        return odeJoint;
+    }
+
+    /** 조인트 축 (월드/물리 좌표, 단위 벡터) - 영점 자세의 조인트 좌표계로 회전 */
+    private double[] getJointAxis(URDFJoint joint) {
+        Vector3f axis = unitAxis(joint);
+        Quaternionf frame = linkFrameRot.get(joint.childLinkName);
+        if (frame != null) frame.transform(axis);
+        return new double[]{axis.x, axis.y, axis.z};
+    }
+
+    /** 조인트 앵커 (물리 좌표) - 자식 링크 좌표계 원점, 트리 밖이면 기준 바디 위치 */
+    private double[] getJointAnchor(URDFJoint joint, Object childBody, Object parentBody) {
+        Vector3f frame = linkFramePos.get(joint.childLinkName);
+        if (frame != null) {
+            return new double[]{frame.x * t.scale, frame.y * t.scale, frame.z * t.scale};
+        }
+        Object body = childBody != null ? childBody : parentBody;
+        double[] p = body != null ? physics.getBodyPosition(body) : null;
+        return p != null && p.length >= 3 ? new double[]{p[0], p[1], p[2]} : new double[3];
+    }
+
+    /** 앵커를 기준 바디 좌표계로 기록 (바디 회전 = 링크 회전, 생성 직후라 아직 영점 자세) */
+    private void recordHingeAnchor(URDFJoint joint, double[] anchor) {
+        int i = t.indexOf(joint.name);
+        Object body = anchorBody(joint);
+        if (i < 0 || body == null || hingeAnchorLocal == null) return;
+        double[] p = physics.getBodyPosition(body);
+        if (p == null || p.length < 3) return;
+
+        String link = bodies.get(joint.childLinkName) != null ? joint.childLinkName : joint.parentLinkName;
+        Vector3f local = new Vector3f((float) (anchor[0] - p[0]), (float) (anchor[1] - p[1]), (float) (anchor[2] - p[2]));
+        Quaternionf frame = linkFrameRot.get(link);
+        if (frame != null) frame.transformInverse(local);
+        hingeAnchorLocal[3 * i] = local.x;
+        hingeAnchorLocal[3 * i + 1] = local.y;
+        hingeAnchorLocal[3 * i + 2] = local.z;
+    }
+
+    // ========================================================================
+    // 관절 제어 및 동기화
+    // ========================================================================
+
+    private float getHingeAngle(Object joint) {
+        return ode != null ? ode.hingeAngle(joint) : 0f;
+    }
+
+    private float getHingeAngleRate(Object joint) {
+        return ode != null ? ode.hingeAngleRate(joint) : 0f;
+    }
+
+    private void addHingeTorque(Object joint, float torque) {
+        if (ode != null) ode.hingeAddTorque(joint, torque);
+    }
+
+    private float getSliderPosition(Object joint) {
+        return ode != null ? ode.sliderPosition(joint) : 0f;
+    }
+
+    private float getSliderPositionRate(Object joint) {
+        return ode != null ? ode.sliderPositionRate(joint) : 0f;
+    }
+
+    private void addSliderForce(Object joint, float force) {
+        if (ode != null) ode.sliderAddForce(joint, force);
+    }
+
+    private void syncJointStates() {
+        for (int i = 0; i < odeJointHandles.length; i++) {
+            Object odeJoint = odeJointHandles[i];
+            if (odeJoint == null) continue;
+            URDFJoint urdfJoint = jointArray[i];
+
+            byte type = jointType[i];
+            if (type == JT_REVOLUTE || type == JT_CONTINUOUS) {
+                urdfJoint.currentPosition = getHingeAngle(odeJoint);
+                urdfJoint.currentVelocity = getHingeAngleRate(odeJoint);
+            } else if (type == JT_PRISMATIC) {
+                urdfJoint.currentPosition = getSliderPosition(odeJoint);
+                urdfJoint.currentVelocity = getSliderPositionRate(odeJoint);
+            }
+        }
+    }
+
+    // ========================================================================
+    // ✅ Quaternion 읽기 유틸 (ODE4J/PhysicsManager 버전 차이를 리플렉션으로 흡수)
+    // ========================================================================
+
+    private float[] tryReadBodyQuaternionWXYZ(Object body) {
+        if (body == null) return null;
+
+        // 1) PhysicsManager에 getBodyQuaternion류 메서드가 있으면 우선 사용
+        float[] q = tryReadQuaternionFromPhysicsManager(body);
+        if (q != null) return q;
+
+        // 2) 바디 객체에서 getQuaternion() 시도 (ODE4J의 표준)
+        q = tryReadQuaternionFromBodyObject(body);
+        if (q != null) return q;
+
+        // 3) 회전행렬(getRotation)로부터 복구 (마지막 수단)
+        q = tryReadQuaternionFromRotation(body);
+        return q;
+    }
+
+    private float[] tryReadQuaternionFromPhysicsManager(Object body) {
+        if (physics == null) return null;
+
+        try {
+            for (Method m : physics.getClass().getMethods()) {
+                String n = m.getName();
+                if (m.getParameterCount() != 1) continue;
+
+                // 가능한 이름들 (프로젝트마다 다를 수 있어서 넓게)
+                if (!(n.equals("getBodyQuaternion") || n.equals("getBodyQuat") || n.equals("getQuaternion"))) {
+                    continue;
+                }
+
+                Object ret = m.invoke(physics, body);
+                float[] q = parseQuatWXYZ(ret);
+                if (q != null) return q;
+            }
+        } catch (Exception ignored) { }
+
+        return null;
+    }
+
+    private float[] tryReadQuaternionFromBodyObject(Object body) {
+        try {
+            // getQuaternion 오버로드들을 모두 탐색
+            for (Method m : body.getClass().getMethods()) {
+                if (!m.getName().equals("getQuaternion")) continue;
+
+                if (m.getParameterCount() == 0) {
+                    Object ret = m.invoke(body);
+                    float[] q = parseQuatWXYZ(ret);
+                    if (q != null) return q;
+                }
+
+                if (m.getParameterCount() == 1) {
+                    Class<?> pt = m.getParameterTypes()[0];
+                    try {
+                        Object tmp = pt.getDeclaredConstructor().newInstance();
+                        m.invoke(body, tmp);
+                        float[] q = parseQuatWXYZ(tmp);
+                        if (q != null) return q;
+                    } catch (Exception ignored) { }
+                }
+            }
+        } catch (Exception ignored) { }
+
+        return null;
+    }
+
+    private float[] tryReadQuaternionFromRotation(Object body) {
+        // 1) body.getRotation() 시도
+        try {
+            for (Method m : body.getClass().getMethods()) {
+                if (!m.getName().equals("getRotation")) continue;
+
+                if (m.getParameterCount() == 0) {
+                    Object rot = m.invoke(body);
+                    float[] q = parseRotationToQuatWXYZ(rot);
+                    if (q != null) return q;
+                }
+
+                if (m.getParameterCount() == 1) {
+                    Class<?> pt = m.getParameterTypes()[0];
+                    try {
+                        Object tmp = pt.getDeclaredConstructor().newInstance();
+                        m.invoke(body, tmp);
+                        float[] q = parseRotationToQuatWXYZ(tmp);
+                        if (q != null) return q;
+                    } catch (Exception ignored) { }
+                }
+            }
+        } catch (Exception ignored) { }
+
+        // 2) PhysicsManager 쪽에 getBodyRotation 류가 있다면 시도
+        if (physics != null) {
+            try {
+                for (Method m : physics.getClass().getMethods()) {
+                    String n = m.getName();
+                    if (m.getParameterCount() != 1) continue;
+                    if (!(n.equals("getBodyRotation") || n.equals("getBodyRotationMatrix"))) continue;
+
+                    Object rot = m.invoke(physics, body);
+                    float[] q = parseRotationToQuatWXYZ(rot);
+                    if (q != null) return q;
+                }
+            } catch (Exception ignored) { }
+        }
+
+        return null;
+    }
+
+    private float[] parseQuatWXYZ(Object qObj) {
+        if (qObj == null) return null;
+
+        // 배열 형태
+        if (qObj instanceof double[]) {
+            double[] a = (double[]) qObj;
+            if (a.length >= 4) return normalizeQuatWXYZ((float)a[0], (float)a[1], (float)a[2], (float)a[3]);
+        }
+        if (qObj instanceof float[]) {
+            float[] a = (float[]) qObj;
+            if (a.length >= 4) return normalizeQuatWXYZ(a[0], a[1], a[2], a[3]);
+        }
+
+        // ODE4J DQuaternion 계열: get0/get1/get2/get3 (w,x,y,z)
+        try {
+            Method g0 = qObj.getClass().getMethod("get0");
+            Method g1 = qObj.getClass().getMethod("get1");
+            Method g2 = qObj.getClass().getMethod("get2");
+            Method g3 = qObj.getClass().getMethod("get3");
+            float w = ((Number) g0.invoke(qObj)).floatValue();
+            float x = ((Number) g1.invoke(qObj)).floatValue();
+            float y = ((Number) g2.invoke(qObj)).floatValue();
+            float z = ((Number) g3.invoke(qObj)).floatValue();
+            return normalizeQuatWXYZ(w, x, y, z);
+        } catch (Exception ignored) { }
+
+        // 혹시 getW/getX/getY/getZ 형태
+        try {
+            Method gw = qObj.getClass().getMethod("getW");
+            Method gx = qObj.getClass().getMethod("getX");
+            Method gy = qObj.getClass().getMethod("getY");
+            Method gz = qObj.getClass().getMethod("getZ");
+            float w = ((Number) gw.invoke(qObj)).floatValue();
+            float x = ((Number) gx.invoke(qObj)).floatValue();
+            float y = ((Number) gy.invoke(qObj)).floatValue();
+            float z = ((Number) gz.invoke(qObj)).floatValue();
+            return normalizeQuatWXYZ(w, x, y, z);
+        } catch (Exception ignored) { }
+
+        return null;
+    }
+
+    private float[] parseRotationToQuatWXYZ(Object rotObj) {
+        if (rotObj == null) return null;
+
+        // ODE4J rotation matrix는 종종 double[12] (3x4, row stride 4) 형태
+        if (rotObj instanceof double[]) {
+            double[] r = (double[]) rotObj;
+            if (r.length >= 12) {
+                float m00 = (float) r[0];
+                float m01 = (float) r[1];
+                float m02 = (float) r[2];
+                float m10 = (float) r[4];
+                float m11 = (float) r[5];
+                float m12 = (float) r[6];
+                float m20 = (float) r[8];
+                float m21 = (float) r[9];
+                float m22 = (float) r[10];
+                return quatFromMat3_WXYZ(m00,m01,m02,m10,m11,m12,m20,m21,m22);
+            }
+            if (r.length >= 9) {
+                float m00 = (float) r[0], m01 = (float) r[1], m02 = (float) r[2];
+                float m10 = (float) r[3], m11 = (float) r[4], m12 = (float) r[5];
+                float m20 = (float) r[6], m21 = (float) r[7], m22 = (float) r[8];
+                return quatFromMat3_WXYZ(m00,m01,m02,m10,m11,m12,m20,m21,m22);
+            }
+        }
+
+        // DMatrix3 계열: get00/get01... 같은 accessor가 있을 수도 있음
+        try {
+            Method get00 = rotObj.getClass().getMethod("get00");
+            Method get01 = rotObj.getClass().getMethod("get01");
+            Method get02 = rotObj.getClass().getMethod("get02");
+            Method get10 = rotObj.getClass().getMethod("get10");
+            Method get11 = rotObj.getClass().getMethod("get11");
+            Method get12 = rotObj.getClass().getMethod("get12");
+            Method get20 = rotObj.getClass().getMethod("get20");
+            Method get21 = rotObj.getClass().getMethod("get21");
+            Method get22 = rotObj.getClass().getMethod("get22");
+
+            float m00 = ((Number)get00.invoke(rotObj)).floatValue();
+            float m01 = ((Number)get01.invoke(rotObj)).floatValue();
+            float m02 = ((Number)get02.invoke(rotObj)).floatValue();
+            float m10 = ((Number)get10.invoke(rotObj)).floatValue();
+            float m11 = ((Number)get11.invoke(rotObj)).floatValue();
+            float m12 = ((Number)get12.invoke(rotObj)).floatValue();
+            float m20 = ((Number)get20.invoke(rotObj)).floatValue();
+            float m21 = ((Number)get21.invoke(rotObj)).floatValue();
+            float m22 = ((Number)get22.invoke(rotObj)).floatValue();
+
+            return quatFromMat3_WXYZ(m00,m01,m02,m10,m11,m12,m20,m21,m22);
+        } catch (Exception ignored) { }
+
+        return null;
+    }
+
+    private float[] quatFromMat3_WXYZ(float m00,float m01,float m02,
+                                      float m10,float m11,float m12,
+                                      float m20,float m21,float m22) {
+        float tr = m00 + m11 + m22;
+
+        float w, x, y, z;
+        if (tr > 0f) {
+            float s = (float) Math.sqrt(tr + 1f) * 2f;
+            w = 0.25f * s;
+            x = (m21 - m12) / s;
+            y = (m02 - m20) / s;
+            z = (m10 - m01) / s;
+        } else if (m00 > m11 && m00 > m22) {
+            float s = (float) Math.sqrt(1f + m00 - m11 - m22) * 2f;
+            w = (m21 - m12) / s;
+            x = 0.25f * s;
+            y = (m01 + m10) / s;
+            z = (m02 + m20) / s;
+        } else if (m11 > m22) {
+            float s = (float) Math.sqrt(1f + m11 - m00 - m22) * 2f;
+            w = (m02 - m20) / s;
+            x = (m01 + m10) / s;
+            y = 0.25f * s;
+            z = (m12 + m21) / s;
+        } else {
+            float s = (float) Math.sqrt(1f + m22 - m00 - m11) * 2f;
+            w = (m10 - m01) / s;
+            x = (m02 + m20) / s;
+            y = (m12 + m21) / s;
+            z = 0.25f * s;
+        }
+
+        return normalizeQuatWXYZ(w, x, y, z);
+    }
+
+    private float[] normalizeQuatWXYZ(float w, float x, float y, float z) {
+        if (!Float.isFinite(w) || !Float.isFinite(x) || !Float.isFinite(y) || !Float.isFinite(z)) {
+            return null;
+        }
+        float n = (float) Math.sqrt(w*w + x*x + y*y + z*z);
+        if (!Float.isFinite(n) || n < 1e-8f) {
+            return new float[]{1f, 0f, 0f, 0f};
+        }
+        return new float[]{ w/n, x/n, y/n, z/n };
+    }
+
+    // ========================================================================
+    // 정리
+    // ========================================================================
+
+    @Override
+    public void dispose() {
+        if (blockRegion != null) {
+            blockRegion.release();
+            blockRegion = null;
+        }
+        if (collisionSpace != null) {
+            collisionSpace.dispose();
+            collisionSpace = null;
+        }
+        if (sleeping) SLEEPING_ROBOTS.decrementAndGet();
+        sleeping = false;
+        bodyHandles = null;
+        snapshotBodyNames = null;
+        restPoint = null;
+
+        bodies.clear();
+        geoms.clear();
+        Arrays.fill(odeJointHandles, null);
+        odeJointCount = 0;
+        linkRadii.clear();
+        anchored = false;
+    }
+
+    // ========================================================================
+    // 유틸리티
+    // ========================================================================
+
+    private float getLinkRadius(String linkName) {
+        Float r = linkRadii.get(linkName);
+        if (r == null || r <= 0f || !Float.isFinite(r)) {
+            r = 0.1f;
+        }
+        return r * t.scale;
+    }
+
+    private boolean isFixedLink(URDFLink link) {
+        return "world".equals(link.name);
+    }
+
+    private static float wrapToPi(float a) {
+        return URDFJointTable.wrapToPi(a);
+    }
+}
@@ -0,0 +1,519 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * ODE4J 핫패스 진입점을 초기화 시 한 번만 MethodHandle로 바인딩
+ *
+ * - ODE4J는 PhysicsManager의 별도 클래스로더에 있어 컴파일 타임 참조가 불가 → 리플렉션 필요
+ * - 기존처럼 호출마다 getMethod/getMethods를 돌지 않고, 수신자 타입을 Object로 지운 핸들을 invokeExact
+ * - 접근자는 예외를 던지지 않음: 바인딩 실패/호출 실패 시 0 또는 false 반환
+ *
+ * LambdaMetafactory는 생성된 람다 클래스가 우리 클래스로더에 정의되어 ODE4J 타입을 못 볼 수 있어 쓰지 않는다.
+ */
+public final class ODE4JBindings {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final String BASE = "com.kAIS.ode4j.ode.";
+
+    private static final MethodType GET_DOUBLE = MethodType.methodType(double.class, Object.class);
+    private static final MethodType SET_DOUBLE = MethodType.methodType(void.class, Object.class, double.class);
+    private static final MethodType SET_DOUBLE3 =
+            MethodType.methodType(void.class, Object.class, double.class, double.class, double.class);
+    private static final MethodType GET_OBJECT = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType GET_BOOLEAN = MethodType.methodType(boolean.class, Object.class);
+    private static final MethodType RUN = MethodType.methodType(void.class, Object.class);
+    private static final MethodType GET_INTO = MethodType.methodType(void.class, Object.class, Object.class);
+
+    // 힌지
+    private final MethodHandle hingeGetAngle;
+    private final MethodHandle hingeGetAngleRate;
+    private final MethodHandle hingeAddTorque;
+    private final MethodHandle hingeSetAnchor;
+    private final MethodHandle hingeSetParamVel;
+    private final MethodHandle hingeSetParamFMax;
+    // 구속 오차: 부모/자식 바디 기준 앵커 위치 (getAnchor/getAnchor2(DVector3))
+    private final MethodHandle hingeGetAnchor;
+    private final MethodHandle hingeGetAnchor2;
+    private final MethodHandle vectorNew;
+    private final MethodHandle[] vectorGet = new MethodHandle[3];
+
+    // 슬라이더
+    private final MethodHandle sliderGetPosition;
+    private final MethodHandle sliderGetPositionRate;
+    private final MethodHandle sliderAddForce;
+    private final MethodHandle sliderSetParamVel;
+    private final MethodHandle sliderSetParamFMax;
+
+    // 바디 회전: getQuaternion() → get0..get3 (w,x,y,z), 없으면 getRotation() → get00..get22
+    private final MethodHandle bodyGetQuaternion;
+    private final MethodHandle[] quatGet = new MethodHandle[4];
+    private final MethodHandle bodyGetRotation;
+    private final MethodHandle[] rotGet = new MethodHandle[9];
+
+    // 바디 속도 / 활성 상태 (슬립)
+    private final MethodHandle bodyGetLinearVel;
+    private final MethodHandle bodyGetAngularVel;
+    private final MethodHandle[] velGet = new MethodHandle[3];
+    private final MethodHandle bodyIsEnabled;
+    private final MethodHandle bodyEnable;
+    private final MethodHandle bodyDisable;
+
+    // 바디 회전 설정: new DQuaternion(w,x,y,z) → setQuaternion
+    private final MethodHandle quatNew;
+    private final MethodHandle bodySetQuaternion;
+
+    private ODE4JBindings(ClassLoader cl) throws ClassNotFoundException {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+        Class<?> hinge = cl.loadClass(BASE + "DHingeJoint");
+        Class<?> slider = cl.loadClass(BASE + "DSliderJoint");
+        Class<?> body = cl.loadClass(BASE + "DBody");
+
+        hingeGetAngle = bind(lookup, hinge, "getAngle", GET_DOUBLE);
+        hingeGetAngleRate = bind(lookup, hinge, "getAngleRate", GET_DOUBLE);
+        hingeAddTorque = bind(lookup, hinge, "addTorque", SET_DOUBLE);
+        hingeSetAnchor = bind(lookup, hinge, "setAnchor", SET_DOUBLE3);
+        hingeSetParamVel = bind(lookup, hinge, "setParamVel", SET_DOUBLE);
+        hingeSetParamFMax = bind(lookup, hinge, "setParamFMax", SET_DOUBLE);
+
+        MethodHandle aGet = null;
+        MethodHandle aGet2 = null;
+        MethodHandle vNew = null;
+        try {
+            Class<?> vec = cl.loadClass("com.kAIS.ode4j.math.DVector3");
+            MethodType into = MethodType.methodType(void.class, vec);
+            aGet = lookup.findVirtual(hinge, "getAnchor", into).asType(GET_INTO);
+            aGet2 = lookup.findVirtual(hinge, "getAnchor2", into).asType(GET_INTO);
+            vNew = lookup.findConstructor(vec, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            for (int i = 0; i < 3; i++) {
+                vectorGet[i] = bind(lookup, vec, "get" + i, GET_DOUBLE);
+            }
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+            logger.debug("ODE4J hinge anchors not bound: {}", e.getMessage());
+        }
+        hingeGetAnchor = aGet;
+        hingeGetAnchor2 = aGet2;
+        vectorNew = vNew;
+
+        sliderGetPosition = bind(lookup, slider, "getPosition", GET_DOUBLE);
+        sliderGetPositionRate = bind(lookup, slider, "getPositionRate", GET_DOUBLE);
+        sliderAddForce = bind(lookup, slider, "addForce", SET_DOUBLE);
+        sliderSetParamVel = bind(lookup, slider, "setParamVel", SET_DOUBLE);
+        sliderSetParamFMax = bind(lookup, slider, "setParamFMax", SET_DOUBLE);
+
+        bodyGetQuaternion = bindReturningAny(lookup, body, "getQuaternion");
+        if (bodyGetQuaternion != null) {
+            Class<?> qt = returnTypeOf(body, "getQuaternion");
+            for (int i = 0; i < 4; i++) {
+                quatGet[i] = bind(lookup, qt, "get" + i, GET_DOUBLE);
+            }
+        }
+
+        bodyGetRotation = bindReturningAny(lookup, body, "getRotation");
+        if (bodyGetRotation != null) {
+            Class<?> rt = returnTypeOf(body, "getRotation");
+            for (int r = 0; r < 3; r++) {
+                for (int c = 0; c < 3; c++) {
+                    rotGet[r * 3 + c] = bind(lookup, rt, "get" + r + c, GET_DOUBLE);
+                }
+            }
+        }
+
+        bodyGetLinearVel = bindReturningAny(lookup, body, "getLinearVel");
+        bodyGetAngularVel = bindReturningAny(lookup, body, "getAngularVel");
+        if (bodyGetLinearVel != null) {
+            Class<?> vt = returnTypeOf(body, "getLinearVel");
+            for (int i = 0; i < 3; i++) {
+                velGet[i] = bind(lookup, vt, "get" + i, GET_DOUBLE);
+            }
+        }
+        bodyIsEnabled = bind(lookup, body, "isEnabled", GET_BOOLEAN);
+        bodyEnable = bind(lookup, body, "enable", RUN);
+        bodyDisable = bind(lookup, body, "disable", RUN);
+
+        MethodHandle qNew = null;
+        MethodHandle qSet = null;
+        try {
+            Class<?> quat = cl.loadClass("com.kAIS.ode4j.math.DQuaternion");
+            Class<?> quatC = cl.loadClass("com.kAIS.ode4j.math.DQuaternionC");
+            qNew = lookup.findConstructor(quat,
+                            MethodType.methodType(void.class, double.class, double.class, double.class, double.class))
+                    .asType(MethodType.methodType(Object.class, double.class, double.class, double.class, double.class));
+            qSet = lookup.findVirtual(body, "setQuaternion", MethodType.methodType(void.class, quatC))
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+            logger.debug("ODE4J setQuaternion not bound: {}", e.getMessage());
+        }
+        quatNew = qNew;
+        bodySetQuaternion = qSet;
+    }
+
+    /** 바인딩 생성 (ODE4J 클래스를 못 찾으면 null) */
+    public static ODE4JBindings create(ClassLoader cl) {
+        try {
+            ODE4JBindings b = new ODE4JBindings(cl);
+            logger.info("ODE4J bindings: hinge={}, slider={}, motors={}, anchors={}, bodyQuat={}, bodyRot={}, bodyVel={}, bodyEnable={}",
+                    b.hasHinge(), b.hasSlider(), b.hasJointMotors(), b.hasHingeAnchors(), b.hasQuaternion(),
+                    b.hasRotation(), b.hasVelocity(), b.hasEnable());
+            return b;
+        } catch (ClassNotFoundException e) {
+            logger.warn("ODE4J bindings unavailable: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static MethodHandle bind(MethodHandles.Lookup lookup, Class<?> owner, String name, MethodType erased) {
+        if (owner == null) return null;
+        try {
+            MethodType exact = erased.dropParameterTypes(0, 1);
+            MethodHandle mh = lookup.findVirtual(owner, name, exact);
+            return mh.asType(erased);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            logger.debug("ODE4J method not bound: {}.{}", owner.getSimpleName(), name);
+            return null;
+        }
+    }
+
+    /** 인자 없는 메서드를 반환 타입과 무관하게 (Object)Object 형태로 바인딩 */
+    private static MethodHandle bindReturningAny(MethodHandles.Lookup lookup, Class<?> owner, String name) {
+        Class<?> rt = returnTypeOf(owner, name);
+        if (rt == null || rt.isPrimitive()) return null;
+        try {
+            return lookup.findVirtual(owner, name, MethodType.methodType(rt)).asType(GET_OBJECT);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static Class<?> returnTypeOf(Class<?> owner, String name) {
+        try {
+            return owner.getMethod(name).getReturnType();
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    public boolean hasHinge() {
+        return hingeGetAngle != null && hingeGetAngleRate != null && hingeAddTorque != null;
+    }
+
+    public boolean hasSlider() {
+        return sliderGetPosition != null && sliderGetPositionRate != null && sliderAddForce != null;
+    }
+
+    /** 힌지 모터 파라미터 (dParamVel/dParamFMax) 사용 가능 여부 */
+    public boolean hasJointMotors() {
+        return hingeSetParamVel != null && hingeSetParamFMax != null;
+    }
+
+    /** 힌지 앵커 (구속 오차 측정) 사용 가능 여부 */
+    public boolean hasHingeAnchors() {
+        return hingeGetAnchor != null && hingeGetAnchor2 != null && vectorNew != null && vectorGet[2] != null;
+    }
+
+    public boolean hasQuaternion() {
+        return bodyGetQuaternion != null && quatGet[0] != null && quatGet[3] != null;
+    }
+
+    public boolean hasRotation() {
+        if (bodyGetRotation == null) return false;
+        for (MethodHandle h : rotGet) if (h == null) return false;
+        return true;
+    }
+
+    public boolean hasVelocity() {
+        return bodyGetLinearVel != null && bodyGetAngularVel != null && velGet[2] != null;
+    }
+
+    public boolean hasEnable() {
+        return bodyIsEnabled != null && bodyEnable != null && bodyDisable != null;
+    }
+
+    public boolean hasSetQuaternion() {
+        return quatNew != null && bodySetQuaternion != null;
+    }
+
+    // ========================================================================
+    // 힌지 / 슬라이더
+    // ========================================================================
+
+    public float hingeAngle(Object joint) {
+        return getDouble(hingeGetAngle, joint);
+    }
+
+    public float hingeAngleRate(Object joint) {
+        return getDouble(hingeGetAngleRate, joint);
+    }
+
+    public void hingeAddTorque(Object joint, double torque) {
+        setDouble(hingeAddTorque, joint, torque);
+    }
+
+    /** @return 설정했으면 true */
+    public boolean hingeSetAnchor(Object joint, double x, double y, double z) {
+        if (hingeSetAnchor == null || joint == null) return false;
+        try {
+            hingeSetAnchor.invokeExact(joint, x, y, z);
+            return true;
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
+    /** 힌지 모터: 목표 각속도 + 최대 토크 (FMax 0이면 모터 해제) */
+    public void hingeSetMotor(Object joint, double velocity, double fmax) {
+        setDouble(hingeSetParamVel, joint, velocity);
+        setDouble(hingeSetParamFMax, joint, fmax);
+    }
+
+    /** hingeAnchorError 용 스크래치 벡터 (호출 스레드별로 따로 보관, 실패 시 null) */
+    public Object newVector() {
+        if (vectorNew == null) return null;
+        try {
+            return (Object) vectorNew.invokeExact();
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    /**
+     * 힌지 구속 오차: 부모 바디 기준 앵커와 자식 바디 기준 앵커 사이 거리 (물리 단위)
+     * @param a,b newVector()로 만든 스크래치
+     * @return 거리 (읽기 실패 시 -1)
+     */
+    public float hingeAnchorError(Object joint, Object a, Object b) {
+        if (!hasHingeAnchors() || joint == null || a == null || b == null) return -1f;
+        try {
+            hingeGetAnchor.invokeExact(joint, a);
+            hingeGetAnchor2.invokeExact(joint, b);
+            double dx = (double) vectorGet[0].invokeExact(a) - (double) vectorGet[0].invokeExact(b);
+            double dy = (double) vectorGet[1].invokeExact(a) - (double) vectorGet[1].invokeExact(b);
+            double dz = (double) vectorGet[2].invokeExact(a) - (double) vectorGet[2].invokeExact(b);
+            return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        } catch (Throwable t) {
+            return -1f;
+        }
+    }
+
+    public float sliderPosition(Object joint) {
+        return getDouble(sliderGetPosition, joint);
+    }
+
+    public float sliderPositionRate(Object joint) {
+        return getDouble(sliderGetPositionRate, joint);
+    }
+
+    public void sliderAddForce(Object joint, double force) {
+        setDouble(sliderAddForce, joint, force);
+    }
+
+    /** 슬라이더 모터: 목표 속도 + 최대 힘 (FMax 0이면 모터 해제) */
+    public void sliderSetMotor(Object joint, double velocity, double fmax) {
+        setDouble(sliderSetParamVel, joint, velocity);
+        setDouble(sliderSetParamFMax, joint, fmax);
+    }
+
+    // ========================================================================
+    // 바디 회전
+    // ========================================================================
+
+    /**
+     * 바디 월드 회전을 (w,x,y,z)로 out에 기록 (정규화)
+     * @return 읽었으면 true
+     */
+    public boolean bodyQuaternionWXYZ(Object body, float[] out) {
+        if (body == null) return false;
+
+        if (hasQuaternion()) {
+            try {
+                Object q = (Object) bodyGetQuaternion.invokeExact(body);
+                if (q != null) {
+                    float w = (float) (double) quatGet[0].invokeExact(q);
+                    float x = (float) (double) quatGet[1].invokeExact(q);
+                    float y = (float) (double) quatGet[2].invokeExact(q);
+                    float z = (float) (double) quatGet[3].invokeExact(q);
+                    if (normalizeInto(w, x, y, z, out)) return true;
+                }
+            } catch (Throwable ignored) { }
+        }
+
+        if (hasRotation()) {
+            try {
+                Object r = (Object) bodyGetRotation.invokeExact(body);
+                if (r != null) {
+                    float m00 = (float) (double) rotGet[0].invokeExact(r);
+                    float m01 = (float) (double) rotGet[1].invokeExact(r);
+                    float m02 = (float) (double) rotGet[2].invokeExact(r);
+                    float m10 = (float) (double) rotGet[3].invokeExact(r);
+                    float m11 = (float) (double) rotGet[4].invokeExact(r);
+                    float m12 = (float) (double) rotGet[5].invokeExact(r);
+                    float m20 = (float) (double) rotGet[6].invokeExact(r);
+                    float m21 = (float) (double) rotGet[7].invokeExact(r);
+                    float m22 = (float) (double) rotGet[8].invokeExact(r);
+                    return quatFromMat3Into(m00, m01, m02, m10, m11, m12, m20, m21, m22, out);
+                }
+            } catch (Throwable ignored) { }
+        }
+        return false;
+    }
+
+    // ========================================================================
+    // 바디 속도 / 활성 상태
+    // ========================================================================
+
+    /** 선속도 제곱 크기 (읽기 실패 시 -1) */
+    public float bodyLinearSpeedSq(Object body) {
+        return speedSq(bodyGetLinearVel, body);
+    }
+
+    /** 각속도 제곱 크기 (읽기 실패 시 -1) */
+    public float bodyAngularSpeedSq(Object body) {
+        return speedSq(bodyGetAngularVel, body);
+    }
+
+    private float speedSq(MethodHandle getter, Object body) {
+        if (getter == null || velGet[2] == null || body == null) return -1f;
+        try {
+            Object v = (Object) getter.invokeExact(body);
+            if (v == null) return -1f;
+            double x = (double) velGet[0].invokeExact(v);
+            double y = (double) velGet[1].invokeExact(v);
+            double z = (double) velGet[2].invokeExact(v);
+            return (float) (x * x + y * y + z * z);
+        } catch (Throwable t) {
+            return -1f;
+        }
+    }
+
+    /**
+     * 선속도 / 각속도를 out[off..off+2]에 기록
+     * @return 읽었으면 true
+     */
+    public boolean bodyLinearVel(Object body, double[] out, int off) {
+        return readVec3(bodyGetLinearVel, body, out, off);
+    }
+
+    public boolean bodyAngularVel(Object body, double[] out, int off) {
+        return readVec3(bodyGetAngularVel, body, out, off);
+    }
+
+    private boolean readVec3(MethodHandle getter, Object body, double[] out, int off) {
+        if (getter == null || velGet[2] == null || body == null) return false;
+        try {
+            Object v = (Object) getter.invokeExact(body);
+            if (v == null) return false;
+            out[off] = (double) velGet[0].invokeExact(v);
+            out[off + 1] = (double) velGet[1].invokeExact(v);
+            out[off + 2] = (double) velGet[2].invokeExact(v);
+            return true;
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
+    /** 바디 월드 회전 설정 (w,x,y,z) @return 설정했으면 true */
+    public boolean bodySetQuaternionWXYZ(Object body, double w, double x, double y, double z) {
+        if (!hasSetQuaternion() || body == null) return false;
+        try {
+            Object q = (Object) quatNew.invokeExact(w, x, y, z);
+            bodySetQuaternion.invokeExact(body, q);
+            return true;
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
+    /** ODE가 이 바디를 시뮬레이션 중인지 (바인딩 없으면 true) */
+    public boolean bodyIsEnabled(Object body) {
+        if (bodyIsEnabled == null || body == null) return true;
+        try {
+            return (boolean) bodyIsEnabled.invokeExact(body);
+        } catch (Throwable t) {
+            return true;
+        }
+    }
+
+    /** 바디 활성/비활성 (비활성 바디는 ODE 스텝에서 적분되지 않음) */
+    public void bodySetEnabled(Object body, boolean enabled) {
+        MethodHandle h = enabled ? bodyEnable : bodyDisable;
+        if (h == null || body == null) return;
+        try {
+            h.invokeExact(body);
+        } catch (Throwable ignored) { }
+    }
+
+    private static boolean quatFromMat3Into(float m00, float m01, float m02,
+                                            float m10, float m11, float m12,
+                                            float m20, float m21, float m22, float[] out) {
+        float tr = m00 + m11 + m22;
+        float w, x, y, z;
+        if (tr > 0f) {
+            float s = (float) Math.sqrt(tr + 1f) * 2f;
+            w = 0.25f * s;
+            x = (m21 - m12) / s;
+            y = (m02 - m20) / s;
+            z = (m10 - m01) / s;
+        } else if (m00 > m11 && m00 > m22) {
+            float s = (float) Math.sqrt(1f + m00 - m11 - m22) * 2f;
+            w = (m21 - m12) / s;
+            x = 0.25f * s;
+            y = (m01 + m10) / s;
+            z = (m02 + m20) / s;
+        } else if (m11 > m22) {
+            float s = (float) Math.sqrt(1f + m11 - m00 - m22) * 2f;
+            w = (m02 - m20) / s;
+            x = (m01 + m10) / s;
+            y = 0.25f * s;
+            z = (m12 + m21) / s;
+        } else {
+            float s = (float) Math.sqrt(1f + m22 - m00 - m11) * 2f;
+            w = (m10 - m01) / s;
+            x = (m02 + m20) / s;
+            y = (m12 + m21) / s;
+            z = 0.25f * s;
+        }
+        return normalizeInto(w, x, y, z, out);
+    }
+
+    private static boolean normalizeInto(float w, float x, float y, float z, float[] out) {
+        float n = (float) Math.sqrt(w * w + x * x + y * y + z * z);
+        if (!Float.isFinite(n)) return false;
+        if (n < 1e-8f) {
+            out[0] = 1f;
+            out[1] = out[2] = out[3] = 0f;
+            return true;
+        }
+        out[0] = w / n;
+        out[1] = x / n;
+        out[2] = y / n;
+        out[3] = z / n;
+        return true;
+    }
+
+    // ========================================================================
+    // 공통
+    // ========================================================================
+
+    private static float getDouble(MethodHandle h, Object target) {
+        if (h == null || target == null) return 0f;
+        try {
+            return (float) (double) h.invokeExact(target);
+        } catch (Throwable t) {
+            return 0f;
+        }
+    }
+
+    private static void setDouble(MethodHandle h, Object target, double value) {
+        if (h == null || target == null) return;
+        try {
+            h.invokeExact(target, value);
+        } catch (Throwable ignored) { }
+    }
+}
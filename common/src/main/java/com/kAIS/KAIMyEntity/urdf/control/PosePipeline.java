@@ -1,6 +1,7 @@
 package com.kAIS.KAIMyEntity.urdf.control;
 
 import com.kAIS.KAIMyEntity.urdf.URDFModelOpenGLWithSTL;
+import com.kAIS.KAIMyEntity.urdf.URDFSimulationThread;
 import com.kAIS.KAIMyEntity.webots.WebotsController;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -41,44 +42,51 @@ public final class PosePipeline {
     private final Set<URDFModelOpenGLWithSTL> configuredUrdf =
             Collections.newSetFromMap(new WeakHashMap<>());
 
+    // ✅ 시뮬레이션 스레드에 등록된 인스턴스 (틱 목록에서 빠지면 해제)
+    private final Set<URDFModelOpenGLWithSTL> simRegistered =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
     private PosePipeline() {
         initVmcNormalizerOnce();
     }
 
+    // VMC 본 이름 별칭 (소문자) → 표준 본 이름
+    private static final Map<String, String> VMC_BONE_ALIASES = buildVmcBoneAliases();
+
+    private static Map<String, String> buildVmcBoneAliases() {
+        Map<String, String> m = new HashMap<>();
+        // 팔
+        for (String a : new String[]{"leftupperarm", "leftarm", "left_arm", "upperarm_left", "arm.l", "leftshoulder", "larm"})
+            m.put(a, "LeftUpperArm");
+        for (String a : new String[]{"leftlowerarm", "leftforearm", "lowerarm_left", "forearm.l", "leftelbow"})
+            m.put(a, "LeftLowerArm");
+        for (String a : new String[]{"lefthand", "hand.l", "hand_left", "left_wrist", "left_hand"})
+            m.put(a, "LeftHand");
+        for (String a : new String[]{"rightupperarm", "rightarm", "right_arm", "upperarm_right", "arm.r", "rightshoulder", "rarm"})
+            m.put(a, "RightUpperArm");
+        for (String a : new String[]{"rightlowerarm", "rightforearm", "lowerarm_right", "forearm.r", "rightelbow"})
+            m.put(a, "RightLowerArm");
+        for (String a : new String[]{"righthand", "hand.r", "hand_right", "right_wrist", "right_hand"})
+            m.put(a, "RightHand");
+        // Chest
+        for (String a : new String[]{"chest", "upperchest", "spine", "spine1", "spine2", "spine3",
+                "torso", "upper_chest", "chest2"})
+            m.put(a, "Chest");
+        // 머리: Neck / Head 분리
+        for (String a : new String[]{"neck", "neck1", "neck2"}) m.put(a, "Neck");
+        m.put("head", "Head");
+        return Collections.unmodifiableMap(m);
+    }
+
     private void initVmcNormalizerOnce() {
         VMCListenerController.VmcListener listener = VMCListenerController.VmcListener.getInstance();
+        // 별칭은 디코더 바이트 테이블에 미리 넣고, 정규화기는 그 밖의 표기(대소문자/공백 변형)에만 한 번씩 호출됨
         listener.setBoneNameNormalizer(original -> {
             if (original == null) return null;
             String lower = original.toLowerCase().trim();
-
-            return switch (lower) {
-                // 팔
-                case "leftupperarm", "leftarm", "left_arm", "upperarm_left", "arm.l", "leftshoulder", "larm"
-                        -> "LeftUpperArm";
-                case "leftlowerarm", "leftforearm", "lowerarm_left", "forearm.l", "leftelbow"
-                        -> "LeftLowerArm";
-                case "lefthand", "hand.l", "hand_left", "left_wrist", "left_hand"
-                        -> "LeftHand";
-
-                case "rightupperarm", "rightarm", "right_arm", "upperarm_right", "arm.r", "rightshoulder", "rarm"
-                        -> "RightUpperArm";
-                case "rightlowerarm", "rightforearm", "lowerarm_right", "forearm.r", "rightelbow"
-                        -> "RightLowerArm";
-                case "righthand", "hand.r", "hand_right", "right_wrist", "right_hand"
-                        -> "RightHand";
-
-                // Chest
-                case "chest", "upperchest", "spine", "spine1", "spine2", "spine3",
-                        "torso", "upper_chest", "chest2"
-                        -> "Chest";
-
-                // 머리: Neck / Head 분리
-                case "neck", "neck1", "neck2" -> "Neck";
-                case "head" -> "Head";
-
-                default -> original;
-            };
+            return VMC_BONE_ALIASES.getOrDefault(lower, original);
         });
+        listener.setBoneAliases(VMC_BONE_ALIASES);
     }
 
     public static PosePipeline getInstance() {
@@ -104,6 +112,8 @@ public final class PosePipeline {
         if (single != null) uniq.put(single, Boolean.TRUE);
         if (many != null) for (URDFModelOpenGLWithSTL r : many) if (r != null) uniq.put(r, Boolean.TRUE);
 
+        syncSimulationThread(uniq.keySet());
+
         for (URDFModelOpenGLWithSTL urdf : uniq.keySet()) {
             tickOne(dt, urdf);
         }
@@ -114,6 +124,23 @@ public final class PosePipeline {
         }
     }
 
+    /** 현재 틱 대상과 시뮬레이션 스레드 등록 상태 맞추기 */
+    private void syncSimulationThread(Set<URDFModelOpenGLWithSTL> active) {
+        URDFSimulationThread sim = URDFSimulationThread.getInstance();
+        if (!sim.isEnabled()) {
+            simRegistered.clear();
+            return;
+        }
+        simRegistered.removeIf(r -> {
+            if (active.contains(r)) return false;
+            sim.unregister(r);
+            return true;
+        });
+        for (URDFModelOpenGLWithSTL r : active) {
+            if (simRegistered.add(r)) sim.register(r);
+        }
+    }
+
     private void tickOne(float dt, URDFModelOpenGLWithSTL urdf) {
         if (urdf == null) return;
 
@@ -140,6 +167,10 @@ public final class PosePipeline {
             MotionEditorScreen.tick(urdf, frameScratch);
         }
 
+        // 이번 틱의 최종 포즈 발행 (렌더는 이전/현재 틱 스냅샷을 tickDelta로 보간)
+        // 시뮬레이션 스레드 구동 중이면 no-op (스텝 경계마다 그쪽에서 발행)
+        urdf.commitTickPose();
+
         if (enableWebotsSend && !frameScratch.isEmpty()) {
             WebotsController wc = getWebots();
             if (wc != null) {
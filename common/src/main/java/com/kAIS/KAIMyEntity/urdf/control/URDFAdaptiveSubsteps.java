@@ -0,0 +1,118 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+/**
+ * 적응형 물리 서브스텝 - 스텝이 끝날 때마다 로봇 상태로 다음 스텝의 서브스텝 수를 고름
+ *
+ * 조인트 최대 속도 / 최대 추종 오차 / 새 접촉 수 / 조인트 구속 오차를 각각 기준값으로 나눈 요구도 중
+ * 가장 큰 값을 [min, max]에 선형으로 매핑한다. 늘릴 때는 즉시, 줄일 때는 HOLD_STEPS 동안 조용해야
+ * 한 단계씩 내려감 (충돌 직후 바로 줄였다가 다시 튀는 것 방지).
+ *
+ * 접촉은 절대 수가 아니라 직전 스텝 대비 증가분(새 충돌)을 본다 - 서 있는 동안 발 접촉만으로 올라가지 않게.
+ * 인스턴스는 로봇(백엔드)마다 하나, 시뮬레이션 측에서만 갱신.
+ */
+final class URDFAdaptiveSubsteps {
+
+    // ========== 전역 설정 ==========
+    private static volatile boolean enabled = true;
+    private static volatile int minSubSteps = 1;
+    private static volatile int maxSubSteps = 8;
+
+    private static final int SUBSTEP_CAP = 16;
+
+    // 요구도 1.0 (= 최대 서브스텝) 기준값
+    private static final float FULL_JOINT_SPEED = 20f;        // rad/s 또는 m/s
+    private static final float FULL_TRACKING_ERROR = 0.5f;    // rad 또는 m
+    private static final float FULL_NEW_CONTACTS = 8f;
+    private static final float FULL_CONSTRAINT_ERROR = 0.02f; // 물리 단위 (m)
+
+    // 이 아래면 최소 서브스텝
+    private static final float QUIET_DEMAND = 0.05f;
+    private static final int HOLD_STEPS = 20;
+
+    private int current;
+    private int quietSteps = 0;
+    private int lastContacts = -1;
+
+    URDFAdaptiveSubsteps() {
+        reset();
+    }
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    static int getMinSubSteps() {
+        return minSubSteps;
+    }
+
+    static int getMaxSubSteps() {
+        return maxSubSteps;
+    }
+
+    /** 범위 설정 (1..SUBSTEP_CAP, max < min이면 max = min) */
+    static void setBounds(int min, int max) {
+        int lo = Math.max(1, Math.min(min, SUBSTEP_CAP));
+        int hi = Math.max(lo, Math.min(max, SUBSTEP_CAP));
+        minSubSteps = lo;
+        maxSubSteps = hi;
+    }
+
+    /** 현재 선택된 서브스텝 수 (범위가 바뀌었으면 그 안으로) */
+    int get() {
+        int lo = minSubSteps, hi = maxSubSteps;
+        return current < lo ? lo : Math.min(current, hi);
+    }
+
+    /** 상태를 모를 때(생성/깨어남/복원) 최대로 시작 */
+    void reset() {
+        current = maxSubSteps;
+        quietSteps = 0;
+        lastContacts = -1;
+    }
+
+    /**
+     * 스텝 결과로 다음 스텝의 서브스텝 수 갱신
+     * @param contacts 월드 접촉 수 (모르면 음수)
+     * @param constraintError 조인트 구속 오차 최대값 (모르면 음수)
+     * @return 선택된 서브스텝 수
+     */
+    int update(float maxJointSpeed, float maxTrackingError, int contacts, float constraintError) {
+        float demand = Math.max(maxJointSpeed / FULL_JOINT_SPEED, maxTrackingError / FULL_TRACKING_ERROR);
+        if (contacts >= 0) {
+            if (lastContacts >= 0 && contacts > lastContacts) {
+                demand = Math.max(demand, (contacts - lastContacts) / FULL_NEW_CONTACTS);
+            }
+            lastContacts = contacts;
+        }
+        if (constraintError > 0f) {
+            demand = Math.max(demand, constraintError / FULL_CONSTRAINT_ERROR);
+        }
+
+        int lo = minSubSteps, hi = maxSubSteps;
+        int wanted;
+        if (!Float.isFinite(demand) || demand >= 1f) {
+            wanted = hi;
+        } else if (demand <= QUIET_DEMAND) {
+            wanted = lo;
+        } else {
+            wanted = lo + (int) Math.ceil(demand * (hi - lo));
+        }
+
+        int cur = get();
+        if (wanted >= cur) {
+            current = wanted;
+            quietSteps = 0;
+        } else if (++quietSteps >= HOLD_STEPS) {
+            current = cur - 1;
+            quietSteps = 0;
+        } else {
+            current = cur;
+        }
+
+        return current;
+    }
+}
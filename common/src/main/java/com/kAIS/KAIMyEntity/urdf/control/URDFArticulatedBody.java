@@ -0,0 +1,1168 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import com.kAIS.KAIMyEntity.urdf.URDFJoint;
+import com.kAIS.KAIMyEntity.urdf.URDFLink;
+import com.kAIS.KAIMyEntity.urdf.URDFModel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joml.Quaternionf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * URDF 트리 전용 축약 좌표(reduced-coordinate) 동역학 - Featherstone ABA (Articulated-Body Algorithm)
+ *
+ * - 링크 = 강체, 조인트 = 1자유도(회전/직선) 또는 고정. 루트는 고정 또는 6자유도 플로팅 베이스
+ * - 조인트 좌표를 직접 적분하므로 구속 드리프트가 없음 → ODE 힌지처럼 서브스텝을 늘릴 필요 없음
+ * - PD 모터/조인트 한계/조인트 감쇠는 암시적(implicit)으로 D 항에 더해서 큰 게인에서도 안정
+ * - 접촉: 링크 충돌 형상에서 뽑은 점들과 지면 평면 사이의 스프링-댐퍼 + 쿨롱 마찰
+ * - 모든 상태/스크래치는 생성 시 할당한 기본형 배열 → 스텝당 할당 없음, ODE4J 클래스로더 불필요
+ *
+ * 내부 좌표계는 URDF(ROS) 기준 솔버 월드. 월드(마인크래프트) 변환은 upright 회전 W + 원점 + 스케일.
+ * 공간 벡터는 [각; 선] 순서, 6x6 행렬은 행 우선 배열.
+ */
+public final class URDFArticulatedBody {
+    private static final Logger logger = LogManager.getLogger();
+
+    static final byte J_FIXED = 0;
+    static final byte J_REVOLUTE = 1;
+    static final byte J_PRISMATIC = 2;
+
+    /** 내부 적분 최대 스텝 (s) - 접촉 스프링 안정 범위 */
+    private static final double MAX_DT = 1.0 / 1000.0;
+    private static final double DEFAULT_MASS = 0.1;
+    private static final double DEFAULT_RADIUS = 0.05;
+    private static final double LIMIT_STIFFNESS = 5000.0;
+    private static final double LIMIT_DAMPING = 50.0;
+    /** 정지 시 점 하나가 전체 무게를 받을 때의 침투 깊이 → 접촉 강성 기준 */
+    private static final double CONTACT_REST_PENETRATION = 0.01;
+    private static final double CONTACT_DAMPING_RATIO = 0.5;
+    private static final double FRICTION = 0.9;
+    private static final int MAX_CONTACT_POINTS = 256;
+
+    // ========== 구조 (생성 후 불변) ==========
+    private final int n;
+    private final String[] linkNames;
+    private final int[] parent;
+    private final byte[] jtype;
+    /** 링크 i의 부모 조인트 → 컨트롤러 조인트 인덱스 (없으면 -1) */
+    private final int[] ctrlIndex;
+    /** 컨트롤러 조인트 인덱스 → 링크 (없으면 -1) */
+    private final int[] linkOfCtrl;
+    /** continuous 조인트: 목표 오차/출력 각도를 [-π, π]로 감음 */
+    private final boolean[] continuous;
+    private final double[] axis;      // 3n
+    private final double[] treeR;     // 9n 조인트 원점 회전 (자식 → 부모)
+    private final double[] treeP;     // 3n 조인트 원점 (부모 좌표)
+    private final double[] inertia;   // 36n 링크 좌표 공간 관성
+    private final double[] mass;      // n
+    private final double[] com;       // 3n
+    private final double[] damping;   // n URDF dynamics.damping
+    private final double totalMass;
+
+    private final int cpCount;
+    private final int[] cpLink;
+    private final double[] cpPos;     // 3 * cpCount (링크 좌표)
+    private final double[] cpRadius;
+    private final double contactK;
+    private final double contactC;
+
+    // ========== 상태 ==========
+    private final double[] q;
+    private final double[] qd;
+    private final double[] qdd;
+    private final double[] baseR = new double[9];
+    private final double[] baseP = new double[3];
+    private final double[] baseV = new double[6];   // 베이스 좌표 [ω; v]
+    private volatile boolean fixedBase = false;
+
+    // ========== 월드 프레임 ==========
+    private final double[] worldRot = new double[9]; // 솔버 → 월드 회전 W
+    private double originX, originY, originZ;
+    private double worldScale = 1.0;
+    private final double[] gravity = new double[3];  // 솔버 좌표
+    private final double[] groundN = new double[3];  // 솔버 좌표 지면 법선 (월드 위쪽)
+    private volatile double groundH = 0.0;           // n·P >= groundH
+
+    /** 링크별 외력 [토크; 힘] (솔버 월드 좌표, 링크 원점 기준) - 스텝 후 비움 */
+    private final double[] extWorld;
+
+    // ========== 스크래치 ==========
+    private final double[] xr;   // 9n 자식 → 부모 회전 (현재 q)
+    private final double[] xp;   // 3n 자식 원점 (부모 좌표)
+    private final double[] rw;   // 9n 월드 회전
+    private final double[] pw;   // 3n 월드 위치
+    private final double[] v;    // 6n
+    private final double[] c;    // 6n
+    private final double[] a;    // 6n
+    private final double[] pA;   // 6n
+    private final double[] IA;   // 36n
+    private final double[] U;    // 6n
+    private final double[] D;    // n
+    private final double[] u;    // n
+    private final double[] fext; // 6n
+    private final double[] x6 = new double[36];
+    private final double[] t6 = new double[36];
+    private final double[] aug = new double[42];
+    private final double[] s3a = new double[3];
+    private final double[] s3b = new double[3];
+    private final double[] s6 = new double[6];
+    private final double[] s9 = new double[9];
+    /** 루트 회전 조회 전용 (스텝 스크래치와 분리) */
+    private final double[] rootScratch = new double[18];
+
+    // ========================================================================
+    // 생성
+    // ========================================================================
+
+    /**
+     * @param jointIndex 컨트롤러 조인트 이름 → 인덱스 (목표값 배열 인덱스)
+     * @param upright    솔버(ROS) → 월드 회전 (null이면 Z-up → Y-up 기본값)
+     */
+    public URDFArticulatedBody(URDFModel model, Map<String, Integer> jointIndex, Quaternionf upright) {
+        // 루트부터 BFS → 부모 인덱스가 항상 자식보다 작음
+        List<URDFLink> order = new ArrayList<>();
+        List<URDFJoint> inJoint = new ArrayList<>();
+        List<Integer> parents = new ArrayList<>();
+        URDFLink root = model.getLink(model.rootLinkName);
+        if (root == null) throw new IllegalArgumentException("URDF root link not found");
+        order.add(root);
+        inJoint.add(null);
+        parents.add(-1);
+        for (int i = 0; i < order.size(); i++) {
+            for (URDFJoint j : model.getChildJoints(order.get(i).name)) {
+                URDFLink child = model.getLink(j.childLinkName);
+                if (child == null) continue;
+                order.add(child);
+                inJoint.add(j);
+                parents.add(i);
+            }
+        }
+
+        n = order.size();
+        linkNames = new String[n];
+        parent = new int[n];
+        jtype = new byte[n];
+        ctrlIndex = new int[n];
+        axis = new double[3 * n];
+        treeR = new double[9 * n];
+        treeP = new double[3 * n];
+        inertia = new double[36 * n];
+        mass = new double[n];
+        com = new double[3 * n];
+        damping = new double[n];
+        continuous = new boolean[n];
+        int maxCtrl = -1;
+        for (Integer ci : jointIndex.values()) maxCtrl = Math.max(maxCtrl, ci);
+        linkOfCtrl = new int[maxCtrl + 1];
+        Arrays.fill(linkOfCtrl, -1);
+
+        double mTotal = 0.0;
+        List<double[]> points = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            URDFLink link = order.get(i);
+            URDFJoint j = inJoint.get(i);
+            linkNames[i] = link.name;
+            parent[i] = parents.get(i);
+
+            setIdentity3(treeR, 9 * i);
+            ctrlIndex[i] = -1;
+            if (j != null) {
+                jtype[i] = switch (j.type) {
+                    case REVOLUTE, CONTINUOUS -> J_REVOLUTE;
+                    case PRISMATIC -> J_PRISMATIC;
+                    default -> J_FIXED;
+                };
+                if (j.origin != null) {
+                    rpyToMat(j.origin.rpy.x, j.origin.rpy.y, j.origin.rpy.z, treeR, 9 * i);
+                    treeP[3 * i] = j.origin.xyz.x;
+                    treeP[3 * i + 1] = j.origin.xyz.y;
+                    treeP[3 * i + 2] = j.origin.xyz.z;
+                }
+                double ax = 1, ay = 0, az = 0;
+                if (j.axis != null && j.axis.xyz != null) {
+                    ax = j.axis.xyz.x;
+                    ay = j.axis.xyz.y;
+                    az = j.axis.xyz.z;
+                }
+                double len = Math.sqrt(ax * ax + ay * ay + az * az);
+                if (len < 1e-9) {
+                    ax = 1;
+                    ay = az = 0;
+                    len = 1;
+                }
+                axis[3 * i] = ax / len;
+                axis[3 * i + 1] = ay / len;
+                axis[3 * i + 2] = az / len;
+                if (j.dynamics != null) damping[i] = Math.max(0f, j.dynamics.damping);
+                continuous[i] = j.type == URDFJoint.JointType.CONTINUOUS;
+                Integer ci = jointIndex.get(j.name);
+                ctrlIndex[i] = ci != null ? ci : -1;
+                if (ci != null && jtype[i] != J_FIXED) linkOfCtrl[ci] = i;
+            }
+
+            mTotal += buildInertia(link, i);
+            collectContactPoints(link, i, points);
+        }
+        totalMass = mTotal;
+
+        cpCount = Math.min(points.size(), MAX_CONTACT_POINTS);
+        cpLink = new int[cpCount];
+        cpPos = new double[3 * cpCount];
+        cpRadius = new double[cpCount];
+        for (int k = 0; k < cpCount; k++) {
+            double[] p = points.get(k);
+            cpLink[k] = (int) p[0];
+            cpPos[3 * k] = p[1];
+            cpPos[3 * k + 1] = p[2];
+            cpPos[3 * k + 2] = p[3];
+            cpRadius[k] = p[4];
+        }
+        contactK = totalMass * 9.81 / CONTACT_REST_PENETRATION;
+        contactC = 2.0 * CONTACT_DAMPING_RATIO * Math.sqrt(contactK * totalMass);
+
+        q = new double[n];
+        qd = new double[n];
+        qdd = new double[n];
+        extWorld = new double[6 * n];
+        xr = new double[9 * n];
+        xp = new double[3 * n];
+        rw = new double[9 * n];
+        pw = new double[3 * n];
+        v = new double[6 * n];
+        c = new double[6 * n];
+        a = new double[6 * n];
+        pA = new double[6 * n];
+        IA = new double[36 * n];
+        U = new double[6 * n];
+        D = new double[n];
+        u = new double[n];
+        fext = new double[6 * n];
+
+        setIdentity3(baseR, 0);
+        setUpright(upright);
+
+        logger.info("Articulated body: {} links, {} dof, mass {} kg, {} contact points",
+                n, getDofCount(), String.format("%.2f", totalMass), cpCount);
+    }
+
+    /** 링크 공간 관성 구성 @return 질량 */
+    private double buildInertia(URDFLink link, int i) {
+        double m = DEFAULT_MASS;
+        double cx = 0, cy = 0, cz = 0;
+        double[] Ic = new double[9];
+        double r2 = 0.4 * DEFAULT_RADIUS * DEFAULT_RADIUS;
+
+        URDFLink.Inertial in = link.inertial;
+        if (in != null && in.mass != null && in.mass.value > 0f) {
+            m = in.mass.value;
+            if (in.origin != null) {
+                cx = in.origin.xyz.x;
+                cy = in.origin.xyz.y;
+                cz = in.origin.xyz.z;
+            }
+            if (in.inertia != null) {
+                double[] I = {
+                        in.inertia.ixx, in.inertia.ixy, in.inertia.ixz,
+                        in.inertia.ixy, in.inertia.iyy, in.inertia.iyz,
+                        in.inertia.ixz, in.inertia.iyz, in.inertia.izz};
+                // 관성 좌표계 회전: Ic = R I Rᵀ
+                double[] R = new double[9];
+                setIdentity3(R, 0);
+                if (in.origin != null) rpyToMat(in.origin.rpy.x, in.origin.rpy.y, in.origin.rpy.z, R, 0);
+                double[] tmp = new double[9];
+                mul3(R, 0, I, 0, tmp, 0);
+                mul3T(tmp, 0, R, 0, Ic, 0);
+            } else {
+                Ic[0] = Ic[4] = Ic[8] = m * r2;
+            }
+        } else {
+            Ic[0] = Ic[4] = Ic[8] = m * r2;
+        }
+        // 너무 작은 관성은 수치 안정을 위해 하한
+        double minI = m * 1e-6;
+        for (int d = 0; d < 3; d++) Ic[4 * d] = Math.max(Ic[4 * d], minI);
+
+        mass[i] = m;
+        com[3 * i] = cx;
+        com[3 * i + 1] = cy;
+        com[3 * i + 2] = cz;
+
+        // I = [Ic - m cx cx, m cx; -m cx, m 1]
+        int o = 36 * i;
+        double[] C = {0, -cz, cy, cz, 0, -cx, -cy, cx, 0};
+        double[] CC = new double[9];
+        mul3(C, 0, C, 0, CC, 0);
+        for (int r = 0; r < 3; r++) {
+            for (int k = 0; k < 3; k++) {
+                inertia[o + r * 6 + k] = Ic[r * 3 + k] - m * CC[r * 3 + k];
+                inertia[o + r * 6 + k + 3] = m * C[r * 3 + k];
+                inertia[o + (r + 3) * 6 + k] = -m * C[r * 3 + k];
+                inertia[o + (r + 3) * 6 + k + 3] = (r == k) ? m : 0.0;
+            }
+        }
+        return m;
+    }
+
+    /** 충돌 형상에서 접촉점 추출 ([link, x, y, z, r], 링크 좌표) */
+    private void collectContactPoints(URDFLink link, int i, List<double[]> out) {
+        URDFLink.Geometry g = link.collision != null ? link.collision.geometry : null;
+        URDFLink.Origin o = link.collision != null ? link.collision.origin : null;
+        double[] R = new double[9];
+        setIdentity3(R, 0);
+        double ox = 0, oy = 0, oz = 0;
+        if (o != null) {
+            rpyToMat(o.rpy.x, o.rpy.y, o.rpy.z, R, 0);
+            ox = o.xyz.x;
+            oy = o.xyz.y;
+            oz = o.xyz.z;
+        }
+
+        List<double[]> local = new ArrayList<>();
+        if (g != null && g.type == URDFLink.Geometry.GeometryType.BOX && g.boxSize != null) {
+            double hx = g.boxSize.x * 0.5, hy = g.boxSize.y * 0.5, hz = g.boxSize.z * 0.5;
+            for (int sx = -1; sx <= 1; sx += 2)
+                for (int sy = -1; sy <= 1; sy += 2)
+                    for (int sz = -1; sz <= 1; sz += 2)
+                        local.add(new double[]{sx * hx, sy * hy, sz * hz, 0.0});
+        } else if (g != null && g.type == URDFLink.Geometry.GeometryType.SPHERE && g.sphereRadius > 0f) {
+            local.add(new double[]{0, 0, 0, g.sphereRadius});
+        } else if (g != null && g.type == URDFLink.Geometry.GeometryType.CYLINDER && g.cylinderRadius > 0f) {
+            double rr = g.cylinderRadius, hl = g.cylinderLength * 0.5;
+            for (int k = 0; k < 4; k++) {
+                double ang = k * Math.PI * 0.5;
+                local.add(new double[]{rr * Math.cos(ang), rr * Math.sin(ang), hl, 0.0});
+                local.add(new double[]{rr * Math.cos(ang), rr * Math.sin(ang), -hl, 0.0});
+            }
+        } else {
+            // 메쉬/형상 없음: 질량 중심에 관성 기반 반경 구
+            double m = mass[i];
+            double Iavg = (inertia[36 * i] + inertia[36 * i + 7] + inertia[36 * i + 14]) / 3.0;
+            double r = m > 0 ? Math.sqrt(Math.max(Iavg, 0.0) * 2.5 / m) : DEFAULT_RADIUS;
+            r = Math.max(0.02, Math.min(r, 0.3));
+            out.add(new double[]{i, com[3 * i], com[3 * i + 1], com[3 * i + 2], r});
+            return;
+        }
+
+        for (double[] p : local) {
+            double x = R[0] * p[0] + R[1] * p[1] + R[2] * p[2] + ox;
+            double y = R[3] * p[0] + R[4] * p[1] + R[5] * p[2] + oy;
+            double z = R[6] * p[0] + R[7] * p[1] + R[8] * p[2] + oz;
+            out.add(new double[]{i, x, y, z, p[3]});
+        }
+    }
+
+    // ========================================================================
+    // 설정 / 상태 접근
+    // ========================================================================
+
+    public int getLinkCount() {
+        return n;
+    }
+
+    public int getDofCount() {
+        int d = 0;
+        for (byte t : jtype) if (t != J_FIXED) d++;
+        return d;
+    }
+
+    public int indexOfLink(String name) {
+        for (int i = 0; i < n; i++) if (linkNames[i].equals(name)) return i;
+        return -1;
+    }
+
+    public boolean isFixedBase() {
+        return fixedBase;
+    }
+
+    /** true면 루트 링크를 현재 위치/자세에 고정 (받침대 위 로봇) */
+    public void setFixedBase(boolean fixed) {
+        this.fixedBase = fixed;
+        if (fixed) Arrays.fill(baseV, 0.0);
+    }
+
+    /** 솔버(ROS) → 월드 회전 설정, 중력/지면 법선도 다시 계산 */
+    public void setUpright(Quaternionf upright) {
+        Quaternionf w = upright != null ? upright : new Quaternionf().rotationX((float) (-Math.PI / 2.0));
+        quatToMat(w.w, w.x, w.y, w.z, worldRot, 0);
+        setWorldGravity(0.0, -9.81, 0.0);
+        // 월드 위쪽(0,1,0)을 솔버 좌표로
+        groundN[0] = worldRot[3];
+        groundN[1] = worldRot[4];
+        groundN[2] = worldRot[5];
+    }
+
+    /** 월드 좌표 중력 (m/s²) */
+    public void setWorldGravity(double gx, double gy, double gz) {
+        // 솔버 = Wᵀ 월드
+        gravity[0] = worldRot[0] * gx + worldRot[3] * gy + worldRot[6] * gz;
+        gravity[1] = worldRot[1] * gx + worldRot[4] * gy + worldRot[7] * gz;
+        gravity[2] = worldRot[2] * gx + worldRot[5] * gy + worldRot[8] * gz;
+    }
+
+    public void setWorldScale(double scale) {
+        this.worldScale = scale > 0 ? scale : 1.0;
+    }
+
+    /** 월드 지면 높이 (블록 좌표 Y) - 클라이언트 스레드에서 갱신 */
+    public void setGroundWorldY(double worldY) {
+        groundH = (worldY - originY) / worldScale;
+    }
+
+    /** 조인트 초기값 (컨트롤러 인덱스 기준) */
+    public void setJointPositions(float[] positions) {
+        for (int i = 1; i < n; i++) {
+            int ci = ctrlIndex[i];
+            if (ci >= 0 && ci < positions.length && jtype[i] != J_FIXED) {
+                q[i] = positions[ci];
+                qd[i] = 0.0;
+            }
+        }
+    }
+
+    /**
+     * 월드 위치에 세우기: 솔버 원점 = (x, groundY, z), 가장 낮은 접촉점이 지면 + margin 에 오도록 베이스 높이 설정
+     */
+    public void anchor(double x, double groundY, double z, double margin) {
+        originX = x;
+        originY = groundY;
+        originZ = z;
+        groundH = 0.0;
+        setIdentity3(baseR, 0);
+        Arrays.fill(baseP, 0.0);
+        Arrays.fill(baseV, 0.0);
+        Arrays.fill(qd, 0.0);
+
+        forwardKinematics();
+        double lowest = Double.POSITIVE_INFINITY;
+        for (int k = 0; k < cpCount; k++) {
+            int i = cpLink[k];
+            contactPointWorld(i, k, s3a);
+            double h = dot3(groundN, s3a) - cpRadius[k];
+            if (h < lowest) lowest = h;
+        }
+        if (!Double.isFinite(lowest)) lowest = 0.0;
+        double lift = -lowest + margin / worldScale;
+        baseP[0] = groundN[0] * lift;
+        baseP[1] = groundN[1] * lift;
+        baseP[2] = groundN[2] * lift;
+        forwardKinematics();
+    }
+
+    /** 링크 외력 누적 (월드 좌표, 다음 스텝에 한 번 적용) */
+    public void addWorldForce(int link, double fx, double fy, double fz) {
+        if (link < 0 || link >= n) return;
+        int o = 6 * link;
+        extWorld[o + 3] += worldRot[0] * fx + worldRot[3] * fy + worldRot[6] * fz;
+        extWorld[o + 4] += worldRot[1] * fx + worldRot[4] * fy + worldRot[7] * fz;
+        extWorld[o + 5] += worldRot[2] * fx + worldRot[5] * fy + worldRot[8] * fz;
+    }
+
+    public void addWorldTorque(int link, double tx, double ty, double tz) {
+        if (link < 0 || link >= n) return;
+        int o = 6 * link;
+        extWorld[o] += worldRot[0] * tx + worldRot[3] * ty + worldRot[6] * tz;
+        extWorld[o + 1] += worldRot[1] * tx + worldRot[4] * ty + worldRot[7] * tz;
+        extWorld[o + 2] += worldRot[2] * tx + worldRot[5] * ty + worldRot[8] * tz;
+    }
+
+    /** 컨트롤러 조인트 하나를 즉시 이동 (프리뷰 / 수동 조작), 속도는 0 */
+    public void setJointPosition(int ctrlIdx, double value) {
+        if (ctrlIdx < 0 || ctrlIdx >= linkOfCtrl.length) return;
+        int i = linkOfCtrl[ctrlIdx];
+        if (i < 0) return;
+        q[i] = value;
+        qd[i] = 0.0;
+    }
+
+    /** 조인트 상태를 컨트롤러 조인트 배열(인덱스 동일)에 기록 */
+    public void readJointState(URDFJoint[] out) {
+        for (int i = 1; i < n; i++) {
+            int ci = ctrlIndex[i];
+            if (ci < 0 || ci >= out.length || jtype[i] == J_FIXED) continue;
+            out[ci].currentPosition = (float) (continuous[i] ? wrapToPi(q[i]) : q[i]);
+            out[ci].currentVelocity = (float) qd[i];
+        }
+    }
+
+    /** 조인트/베이스 상태 초기화 (다음 anchor 전까지 원점 유지) */
+    public void reset() {
+        Arrays.fill(q, 0.0);
+        Arrays.fill(qd, 0.0);
+        Arrays.fill(baseV, 0.0);
+        Arrays.fill(extWorld, 0.0);
+        setIdentity3(baseR, 0);
+        forwardKinematics();
+    }
+
+    /** 접촉점 중 가장 낮은 월드 Y (블록 좌표) - 마지막 스텝 기준 */
+    public double getLowestPointWorldY() {
+        double lowest = Double.POSITIVE_INFINITY;
+        for (int k = 0; k < cpCount; k++) {
+            int i = cpLink[k];
+            double x = rw[9 * i] * cpPos[3 * k] + rw[9 * i + 1] * cpPos[3 * k + 1] + rw[9 * i + 2] * cpPos[3 * k + 2] + pw[3 * i];
+            double y = rw[9 * i + 3] * cpPos[3 * k] + rw[9 * i + 4] * cpPos[3 * k + 1] + rw[9 * i + 5] * cpPos[3 * k + 2] + pw[3 * i + 1];
+            double z = rw[9 * i + 6] * cpPos[3 * k] + rw[9 * i + 7] * cpPos[3 * k + 1] + rw[9 * i + 8] * cpPos[3 * k + 2] + pw[3 * i + 2];
+            double wy = originY + (worldRot[3] * x + worldRot[4] * y + worldRot[5] * z - cpRadius[k]) * worldScale;
+            if (wy < lowest) lowest = wy;
+        }
+        return Double.isFinite(lowest) ? lowest : originY;
+    }
+
+    /** 루트 링크 월드 위치 */
+    public void getRootWorldPosition(double[] out) {
+        double x = baseP[0] * worldScale, y = baseP[1] * worldScale, z = baseP[2] * worldScale;
+        out[0] = originX + worldRot[0] * x + worldRot[1] * y + worldRot[2] * z;
+        out[1] = originY + worldRot[3] * x + worldRot[4] * y + worldRot[5] * z;
+        out[2] = originZ + worldRot[6] * x + worldRot[7] * y + worldRot[8] * z;
+    }
+
+    /**
+     * 렌더용 루트 회전 (w,x,y,z) = W·R_base·Wᵀ
+     * 렌더러는 이 회전 뒤에 ROS→MC 보정을 곱하므로 upright 상태에서 identity가 된다.
+     */
+    public void getRootWorldQuaternionWXYZ(float[] out) {
+        double[] m = rootScratch;
+        mul3(worldRot, 0, baseR, 0, m, 0);
+        mul3T(m, 0, worldRot, 0, m, 9);
+        matToQuat(m, 9, out);
+    }
+
+    /** 링크 월드 위치 (블록 좌표, out[0..2]) - 마지막 스텝 기준 */
+    public void getLinkWorldPosition(int link, double[] out) {
+        double x = pw[3 * link] * worldScale, y = pw[3 * link + 1] * worldScale, z = pw[3 * link + 2] * worldScale;
+        out[0] = originX + worldRot[0] * x + worldRot[1] * y + worldRot[2] * z;
+        out[1] = originY + worldRot[3] * x + worldRot[4] * y + worldRot[5] * z;
+        out[2] = originZ + worldRot[6] * x + worldRot[7] * y + worldRot[8] * z;
+    }
+
+    // ========================================================================
+    // 스텝
+    // ========================================================================
+
+    /**
+     * dt 만큼 진행 (MAX_DT 이하로 내부 분할). 제어 배열은 컨트롤러 조인트 인덱스 기준.
+     * @param kp,kd   조인트별 PD 게인 (위치 오차 → 토크/힘)
+     * @param effort  조인트별 최대 토크/힘 (0 이하면 회전 defaultTorque, 직선 defaultForce)
+     */
+    public void step(double dt, float[] targetPos, float[] targetVel, float[] kp, float[] kd,
+                     float[] effort, double defaultTorque, double defaultForce,
+                     boolean[] hasLimits, float[] lower, float[] upper, boolean motors) {
+        if (!(dt > 0.0)) return;
+        int steps = Math.max(1, (int) Math.ceil(dt / MAX_DT));
+        double h = dt / steps;
+        for (int s = 0; s < steps; s++) {
+            substep(h, targetPos, targetVel, kp, kd, effort, defaultTorque, defaultForce, hasLimits, lower, upper, motors);
+        }
+        Arrays.fill(extWorld, 0.0);
+    }
+
+    private void substep(double h, float[] targetPos, float[] targetVel, float[] kp, float[] kd,
+                         float[] effort, double defaultTorque, double defaultForce,
+                         boolean[] hasLimits, float[] lower, float[] upper, boolean motors) {
+        // --- 1) 바깥 방향: 위치/속도/바이어스, 외력 ---
+        forwardKinematics();
+        computeExternalForces();
+
+        boolean floating = !fixedBase;
+        for (int i = 0; i < n; i++) {
+            int o6 = 6 * i;
+            // pA = v ×* (I v) - fext
+            mul6v(inertia, 36 * i, v, o6, s6, 0);
+            crf(v, o6, s6, 0, pA, o6);
+            for (int k = 0; k < 6; k++) pA[o6 + k] -= fext[o6 + k];
+            System.arraycopy(inertia, 36 * i, IA, 36 * i, 36);
+        }
+
+        // --- 2) 안쪽 방향: 관절 공간 관성 + 암시적 PD ---
+        for (int i = n - 1; i >= 1; i--) {
+            int o6 = 6 * i, o36 = 36 * i;
+            int p = parent[i];
+            byte t = jtype[i];
+            if (t != J_FIXED) {
+                int col = (t == J_REVOLUTE) ? 0 : 3;
+                double ax = axis[3 * i], ay = axis[3 * i + 1], az = axis[3 * i + 2];
+                for (int r = 0; r < 6; r++) {
+                    U[o6 + r] = IA[o36 + r * 6 + col] * ax + IA[o36 + r * 6 + col + 1] * ay + IA[o36 + r * 6 + col + 2] * az;
+                }
+                double d = U[o6 + col] * ax + U[o6 + col + 1] * ay + U[o6 + col + 2] * az;
+                double sTp = pA[o6 + col] * ax + pA[o6 + col + 1] * ay + pA[o6 + col + 2] * az;
+
+                double tau = 0.0;
+                double dImp = h * damping[i];
+                tau -= damping[i] * qd[i];
+
+                int ci = ctrlIndex[i];
+                if (motors && ci >= 0) {
+                    double pGain = kp[ci], dGain = kd[ci];
+                    double tgt = targetPos[ci];
+                    double err = tgt - q[i];
+                    if (continuous[i]) err = wrapToPi(err);
+                    double pd = pGain * (err - h * qd[i]) + dGain * (targetVel[ci] - qd[i]);
+                    double maxE = effort[ci] > 0f ? effort[ci] : (t == J_REVOLUTE ? defaultTorque : defaultForce);
+                    if (Math.abs(pd) <= maxE) {
+                        tau += pd;
+                        dImp += h * dGain + h * h * pGain;
+                    } else {
+                        tau += Math.copySign(maxE, pd);
+                    }
+                }
+                if (ci >= 0 && hasLimits[ci] && !continuous[i]) {
+                    double lo = lower[ci], hi = upper[ci];
+                    if (q[i] < lo) {
+                        tau += LIMIT_STIFFNESS * (lo - q[i] - h * qd[i]) - LIMIT_DAMPING * qd[i];
+                        dImp += h * LIMIT_DAMPING + h * h * LIMIT_STIFFNESS;
+                    } else if (q[i] > hi) {
+                        tau += LIMIT_STIFFNESS * (hi - q[i] - h * qd[i]) - LIMIT_DAMPING * qd[i];
+                        dImp += h * LIMIT_DAMPING + h * h * LIMIT_STIFFNESS;
+                    }
+                }
+
+                d += dImp;
+                D[i] = d;
+                u[i] = tau - sTp;
+
+                // Ia = IA - U Uᵀ / D,  pa = pA + Ia c + U u / D
+                double invD = 1.0 / d;
+                for (int r = 0; r < 6; r++) {
+                    double ur = U[o6 + r] * invD;
+                    for (int k = 0; k < 6; k++) IA[o36 + r * 6 + k] -= ur * U[o6 + k];
+                }
+                mul6v(IA, o36, c, o6, s6, 0);
+                double uu = u[i] * invD;
+                for (int k = 0; k < 6; k++) pA[o6 + k] += s6[k] + U[o6 + k] * uu;
+            } else {
+                mul6v(IA, o36, c, o6, s6, 0);
+                for (int k = 0; k < 6; k++) pA[o6 + k] += s6[k];
+            }
+
+            // 부모로 누적: IA_p += Xᵀ Ia X,  pA_p += Xᵀ pa
+            buildX(i);
+            mul6(IA, o36, x6, 0, t6, 0);
+            mulT6Add(x6, 0, t6, 0, IA, 36 * p);
+            forceToParent(i, pA, o6, pA, 6 * p);
+        }
+
+        // --- 3) 베이스 가속 ---
+        if (floating) {
+            for (int r = 0; r < 6; r++) {
+                for (int k = 0; k < 6; k++) aug[r * 7 + k] = IA[r * 6 + k];
+                aug[r * 7 + 6] = -pA[r];
+            }
+            if (!solve6(aug, a, 0)) Arrays.fill(a, 0, 6, 0.0);
+        } else {
+            Arrays.fill(a, 0, 6, 0.0);
+        }
+
+        // --- 4) 바깥 방향: 관절 가속 ---
+        for (int i = 1; i < n; i++) {
+            int o6 = 6 * i;
+            motionToChild(i, a, 6 * parent[i], a, o6);
+            for (int k = 0; k < 6; k++) a[o6 + k] += c[o6 + k];
+            byte t = jtype[i];
+            if (t == J_FIXED) {
+                qdd[i] = 0.0;
+                continue;
+            }
+            int col = (t == J_REVOLUTE) ? 0 : 3;
+            double ax = axis[3 * i], ay = axis[3 * i + 1], az = axis[3 * i + 2];
+            double ua = 0.0;
+            for (int k = 0; k < 6; k++) ua += U[o6 + k] * a[o6 + k];
+            qdd[i] = (u[i] - ua) / D[i];
+            a[o6 + col] += ax * qdd[i];
+            a[o6 + col + 1] += ay * qdd[i];
+            a[o6 + col + 2] += az * qdd[i];
+        }
+
+        // --- 5) 적분 (semi-implicit Euler) ---
+        for (int i = 1; i < n; i++) {
+            if (jtype[i] == J_FIXED) continue;
+            qd[i] += h * qdd[i];
+            if (!Double.isFinite(qd[i])) qd[i] = 0.0;
+            q[i] += h * qd[i];
+        }
+        if (floating) {
+            for (int k = 0; k < 6; k++) baseV[k] += h * a[k];
+            // p += R v_lin h
+            double vx = baseV[3], vy = baseV[4], vz = baseV[5];
+            baseP[0] += h * (baseR[0] * vx + baseR[1] * vy + baseR[2] * vz);
+            baseP[1] += h * (baseR[3] * vx + baseR[4] * vy + baseR[5] * vz);
+            baseP[2] += h * (baseR[6] * vx + baseR[7] * vy + baseR[8] * vz);
+            // R = R exp(ω h)
+            double wx = baseV[0] * h, wy = baseV[1] * h, wz = baseV[2] * h;
+            double ang = Math.sqrt(wx * wx + wy * wy + wz * wz);
+            if (ang > 1e-12) {
+                axisAngle(wx / ang, wy / ang, wz / ang, ang, s9, 0);
+                mul3(baseR, 0, s9, 0, t6, 0);
+                System.arraycopy(t6, 0, baseR, 0, 9);
+                orthonormalize(baseR);
+            }
+            if (!Double.isFinite(baseP[0] + baseP[1] + baseP[2])) {
+                logger.warn("Articulated base diverged, resetting velocity");
+                Arrays.fill(baseV, 0.0);
+            }
+        }
+    }
+
+    /** 현재 q/베이스로 링크 월드 자세, 공간 속도, 속도 바이어스 계산 */
+    private void forwardKinematics() {
+        System.arraycopy(baseR, 0, rw, 0, 9);
+        System.arraycopy(baseP, 0, pw, 0, 3);
+        if (fixedBase) Arrays.fill(v, 0, 6, 0.0);
+        else System.arraycopy(baseV, 0, v, 0, 6);
+        Arrays.fill(c, 0, 6, 0.0);
+
+        for (int i = 1; i < n; i++) {
+            int p = parent[i];
+            int o9 = 9 * i, o3 = 3 * i, o6 = 6 * i;
+            byte t = jtype[i];
+            double ax = axis[o3], ay = axis[o3 + 1], az = axis[o3 + 2];
+
+            // 조인트 변환: xr = treeR·Rj(q), xp = treeP (+ treeR·a·q)
+            if (t == J_REVOLUTE) {
+                axisAngle(ax, ay, az, q[i], s9, 0);
+                mul3(treeR, o9, s9, 0, xr, o9);
+                xp[o3] = treeP[o3];
+                xp[o3 + 1] = treeP[o3 + 1];
+                xp[o3 + 2] = treeP[o3 + 2];
+            } else {
+                System.arraycopy(treeR, o9, xr, o9, 9);
+                double d = (t == J_PRISMATIC) ? q[i] : 0.0;
+                xp[o3] = treeP[o3] + d * (treeR[o9] * ax + treeR[o9 + 1] * ay + treeR[o9 + 2] * az);
+                xp[o3 + 1] = treeP[o3 + 1] + d * (treeR[o9 + 3] * ax + treeR[o9 + 4] * ay + treeR[o9 + 5] * az);
+                xp[o3 + 2] = treeP[o3 + 2] + d * (treeR[o9 + 6] * ax + treeR[o9 + 7] * ay + treeR[o9 + 8] * az);
+            }
+
+            // 월드 자세
+            mul3(rw, 9 * p, xr, o9, rw, o9);
+            mulV3(rw, 9 * p, xp, o3, s3a, 0);
+            pw[o3] = pw[3 * p] + s3a[0];
+            pw[o3 + 1] = pw[3 * p + 1] + s3a[1];
+            pw[o3 + 2] = pw[3 * p + 2] + s3a[2];
+
+            // 속도: v = X v_p + S qd,  c = v × (S qd)
+            motionToChild(i, v, 6 * p, v, o6);
+            Arrays.fill(s6, 0.0);
+            if (t != J_FIXED) {
+                int col = (t == J_REVOLUTE) ? 0 : 3;
+                s6[col] = ax * qd[i];
+                s6[col + 1] = ay * qd[i];
+                s6[col + 2] = az * qd[i];
+                for (int k = 0; k < 6; k++) v[o6 + k] += s6[k];
+            }
+            crm(v, o6, s6, 0, c, o6);
+        }
+    }
+
+    /** 중력 + 지면 접촉 + 사용자 외력 → fext (링크 좌표 공간 힘) */
+    private void computeExternalForces() {
+        Arrays.fill(fext, 0.0);
+
+        for (int i = 0; i < n; i++) {
+            int o9 = 9 * i, o6 = 6 * i, o3 = 3 * i;
+            // 중력: 링크 좌표 g = Rwᵀ g
+            mulTV3(rw, o9, gravity, 0, s3a, 0);
+            double m = mass[i];
+            double fx = m * s3a[0], fy = m * s3a[1], fz = m * s3a[2];
+            double cx = com[o3], cy = com[o3 + 1], cz = com[o3 + 2];
+            fext[o6] += cy * fz - cz * fy;
+            fext[o6 + 1] += cz * fx - cx * fz;
+            fext[o6 + 2] += cx * fy - cy * fx;
+            fext[o6 + 3] += fx;
+            fext[o6 + 4] += fy;
+            fext[o6 + 5] += fz;
+
+            // 사용자 외력 (월드 → 링크)
+            mulTV3(rw, o9, extWorld, o6, s3a, 0);
+            mulTV3(rw, o9, extWorld, o6 + 3, s3b, 0);
+            fext[o6] += s3a[0];
+            fext[o6 + 1] += s3a[1];
+            fext[o6 + 2] += s3a[2];
+            fext[o6 + 3] += s3b[0];
+            fext[o6 + 4] += s3b[1];
+            fext[o6 + 5] += s3b[2];
+        }
+
+        double gh = groundH;
+        for (int k = 0; k < cpCount; k++) {
+            int i = cpLink[k];
+            contactPointWorld(i, k, s3a);
+            double pen = gh + cpRadius[k] - dot3(groundN, s3a);
+            if (pen <= 0.0) continue;
+
+            // 점 속도: 링크 좌표 vl + ω × p → 월드
+            int o6 = 6 * i, k3 = 3 * k;
+            double px = cpPos[k3], py = cpPos[k3 + 1], pz = cpPos[k3 + 2];
+            double wx = v[o6], wy = v[o6 + 1], wz = v[o6 + 2];
+            s3b[0] = v[o6 + 3] + wy * pz - wz * py;
+            s3b[1] = v[o6 + 4] + wz * px - wx * pz;
+            s3b[2] = v[o6 + 5] + wx * py - wy * px;
+            mulV3(rw, 9 * i, s3b, 0, s3a, 0);
+
+            double vn = dot3(groundN, s3a);
+            double fn = contactK * pen - contactC * vn;
+            if (fn <= 0.0) continue;
+
+            // 접선 마찰 (점성, 쿨롱 한도)
+            double tx = s3a[0] - vn * groundN[0];
+            double ty = s3a[1] - vn * groundN[1];
+            double tz = s3a[2] - vn * groundN[2];
+            double vt = Math.sqrt(tx * tx + ty * ty + tz * tz);
+            double ft = 0.0;
+            if (vt > 1e-9) ft = Math.min(contactC * 2.0, FRICTION * fn / vt);
+
+            double Fx = fn * groundN[0] - ft * tx;
+            double Fy = fn * groundN[1] - ft * ty;
+            double Fz = fn * groundN[2] - ft * tz;
+            s3a[0] = Fx;
+            s3a[1] = Fy;
+            s3a[2] = Fz;
+            mulTV3(rw, 9 * i, s3a, 0, s3b, 0);
+            fext[o6] += py * s3b[2] - pz * s3b[1];
+            fext[o6 + 1] += pz * s3b[0] - px * s3b[2];
+            fext[o6 + 2] += px * s3b[1] - py * s3b[0];
+            fext[o6 + 3] += s3b[0];
+            fext[o6 + 4] += s3b[1];
+            fext[o6 + 5] += s3b[2];
+        }
+    }
+
+    private void contactPointWorld(int link, int k, double[] out) {
+        mulV3(rw, 9 * link, cpPos, 3 * k, out, 0);
+        out[0] += pw[3 * link];
+        out[1] += pw[3 * link + 1];
+        out[2] += pw[3 * link + 2];
+    }
+
+    // ========================================================================
+    // 공간 대수 (Plücker 변환 X: 부모 → 자식, R = xr(자식→부모), p = xp)
+    // ========================================================================
+
+    /** 운동 벡터 부모 → 자식: [Rᵀω; Rᵀ(v - p×ω)] */
+    private void motionToChild(int i, double[] src, int so, double[] dst, int dO) {
+        int o9 = 9 * i, o3 = 3 * i;
+        double wx = src[so], wy = src[so + 1], wz = src[so + 2];
+        double px = xp[o3], py = xp[o3 + 1], pz = xp[o3 + 2];
+        double lx = src[so + 3] - (py * wz - pz * wy);
+        double ly = src[so + 4] - (pz * wx - px * wz);
+        double lz = src[so + 5] - (px * wy - py * wx);
+        double[] R = xr;
+        double r0 = R[o9] * wx + R[o9 + 3] * wy + R[o9 + 6] * wz;
+        double r1 = R[o9 + 1] * wx + R[o9 + 4] * wy + R[o9 + 7] * wz;
+        double r2 = R[o9 + 2] * wx + R[o9 + 5] * wy + R[o9 + 8] * wz;
+        double r3 = R[o9] * lx + R[o9 + 3] * ly + R[o9 + 6] * lz;
+        double r4 = R[o9 + 1] * lx + R[o9 + 4] * ly + R[o9 + 7] * lz;
+        double r5 = R[o9 + 2] * lx + R[o9 + 5] * ly + R[o9 + 8] * lz;
+        dst[dO] = r0;
+        dst[dO + 1] = r1;
+        dst[dO + 2] = r2;
+        dst[dO + 3] = r3;
+        dst[dO + 4] = r4;
+        dst[dO + 5] = r5;
+    }
+
+    /** 힘 벡터 자식 → 부모 누적: f_p += [R n + p × (R f); R f] */
+    private void forceToParent(int i, double[] src, int so, double[] dst, int dO) {
+        int o9 = 9 * i, o3 = 3 * i;
+        double[] R = xr;
+        double nx = src[so], ny = src[so + 1], nz = src[so + 2];
+        double fx = src[so + 3], fy = src[so + 4], fz = src[so + 5];
+        double Rnx = R[o9] * nx + R[o9 + 1] * ny + R[o9 + 2] * nz;
+        double Rny = R[o9 + 3] * nx + R[o9 + 4] * ny + R[o9 + 5] * nz;
+        double Rnz = R[o9 + 6] * nx + R[o9 + 7] * ny + R[o9 + 8] * nz;
+        double Rfx = R[o9] * fx + R[o9 + 1] * fy + R[o9 + 2] * fz;
+        double Rfy = R[o9 + 3] * fx + R[o9 + 4] * fy + R[o9 + 5] * fz;
+        double Rfz = R[o9 + 6] * fx + R[o9 + 7] * fy + R[o9 + 8] * fz;
+        double px = xp[o3], py = xp[o3 + 1], pz = xp[o3 + 2];
+        dst[dO] += Rnx + py * Rfz - pz * Rfy;
+        dst[dO + 1] += Rny + pz * Rfx - px * Rfz;
+        dst[dO + 2] += Rnz + px * Rfy - py * Rfx;
+        dst[dO + 3] += Rfx;
+        dst[dO + 4] += Rfy;
+        dst[dO + 5] += Rfz;
+    }
+
+    /** x6 = X (부모 → 자식) 6x6: [[Rᵀ, 0], [-Rᵀ p×, Rᵀ]] */
+    private void buildX(int i) {
+        int o9 = 9 * i, o3 = 3 * i;
+        double px = xp[o3], py = xp[o3 + 1], pz = xp[o3 + 2];
+        Arrays.fill(x6, 0.0);
+        for (int r = 0; r < 3; r++) {
+            double r0 = xr[o9 + r], r1 = xr[o9 + 3 + r], r2 = xr[o9 + 6 + r]; // Rᵀ 의 r 행
+            x6[r * 6] = r0;
+            x6[r * 6 + 1] = r1;
+            x6[r * 6 + 2] = r2;
+            x6[(r + 3) * 6 + 3] = r0;
+            x6[(r + 3) * 6 + 4] = r1;
+            x6[(r + 3) * 6 + 5] = r2;
+            // (Rᵀ p×) 의 r 행 = row × p
+            x6[(r + 3) * 6] = -(r1 * pz - r2 * py);
+            x6[(r + 3) * 6 + 1] = -(r2 * px - r0 * pz);
+            x6[(r + 3) * 6 + 2] = -(r0 * py - r1 * px);
+        }
+    }
+
+    /** crm(v)·m = [w×mw; w×ml + vl×mw] */
+    private static void crm(double[] vv, int vo, double[] m, int mo, double[] out, int oo) {
+        double wx = vv[vo], wy = vv[vo + 1], wz = vv[vo + 2];
+        double lx = vv[vo + 3], ly = vv[vo + 4], lz = vv[vo + 5];
+        double ax = m[mo], ay = m[mo + 1], az = m[mo + 2];
+        double bx = m[mo + 3], by = m[mo + 4], bz = m[mo + 5];
+        out[oo] = wy * az - wz * ay;
+        out[oo + 1] = wz * ax - wx * az;
+        out[oo + 2] = wx * ay - wy * ax;
+        out[oo + 3] = wy * bz - wz * by + ly * az - lz * ay;
+        out[oo + 4] = wz * bx - wx * bz + lz * ax - lx * az;
+        out[oo + 5] = wx * by - wy * bx + lx * ay - ly * ax;
+    }
+
+    /** crf(v)·f = [w×n + vl×fl; w×fl] */
+    private static void crf(double[] vv, int vo, double[] f, int fo, double[] out, int oo) {
+        double wx = vv[vo], wy = vv[vo + 1], wz = vv[vo + 2];
+        double lx = vv[vo + 3], ly = vv[vo + 4], lz = vv[vo + 5];
+        double nx = f[fo], ny = f[fo + 1], nz = f[fo + 2];
+        double fx = f[fo + 3], fy = f[fo + 4], fz = f[fo + 5];
+        out[oo] = wy * nz - wz * ny + ly * fz - lz * fy;
+        out[oo + 1] = wz * nx - wx * nz + lz * fx - lx * fz;
+        out[oo + 2] = wx * ny - wy * nx + lx * fy - ly * fx;
+        out[oo + 3] = wy * fz - wz * fy;
+        out[oo + 4] = wz * fx - wx * fz;
+        out[oo + 5] = wx * fy - wy * fx;
+    }
+
+    private static void mul6v(double[] M, int mo, double[] x, int xo, double[] out, int oo) {
+        for (int r = 0; r < 6; r++) {
+            double s = 0.0;
+            for (int k = 0; k < 6; k++) s += M[mo + r * 6 + k] * x[xo + k];
+            out[oo + r] = s;
+        }
+    }
+
+    private static void mul6(double[] A, int ao, double[] B, int bo, double[] out, int oo) {
+        for (int r = 0; r < 6; r++) {
+            for (int k = 0; k < 6; k++) {
+                double s = 0.0;
+                for (int m = 0; m < 6; m++) s += A[ao + r * 6 + m] * B[bo + m * 6 + k];
+                out[oo + r * 6 + k] = s;
+            }
+        }
+    }
+
+    /** out += Aᵀ B */
+    private static void mulT6Add(double[] A, int ao, double[] B, int bo, double[] out, int oo) {
+        for (int r = 0; r < 6; r++) {
+            for (int k = 0; k < 6; k++) {
+                double s = 0.0;
+                for (int m = 0; m < 6; m++) s += A[ao + m * 6 + r] * B[bo + m * 6 + k];
+                out[oo + r * 6 + k] += s;
+            }
+        }
+    }
+
+    /** 6x7 첨가 행렬 가우스 소거 (부분 피벗) → out[oo..oo+5] */
+    private static boolean solve6(double[] M, double[] out, int oo) {
+        for (int col = 0; col < 6; col++) {
+            int piv = col;
+            double best = Math.abs(M[col * 7 + col]);
+            for (int r = col + 1; r < 6; r++) {
+                double v = Math.abs(M[r * 7 + col]);
+                if (v > best) {
+                    best = v;
+                    piv = r;
+                }
+            }
+            if (best < 1e-12) return false;
+            if (piv != col) {
+                for (int k = 0; k < 7; k++) {
+                    double tmp = M[col * 7 + k];
+                    M[col * 7 + k] = M[piv * 7 + k];
+                    M[piv * 7 + k] = tmp;
+                }
+            }
+            double inv = 1.0 / M[col * 7 + col];
+            for (int r = col + 1; r < 6; r++) {
+                double f = M[r * 7 + col] * inv;
+                if (f == 0.0) continue;
+                for (int k = col; k < 7; k++) M[r * 7 + k] -= f * M[col * 7 + k];
+            }
+        }
+        for (int r = 5; r >= 0; r--) {
+            double s = M[r * 7 + 6];
+            for (int k = r + 1; k < 6; k++) s -= M[r * 7 + k] * out[oo + k];
+            out[oo + r] = s / M[r * 7 + r];
+        }
+        return true;
+    }
+
+    // ========================================================================
+    // 3x3 유틸 (행 우선)
+    // ========================================================================
+
+    private static void setIdentity3(double[] m, int o) {
+        Arrays.fill(m, o, o + 9, 0.0);
+        m[o] = m[o + 4] = m[o + 8] = 1.0;
+    }
+
+    /** out = A B (out이 A와 같은 배열/오프셋이어도 안전) */
+    private static void mul3(double[] A, int ao, double[] B, int bo, double[] out, int oo) {
+        double a0 = A[ao], a1 = A[ao + 1], a2 = A[ao + 2];
+        double a3 = A[ao + 3], a4 = A[ao + 4], a5 = A[ao + 5];
+        double a6 = A[ao + 6], a7 = A[ao + 7], a8 = A[ao + 8];
+        double b0 = B[bo], b1 = B[bo + 1], b2 = B[bo + 2];
+        double b3 = B[bo + 3], b4 = B[bo + 4], b5 = B[bo + 5];
+        double b6 = B[bo + 6], b7 = B[bo + 7], b8 = B[bo + 8];
+        out[oo] = a0 * b0 + a1 * b3 + a2 * b6;
+        out[oo + 1] = a0 * b1 + a1 * b4 + a2 * b7;
+        out[oo + 2] = a0 * b2 + a1 * b5 + a2 * b8;
+        out[oo + 3] = a3 * b0 + a4 * b3 + a5 * b6;
+        out[oo + 4] = a3 * b1 + a4 * b4 + a5 * b7;
+        out[oo + 5] = a3 * b2 + a4 * b5 + a5 * b8;
+        out[oo + 6] = a6 * b0 + a7 * b3 + a8 * b6;
+        out[oo + 7] = a6 * b1 + a7 * b4 + a8 * b7;
+        out[oo + 8] = a6 * b2 + a7 * b5 + a8 * b8;
+    }
+
+    /** out = A Bᵀ */
+    private static void mul3T(double[] A, int ao, double[] B, int bo, double[] out, int oo) {
+        for (int r = 0; r < 3; r++) {
+            for (int k = 0; k < 3; k++) {
+                out[oo + r * 3 + k] = A[ao + r * 3] * B[bo + k * 3]
+                        + A[ao + r * 3 + 1] * B[bo + k * 3 + 1]
+                        + A[ao + r * 3 + 2] * B[bo + k * 3 + 2];
+            }
+        }
+    }
+
+    private static void mulV3(double[] M, int mo, double[] x, int xo, double[] out, int oo) {
+        double x0 = x[xo], x1 = x[xo + 1], x2 = x[xo + 2];
+        out[oo] = M[mo] * x0 + M[mo + 1] * x1 + M[mo + 2] * x2;
+        out[oo + 1] = M[mo + 3] * x0 + M[mo + 4] * x1 + M[mo + 5] * x2;
+        out[oo + 2] = M[mo + 6] * x0 + M[mo + 7] * x1 + M[mo + 8] * x2;
+    }
+
+    private static void mulTV3(double[] M, int mo, double[] x, int xo, double[] out, int oo) {
+        double x0 = x[xo], x1 = x[xo + 1], x2 = x[xo + 2];
+        out[oo] = M[mo] * x0 + M[mo + 3] * x1 + M[mo + 6] * x2;
+        out[oo + 1] = M[mo + 1] * x0 + M[mo + 4] * x1 + M[mo + 7] * x2;
+        out[oo + 2] = M[mo + 2] * x0 + M[mo + 5] * x1 + M[mo + 8] * x2;
+    }
+
+    private static double dot3(double[] a, double[] b) {
+        return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+    }
+
+    /** URDF rpy → R = Rz(y) Ry(p) Rx(r) */
+    private static void rpyToMat(double r, double p, double y, double[] out, int o) {
+        double cr = Math.cos(r), sr = Math.sin(r);
+        double cp = Math.cos(p), sp = Math.sin(p);
+        double cy = Math.cos(y), sy = Math.sin(y);
+        out[o] = cy * cp;
+        out[o + 1] = cy * sp * sr - sy * cr;
+        out[o + 2] = cy * sp * cr + sy * sr;
+        out[o + 3] = sy * cp;
+        out[o + 4] = sy * sp * sr + cy * cr;
+        out[o + 5] = sy * sp * cr - cy * sr;
+        out[o + 6] = -sp;
+        out[o + 7] = cp * sr;
+        out[o + 8] = cp * cr;
+    }
+
+    /** 단위 축 (x,y,z) 기준 angle 회전 (Rodrigues) */
+    private static void axisAngle(double x, double y, double z, double angle, double[] out, int o) {
+        double cs = Math.cos(angle), sn = Math.sin(angle), t = 1.0 - cs;
+        out[o] = cs + x * x * t;
+        out[o + 1] = x * y * t - z * sn;
+        out[o + 2] = x * z * t + y * sn;
+        out[o + 3] = y * x * t + z * sn;
+        out[o + 4] = cs + y * y * t;
+        out[o + 5] = y * z * t - x * sn;
+        out[o + 6] = z * x * t - y * sn;
+        out[o + 7] = z * y * t + x * sn;
+        out[o + 8] = cs + z * z * t;
+    }
+
+    private static void quatToMat(double w, double x, double y, double z, double[] out, int o) {
+        double nn = w * w + x * x + y * y + z * z;
+        double s = nn > 0 ? 2.0 / nn : 0.0;
+        out[o] = 1 - s * (y * y + z * z);
+        out[o + 1] = s * (x * y - w * z);
+        out[o + 2] = s * (x * z + w * y);
+        out[o + 3] = s * (x * y + w * z);
+        out[o + 4] = 1 - s * (x * x + z * z);
+        out[o + 5] = s * (y * z - w * x);
+        out[o + 6] = s * (x * z - w * y);
+        out[o + 7] = s * (y * z + w * x);
+        out[o + 8] = 1 - s * (x * x + y * y);
+    }
+
+    private static void matToQuat(double[] mm, int o, float[] out) {
+        double m0 = mm[o], m1 = mm[o + 1], m2 = mm[o + 2];
+        double m3 = mm[o + 3], m4 = mm[o + 4], m5 = mm[o + 5];
+        double m6 = mm[o + 6], m7 = mm[o + 7], m8 = mm[o + 8];
+        double tr = m0 + m4 + m8;
+        double w, x, y, z;
+        if (tr > 0) {
+            double s = Math.sqrt(tr + 1.0) * 2.0;
+            w = 0.25 * s;
+            x = (m7 - m5) / s;
+            y = (m2 - m6) / s;
+            z = (m3 - m1) / s;
+        } else if (m0 > m4 && m0 > m8) {
+            double s = Math.sqrt(1.0 + m0 - m4 - m8) * 2.0;
+            w = (m7 - m5) / s;
+            x = 0.25 * s;
+            y = (m1 + m3) / s;
+            z = (m2 + m6) / s;
+        } else if (m4 > m8) {
+            double s = Math.sqrt(1.0 + m4 - m0 - m8) * 2.0;
+            w = (m2 - m6) / s;
+            x = (m1 + m3) / s;
+            y = 0.25 * s;
+            z = (m5 + m7) / s;
+        } else {
+            double s = Math.sqrt(1.0 + m8 - m0 - m4) * 2.0;
+            w = (m3 - m1) / s;
+            x = (m2 + m6) / s;
+            y = (m5 + m7) / s;
+            z = 0.25 * s;
+        }
+        double nrm = Math.sqrt(w * w + x * x + y * y + z * z);
+        if (!(nrm > 1e-12)) {
+            out[0] = 1f;
+            out[1] = out[2] = out[3] = 0f;
+            return;
+        }
+        out[0] = (float) (w / nrm);
+        out[1] = (float) (x / nrm);
+        out[2] = (float) (y / nrm);
+        out[3] = (float) (z / nrm);
+    }
+
+    /** 그람-슈미트 (행 기준) */
+    private static void orthonormalize(double[] m) {
+        double l0 = Math.sqrt(m[0] * m[0] + m[1] * m[1] + m[2] * m[2]);
+        m[0] /= l0;
+        m[1] /= l0;
+        m[2] /= l0;
+        double d = m[0] * m[3] + m[1] * m[4] + m[2] * m[5];
+        m[3] -= d * m[0];
+        m[4] -= d * m[1];
+        m[5] -= d * m[2];
+        double l1 = Math.sqrt(m[3] * m[3] + m[4] * m[4] + m[5] * m[5]);
+        m[3] /= l1;
+        m[4] /= l1;
+        m[5] /= l1;
+        m[6] = m[1] * m[5] - m[2] * m[4];
+        m[7] = m[2] * m[3] - m[0] * m[5];
+        m[8] = m[0] * m[4] - m[1] * m[3];
+    }
+
+    private static double wrapToPi(double x) {
+        x = (x + Math.PI) % (2.0 * Math.PI);
+        if (x < 0) x += 2.0 * Math.PI;
+        return x - Math.PI;
+    }
+}
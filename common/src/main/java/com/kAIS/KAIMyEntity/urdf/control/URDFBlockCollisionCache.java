@@ -0,0 +1,652 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import com.kAIS.KAIMyEntity.PhysicsManager;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.shapes.VoxelShape;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 블록 충돌 geom 캐시 (청크 섹션 16³ 단위, 전체 로봇 공유)
+ *
+ * 캡처 (클라이언트 스레드, Level 읽기):
+ * - 로봇마다 Region(AABB + 여유 → 섹션 범위)을 들고, 범위에 새로 들어온 섹션만 읽음 / 빠진 섹션만 해제 (참조 카운트)
+ * - 블록 변경은 ClientLevel 믹스인이 알려줌 → 그 블록만 다시 읽음
+ * - 섹션 안에서는 블록별 BlockState를 기억해 두고 상태가 같으면 건너뜀 (청크 재수신 시 차이만 반영)
+ * - 바뀐 섹션은 불변 스냅샷(URDFSectionSnapshot)으로 만들어 큐에 넣음
+ *
+ * 빌드 (월드를 스텝하는 스레드, WORLD_LOCK 안, Level 접근 없음):
+ * - applyPending()이 스냅샷 큐를 비우며 이전 스냅샷과 달라진 geom만 생성/해제
+ * - 완전 블록(풀 큐브)은 섹션마다 그리디 병합 박스로 (URDFBlockMesher) → geom 수 1/10 이하, 윗면 이음새 없음
+ *   지형형 섹션은 선택적으로 ODE 높이장 하나로, 완전 블록이 아닌 형상은 VoxelShape 박스 그대로
+ *
+ * → 로봇이 같은 섹션 범위에 있고 블록 변경이 없으면 틱당 비용은 섹션 범위 비교 한 번
+ */
+public final class URDFBlockCollisionCache {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final URDFBlockCollisionCache INSTANCE = new URDFBlockCollisionCache();
+
+    static URDFBlockCollisionCache getInstance() {
+        return INSTANCE;
+    }
+
+    // 믹스인 → 캡처 (블록 위치 / 청크 좌표, 다음 갱신 때 처리)
+    private static final ConcurrentLinkedQueue<Long> changedBlocks = new ConcurrentLinkedQueue<>();
+    private static final ConcurrentLinkedQueue<Long> loadedChunks = new ConcurrentLinkedQueue<>();
+
+    // 설정
+    private static volatile boolean mergeFullBlocks = true;
+    private static volatile boolean heightfieldTerrain = false;
+
+    // ========== 캡처 측 (클라이언트 스레드 전용) ==========
+    private final Map<Long, Section> sections = new HashMap<>();
+    private final List<Section> unloaded = new ArrayList<>();  // 청크가 아직 안 와서 읽지 못한 섹션
+    private final List<Section> captureDirty = new ArrayList<>();
+    private final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+    private final IdentityHashMap<VoxelShape, Integer> paletteIndex = new IdentityHashMap<>();
+    private long changeStamp = 0L;
+
+    // 캡처 → 빌드 (스냅샷, null 스냅샷 = 섹션 해제)
+    private static final class Update {
+        final long key;
+        final URDFSectionSnapshot snapshot;
+
+        Update(long key, URDFSectionSnapshot snapshot) {
+            this.key = key;
+            this.snapshot = snapshot;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Update> pending = new ConcurrentLinkedQueue<>();
+
+    // ========== 빌드 측 (applyPending 호출 스레드 전용) ==========
+    private final Map<Long, Built> built = new HashMap<>();
+    private final long[] mergeScratch = new long[URDFBlockMesher.WORDS];
+    private final int[] boxScratch = new int[URDFBlockMesher.SECTION_BITS];
+    private final int[] heightScratch = new int[256];
+    private volatile int activeBlocks = 0;
+    private volatile int activeGeoms = 0;
+
+    // ODE4J (PhysicsManager 클래스로더, 첫 사용 시 해석)
+    private PhysicsManager physics;
+    private Object space;
+    private Method createBox;
+    private Method destroyGeom;
+    private boolean odeResolved = false;
+
+    private Method createHeightfieldData;
+    private Method createHeightfield;
+    private Method heightfieldBuild;
+    private Method heightfieldSetBounds;
+    private Method heightfieldDataDestroy;
+
+    private URDFBlockCollisionCache() { }
+
+    public static boolean isMergeFullBlocks() {
+        return mergeFullBlocks;
+    }
+
+    /** 완전 블록 그리디 병합 (false면 블록마다 박스) - 이후 빌드되는 섹션부터 적용 */
+    public static void setMergeFullBlocks(boolean enabled) {
+        mergeFullBlocks = enabled;
+    }
+
+    public static boolean isHeightfieldTerrain() {
+        return heightfieldTerrain;
+    }
+
+    /** 지형형 섹션(바닥부터 채워진 완만한 열)을 ODE 높이장 하나로 - 병합이 켜져 있을 때만 */
+    public static void setHeightfieldTerrain(boolean enabled) {
+        heightfieldTerrain = enabled;
+    }
+
+    // ========================================================================
+    // 변경 알림 (믹스인)
+    // ========================================================================
+
+    /** 클라이언트 월드 블록 변경 (설치/파괴/상태 변경) */
+    public static void notifyBlockChanged(BlockPos pos) {
+        changedBlocks.add(pos.asLong());
+    }
+
+    /** 청크 데이터 수신 (첫 로드 / 재전송) - 그 청크의 캐시된 섹션을 다시 비교 */
+    public static void notifyChunkLoaded(int chunkX, int chunkZ) {
+        loadedChunks.add(((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL));
+    }
+
+    // ========================================================================
+    // 캡처 측 섹션
+    // ========================================================================
+
+    private static final class Section {
+        final long key;
+        final int sx, sy, sz;
+        int refs = 0;
+        boolean captured = false;
+        boolean dirty = false;
+        long lastChange = 0L;
+        BlockState[] states;   // 로컬 인덱스(y<<8 | z<<4 | x) → 마지막으로 읽은 상태 (첫 캡처 때 할당)
+        VoxelShape[] shapes;   // 로컬 인덱스 → 완전 블록이 아닌 충돌 형상 (없으면 null)
+        final long[] full = new long[URDFBlockMesher.WORDS];
+
+        Section(long key) {
+            this.key = key;
+            this.sx = SectionPos.x(key);
+            this.sy = SectionPos.y(key);
+            this.sz = SectionPos.z(key);
+        }
+    }
+
+    /**
+     * 로봇 하나가 붙잡고 있는 섹션 범위
+     * 범위가 바뀐 틱에만 섹션 획득/해제, 그 외에는 변경 스탬프 비교만
+     */
+    final class Region {
+        private int minSX, minSY, minSZ, maxSX, maxSY, maxSZ;
+        private boolean empty = true;
+        private long seenStamp = 0L;
+
+        /**
+         * 범위 갱신 + 대기 중인 블록/청크 변경 캡처 (클라이언트 스레드)
+         * @return 이 범위 안의 블록 충돌이 지난 호출 이후 바뀌었으면 true (잠든 로봇 깨우기용)
+         */
+        boolean update(Level level, double minX, double minY, double minZ,
+                       double maxX, double maxY, double maxZ) {
+            flush(level);
+            int nMinSX = SectionPos.blockToSectionCoord(minX), nMaxSX = SectionPos.blockToSectionCoord(maxX);
+            int nMinSY = SectionPos.blockToSectionCoord(minY), nMaxSY = SectionPos.blockToSectionCoord(maxY);
+            int nMinSZ = SectionPos.blockToSectionCoord(minZ), nMaxSZ = SectionPos.blockToSectionCoord(maxZ);
+            int lo = level.getMinSection(), hi = level.getMaxSection() - 1;
+            nMinSY = Math.max(nMinSY, lo);
+            nMaxSY = Math.min(nMaxSY, hi);
+
+            if (empty || nMinSX != minSX || nMinSY != minSY || nMinSZ != minSZ
+                    || nMaxSX != maxSX || nMaxSY != maxSY || nMaxSZ != maxSZ) {
+                // 새 범위 먼저 획득 → 겹치는 섹션은 참조만 잠깐 늘었다 줄어 다시 읽지 않음
+                for (int x = nMinSX; x <= nMaxSX; x++)
+                    for (int y = nMinSY; y <= nMaxSY; y++)
+                        for (int z = nMinSZ; z <= nMaxSZ; z++) acquire(level, x, y, z);
+                release();
+                minSX = nMinSX; minSY = nMinSY; minSZ = nMinSZ;
+                maxSX = nMaxSX; maxSY = nMaxSY; maxSZ = nMaxSZ;
+                empty = nMinSY > nMaxSY;
+            }
+            publishDirty();
+            return consumeChange();
+        }
+
+        private boolean consumeChange() {
+            if (seenStamp == changeStamp) return false;
+            long since = seenStamp;
+            seenStamp = changeStamp;
+            if (empty) return false;
+            for (int x = minSX; x <= maxSX; x++)
+                for (int y = minSY; y <= maxSY; y++)
+                    for (int z = minSZ; z <= maxSZ; z++) {
+                        Section s = sections.get(SectionPos.asLong(x, y, z));
+                        if (s != null && s.lastChange > since) return true;
+                    }
+            return false;
+        }
+
+        /** 잡고 있던 섹션 전부 해제 (클라이언트 스레드) */
+        void release() {
+            if (empty) return;
+            for (int x = minSX; x <= maxSX; x++)
+                for (int y = minSY; y <= maxSY; y++)
+                    for (int z = minSZ; z <= maxSZ; z++) URDFBlockCollisionCache.this.release(x, y, z);
+            empty = true;
+        }
+    }
+
+    Region newRegion() {
+        return new Region();
+    }
+
+    int getActiveBlockCount() {
+        return activeBlocks;
+    }
+
+    int getActiveGeomCount() {
+        return activeGeoms;
+    }
+
+    private void acquire(Level level, int x, int y, int z) {
+        long key = SectionPos.asLong(x, y, z);
+        Section s = sections.get(key);
+        if (s == null) {
+            s = new Section(key);
+            sections.put(key, s);
+        }
+        if (s.refs++ == 0) capture(level, s);
+    }
+
+    private void release(int x, int y, int z) {
+        long key = SectionPos.asLong(x, y, z);
+        Section s = sections.get(key);
+        if (s == null || --s.refs > 0) return;
+        sections.remove(key);
+        unloaded.remove(s);
+        if (s.dirty) {
+            s.dirty = false;
+            captureDirty.remove(s);
+        }
+        if (s.captured) pending.add(new Update(key, null));
+    }
+
+    /** 섹션 전체 비교 (첫 캡처 / 청크 재수신) - 상태가 달라진 블록만 반영 */
+    private void capture(Level level, Section s) {
+        if (!level.hasChunk(s.sx, s.sz)) {
+            if (!unloaded.contains(s)) unloaded.add(s);
+            return;
+        }
+        unloaded.remove(s);
+        if (s.states == null) {
+            s.states = new BlockState[4096];
+            s.shapes = new VoxelShape[4096];
+        }
+        if (!s.captured) {
+            s.captured = true;
+            markDirty(s);
+        }
+        int bx = SectionPos.sectionToBlockCoord(s.sx);
+        int by = SectionPos.sectionToBlockCoord(s.sy);
+        int bz = SectionPos.sectionToBlockCoord(s.sz);
+        for (int i = 0; i < 4096; i++) {
+            refreshBlock(level, s, i, bx + (i & 15), by + (i >> 8), bz + ((i >> 4) & 15));
+        }
+    }
+
+    private void refreshBlock(Level level, Section s, int index, int x, int y, int z) {
+        cursor.set(x, y, z);
+        BlockState state = level.getBlockState(cursor);
+        if (state == s.states[index]) return;
+        s.states[index] = state;
+
+        VoxelShape shape = state.getCollisionShape(level, cursor);
+        boolean nowFull = !shape.isEmpty() && Block.isShapeFullBlock(shape);
+        VoxelShape partial = shape.isEmpty() || nowFull ? null : shape;
+        boolean wasFull = URDFBlockMesher.get(s.full, index);
+        if (wasFull == nowFull && partial == s.shapes[index]) return;
+
+        URDFBlockMesher.set(s.full, index, nowFull);
+        s.shapes[index] = partial;
+        s.lastChange = ++changeStamp;
+        markDirty(s);
+    }
+
+    private void markDirty(Section s) {
+        if (!s.dirty) {
+            s.dirty = true;
+            captureDirty.add(s);
+        }
+    }
+
+    /** 바뀐 섹션 → 불변 스냅샷 → 빌드 큐 */
+    private void publishDirty() {
+        for (int i = 0; i < captureDirty.size(); i++) {
+            Section s = captureDirty.get(i);
+            s.dirty = false;
+            pending.add(new Update(s.key, snapshot(s)));
+        }
+        captureDirty.clear();
+    }
+
+    private URDFSectionSnapshot snapshot(Section s) {
+        int count = 0;
+        for (int i = 0; i < 4096; i++) if (s.shapes[i] != null) count++;
+        int[] blocks = new int[count];
+        int[] ids = new int[count];
+        List<double[]> palette = new ArrayList<>();
+        paletteIndex.clear();
+        int n = 0;
+        for (int i = 0; i < 4096; i++) {
+            VoxelShape shape = s.shapes[i];
+            if (shape == null) continue;
+            Integer id = paletteIndex.get(shape);
+            if (id == null) {
+                id = palette.size();
+                paletteIndex.put(shape, id);
+                palette.add(flatten(shape));
+            }
+            blocks[n] = i;
+            ids[n++] = id;
+        }
+        paletteIndex.clear();
+        return new URDFSectionSnapshot(s.key, s.full.clone(), blocks, ids, palette.toArray(new double[0][]));
+    }
+
+    private static double[] flatten(VoxelShape shape) {
+        List<AABB> boxes = shape.toAabbs();
+        double[] out = new double[boxes.size() * 6];
+        int k = 0;
+        for (AABB b : boxes) {
+            out[k++] = b.minX; out[k++] = b.minY; out[k++] = b.minZ;
+            out[k++] = b.maxX; out[k++] = b.maxY; out[k++] = b.maxZ;
+        }
+        return out;
+    }
+
+    // ========================================================================
+    // 대기 중인 변경 캡처
+    // ========================================================================
+
+    private void flush(Level level) {
+        Long packed;
+        while ((packed = changedBlocks.poll()) != null) {
+            long pos = packed;
+            int x = BlockPos.getX(pos), y = BlockPos.getY(pos), z = BlockPos.getZ(pos);
+            Section s = sections.get(SectionPos.asLong(
+                    SectionPos.blockToSectionCoord(x), SectionPos.blockToSectionCoord(y),
+                    SectionPos.blockToSectionCoord(z)));
+            if (s == null || !s.captured) continue;
+            refreshBlock(level, s, ((y & 15) << 8) | ((z & 15) << 4) | (x & 15), x, y, z);
+        }
+        while ((packed = loadedChunks.poll()) != null) {
+            int cx = (int) (packed >> 32), cz = (int) (long) packed;
+            for (Section s : sections.values()) {
+                if (s.sx == cx && s.sz == cz && s.refs > 0) capture(level, s);
+            }
+        }
+        if (!unloaded.isEmpty()) {
+            for (int i = unloaded.size() - 1; i >= 0; i--) {
+                Section s = unloaded.get(i);
+                if (level.hasChunk(s.sx, s.sz)) capture(level, s);
+            }
+        }
+    }
+
+    // ========================================================================
+    // 빌드 측
+    // ========================================================================
+
+    /** 빌드된 섹션 (마지막으로 반영한 스냅샷 + geom) */
+    private static final class Built {
+        URDFSectionSnapshot snapshot;
+        Object[][] shapeGeoms = new Object[0][];    // snapshot.shapeBlocks와 같은 순서
+        int[] mergedBoxes = new int[0];             // 정렬된 압축 박스 (URDFBlockMesher.pack)
+        Object[] mergedGeoms = new Object[0];
+        Object heightfield;                          // 지형형일 때 병합 박스 대신
+        Object heightfieldData;
+        int[] heightfieldHeights;
+    }
+
+    /**
+     * 쌓인 스냅샷 반영 (월드를 스텝하는 스레드, WORLD_LOCK 안에서)
+     * 시뮬레이션 스레드면 스텝 시작 때, 아니면 ODE4JBackend.step 시작 때 호출됨
+     */
+    void applyPending() {
+        Update u;
+        while ((u = pending.poll()) != null) {
+            if (!resolveOde()) {
+                pending.clear();
+                return;
+            }
+            Built b = built.get(u.key);
+            if (u.snapshot == null) {
+                if (b != null) {
+                    built.remove(u.key);
+                    clear(b);
+                }
+                continue;
+            }
+            if (b == null) {
+                b = new Built();
+                built.put(u.key, b);
+            }
+            apply(b, u.snapshot);
+        }
+    }
+
+    private void apply(Built b, URDFSectionSnapshot next) {
+        URDFSectionSnapshot prev = b.snapshot;
+        int bx = SectionPos.sectionToBlockCoord(next.sx);
+        int by = SectionPos.sectionToBlockCoord(next.sy);
+        int bz = SectionPos.sectionToBlockCoord(next.sz);
+
+        // 비완전 형상: 두 희소 목록을 나란히 훑어 형상이 같은 블록의 geom은 유지
+        int[] oldBlocks = prev != null ? prev.shapeBlocks : new int[0];
+        Object[][] geoms = new Object[next.shapeBlocks.length][];
+        int i = 0, j = 0;
+        while (i < next.shapeBlocks.length || j < oldBlocks.length) {
+            int ni = i < next.shapeBlocks.length ? next.shapeBlocks[i] : Integer.MAX_VALUE;
+            int oj = j < oldBlocks.length ? oldBlocks[j] : Integer.MAX_VALUE;
+            if (ni < oj) {
+                geoms[i] = createShapeBoxes(next.palette[next.shapeIds[i]], bx, by, bz, ni);
+                i++;
+            } else if (oj < ni) {
+                destroy(b.shapeGeoms[j]);
+                j++;
+            } else {
+                double[] boxes = next.palette[next.shapeIds[i]];
+                if (Arrays.equals(boxes, prev.palette[prev.shapeIds[j]])) {
+                    geoms[i] = b.shapeGeoms[j];
+                } else {
+                    destroy(b.shapeGeoms[j]);
+                    geoms[i] = createShapeBoxes(boxes, bx, by, bz, ni);
+                }
+                i++;
+                j++;
+            }
+        }
+        b.shapeGeoms = geoms;
+
+        // 완전 블록: 비트셋이 같으면 그대로
+        if (prev == null || !Arrays.equals(prev.full, next.full)) {
+            remerge(b, next.full, bx, by, bz);
+        }
+
+        activeBlocks += next.blockCount() - (prev != null ? prev.blockCount() : 0);
+        b.snapshot = next;
+    }
+
+    /** 완전 블록이 아닌 형상: VoxelShape 박스 그대로 */
+    private Object[] createShapeBoxes(double[] boxes, int bx, int by, int bz, int index) {
+        int x = bx + (index & 15), y = by + (index >> 8), z = bz + ((index >> 4) & 15);
+        Object[] created = new Object[boxes.length / 6];
+        int n = 0;
+        for (int k = 0; k < boxes.length; k += 6) {
+            Object geom = createBox(x + (boxes[k] + boxes[k + 3]) * 0.5, y + (boxes[k + 1] + boxes[k + 4]) * 0.5,
+                    z + (boxes[k + 2] + boxes[k + 5]) * 0.5,
+                    boxes[k + 3] - boxes[k], boxes[k + 4] - boxes[k + 1], boxes[k + 5] - boxes[k + 2]);
+            if (geom != null) created[n++] = geom;
+        }
+        if (n == 0) return null;
+        activeGeoms += n;
+        return n == created.length ? created : Arrays.copyOf(created, n);
+    }
+
+    // ========================================================================
+    // 완전 블록 병합
+    // ========================================================================
+
+    /** 섹션 완전 블록 → 병합 박스 (이전과 같은 박스의 geom은 그대로 둠) 또는 높이장 */
+    private void remerge(Built b, long[] full, int bx, int by, int bz) {
+        if (mergeFullBlocks && heightfieldTerrain && heightfieldBuild != null
+                && URDFBlockMesher.terrainHeights(full, heightScratch)) {
+            setMergedBoxes(b, 0, bx, by, bz);
+            if (b.heightfield == null || !Arrays.equals(b.heightfieldHeights, heightScratch)) {
+                destroyHeightfield(b);
+                createHeightfield(b, full, bx, by, bz);
+            }
+            return;
+        }
+        destroyHeightfield(b);
+        int n = mergeFullBlocks
+                ? URDFBlockMesher.greedyBoxes(full, mergeScratch, boxScratch)
+                : URDFBlockMesher.unitBoxes(full, boxScratch);
+        Arrays.sort(boxScratch, 0, n);
+        setMergedBoxes(b, n, bx, by, bz);
+    }
+
+    /** boxScratch[0..n) (정렬됨)로 교체 - 두 목록을 나란히 훑어 달라진 박스만 생성/해제 */
+    private void setMergedBoxes(Built b, int n, int bx, int by, int bz) {
+        int[] oldBoxes = b.mergedBoxes;
+        Object[] oldGeoms = b.mergedGeoms;
+        int[] boxes = Arrays.copyOf(boxScratch, n);
+        Object[] geoms = new Object[n];
+        int i = 0, j = 0;
+        while (i < n || j < oldBoxes.length) {
+            if (j >= oldBoxes.length || (i < n && boxes[i] < oldBoxes[j])) {
+                geoms[i] = createMergedBox(boxes[i], bx, by, bz);
+                i++;
+            } else if (i >= n || oldBoxes[j] < boxes[i]) {
+                destroy(oldGeoms[j]);
+                j++;
+            } else {
+                geoms[i++] = oldGeoms[j++];
+            }
+        }
+        b.mergedBoxes = boxes;
+        b.mergedGeoms = geoms;
+    }
+
+    private Object createMergedBox(int box, int bx, int by, int bz) {
+        int x0 = URDFBlockMesher.minX(box), x1 = URDFBlockMesher.maxX(box);
+        int y0 = URDFBlockMesher.minY(box), y1 = URDFBlockMesher.maxY(box);
+        int z0 = URDFBlockMesher.minZ(box), z1 = URDFBlockMesher.maxZ(box);
+        Object geom = createBox(bx + (x0 + x1) * 0.5, by + (y0 + y1) * 0.5, bz + (z0 + z1) * 0.5,
+                x1 - x0, y1 - y0, z1 - z0);
+        if (geom != null) activeGeoms++;
+        return geom;
+    }
+
+    private void clear(Built b) {
+        for (Object[] g : b.shapeGeoms) destroy(g);
+        b.shapeGeoms = new Object[0][];
+        for (Object g : b.mergedGeoms) destroy(g);
+        b.mergedBoxes = new int[0];
+        b.mergedGeoms = new Object[0];
+        destroyHeightfield(b);
+        if (b.snapshot != null) activeBlocks -= b.snapshot.blockCount();
+        b.snapshot = null;
+    }
+
+    // ========================================================================
+    // ODE4J geom
+    // ========================================================================
+
+    private boolean resolveOde() {
+        if (odeResolved) return createBox != null;
+        odeResolved = true;
+        try {
+            physics = PhysicsManager.GetInst();
+            space = physics.getClass().getMethod("getSpace").invoke(physics);
+            ClassLoader cl = physics.getClassLoader();
+            Class<?> helper = cl.loadClass("com.kAIS.ode4j.ode.OdeHelper");
+            Class<?> spaceClass = cl.loadClass("com.kAIS.ode4j.ode.DSpace");
+            Class<?> geomClass = cl.loadClass("com.kAIS.ode4j.ode.DGeom");
+            createBox = helper.getMethod("createBox", spaceClass, double.class, double.class, double.class);
+            destroyGeom = geomClass.getMethod("destroy");
+            resolveHeightfield(helper, spaceClass, cl);
+        } catch (Exception e) {
+            logger.error("Block collision cache unavailable (ODE4J space not accessible)", e);
+            createBox = null;
+        }
+        return createBox != null;
+    }
+
+    /** 높이장 API (없으면 지형형 섹션도 병합 박스로) */
+    private void resolveHeightfield(Class<?> helper, Class<?> spaceClass, ClassLoader cl) {
+        try {
+            Class<?> dataClass = cl.loadClass("com.kAIS.ode4j.ode.DHeightfieldData");
+            createHeightfieldData = helper.getMethod("createHeightfieldData");
+            createHeightfield = helper.getMethod("createHeightfield", spaceClass, dataClass, boolean.class);
+            Method build;
+            try {
+                build = dataClass.getMethod("buildDouble", double[].class, boolean.class, double.class, double.class,
+                        int.class, int.class, double.class, double.class, double.class, boolean.class);
+            } catch (NoSuchMethodException e) {
+                build = dataClass.getMethod("build", double[].class, boolean.class, double.class, double.class,
+                        int.class, int.class, double.class, double.class, double.class, boolean.class);
+            }
+            heightfieldSetBounds = dataClass.getMethod("setBounds", double.class, double.class);
+            heightfieldDataDestroy = dataClass.getMethod("destroy");
+            heightfieldBuild = build;
+        } catch (Exception e) {
+            heightfieldBuild = null;
+            logger.debug("ODE4J heightfield unavailable: {}", e.toString());
+        }
+    }
+
+    /**
+     * 섹션 높이장 (17×17 꼭짓점, 1블록 간격, Y 위) - geom 중심은 섹션 XZ 중앙 / 섹션 바닥 높이
+     * 두께 1 → 섹션 바닥 아래까지 막혀 있어 빠져나가지 않음
+     */
+    private void createHeightfield(Built b, long[] full, int bx, int by, int bz) {
+        try {
+            double[] samples = new double[17 * 17];
+            URDFBlockMesher.vertexSamples(heightScratch, samples);
+            Object data = createHeightfieldData.invoke(null);
+            heightfieldBuild.invoke(data, samples, true, 16.0, 16.0, 17, 17, 1.0, 0.0, 1.0, false);
+            heightfieldSetBounds.invoke(data, 0.0, 16.0);
+            Object geom = createHeightfield.invoke(null, space, data, true);
+            physics.setGeomPosition(geom, bx + 8.0, by, bz + 8.0);
+            b.heightfield = geom;
+            b.heightfieldData = data;
+            b.heightfieldHeights = heightScratch.clone();
+            activeGeoms++;
+        } catch (Exception e) {
+            // 이 섹션은 병합 박스로
+            logger.debug("Heightfield creation failed, using merged boxes: {}", e.toString());
+            heightfieldBuild = null;
+            int n = URDFBlockMesher.greedyBoxes(full, mergeScratch, boxScratch);
+            Arrays.sort(boxScratch, 0, n);
+            setMergedBoxes(b, n, bx, by, bz);
+        }
+    }
+
+    private void destroyHeightfield(Built b) {
+        if (b.heightfield == null) return;
+        destroy(b.heightfield);
+        try {
+            heightfieldDataDestroy.invoke(b.heightfieldData);
+        } catch (Exception e) {
+            logger.debug("Heightfield data destroy failed: {}", e.toString());
+        }
+        b.heightfield = null;
+        b.heightfieldData = null;
+        b.heightfieldHeights = null;
+    }
+
+    private Object createBox(double cx, double cy, double cz, double lx, double ly, double lz) {
+        try {
+            Object geom = createBox.invoke(null, space, lx, ly, lz);
+            physics.setGeomPosition(geom, cx, cy, cz);
+            return geom;
+        } catch (Exception e) {
+            logger.debug("Block box geom creation failed: {}", e.toString());
+            return null;
+        }
+    }
+
+    private void destroy(Object[] geoms) {
+        if (geoms == null) return;
+        for (Object g : geoms) destroy(g);
+    }
+
+    private void destroy(Object geom) {
+        if (geom == null) return;
+        try {
+            destroyGeom.invoke(geom);
+        } catch (Exception e) {
+            logger.debug("Block geom destroy failed: {}", e.toString());
+        }
+        activeGeoms--;
+    }
+}
@@ -0,0 +1,148 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+/**
+ * 청크 섹션(16³) 완전 블록 비트셋 → 충돌 형상 (그리디 병합 박스 / 높이장)
+ *
+ * 비트 인덱스 = y<<8 | z<<4 | x, long[64] (URDFBlockCollisionCache와 같은 배치)
+ * 박스는 int 하나로 압축: x0 | y0<<4 | z0<<8 | (x1-1)<<12 | (y1-1)<<16 | (z1-1)<<20 (섹션 로컬, 끝 포함)
+ */
+final class URDFBlockMesher {
+
+    static final int SECTION_BITS = 4096;
+    static final int WORDS = SECTION_BITS / 64;
+
+    private URDFBlockMesher() { }
+
+    static boolean get(long[] bits, int i) {
+        return (bits[i >> 6] & (1L << (i & 63))) != 0;
+    }
+
+    static void set(long[] bits, int i, boolean v) {
+        if (v) bits[i >> 6] |= 1L << (i & 63);
+        else bits[i >> 6] &= ~(1L << (i & 63));
+    }
+
+    static int index(int x, int y, int z) {
+        return (y << 8) | (z << 4) | x;
+    }
+
+    static int pack(int x0, int y0, int z0, int x1, int y1, int z1) {
+        return x0 | (y0 << 4) | (z0 << 8) | ((x1 - 1) << 12) | ((y1 - 1) << 16) | ((z1 - 1) << 20);
+    }
+
+    static int minX(int box) { return box & 15; }
+    static int minY(int box) { return (box >> 4) & 15; }
+    static int minZ(int box) { return (box >> 8) & 15; }
+    static int maxX(int box) { return ((box >> 12) & 15) + 1; }
+    static int maxY(int box) { return ((box >> 16) & 15) + 1; }
+    static int maxZ(int box) { return ((box >> 20) & 15) + 1; }
+
+    /**
+     * 그리디 병합: X로 늘리고 → 그 줄을 Z로 → 그 판을 Y로
+     * (바닥이 넓은 판으로 먼저 묶여 발이 걸리는 윗면 이음새가 줄어듦)
+     * @param remaining 작업용 비트셋 (long[64], 내용은 덮어씀)
+     * @param out 박스 버퍼 (최대 4096)
+     * @return 박스 수
+     */
+    static int greedyBoxes(long[] full, long[] remaining, int[] out) {
+        System.arraycopy(full, 0, remaining, 0, WORDS);
+        int n = 0;
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    if (!get(remaining, index(x, y, z))) continue;
+
+                    int x1 = x + 1;
+                    while (x1 < 16 && get(remaining, index(x1, y, z))) x1++;
+
+                    int z1 = z + 1;
+                    while (z1 < 16 && rowFilled(remaining, x, x1, y, z1)) z1++;
+
+                    int y1 = y + 1;
+                    while (y1 < 16 && planeFilled(remaining, x, x1, y1, z, z1)) y1++;
+
+                    for (int yy = y; yy < y1; yy++)
+                        for (int zz = z; zz < z1; zz++)
+                            for (int xx = x; xx < x1; xx++) set(remaining, index(xx, yy, zz), false);
+                    out[n++] = pack(x, y, z, x1, y1, z1);
+                }
+            }
+        }
+        return n;
+    }
+
+    /** 병합 없이 블록마다 박스 하나 (병합을 끈 경우) */
+    static int unitBoxes(long[] full, int[] out) {
+        int n = 0;
+        for (int i = 0; i < SECTION_BITS; i++) {
+            if (!get(full, i)) continue;
+            int x = i & 15, y = i >> 8, z = (i >> 4) & 15;
+            out[n++] = pack(x, y, z, x + 1, y + 1, z + 1);
+        }
+        return n;
+    }
+
+    private static boolean rowFilled(long[] bits, int x0, int x1, int y, int z) {
+        for (int x = x0; x < x1; x++) if (!get(bits, index(x, y, z))) return false;
+        return true;
+    }
+
+    private static boolean planeFilled(long[] bits, int x0, int x1, int y, int z0, int z1) {
+        for (int z = z0; z < z1; z++) if (!rowFilled(bits, x0, x1, y, z)) return false;
+        return true;
+    }
+
+    /**
+     * 지형형 섹션 판정 + 열 높이
+     * 모든 열이 바닥부터 채워져 있고(공중에 뜬 블록 없음), 높이 1 이상, 이웃 열과 높이차 1 이하,
+     * 그리고 높이가 전부 같지는 않을 때 (같으면 박스 하나가 낫다)
+     * @param heights 열 높이 출력 [z * 16 + x]
+     */
+    static boolean terrainHeights(long[] full, int[] heights) {
+        int min = 16, max = 0;
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                int h = 0;
+                while (h < 16 && get(full, index(x, h, z))) h++;
+                for (int y = h + 1; y < 16; y++) {
+                    if (get(full, index(x, y, z))) return false;
+                }
+                if (h == 0) return false;
+                heights[z * 16 + x] = h;
+                min = Math.min(min, h);
+                max = Math.max(max, h);
+            }
+        }
+        if (min == max) return false;
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                int h = heights[z * 16 + x];
+                if (x < 15 && Math.abs(h - heights[z * 16 + x + 1]) > 1) return false;
+                if (z < 15 && Math.abs(h - heights[(z + 1) * 16 + x]) > 1) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 열 높이 → 높이장 꼭짓점 샘플 17×17 [j * 17 + i] (i: X, j: Z)
+     * 꼭짓점에 닿는 열 중 가장 높은 값 → 표면이 블록 윗면 아래로 내려가지 않음
+     */
+    static void vertexSamples(int[] heights, double[] out) {
+        for (int j = 0; j <= 16; j++) {
+            for (int i = 0; i <= 16; i++) {
+                int h = 0;
+                for (int dz = -1; dz <= 0; dz++) {
+                    int z = j + dz;
+                    if (z < 0 || z > 15) continue;
+                    for (int dx = -1; dx <= 0; dx++) {
+                        int x = i + dx;
+                        if (x < 0 || x > 15) continue;
+                        h = Math.max(h, heights[z * 16 + x]);
+                    }
+                }
+                out[j * 17 + i] = h;
+            }
+        }
+    }
+}
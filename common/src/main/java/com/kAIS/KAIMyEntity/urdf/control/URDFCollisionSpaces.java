@@ -0,0 +1,236 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import com.kAIS.KAIMyEntity.PhysicsManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 로봇별 ODE 충돌 서브 스페이스 (브로드페이즈 선택)
+ *
+ * - 로봇 geom은 PhysicsManager.registerDynamicGeom으로 등록한 뒤 전역 스페이스에서 빼서 로봇 서브 스페이스로 옮긴다.
+ *   전역 스페이스에는 서브 스페이스 하나만 남으므로 블록 박스 수천 개와의 AABB 검사가 로봇당 한 번으로 줄어든다.
+ * - 서브 스페이스 종류: HASH(셀 레벨 조절) / SAP(sweep-and-prune) / QUADTREE / SIMPLE, DEFAULT면 예전처럼 전역 스페이스.
+ * - 인접 링크(조인트로 직접 연결된 두 링크) 쌍은 category/collide 비트로 브로드페이즈 단계에서 제외.
+ *
+ * ODE4J는 PhysicsManager 클래스로더에 있으므로 OdeHelper/DSpace/DGeom은 리플렉션으로 (생성 시 한 번 해석).
+ */
+public final class URDFCollisionSpaces {
+    private static final Logger logger = LogManager.getLogger();
+
+    public enum Broadphase { DEFAULT, SIMPLE, HASH, SAP, QUADTREE }
+
+    // ========== 전역 설정 ==========
+    private static volatile Broadphase broadphase = Broadphase.DEFAULT;
+    private static volatile int hashMinLevel = -3;  // 셀 크기 2^level (물리 단위) - 링크 크기 범위에 맞춤
+    private static volatile int hashMaxLevel = 2;
+    private static final int QUADTREE_DEPTH = 4;
+    private static final double QUADTREE_EXTENT = 8.0;
+
+    /** 인접 링크 제외에 쓰는 비트 수 (링크가 더 많으면 비트를 돌려 씀 → 일부 비인접 쌍도 제외될 수 있음) */
+    static final int LINK_BITS = 62;
+
+    // 통계 (브로드페이즈 비교 로그용)
+    private static final AtomicInteger ROBOT_SPACES = new AtomicInteger();
+    private static final AtomicInteger ROBOT_GEOMS = new AtomicInteger();
+    private static final AtomicInteger SPACE_SEQ = new AtomicInteger();
+
+    // 전역 접촉 수 getter (PhysicsManager가 노출할 때만)
+    private static volatile Method contactCountMethod;
+    private static volatile boolean contactCountResolved = false;
+
+    private final Broadphase kind;
+    private final Object space;
+    private final Method spaceAdd;
+    private final Method spaceRemove;
+    private final Method spaceDestroy;
+    private final Method geomGetSpace;
+    private final Method geomSetCategoryBits;
+    private final Method geomSetCollideBits;
+    private final int bitOffset;
+    private int geomCount = 0;
+
+    private URDFCollisionSpaces(Broadphase kind, Object space, Class<?> spaceClass, Class<?> geomClass)
+            throws NoSuchMethodException {
+        this.kind = kind;
+        this.space = space;
+        this.spaceAdd = spaceClass.getMethod("add", geomClass);
+        this.spaceRemove = spaceClass.getMethod("remove", geomClass);
+        this.spaceDestroy = spaceClass.getMethod("destroy");
+        this.geomGetSpace = geomClass.getMethod("getSpace");
+        this.geomSetCategoryBits = geomClass.getMethod("setCategoryBits", long.class);
+        this.geomSetCollideBits = geomClass.getMethod("setCollideBits", long.class);
+        // 로봇마다 링크 → 비트 배치를 어긋나게 (같은 모델 두 대의 같은 인접 쌍이 서로 제외되지 않도록)
+        this.bitOffset = (SPACE_SEQ.getAndIncrement() * 13) % LINK_BITS;
+    }
+
+    public static Broadphase getBroadphase() {
+        return broadphase;
+    }
+
+    public static void setBroadphase(Broadphase kind) {
+        if (kind != null) broadphase = kind;
+    }
+
+    public static int getHashMinLevel() {
+        return hashMinLevel;
+    }
+
+    public static int getHashMaxLevel() {
+        return hashMaxLevel;
+    }
+
+    /** 해시 스페이스 셀 레벨 (셀 크기 2^min ~ 2^max) */
+    public static void setHashLevels(int min, int max) {
+        int lo = Math.max(-10, Math.min(min, 10));
+        hashMinLevel = lo;
+        hashMaxLevel = Math.max(lo, Math.min(max, 10));
+    }
+
+    static int getRobotSpaceCount() {
+        return ROBOT_SPACES.get();
+    }
+
+    static int getRobotGeomCount() {
+        return ROBOT_GEOMS.get();
+    }
+
+    /**
+     * 현재 설정의 로봇 서브 스페이스 생성 (전역 스페이스 안)
+     * @return DEFAULT이거나 ODE4J/PhysicsManager가 지원하지 않으면 null (호출측은 전역 스페이스 그대로 사용)
+     */
+    static URDFCollisionSpaces create(PhysicsManager physics, Class<?> odeHelper) {
+        Broadphase kind = broadphase;
+        if (kind == Broadphase.DEFAULT || physics == null || odeHelper == null) return null;
+        try {
+            Object parent = physics.getClass().getMethod("getSpace").invoke(physics);
+            if (parent == null) return null;
+            ClassLoader cl = odeHelper.getClassLoader();
+            Class<?> spaceClass = cl.loadClass("com.kAIS.ode4j.ode.DSpace");
+            Class<?> geomClass = cl.loadClass("com.kAIS.ode4j.ode.DGeom");
+
+            Object space = createSpace(kind, odeHelper, spaceClass, parent, cl);
+            URDFCollisionSpaces s = new URDFCollisionSpaces(kind, space, spaceClass, geomClass);
+            ROBOT_SPACES.incrementAndGet();
+            return s;
+        } catch (Exception e) {
+            logger.warn("Robot collision space ({}) unavailable, using shared space: {}", kind, e.toString());
+            return null;
+        }
+    }
+
+    private static Object createSpace(Broadphase kind, Class<?> odeHelper, Class<?> spaceClass,
+                                      Object parent, ClassLoader cl) throws Exception {
+        switch (kind) {
+            case HASH: {
+                Object space = odeHelper.getMethod("createHashSpace", spaceClass).invoke(null, parent);
+                space.getClass().getMethod("setLevels", int.class, int.class)
+                        .invoke(space, hashMinLevel, hashMaxLevel);
+                return space;
+            }
+            case SAP: {
+                // Y가 위 → 로봇이 퍼지는 X, Z 축 순으로 정렬
+                Class<?> axes = cl.loadClass("com.kAIS.ode4j.ode.DSapSpace$AXES");
+                Object xzy = null;
+                for (Object c : axes.getEnumConstants()) {
+                    if ("XZY".equals(((Enum<?>) c).name())) xzy = c;
+                }
+                return odeHelper.getMethod("createSapSpace", spaceClass, axes).invoke(null, parent, xzy);
+            }
+            case QUADTREE: {
+                // 로봇 로컬 영역 (루트 주변) - 바디가 영역 밖으로 나가도 루트 노드에서 계속 처리됨
+                Class<?> vec = cl.loadClass("com.kAIS.ode4j.math.DVector3");
+                Class<?> vecC = cl.loadClass("com.kAIS.ode4j.math.DVector3C");
+                Object center = vec.getConstructor(double.class, double.class, double.class).newInstance(0.0, 0.0, 0.0);
+                Object extents = vec.getConstructor(double.class, double.class, double.class)
+                        .newInstance(QUADTREE_EXTENT, QUADTREE_EXTENT, QUADTREE_EXTENT);
+                return odeHelper.getMethod("createQuadTreeSpace", spaceClass, vecC, vecC, int.class)
+                        .invoke(null, parent, center, extents, QUADTREE_DEPTH);
+            }
+            default:
+                return odeHelper.getMethod("createSimpleSpace", spaceClass).invoke(null, parent);
+        }
+    }
+
+    Broadphase getKind() {
+        return kind;
+    }
+
+    int getGeomCount() {
+        return geomCount;
+    }
+
+    /** 링크 인덱스 → 카테고리 비트 (로봇마다 다른 오프셋) */
+    long linkBit(int linkIndex) {
+        return 1L << ((linkIndex + bitOffset) % LINK_BITS);
+    }
+
+    /**
+     * registerDynamicGeom으로 전역 스페이스에 들어간 geom을 로봇 서브 스페이스로 옮기고 충돌 비트 설정
+     * @param category 이 링크의 비트
+     * @param excluded 인접 링크 비트 (이 비트를 가진 geom과는 브로드페이즈에서 건너뜀)
+     */
+    void adopt(Object geom, long category, long excluded) {
+        try {
+            Object current = geomGetSpace.invoke(geom);
+            if (current != null && current != space) {
+                spaceRemove.invoke(current, geom);
+            }
+            if (current != space) {
+                spaceAdd.invoke(space, geom);
+            }
+            // 블록 geom은 기본값(모든 비트)이라 항상 충돌
+            geomSetCategoryBits.invoke(geom, category);
+            geomSetCollideBits.invoke(geom, ~excluded);
+            geomCount++;
+            ROBOT_GEOMS.incrementAndGet();
+        } catch (Exception e) {
+            logger.debug("Failed to move geom into robot space: {}", e.toString());
+        }
+    }
+
+    /**
+     * 서브 스페이스 제거 - geom은 해제하지 않고 스페이스에서만 빠짐
+     * (geom 수명은 PhysicsManager.registerDynamicGeom 쪽이 관리)
+     */
+    void dispose() {
+        try {
+            space.getClass().getMethod("setCleanup", boolean.class).invoke(space, false);
+            spaceDestroy.invoke(space);
+        } catch (Exception e) {
+            logger.debug("Robot collision space destroy failed: {}", e.toString());
+        }
+        ROBOT_GEOMS.addAndGet(-geomCount);
+        ROBOT_SPACES.decrementAndGet();
+        geomCount = 0;
+    }
+
+    /** 전역 월드 접촉 수 (PhysicsManager가 노출할 때만, 아니면 -1) */
+    static int readContactCount(PhysicsManager physics) {
+        if (physics == null) return -1;
+        if (!contactCountResolved) {
+            for (String name : new String[]{"getContactCount", "getLastContactCount", "getNumContacts"}) {
+                try {
+                    Method m = physics.getClass().getMethod(name);
+                    if (m.getReturnType() == int.class) {
+                        contactCountMethod = m;
+                        break;
+                    }
+                } catch (NoSuchMethodException ignored) { }
+            }
+            contactCountResolved = true;
+            logger.debug("World contact count: {}",
+                    contactCountMethod != null ? contactCountMethod.getName() : "unavailable");
+        }
+        Method m = contactCountMethod;
+        if (m == null) return -1;
+        try {
+            return (int) m.invoke(physics);
+        } catch (Exception e) {
+            contactCountMethod = null;
+            return -1;
+        }
+    }
+}
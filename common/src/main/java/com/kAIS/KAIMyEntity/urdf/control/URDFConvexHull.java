@@ -0,0 +1,482 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import com.kAIS.KAIMyEntity.urdf.STLLoader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 충돌 메쉬 → 단순화된 볼록 껍질 (ODE convex geom용)
+ *
+ * - QuickHull: 매 단계 가장 멀리 튀어나온 점부터 추가하므로, 정점 수 상한에서 멈추면
+ *   큰 형상부터 잡힌 단순화 껍질이 된다 (남은 점은 껍질 밖으로 조금 튀어나올 수 있음)
+ * - 면은 바깥쪽을 보는 삼각형 (반시계), 정점은 xyz 연속 배열
+ * - 메쉬 옆 "<mesh>.hull" 파일에 캐시 (메쉬 크기/수정 시각/스케일/상한이 같을 때만 재사용)
+ */
+final class URDFConvexHull {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int MAGIC = 0x48554C4C; // "HULL"
+    private static final int VERSION = 1;
+    private static final String CACHE_SUFFIX = ".hull";
+
+    /** xyz 연속 */
+    final float[] vertices;
+    /** 삼각형 정점 인덱스 3개씩 (바깥에서 볼 때 반시계) */
+    final int[] faces;
+
+    private URDFConvexHull(float[] vertices, int[] faces) {
+        this.vertices = vertices;
+        this.faces = faces;
+    }
+
+    int getVertexCount() {
+        return vertices.length / 3;
+    }
+
+    int getFaceCount() {
+        return faces.length / 3;
+    }
+
+    // ========================================================================
+    // 메쉬 → 껍질 (디스크 캐시)
+    // ========================================================================
+
+    /**
+     * STL 메쉬의 볼록 껍질 (URDF mesh scale 적용, 메쉬 좌표계)
+     * @return 메쉬가 없거나 평면/선처럼 부피가 없으면 null
+     */
+    static URDFConvexHull forMesh(String meshFile, Vector3f scale, int maxVertices) {
+        if (meshFile == null) return null;
+        File file = new File(meshFile);
+        if (!file.isFile()) return null;
+
+        float sx = scale != null ? scale.x : 1f;
+        float sy = scale != null ? scale.y : 1f;
+        float sz = scale != null ? scale.z : 1f;
+        long length = file.length();
+        long modified = file.lastModified();
+        Path cache = new File(meshFile + CACHE_SUFFIX).toPath();
+
+        if (Files.isRegularFile(cache)) {
+            try {
+                URDFConvexHull cached = readFrom(cache, length, modified, sx, sy, sz, maxVertices);
+                if (cached != null) return cached;
+            } catch (IOException e) {
+                logger.debug("Ignoring unreadable hull cache {}: {}", cache, e.getMessage());
+            }
+        }
+
+        STLLoader.STLMesh mesh = STLLoader.load(meshFile);
+        if (mesh == null || mesh.triangles.isEmpty()) return null;
+
+        float[] points = new float[mesh.triangles.size() * 9];
+        int n = 0;
+        for (STLLoader.Triangle tri : mesh.triangles) {
+            for (Vector3f v : tri.vertices) {
+                points[n * 3] = v.x * sx;
+                points[n * 3 + 1] = v.y * sy;
+                points[n * 3 + 2] = v.z * sz;
+                n++;
+            }
+        }
+
+        long t0 = System.nanoTime();
+        URDFConvexHull hull = build(points, n, maxVertices);
+        if (hull == null) {
+            logger.warn("Convex hull degenerate for {}", meshFile);
+            return null;
+        }
+        logger.info("Convex hull for {}: {} -> {} vertices, {} faces ({} us)",
+                file.getName(), n, hull.getVertexCount(), hull.getFaceCount(),
+                (System.nanoTime() - t0) / 1000L);
+
+        try {
+            hull.writeTo(cache, length, modified, sx, sy, sz, maxVertices);
+        } catch (IOException e) {
+            // 리소스 폴더가 읽기 전용이어도 동작에는 문제 없음 (다음 로드 때 다시 계산)
+            logger.debug("Could not write hull cache {}: {}", cache, e.getMessage());
+        }
+        return hull;
+    }
+
+    // ========================================================================
+    // QuickHull (정점 수 상한)
+    // ========================================================================
+
+    private static final class Face {
+        final int a, b, c;
+        final double nx, ny, nz, d;
+        int[] outside = new int[8];
+        int outsideCount = 0;
+        int farthest = -1;
+        double farthestDist = 0.0;
+        boolean dead = false;
+
+        Face(float[] p, int a, int b, int c) {
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            double ux = p[b * 3] - p[a * 3], uy = p[b * 3 + 1] - p[a * 3 + 1], uz = p[b * 3 + 2] - p[a * 3 + 2];
+            double vx = p[c * 3] - p[a * 3], vy = p[c * 3 + 1] - p[a * 3 + 1], vz = p[c * 3 + 2] - p[a * 3 + 2];
+            double x = uy * vz - uz * vy, y = uz * vx - ux * vz, z = ux * vy - uy * vx;
+            double len = Math.sqrt(x * x + y * y + z * z);
+            if (len < 1e-20) len = 1e-20;
+            nx = x / len;
+            ny = y / len;
+            nz = z / len;
+            d = nx * p[a * 3] + ny * p[a * 3 + 1] + nz * p[a * 3 + 2];
+        }
+
+        double distance(float[] p, int i) {
+            return nx * p[i * 3] + ny * p[i * 3 + 1] + nz * p[i * 3 + 2] - d;
+        }
+
+        void addOutside(int i, double dist) {
+            if (outsideCount == outside.length) {
+                int[] grown = new int[outside.length * 2];
+                System.arraycopy(outside, 0, grown, 0, outsideCount);
+                outside = grown;
+            }
+            outside[outsideCount++] = i;
+            if (dist > farthestDist) {
+                farthestDist = dist;
+                farthest = i;
+            }
+        }
+    }
+
+    /**
+     * @param points xyz 연속 (앞 n개 사용)
+     * @param maxVertices 껍질 정점 수 상한 (최소 4)
+     */
+    static URDFConvexHull build(float[] points, int n, int maxVertices) {
+        if (n < 4) return null;
+        maxVertices = Math.max(4, maxVertices);
+
+        // 축별 극점 → 초기 사면체
+        int[] extremes = new int[6];
+        for (int i = 1; i < n; i++) {
+            for (int axis = 0; axis < 3; axis++) {
+                if (points[i * 3 + axis] < points[extremes[axis * 2] * 3 + axis]) extremes[axis * 2] = i;
+                if (points[i * 3 + axis] > points[extremes[axis * 2 + 1] * 3 + axis]) extremes[axis * 2 + 1] = i;
+            }
+        }
+        double extent = 0.0;
+        for (int axis = 0; axis < 3; axis++) {
+            extent = Math.max(extent,
+                    points[extremes[axis * 2 + 1] * 3 + axis] - points[extremes[axis * 2] * 3 + axis]);
+        }
+        if (!(extent > 0.0)) return null;
+        final double eps = extent * 1e-5;
+
+        int i0 = -1, i1 = -1;
+        double best = -1.0;
+        for (int e = 0; e < 6; e += 2) {
+            double dd = distSq(points, extremes[e], extremes[e + 1]);
+            if (dd > best) {
+                best = dd;
+                i0 = extremes[e];
+                i1 = extremes[e + 1];
+            }
+        }
+        if (best <= eps * eps) return null;
+
+        // 직선 i0-i1에서 가장 먼 점
+        int i2 = -1;
+        best = eps * eps;
+        double lx = points[i1 * 3] - points[i0 * 3];
+        double ly = points[i1 * 3 + 1] - points[i0 * 3 + 1];
+        double lz = points[i1 * 3 + 2] - points[i0 * 3 + 2];
+        for (int i = 0; i < n; i++) {
+            double wx = points[i * 3] - points[i0 * 3];
+            double wy = points[i * 3 + 1] - points[i0 * 3 + 1];
+            double wz = points[i * 3 + 2] - points[i0 * 3 + 2];
+            double cx = ly * wz - lz * wy, cy = lz * wx - lx * wz, cz = lx * wy - ly * wx;
+            double dd = (cx * cx + cy * cy + cz * cz) / (lx * lx + ly * ly + lz * lz);
+            if (dd > best) {
+                best = dd;
+                i2 = i;
+            }
+        }
+        if (i2 < 0) return null;
+
+        // 평면 i0-i1-i2에서 가장 먼 점
+        Face base = new Face(points, i0, i1, i2);
+        int i3 = -1;
+        best = eps;
+        for (int i = 0; i < n; i++) {
+            double dd = Math.abs(base.distance(points, i));
+            if (dd > best) {
+                best = dd;
+                i3 = i;
+            }
+        }
+        if (i3 < 0) return null;
+
+        // 내부 기준점 (사면체 무게중심) - 모든 면은 이 점이 뒤쪽에 오도록 방향을 맞춤
+        final double cx = (points[i0 * 3] + points[i1 * 3] + points[i2 * 3] + points[i3 * 3]) * 0.25;
+        final double cy = (points[i0 * 3 + 1] + points[i1 * 3 + 1] + points[i2 * 3 + 1] + points[i3 * 3 + 1]) * 0.25;
+        final double cz = (points[i0 * 3 + 2] + points[i1 * 3 + 2] + points[i2 * 3 + 2] + points[i3 * 3 + 2]) * 0.25;
+
+        List<Face> faces = new ArrayList<>();
+        faces.add(orientedFace(points, i0, i1, i2, cx, cy, cz));
+        faces.add(orientedFace(points, i0, i1, i3, cx, cy, cz));
+        faces.add(orientedFace(points, i0, i2, i3, cx, cy, cz));
+        faces.add(orientedFace(points, i1, i2, i3, cx, cy, cz));
+
+        for (int i = 0; i < n; i++) {
+            if (i == i0 || i == i1 || i == i2 || i == i3) continue;
+            assign(points, i, faces, eps);
+        }
+
+        int hullVertices = 4;
+        Set<Long> visibleEdges = new HashSet<>();
+        List<Face> visible = new ArrayList<>();
+        List<Face> created = new ArrayList<>();
+
+        while (hullVertices < maxVertices) {
+            // 전체에서 가장 멀리 튀어나온 점 (상한에서 멈춰도 큰 형상부터 잡히도록)
+            Face top = null;
+            for (Face f : faces) {
+                if (f.outsideCount > 0 && (top == null || f.farthestDist > top.farthestDist)) top = f;
+            }
+            if (top == null) break;
+            int eye = top.farthest;
+
+            visible.clear();
+            visibleEdges.clear();
+            for (Face f : faces) {
+                if (f.distance(points, eye) > eps) {
+                    visible.add(f);
+                    visibleEdges.add(edgeKey(f.a, f.b));
+                    visibleEdges.add(edgeKey(f.b, f.c));
+                    visibleEdges.add(edgeKey(f.c, f.a));
+                }
+            }
+
+            // 지평선: 보이는 면의 변 중 반대쪽 면이 보이지 않는 변 → 새 면 (u, v, eye)
+            created.clear();
+            for (Face f : visible) {
+                f.dead = true;
+                addHorizon(points, f.a, f.b, eye, visibleEdges, created, cx, cy, cz);
+                addHorizon(points, f.b, f.c, eye, visibleEdges, created, cx, cy, cz);
+                addHorizon(points, f.c, f.a, eye, visibleEdges, created, cx, cy, cz);
+            }
+
+            for (Face f : visible) {
+                for (int k = 0; k < f.outsideCount; k++) {
+                    int i = f.outside[k];
+                    if (i != eye) assign(points, i, created, eps);
+                }
+            }
+
+            faces.removeIf(f -> f.dead);
+            faces.addAll(created);
+            hullVertices++;
+        }
+
+        // 살아남은 면이 참조하는 정점만 압축
+        int[] remap = new int[n];
+        Arrays.fill(remap, -1);
+        int count = 0;
+        int[] outFaces = new int[faces.size() * 3];
+        int fi = 0;
+        for (Face f : faces) {
+            for (int idx : new int[]{f.a, f.b, f.c}) {
+                if (remap[idx] < 0) remap[idx] = count++;
+                outFaces[fi++] = remap[idx];
+            }
+        }
+        float[] outVertices = new float[count * 3];
+        for (int i = 0; i < n; i++) {
+            int r = remap[i];
+            if (r < 0) continue;
+            outVertices[r * 3] = points[i * 3];
+            outVertices[r * 3 + 1] = points[i * 3 + 1];
+            outVertices[r * 3 + 2] = points[i * 3 + 2];
+        }
+        return new URDFConvexHull(outVertices, outFaces);
+    }
+
+    private static Face orientedFace(float[] p, int a, int b, int c, double cx, double cy, double cz) {
+        Face f = new Face(p, a, b, c);
+        if (f.nx * cx + f.ny * cy + f.nz * cz - f.d > 0.0) {
+            f = new Face(p, a, c, b);
+        }
+        return f;
+    }
+
+    private static void addHorizon(float[] p, int u, int v, int eye, Set<Long> visibleEdges, List<Face> created,
+                                   double cx, double cy, double cz) {
+        if (visibleEdges.contains(edgeKey(v, u))) return;
+        created.add(orientedFace(p, u, v, eye, cx, cy, cz));
+    }
+
+    private static void assign(float[] p, int i, List<Face> faces, double eps) {
+        Face bestFace = null;
+        double bestDist = eps;
+        for (Face f : faces) {
+            double dist = f.distance(p, i);
+            if (dist > bestDist) {
+                bestDist = dist;
+                bestFace = f;
+            }
+        }
+        if (bestFace != null) bestFace.addOutside(i, bestDist);
+    }
+
+    private static long edgeKey(int u, int v) {
+        return ((long) u << 32) | (v & 0xffffffffL);
+    }
+
+    private static double distSq(float[] p, int a, int b) {
+        double dx = p[a * 3] - p[b * 3], dy = p[a * 3 + 1] - p[b * 3 + 1], dz = p[a * 3 + 2] - p[b * 3 + 2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    // ========================================================================
+    // 변환 / ODE 데이터
+    // ========================================================================
+
+    /** 회전 후 평행이동한 새 껍질 (메쉬 좌표계 → 바디 좌표계) */
+    URDFConvexHull transformed(Quaternionf rotation, float tx, float ty, float tz) {
+        float[] out = new float[vertices.length];
+        Vector3f v = new Vector3f();
+        for (int i = 0; i < vertices.length; i += 3) {
+            v.set(vertices[i], vertices[i + 1], vertices[i + 2]);
+            if (rotation != null) rotation.transform(v);
+            out[i] = v.x + tx;
+            out[i + 1] = v.y + ty;
+            out[i + 2] = v.z + tz;
+        }
+        return new URDFConvexHull(out, faces);
+    }
+
+    /** 축 정렬 경계 {minX, minY, minZ, maxX, maxY, maxZ} */
+    float[] bounds() {
+        float[] b = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE,
+                -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+        for (int i = 0; i < vertices.length; i += 3) {
+            for (int axis = 0; axis < 3; axis++) {
+                b[axis] = Math.min(b[axis], vertices[i + axis]);
+                b[axis + 3] = Math.max(b[axis + 3], vertices[i + axis]);
+            }
+        }
+        return b;
+    }
+
+    /** 원점(바디 위치) 기준 최대 거리 */
+    float boundingRadius() {
+        double r = 0.0;
+        for (int i = 0; i < vertices.length; i += 3) {
+            double x = vertices[i], y = vertices[i + 1], z = vertices[i + 2];
+            r = Math.max(r, x * x + y * y + z * z);
+        }
+        return (float) Math.sqrt(r);
+    }
+
+    /** ODE convex 정점 (xyz, scale 적용) */
+    double[] odePoints(double scale) {
+        double[] out = new double[vertices.length];
+        for (int i = 0; i < vertices.length; i++) out[i] = vertices[i] * scale;
+        return out;
+    }
+
+    /** ODE convex 평면 (면마다 a,b,c,d, ax+by+cz=d, 법선 바깥쪽) */
+    double[] odePlanes(double scale) {
+        int fc = getFaceCount();
+        double[] out = new double[fc * 4];
+        for (int f = 0; f < fc; f++) {
+            int a = faces[f * 3] * 3, b = faces[f * 3 + 1] * 3, c = faces[f * 3 + 2] * 3;
+            double ux = vertices[b] - vertices[a], uy = vertices[b + 1] - vertices[a + 1], uz = vertices[b + 2] - vertices[a + 2];
+            double vx = vertices[c] - vertices[a], vy = vertices[c + 1] - vertices[a + 1], vz = vertices[c + 2] - vertices[a + 2];
+            double nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+            double len = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (len < 1e-20) len = 1e-20;
+            nx /= len;
+            ny /= len;
+            nz /= len;
+            out[f * 4] = nx;
+            out[f * 4 + 1] = ny;
+            out[f * 4 + 2] = nz;
+            out[f * 4 + 3] = (nx * vertices[a] + ny * vertices[a + 1] + nz * vertices[a + 2]) * scale;
+        }
+        return out;
+    }
+
+    /** ODE convex 폴리곤 (면마다 정점 수, 인덱스...) */
+    int[] odePolygons() {
+        int fc = getFaceCount();
+        int[] out = new int[fc * 4];
+        for (int f = 0; f < fc; f++) {
+            out[f * 4] = 3;
+            out[f * 4 + 1] = faces[f * 3];
+            out[f * 4 + 2] = faces[f * 3 + 1];
+            out[f * 4 + 3] = faces[f * 3 + 2];
+        }
+        return out;
+    }
+
+    // ========================================================================
+    // 디스크 캐시
+    // ========================================================================
+
+    private void writeTo(Path file, long meshLength, long meshModified,
+                         float sx, float sy, float sz, int maxVertices) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(meshLength);
+            out.writeLong(meshModified);
+            out.writeFloat(sx);
+            out.writeFloat(sy);
+            out.writeFloat(sz);
+            out.writeInt(maxVertices);
+            out.writeInt(vertices.length);
+            for (float v : vertices) out.writeFloat(v);
+            out.writeInt(faces.length);
+            for (int f : faces) out.writeInt(f);
+        }
+    }
+
+    /** @return 캐시 키(메쉬/스케일/상한)가 다르면 null */
+    private static URDFConvexHull readFrom(Path file, long meshLength, long meshModified,
+                                           float sx, float sy, float sz, int maxVertices) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+            if (in.readLong() != meshLength || in.readLong() != meshModified) return null;
+            if (in.readFloat() != sx || in.readFloat() != sy || in.readFloat() != sz) return null;
+            if (in.readInt() != maxVertices) return null;
+
+            int vl = in.readInt();
+            if (vl < 12 || vl % 3 != 0) throw new IOException("Corrupt hull vertex block");
+            float[] vertices = new float[vl];
+            for (int i = 0; i < vl; i++) vertices[i] = in.readFloat();
+
+            int fl = in.readInt();
+            if (fl < 12 || fl % 3 != 0) throw new IOException("Corrupt hull face block");
+            int[] faces = new int[fl];
+            for (int i = 0; i < fl; i++) {
+                faces[i] = in.readInt();
+                if (faces[i] < 0 || faces[i] >= vl / 3) throw new IOException("Corrupt hull face index");
+            }
+            return new URDFConvexHull(vertices, faces);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import com.kAIS.KAIMyEntity.urdf.URDFJoint;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 조인트 목표/상태 SoA + 제어 설정 (컨트롤러와 물리 백엔드가 공유)
+ *
+ * - 인덱스는 생성 시 고정, 이름 → 인덱스 조회는 공개 API 경계에서만
+ * - 컨트롤러가 목표값/게인을 쓰고, 백엔드가 스텝 후 jointArray[i].currentPosition/Velocity를 갱신
+ * - 시뮬레이션 스레드 사용 시 목표값은 컨트롤러 메일박스를 거쳐 스텝 시작 시 반영됨
+ */
+public final class URDFJointTable {
+
+    public static final byte JT_FIXED = 0;
+    public static final byte JT_REVOLUTE = 1;
+    public static final byte JT_CONTINUOUS = 2;
+    public static final byte JT_PRISMATIC = 3;
+    public static final byte JT_OTHER = 4;   // FLOATING / PLANAR (키네마틱 스칼라로만 취급)
+
+    public final URDFJoint[] jointArray;
+    public final byte[] jointType;
+    public final float[] targetPos;
+    public final float[] targetVel;
+    public final float[] velLimit;      // limit.velocity (0 = 기본값 사용)
+    public final float[] effortLimit;   // limit.effort (0 = 기본값 사용)
+    public final float[] lowerLimit;
+    public final float[] upperLimit;
+    public final boolean[] hasLimits;
+    public final float[] jointKp;       // 물리 PD 게인 (조인트별)
+    public final float[] jointKd;
+
+    private final Map<String, Integer> index = new HashMap<>();
+
+    // ========== 키네마틱 추종 ==========
+    public float kinematicKp = 30f;
+    public float kinematicKd = 6f;
+    public float maxVel = 4.0f;
+    public float maxAcc = 12.0f;
+
+    // ========== 물리 ==========
+    public float physicsKp = 20f;
+    public float physicsKd = 2f;
+    public float maxTorque = 10f;
+    public float maxForce = 100f;
+    public boolean motorsEnabled = true;
+    /** true면 PD 토크 대신 ODE 조인트 모터(dParamVel/dParamFMax)로 구동 (ODE4J 백엔드) */
+    public boolean nativeMotors = false;
+    public int subSteps = 4;
+    /** URDF 단위 → 물리 단위 */
+    public float scale = 1.0f;
+
+    public URDFJointTable(Collection<URDFJoint> allJoints) {
+        // 이름 중복 시 마지막 조인트가 남으므로 맵 값 기준으로 인덱스 부여
+        Map<String, URDFJoint> byName = new HashMap<>();
+        for (URDFJoint j : allJoints) {
+            byName.put(j.name, j);
+        }
+
+        int n = byName.size();
+        this.jointArray = new URDFJoint[n];
+        this.jointType = new byte[n];
+        this.targetPos = new float[n];
+        this.targetVel = new float[n];
+        this.velLimit = new float[n];
+        this.effortLimit = new float[n];
+        this.lowerLimit = new float[n];
+        this.upperLimit = new float[n];
+        this.hasLimits = new boolean[n];
+        this.jointKp = new float[n];
+        this.jointKd = new float[n];
+
+        int idx = 0;
+        for (URDFJoint j : allJoints) {
+            if (byName.get(j.name) != j || index.containsKey(j.name)) continue;
+            jointArray[idx] = j;
+            index.put(j.name, idx);
+            jointType[idx] = typeCode(j.type);
+            targetPos[idx] = j.currentPosition;
+            if (j.limit != null) {
+                velLimit[idx] = Math.max(0f, j.limit.velocity);
+                effortLimit[idx] = Math.max(0f, j.limit.effort);
+                hasLimits[idx] = j.limit.hasLimits();
+                lowerLimit[idx] = j.limit.lower;
+                upperLimit[idx] = j.limit.upper;
+            }
+            jointKp[idx] = physicsKp;
+            jointKd[idx] = physicsKd;
+            idx++;
+        }
+    }
+
+    public int size() {
+        return jointArray.length;
+    }
+
+    /** 조인트 인덱스 (없으면 -1) */
+    public int indexOf(String name) {
+        if (name == null) return -1;
+        Integer i = index.get(name);
+        return i != null ? i : -1;
+    }
+
+    /** 조인트 이름 → 인덱스 (읽기 전용 용도) */
+    public Map<String, Integer> indexMap() {
+        return index;
+    }
+
+    public static byte typeCode(URDFJoint.JointType type) {
+        if (type == null) return JT_FIXED;
+        switch (type) {
+            case REVOLUTE:   return JT_REVOLUTE;
+            case CONTINUOUS: return JT_CONTINUOUS;
+            case PRISMATIC:  return JT_PRISMATIC;
+            case FIXED:      return JT_FIXED;
+            default:         return JT_OTHER;
+        }
+    }
+
+    public static float wrapToPi(float a) {
+        float twoPi = (float) (Math.PI * 2.0);
+        a = a % twoPi;
+        if (a > Math.PI) a -= twoPi;
+        if (a < -Math.PI) a += twoPi;
+        return a;
+    }
+}
@@ -0,0 +1,157 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import net.minecraft.world.level.Level;
+import net.minecraft.world.phys.Vec3;
+import org.joml.Quaternionf;
+
+/**
+ * URDF 로봇 물리 백엔드 SPI
+ *
+ * URDFSimpleController는 조인트 테이블(URDFJointTable), 입력 메일박스, 공개 API만 갖고
+ * 로봇 생성/스텝/상태 읽기/스냅샷은 백엔드가 담당한다. 백엔드는 로봇마다 생성 시 또는
+ * URDFSimpleController.switchBackend로 런타임에 고른다.
+ *
+ * 스레드:
+ * - step / beginSharedStep 계열 / 입력 반영 / restoreSnapshot 은 시뮬레이션 측에서만 호출
+ * - anchor / updateEnvironment 는 Level을 받으므로 클라이언트 스레드에서 호출
+ *   (시뮬레이션 측 상태를 바꿔야 하면 생성 시 받은 Executor로 넘긴다)
+ */
+public interface URDFPhysicsBackend {
+
+    enum Kind {
+        /** 조인트만 PD 추종, 루트는 엔티티 위치 */
+        KINEMATIC,
+        /** 전역 ODE4J 월드의 강체 + 조인트 */
+        ODE4J,
+        /** 내장 축약 좌표 솔버 (URDFArticulatedBody) */
+        ARTICULATED
+    }
+
+    Kind getKind();
+
+    /** 강체 동역학 시뮬레이션 여부 (false면 루트 위치/회전을 내보내지 않음) */
+    boolean isDynamic();
+
+    /**
+     * 전역 ODE 월드를 공유하는지.
+     * true면 시뮬레이션 스레드가 WORLD_LOCK 안에서 beginSharedStep/applySubstepControls/endSharedStep으로
+     * 나눠 부르고 월드는 서브스텝마다 한 번만 스텝한다. false면 step()을 로봇별로 병렬 호출.
+     */
+    default boolean usesSharedWorld() {
+        return false;
+    }
+
+    // ========== 월드 배치 ==========
+
+    /**
+     * 최초 스폰 위치에 로봇을 세움 (클라이언트 스레드)
+     * @return 정렬된 루트 월드 위치 (위치 개념이 없으면 worldPos)
+     */
+    Vec3 anchor(Level level, Vec3 worldPos, double margin);
+
+    /** 주변 블록 충돌/지면 갱신 (클라이언트 스레드 - Level만 읽고, 공유 월드 geom은 스텝 스레드가 반영) */
+    default void updateEnvironment(Level level, Vec3 center) {
+    }
+
+    // ========== 스텝 ==========
+
+    /** dt 만큼 단독 스텝 (입력은 이미 조인트 테이블에 반영된 상태) */
+    void step(float dt);
+
+    default int getSubSteps() {
+        return 1;
+    }
+
+    default void beginSharedStep(float dt) {
+    }
+
+    default void applySubstepControls() {
+    }
+
+    default void endSharedStep() {
+    }
+
+    // ========== 상태 ==========
+
+    /** @return 읽었으면 true (false면 out 내용 미정) */
+    default boolean getRootWorldPosition(double[] out) {
+        return false;
+    }
+
+    /** 렌더용 루트 회전 (w,x,y,z), upright 상태에서 identity */
+    default boolean getRootWorldQuaternionWXYZ(float[] out) {
+        return false;
+    }
+
+    default boolean getLinkWorldPosition(String linkName, double[] out) {
+        return false;
+    }
+
+    /** 로봇 가장 낮은 지점의 월드 Y (모르면 NaN) */
+    default double getLowestPointWorldY() {
+        return Double.NaN;
+    }
+
+    // ========== 입력 (시뮬레이션 측) ==========
+
+    /** 조인트 하나를 즉시 이동 (프리뷰) - 조인트 테이블의 currentPosition은 호출측이 갱신 */
+    default void setJointPosition(int joint, float value) {
+    }
+
+    default void applyForce(String linkName, float fx, float fy, float fz) {
+    }
+
+    default void applyTorque(String linkName, float tx, float ty, float tz) {
+    }
+
+    default void setGravity(float x, float y, float z) {
+    }
+
+    /** 백엔드 좌표(URDF) → 월드 회전 (렌더러의 ROS→MC 보정) */
+    default void setUprightRotation(Quaternionf upright) {
+    }
+
+    /** 속도/상태 초기화, 다음 anchor 전까지 정지 */
+    void reset();
+
+    // ========== 슬립 ==========
+
+    default boolean isSleeping() {
+        return false;
+    }
+
+    /** 다음 스텝 시작 시 깨움 (어느 스레드에서나) */
+    default void requestWake() {
+    }
+
+    // ========== 스냅샷 ==========
+
+    default URDFPhysicsSnapshot captureSnapshot() {
+        return null;
+    }
+
+    default boolean isSnapshotCompatible(URDFPhysicsSnapshot snapshot) {
+        return false;
+    }
+
+    /** 바디 상태 복원 (조인트 테이블은 호출측이 복원) */
+    default void restoreSnapshot(URDFPhysicsSnapshot snapshot, Vec3 rootWorldPos) {
+    }
+
+    /** 스냅샷에서 루트가 가장 낮은 지점보다 얼마나 위에 있는지 */
+    default double snapshotRootHeight(URDFPhysicsSnapshot snapshot) {
+        return 0.0;
+    }
+
+    /** 안착 후 처음 정지한 상태 (백엔드가 잡았으면) */
+    default URDFPhysicsSnapshot getRestPoint() {
+        return null;
+    }
+
+    default void setRestPoint(URDFPhysicsSnapshot snapshot) {
+    }
+
+    // ========== 정리 ==========
+
+    void dispose();
+}
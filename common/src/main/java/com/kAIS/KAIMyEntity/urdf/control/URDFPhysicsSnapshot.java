@@ -0,0 +1,102 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 로봇 물리 상태 스냅샷 (불변, 기본형 배열만 사용)
+ *
+ * - 바디: 링크 이름 정렬 순서로 BODY_STRIDE개씩 (위치 xyz, 회전 wxyz, 선속도 xyz, 각속도 xyz)
+ * - 조인트: 컨트롤러 조인트 인덱스 순서로 목표값/현재값/속도
+ * - layoutHash: 바디/조인트 이름 구성 해시 → 다른 로봇이나 바뀐 URDF에 복원하지 않도록 검사
+ *
+ * 캡처/복원은 URDFSimpleController.captureSnapshot / restoreSnapshot.
+ */
+public final class URDFPhysicsSnapshot {
+
+    public static final int BODY_STRIDE = 13;
+
+    private static final int MAGIC = 0x55524446; // "URDF"
+    private static final int VERSION = 1;
+
+    public final long layoutHash;
+    /** 루트 바디의 body 인덱스 (없으면 -1) */
+    public final int rootBody;
+    public final double[] bodyState;
+    public final float[] jointTargets;
+    public final float[] jointPositions;
+    public final float[] jointVelocities;
+
+    URDFPhysicsSnapshot(long layoutHash, int rootBody, double[] bodyState,
+                        float[] jointTargets, float[] jointPositions, float[] jointVelocities) {
+        this.layoutHash = layoutHash;
+        this.rootBody = rootBody;
+        this.bodyState = bodyState;
+        this.jointTargets = jointTargets;
+        this.jointPositions = jointPositions;
+        this.jointVelocities = jointVelocities;
+    }
+
+    public int getBodyCount() {
+        return bodyState.length / BODY_STRIDE;
+    }
+
+    public int getJointCount() {
+        return jointTargets.length;
+    }
+
+    // ========================================================================
+    // 디스크 저장 / 로드
+    // ========================================================================
+
+    public void writeTo(Path file) throws IOException {
+        Path parent = file.getParent();
+        if (parent != null) Files.createDirectories(parent);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(layoutHash);
+            out.writeInt(rootBody);
+            out.writeInt(bodyState.length);
+            for (double v : bodyState) out.writeDouble(v);
+            out.writeInt(jointTargets.length);
+            for (int i = 0; i < jointTargets.length; i++) {
+                out.writeFloat(jointTargets[i]);
+                out.writeFloat(jointPositions[i]);
+                out.writeFloat(jointVelocities[i]);
+            }
+        }
+    }
+
+    public static URDFPhysicsSnapshot readFrom(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a URDF physics snapshot: " + file);
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported snapshot version " + version);
+
+            long layoutHash = in.readLong();
+            int rootBody = in.readInt();
+            int bodyLen = in.readInt();
+            if (bodyLen < 0 || bodyLen % BODY_STRIDE != 0) throw new IOException("Corrupt snapshot body block");
+            double[] bodyState = new double[bodyLen];
+            for (int i = 0; i < bodyLen; i++) bodyState[i] = in.readDouble();
+
+            int n = in.readInt();
+            if (n < 0) throw new IOException("Corrupt snapshot joint block");
+            float[] targets = new float[n];
+            float[] positions = new float[n];
+            float[] velocities = new float[n];
+            for (int i = 0; i < n; i++) {
+                targets[i] = in.readFloat();
+                positions[i] = in.readFloat();
+                velocities[i] = in.readFloat();
+            }
+            return new URDFPhysicsSnapshot(layoutHash, rootBody, bodyState, targets, positions, velocities);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import net.minecraft.core.SectionPos;
+
+/**
+ * 청크 섹션(16³) 충돌 형상 스냅샷 (불변)
+ *
+ * 클라이언트 스레드가 섹션이 바뀔 때마다 새로 만들어 넘기고, geom 빌드는 월드를 스텝하는 스레드가 이것만 보고 한다.
+ * → Level/BlockState를 다른 스레드에서 읽지 않음
+ *
+ * - full: 완전 블록 비트셋 (URDFBlockMesher 배치, long[64])
+ * - 나머지 형상: 희소 목록 (로컬 인덱스 오름차순) + 팔레트 (같은 VoxelShape는 한 항목)
+ *   팔레트 항목 = 블록 로컬 박스 좌표 [minX, minY, minZ, maxX, maxY, maxZ] × 박스 수
+ */
+final class URDFSectionSnapshot {
+    final long key;
+    final int sx, sy, sz;
+    final long[] full;
+    final int[] shapeBlocks;
+    final int[] shapeIds;
+    final double[][] palette;
+
+    /** 배열은 넘겨받은 그대로 보관 (호출측이 이후 수정하지 않음) */
+    URDFSectionSnapshot(long key, long[] full, int[] shapeBlocks, int[] shapeIds, double[][] palette) {
+        this.key = key;
+        this.sx = SectionPos.x(key);
+        this.sy = SectionPos.y(key);
+        this.sz = SectionPos.z(key);
+        this.full = full;
+        this.shapeBlocks = shapeBlocks;
+        this.shapeIds = shapeIds;
+        this.palette = palette;
+    }
+
+    int fullCount() {
+        int n = 0;
+        for (long w : full) n += Long.bitCount(w);
+        return n;
+    }
+
+    int blockCount() {
+        return fullCount() + shapeBlocks.length;
+    }
+}
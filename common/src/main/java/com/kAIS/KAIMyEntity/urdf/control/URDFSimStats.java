@@ -0,0 +1,109 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * 시뮬레이션 계측 훅 (opt-in, 기본 꺼짐)
+ *
+ * - 꺼져 있으면 호출측은 start()에서 0을 받고 stop()은 바로 리턴 → nanoTime도 읽지 않고, 핫패스에 상시 통계 필드 없음
+ * - 켜면 항목별로 값을 모아 LOG_INTERVAL 샘플마다 평균/최대를 로그 한 줄로 남기고 리셋
+ * - 여러 스레드(섬 병렬 워커 포함)에서 기록하므로 한 락으로 묶음 (계측 중에만 드는 비용)
+ */
+public final class URDFSimStats {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int LOG_INTERVAL = 2000;
+
+    public enum Metric {
+        /** 서브스텝당 조인트 PD 토크/힘 적용 (ns) */
+        JOINT_CONTROL("joint control", "us/substep", 1e-3),
+        /** 로봇 하나의 백엔드 스텝 (ns) - 공유 월드면 begin/substep/end 합 (월드 스텝 제외) */
+        KINEMATIC_STEP("kinematic backend step", "us/step", 1e-3),
+        ODE4J_STEP("ode4j backend step", "us/step", 1e-3),
+        ARTICULATED_STEP("articulated backend step", "us/step", 1e-3),
+        /** ODE4J 로봇의 스텝 후 조인트 최대 속도 / 사용한 서브스텝 수 (PD 토크 vs 네이티브 모터 비교) */
+        PD_JOINT_SPEED("peak joint speed, pd motors", "rad/s", 1.0),
+        NATIVE_JOINT_SPEED("peak joint speed, native motors", "rad/s", 1.0),
+        PD_SUBSTEPS("substeps, pd motors", "substeps/step", 1.0),
+        NATIVE_SUBSTEPS("substeps, native motors", "substeps/step", 1.0),
+        /** 공유 ODE 월드 스텝 한 번 (브로드페이즈 + 솔버, ns) - 로그에 충돌 월드 요약을 덧붙임 */
+        WORLD_STEP("ode world step", "us/substep", 1e-3);
+
+        final String label;
+        final String unit;
+        final double scale;
+
+        Metric(String label, String unit, double scale) {
+            this.label = label;
+            this.unit = unit;
+            this.scale = scale;
+        }
+    }
+
+    private static volatile boolean enabled = false;
+
+    private static final Metric[] METRICS = Metric.values();
+    private static final double[] sum = new double[METRICS.length];
+    private static final double[] max = new double[METRICS.length];
+    private static final int[] samples = new int[METRICS.length];
+
+    private URDFSimStats() { }
+
+    static Metric backendStep(URDFPhysicsBackend.Kind kind) {
+        switch (kind) {
+            case ODE4J: return Metric.ODE4J_STEP;
+            case ARTICULATED: return Metric.ARTICULATED_STEP;
+            default: return Metric.KINEMATIC_STEP;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean value) {
+        if (enabled == value) return;
+        synchronized (URDFSimStats.class) {
+            for (int i = 0; i < METRICS.length; i++) {
+                sum[i] = 0.0;
+                max[i] = 0.0;
+                samples[i] = 0;
+            }
+        }
+        enabled = value;
+        logger.info("URDF simulation stats {}", value ? "enabled" : "disabled");
+    }
+
+    /** 시간 측정 시작 (꺼져 있으면 0) */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /** start()로 시작한 측정 종료 */
+    public static void stop(Metric metric, long startNanos) {
+        if (startNanos != 0L) record(metric, System.nanoTime() - startNanos);
+    }
+
+    public static void record(Metric metric, double value) {
+        if (!enabled) return;
+        int i = metric.ordinal();
+        synchronized (URDFSimStats.class) {
+            sum[i] += value;
+            if (samples[i] == 0 || value > max[i]) max[i] = value;
+            if (++samples[i] < LOG_INTERVAL) return;
+
+            logger.info("URDF stats [{}]: avg {} / max {} {} over {} samples",
+                    metric.label,
+                    String.format("%.2f", sum[i] / samples[i] * metric.scale),
+                    String.format("%.2f", max[i] * metric.scale),
+                    metric.unit, samples[i]);
+            if (metric == Metric.WORLD_STEP) {
+                logger.info("URDF stats [collision world]: {}", URDFSimpleController.describeCollisionWorld());
+            }
+            sum[i] = 0.0;
+            max[i] = 0.0;
+            samples[i] = 0;
+        }
+    }
+}
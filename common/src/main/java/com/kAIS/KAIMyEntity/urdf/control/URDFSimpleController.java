@@ -2,23 +2,31 @@ package com.kAIS.KAIMyEntity.urdf.control;
 
 import com.kAIS.KAIMyEntity.PhysicsManager;
 import com.kAIS.KAIMyEntity.urdf.URDFJoint;
-import com.kAIS.KAIMyEntity.urdf.URDFLink;
 import com.kAIS.KAIMyEntity.urdf.URDFModel;
+import com.kAIS.KAIMyEntity.urdf.URDFSimulationThread;
 import net.minecraft.util.Mth;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.phys.Vec3;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.joml.Quaternionf;
 
-import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
- * URDF 컨트롤러 - 물리 + 블록 충돌 통합 (Geom 추가)
+ * URDF 컨트롤러 - 조인트 목표/상태 + 물리 백엔드 위임
+ *
+ * 구성:
+ * - 조인트 테이블(URDFJointTable): 목표값/게인/제한, 백엔드와 공유
+ * - 물리 백엔드(URDFPhysicsBackend): KINEMATIC / ODE4J / ARTICULATED 중 로봇마다 선택,
+ *   switchBackend로 런타임 교체 가능
+ * - 비동기 입력 메일박스: 시뮬레이션 스레드 사용 시 스텝 시작에 반영
  *
  * 좌표계:
- * - ODE World = 마인크래프트 월드 좌표계
- * - 각 링크 Body = 월드 좌표에서의 위치/회전
+ * - 백엔드 루트/링크 위치 = 마인크래프트 월드 좌표
  * - 위치 계산은 실시간으로 전달받은 엔티티 위치 기준
  */
 public final class URDFSimpleController {
@@ -26,164 +34,124 @@ public final class URDFSimpleController {
 
     // ========== 공통 필드 ==========
     private final Map<String, URDFJoint> joints;
-    private final Map<String, Float> target = new HashMap<>();
     private final Map<String, String> jointNameMapping;
 
-    // ========== 키네마틱 모드 ==========
-    private float kp = 30f;
-    private float kd = 6f;
-    private float defaultMaxVel = 4.0f;
-    private float defaultMaxAcc = 12.0f;
+    // ========== 조인트 상태 (SoA, 조인트 인덱스 기준) ==========
+    // 이름 → 인덱스 조회는 공개 API 경계에서만, 틱/서브스텝 루프는 배열만 순회
+    private static final byte JT_CONTINUOUS = URDFJointTable.JT_CONTINUOUS;
+
+    private final URDFJointTable table;
+    private final URDFJoint[] jointArray;
+    private final byte[] jointType;
+    private final float[] targetPos;
+    private final float[] targetVel;
+    private final float[] lowerLimit;
+    private final float[] upperLimit;
+    private final boolean[] hasLimits;
+    private final float[] jointKp;
+    private final float[] jointKd;
+
+    // 목표가 이만큼 바뀌면 잠든 로봇을 깨움 (rad 또는 m)
+    private static final float WAKE_TARGET_DELTA = 0.01f;
+
+    // ========== 물리 백엔드 ==========
+    private static volatile URDFPhysicsBackend.Kind defaultBackend = URDFPhysicsBackend.Kind.ODE4J;
+    private static volatile boolean nativeMotorsDefault = false;
+    private static final AtomicInteger PHYSICS_ROBOTS = new AtomicInteger();
 
-    // ========== 물리 모드 ==========
     private final URDFModel urdfModel;
-    private final PhysicsManager physics;
-    private boolean usePhysics = false;
-    private boolean physicsInitialized = false;
-
-    private final Map<String, Object> bodies = new HashMap<>();
-    private final Map<String, Object> geoms = new HashMap<>();
-    private final Map<String, Object> odeJoints = new HashMap<>();
-    private final Map<String, Float> linkRadii = new HashMap<>();
-
-    private final Map<String, Float> targetVelocities = new HashMap<>();
+    private volatile URDFPhysicsBackend backend;
+
+    // 백엔드 교체 시 다시 적용할 설정
+    private Quaternionf uprightRotation;
+    private float[] gravity;
+
+    // 공유 월드 스텝의 begin/substep/end 누적 (URDFSimStats 켜져 있을 때만 사용)
+    private long sharedStepNanos = 0L;
+
+    // ========== 스냅샷 ==========
+    private volatile URDFPhysicsSnapshot spawnSnapshot; // 최초 앵커링 시 복원할 상태 (디스크에서 로드)
+
+    // ========== 비동기 입력 (시뮬레이션 스레드 사용 시) ==========
+    // 클라이언트 스레드는 메일박스 배열에 쓰고 플래그만 세움 → 시뮬레이션 스레드가 스텝 시작 시 반영 (마지막 값 우선)
+    private static final int IN_TARGET = 1;
+    private static final int IN_VELOCITY = 2;
+    private static final int IN_PREVIEW = 4;
+    private volatile boolean asyncInputs = false;
+    private volatile boolean inputsPending = false;
+    private final float[] inTargetPos;
+    private final float[] inTargetVel;
+    private final float[] inPreviewPos;
+    private final AtomicIntegerArray inFlags;
+    private final ConcurrentLinkedQueue<Runnable> inCommands = new ConcurrentLinkedQueue<>();
 
     private double spawnCollisionMargin = 0.05;
 
-    // 물리용 PD 게인 / 토크 제한
-    private float physicsKp = 20f;
-    private float physicsKd = 2f;
-    private float maxTorque = 10f;
-    private float maxForce = 100f;
-
-    // ========== 블록 충돌 ==========
-    private BlockCollisionManager blockCollisionManager;
+    // ========== 월드 ==========
     private Level currentLevel;
 
     // ✅ 초기 스폰 위치 (앵커링용, 한 번만 저장)
     private Vec3 initialAnchorPosition = null;
 
-    // ========== 스케일 (URDF 단위 → 물리 단위) ==========
-    private float physicsScale = 1.0f;
-
-    // 대표 루트 바디 (전신 위치/엔티티 이동 기준으로 사용할 링크 이름)
-    private String rootBodyLinkName;
-
     // 한 번 월드 위치에 정렬(앵커)되었는지 여부
-    private boolean worldAnchored = false;
-
-    // 조인트 PD 모터 사용 여부
-    private boolean motorsEnabled = true;
-
-    // 물리 서브스텝 수
-    private int physicsSubSteps = 4;
-
-    // ODE4J 버전
-    private enum ODE4JVersion { V03X, V04X, V05X, UNKNOWN }
-    private ODE4JVersion odeVersion = ODE4JVersion.UNKNOWN;
-
-    // 리플렉션 캐시
-    private Class<?> dHingeJointClass;
-    private Class<?> dSliderJointClass;
-    private Class<?> dFixedJointClass;
-    private Class<?> dMassClass;
-    private Class<?> dBodyClass;
-    private Class<?> dWorldClass;
-    private Class<?> odeHelperClass;
-    private Class<?> dJointGroupClass;
-    private Class<?> dGeomClass;
-
-    private Method massSetBoxMethod;
-    private Method massSetSphereMethod;
-    private Method bodySetMassMethod;
-    private Method createMassMethod;
+    private volatile boolean worldAnchored = false;
+
+    // 렌더 스레드 전용 루트 위치 버퍼 (getRootLinkLocalPosition)
+    private final double[] renderRootPos = new double[3];
 
     // ========================================================================
     // 생성자
     // ========================================================================
 
     public URDFSimpleController(Collection<URDFJoint> allJoints) {
-        this(null, allJoints, false, Collections.emptyMap());
+        this(null, allJoints, URDFPhysicsBackend.Kind.KINEMATIC, Collections.emptyMap());
     }
 
     public URDFSimpleController(URDFModel model, Collection<URDFJoint> allJoints, boolean enablePhysics) {
         this(model, allJoints, enablePhysics, Collections.emptyMap());
     }
 
+    /** enablePhysics면 설정의 기본 백엔드(getDefaultBackend), 아니면 키네마틱 */
     public URDFSimpleController(URDFModel model, Collection<URDFJoint> allJoints,
                                 boolean enablePhysics, Map<String, String> nameMapping) {
+        this(model, allJoints, enablePhysics ? defaultBackend : URDFPhysicsBackend.Kind.KINEMATIC, nameMapping);
+    }
+
+    public URDFSimpleController(URDFModel model, Collection<URDFJoint> allJoints,
+                                URDFPhysicsBackend.Kind kind, Map<String, String> nameMapping) {
         this.urdfModel = model;
         this.jointNameMapping = nameMapping != null ? new HashMap<>(nameMapping) : new HashMap<>();
 
-        // 루트 바디 후보: URDF rootLinkName
-        this.rootBodyLinkName = (model != null && model.rootLinkName != null)
-                ? model.rootLinkName
-                : null;
-
         Map<String, URDFJoint> m = new HashMap<>();
         for (URDFJoint j : allJoints) {
             m.put(j.name, j);
-            target.put(j.name, j.currentPosition);
-            targetVelocities.put(j.name, 0f);
         }
         this.joints = m;
 
-        if (enablePhysics) {
-            PhysicsManager pm = null;
-            try {
-                pm = PhysicsManager.GetInst();
-            } catch (Exception e) {
-                logger.warn("PhysicsManager not available", e);
-            }
-            this.physics = pm;
-
-            if (physics != null && physics.isInitialized()) {
-                try {
-                    initializeODE4JClasses();
-                    detectODE4JVersion();
-                    buildPhysicsModel();
-
-                    this.blockCollisionManager = new BlockCollisionManager();
-
-                    usePhysics = true;
-                    physicsInitialized = true;
+        this.table = new URDFJointTable(allJoints);
+        this.jointArray = table.jointArray;
+        this.jointType = table.jointType;
+        this.targetPos = table.targetPos;
+        this.targetVel = table.targetVel;
+        this.lowerLimit = table.lowerLimit;
+        this.upperLimit = table.upperLimit;
+        this.hasLimits = table.hasLimits;
+        this.jointKp = table.jointKp;
+        this.jointKd = table.jointKd;
+        table.nativeMotors = nativeMotorsDefault;
 
-                    logger.info("URDFSimpleController: PHYSICS mode");
-                    logger.info("  ODE4J version: {}", odeVersion);
-                    logger.info("  Bodies: {}, Geoms: {}, Joints: {}",
-                            bodies.size(), geoms.size(), odeJoints.size());
-                    logger.info("  BlockCollisionManager: active");
+        int n = table.size();
+        this.inTargetPos = new float[n];
+        this.inTargetVel = new float[n];
+        this.inPreviewPos = new float[n];
+        this.inFlags = new AtomicIntegerArray(n);
 
-                } catch (Exception e) {
-                    logger.error("Failed to initialize physics", e);
-                    usePhysics = false;
-                    physicsInitialized = false;
-                }
-            } else {
-                this.usePhysics = false;
-                this.physicsInitialized = false;
-                logger.info("PhysicsManager not initialized, using KINEMATIC mode");
-            }
-        } else {
-            this.physics = null;
-            this.usePhysics = false;
-            logger.info("URDFSimpleController: KINEMATIC mode");
-        }
-
-        // 공통 후처리: 물리 모드일 때 기본 설정
-        if (usePhysics && physicsInitialized && physics != null) {
-            physics.setGravity(0, -9.81f, 0);
-            this.motorsEnabled = true;
-
-            try {
-                physics.setWorldTuning(0.8, 1e-5, 50);
-                physics.setContactTuning(true, 0.8, 1e-5, 1.0);
-                physics.setDebugContacts(false);
-                logger.info("Applied recommended physics tuning (firm ground contact)");
-            } catch (Exception e) {
-                logger.warn("Failed to apply physics tuning: {}", e.getMessage());
-            }
+        // ODE4J는 공유 월드에 바디/geom/조인트를 만들므로 switchBackend와 같이 월드 스텝과 겹치지 않게
+        synchronized (URDFSimulationThread.WORLD_LOCK) {
+            installBackend(createBackend(kind != null ? kind : URDFPhysicsBackend.Kind.KINEMATIC));
         }
+        URDFSimulationThread.getInstance().invalidateIslands();
+        logger.info("URDFSimpleController: {} mode", backend.getKind());
     }
 
     public void setSpawnCollisionMargin(double margin) {
@@ -195,213 +163,166 @@ public final class URDFSimpleController {
     }
 
     // ========================================================================
-    // 월드 컨텍스트 (렌더러/엔티티에서 호출)
+    // 물리 백엔드 선택
     // ========================================================================
 
-    /**
-     * ✅ 수정: Level만 업데이트, 위치는 앵커링 시에만 저장
-     * 현재 월드와 엔티티의 월드 위치 전달.
-     * 물리 모드에서는 최초 한 번, 루트 바디를 해당 위치로 정렬(앵커)한다.
-     */
-    public void setWorldContext(Level level, Vec3 worldPos) {
-        this.currentLevel = level;
-
-        // ✅ 앵커링 전에만 초기 위치 저장
-        if (usePhysics && physicsInitialized && !worldAnchored &&
-                physics != null && !bodies.isEmpty() && worldPos != null) {
-
-            double clearance = computeRootClearance();
-            double targetY = worldPos.y + clearance + spawnCollisionMargin;
-            if (!Double.isFinite(targetY)) {
-                targetY = worldPos.y + 1.0;
-            }
+    public static URDFPhysicsBackend.Kind getDefaultBackend() {
+        return defaultBackend;
+    }
 
-            Vec3 safePos = new Vec3(worldPos.x, targetY, worldPos.z);
-            this.initialAnchorPosition = safePos;
+    /** 이후 생성되는 물리 컨트롤러(enablePhysics=true)가 쓸 백엔드 */
+    public static void setDefaultBackend(URDFPhysicsBackend.Kind kind) {
+        if (kind != null) defaultBackend = kind;
+    }
 
-            anchorPhysicsToWorld(safePos);
-            worldAnchored = true;
+    public static boolean isNativeMotorsDefault() {
+        return nativeMotorsDefault;
+    }
 
-            if (blockCollisionManager != null && currentLevel != null) {
-                blockCollisionManager.forceUpdate(currentLevel, safePos.x, safePos.y, safePos.z);
-                logger.info("BlockCollisionManager force-updated at spawn position. activeBlocks={}",
-                        blockCollisionManager.getActiveBlockCount());
-            }
-        }
+    /** 이후 생성되는 컨트롤러의 조인트 구동 방식 (ODE4J 백엔드에서만 의미 있음) */
+    public static void setNativeMotorsDefault(boolean enabled) {
+        nativeMotorsDefault = enabled;
     }
 
-    private double computeRootClearance() {
-        double fallback = estimateFallbackClearance();
-        if (!usePhysics || !physicsInitialized || physics == null || bodies.isEmpty()) {
-            return fallback;
-        }
+    public URDFPhysicsBackend.Kind getBackendKind() {
+        return backend.getKind();
+    }
 
-        try {
-            Object root = getRootBody();
-            if (root == null) {
-                return fallback;
-            }
-            double[] rootPos = physics.getBodyPosition(root);
-            if (rootPos == null || rootPos.length < 3) {
-                return fallback;
-            }
+    public boolean isArticulated() {
+        return backend.getKind() == URDFPhysicsBackend.Kind.ARTICULATED;
+    }
 
-            float baseBottom = getApproxBaseHeightWorldY();
-            double clearance = rootPos[1] - baseBottom;
-            if (!Double.isFinite(clearance) || clearance <= 0.0) {
-                return fallback;
+    /** 생성 실패 시 (PhysicsManager 없음 등) 키네마틱으로 폴백 */
+    private URDFPhysicsBackend createBackend(URDFPhysicsBackend.Kind kind) {
+        if (kind != URDFPhysicsBackend.Kind.KINEMATIC && urdfModel != null) {
+            try {
+                switch (kind) {
+                    case ODE4J:
+                        return new ODE4JBackend(urdfModel, table);
+                    case ARTICULATED:
+                        return new ArticulatedBackend(urdfModel, table, this::runOnSimulation);
+                    default:
+                        break;
+                }
+            } catch (Exception e) {
+                logger.error("Failed to initialize {} backend, using KINEMATIC mode", kind, e);
             }
-            return clearance;
-        } catch (Exception e) {
-            logger.debug("computeRootClearance fallback: {}", e.getMessage());
-            return fallback;
         }
+        return new KinematicBackend(table);
     }
 
-    private double estimateFallbackClearance() {
-        double maxRadius = 0.0;
-        for (float r : linkRadii.values()) {
-            if (Float.isFinite(r)) {
-                maxRadius = Math.max(maxRadius, r);
-            }
-        }
-        if (maxRadius > 0.0) {
-            return maxRadius;
-        }
-        return 1.0;
+    private void installBackend(URDFPhysicsBackend next) {
+        if (uprightRotation != null) next.setUprightRotation(uprightRotation);
+        if (gravity != null) next.setGravity(gravity[0], gravity[1], gravity[2]);
+        if (next.isDynamic()) PHYSICS_ROBOTS.incrementAndGet();
+        this.backend = next;
     }
 
-    /**
-     * ✅ 더 이상 사용하지 않음 (호환성 유지용)
-     */
-    @Deprecated
-    public Vec3 getWorldPosition() {
-        return initialAnchorPosition != null ? initialAnchorPosition : Vec3.ZERO;
+    private void releaseBackend(URDFPhysicsBackend old) {
+        old.dispose();
+        if (old.isDynamic()) PHYSICS_ROBOTS.decrementAndGet();
     }
 
     /**
-     * 루트 바디 기준으로 모든 바디를 주어진 월드 위치로 평행 이동시킨다.
-     *
-     * ✅ 중요: 바디만 이동하면 힌지 앵커는 "월드 고정"이라서 뒤에 남는다.
-     * 따라서 이동 후 힌지 앵커를 다시 세팅(refresh)해야 관통/폭주가 줄어든다.
+     * 로봇의 물리 백엔드를 런타임에 교체 (조인트 목표/상태는 유지, 다음 setWorldContext에서 다시 앵커링)
+     * 공유 월드 백엔드 생성/해제가 월드 스텝과 겹치지 않도록 WORLD_LOCK 안에서 교체하고,
+     * 시뮬레이션 스레드의 섬 분류(공유 월드 여부)를 다시 하게 한다.
      */
-    private void anchorPhysicsToWorld(Vec3 anchorWorldPos) {
-        try {
-            Object root = getRootBody();
-            if (root == null || physics == null) return;
-
-            double[] rootPos = physics.getBodyPosition(root);
-            if (rootPos == null || rootPos.length < 3) return;
-
-            double dx = anchorWorldPos.x - rootPos[0];
-            double dy = anchorWorldPos.y - rootPos[1];
-            double dz = anchorWorldPos.z - rootPos[2];
-
-            for (Object body : bodies.values()) {
-                if (body == null) continue;
-                double[] p = physics.getBodyPosition(body);
-                if (p == null || p.length < 3) continue;
-                physics.setBodyPosition(body, p[0] + dx, p[1] + dy, p[2] + dz);
-            }
-
-            // ✅ PATCH: 힌지 앵커 월드좌표 재설정
-            refreshHingeAnchors();
-
-            logger.info("Anchored physics to world at ({}, {}, {})",
-                    anchorWorldPos.x, anchorWorldPos.y, anchorWorldPos.z);
-
-        } catch (Exception e) {
-            logger.warn("anchorPhysicsToWorld failed: {}", e.getMessage());
+    public void switchBackend(URDFPhysicsBackend.Kind kind) {
+        if (kind == null || kind == backend.getKind()) return;
+        URDFPhysicsBackend.Kind previous;
+        synchronized (URDFSimulationThread.WORLD_LOCK) {
+            URDFPhysicsBackend old = backend;
+            previous = old.getKind();
+            installBackend(createBackend(kind));
+            releaseBackend(old);
+            worldAnchored = false;
+            initialAnchorPosition = null;
         }
+        URDFSimulationThread.getInstance().invalidateIslands();
+        logger.info("URDF physics backend switched: {} -> {}", previous, backend.getKind());
     }
 
     /**
-     * ✅ PATCH: 힌지 조인트 앵커를 "현재 바디 위치" 기반으로 다시 월드좌표에 세팅.
-     * 바디를 평행이동(스폰 앵커)한 뒤 호출해야 함.
+     * 백엔드(URDF) 좌표 → 월드 회전. 렌더러의 ROS→MC 보정과 같은 값을 넘겨야
+     * 루트 회전이 렌더 경로와 맞는다. 앵커링 전에 호출.
      */
-    private void refreshHingeAnchors() {
-        if (physics == null) return;
-
-        try {
-            Method setAnchor = dHingeJointClass.getMethod(
-                    "setAnchor", double.class, double.class, double.class);
-
-            for (URDFJoint j : joints.values()) {
-                if (j == null) continue;
-                if (!(j.type == URDFJoint.JointType.REVOLUTE || j.type == URDFJoint.JointType.CONTINUOUS)) continue;
-
-                Object odeJoint = odeJoints.get(j.name);
-                if (odeJoint == null) continue;
-
-                Object childBody  = bodies.get(j.childLinkName);
-                Object parentBody = bodies.get(j.parentLinkName);
-
-                double ax = 0.0, ay = 0.0, az = 0.0;
-                boolean baseFromBody = false;
+    public void setUprightRotation(Quaternionf upright) {
+        this.uprightRotation = upright != null ? new Quaternionf(upright) : null;
+        if (upright != null) backend.setUprightRotation(uprightRotation);
+    }
 
-                if (childBody != null) {
-                    double[] p = physics.getBodyPosition(childBody);
-                    if (p != null && p.length >= 3) {
-                        ax = p[0]; ay = p[1]; az = p[2];
-                        baseFromBody = true;
-                    }
-                }
-                if (!baseFromBody && parentBody != null) {
-                    double[] p = physics.getBodyPosition(parentBody);
-                    if (p != null && p.length >= 3) {
-                        ax = p[0]; ay = p[1]; az = p[2];
-                    }
-                }
+    // ========================================================================
+    // 월드 컨텍스트 (렌더러/엔티티에서 호출)
+    // ========================================================================
 
-                if (j.origin != null && j.origin.xyz != null) {
-                    ax += j.origin.xyz.x * physicsScale;
-                    ay += j.origin.xyz.y * physicsScale;
-                    az += j.origin.xyz.z * physicsScale;
-                }
+    /**
+     * ✅ 수정: Level만 업데이트, 위치는 앵커링 시에만 저장
+     * 현재 월드와 엔티티의 월드 위치 전달.
+     * 물리 모드에서는 최초 한 번, 백엔드가 로봇을 해당 위치에 세운다(앵커).
+     * 앵커링은 블록 영역을 만들려고 Level을 읽으므로 호출 스레드(틱/렌더)에서 하되,
+     * 바디를 옮기므로 시뮬레이션 스레드의 월드 스텝과 겹치지 않게 WORLD_LOCK 안에서 한다.
+     */
+    public void setWorldContext(Level level, Vec3 worldPos) {
+        this.currentLevel = level;
 
-                setAnchor.invoke(odeJoint, ax, ay, az);
+        URDFPhysicsBackend b = backend;
+        if (worldAnchored || worldPos == null || !b.isDynamic()) return;
+
+        synchronized (URDFSimulationThread.WORLD_LOCK) {
+            // 락을 기다리는 동안 앵커링/백엔드 교체가 끝났을 수 있음
+            if (worldAnchored || backend != b) return;
+
+            URDFPhysicsSnapshot spawn = spawnSnapshot;
+            spawnSnapshot = null;
+            if (b.isSnapshotCompatible(spawn) && spawn.getJointCount() == jointArray.length) {
+                // 저장된 안정 상태를 발 밑 높이에 맞춰 그대로 복원 (안착 과정 생략)
+                Vec3 rootPos = new Vec3(worldPos.x, worldPos.y + b.snapshotRootHeight(spawn) + spawnCollisionMargin, worldPos.z);
+                restoreSnapshotNow(spawn, rootPos);
+                b.setRestPoint(spawn);
+                b.updateEnvironment(level, rootPos);
+            } else {
+                this.initialAnchorPosition = b.anchor(level, worldPos, spawnCollisionMargin);
             }
-
-            logger.info("Refreshed hinge anchors for {} joints", odeJoints.size());
-        } catch (Exception e) {
-            // 메서드가 없거나 버전 차이인 경우 무시
-            logger.debug("refreshHingeAnchors skipped: {}", e.getMessage());
+            worldAnchored = true;
         }
     }
 
+    /**
+     * ✅ 더 이상 사용하지 않음 (호환성 유지용)
+     */
+    @Deprecated
+    public Vec3 getWorldPosition() {
+        return initialAnchorPosition != null ? initialAnchorPosition : Vec3.ZERO;
+    }
+
     // ========================================================================
     // 루트 바디 / 루트 바디 위치 (렌더러/엔티티용)
     // ========================================================================
 
-    private Object getRootBody() {
-        if (bodies.isEmpty()) return null;
-
-        if (rootBodyLinkName != null) {
-            Object root = bodies.get(rootBodyLinkName);
-            if (root != null) return root;
-        }
-        return bodies.values().iterator().next();
-    }
-
     /**
      * ✅ NEW: 루트 바디의 월드 회전 쿼터니언 반환 (ODE 관례: w,x,y,z)
      * 렌더러에서 roll/pitch까지 반영하기 위해 사용.
      */
     public float[] getRootBodyWorldQuaternionWXYZ() {
-        if (!usePhysics || !physicsInitialized || bodies.isEmpty() || physics == null) {
-            return new float[]{1f, 0f, 0f, 0f}; // identity
-        }
-
-        Object root = getRootBody();
-        if (root == null) {
-            return new float[]{1f, 0f, 0f, 0f};
-        }
+        float[] q = new float[4];
+        getRootBodyWorldQuaternionWXYZ(q);
+        return q;
+    }
 
-        float[] q = tryReadBodyQuaternionWXYZ(root);
-        if (q == null) {
-            return new float[]{1f, 0f, 0f, 0f};
+    /**
+     * 호출측 배열에 루트 회전(w,x,y,z)을 기록 (렌더 경로용, 반환 배열 할당 없음)
+     * @return 백엔드에서 읽었으면 true, 아니면 identity를 기록하고 false
+     */
+    public boolean getRootBodyWorldQuaternionWXYZ(float[] out) {
+        if (backend.getRootWorldQuaternionWXYZ(out)) {
+            return true;
         }
-        return q;
+        out[0] = 1f;
+        out[1] = 0f;
+        out[2] = 0f;
+        out[3] = 0f;
+        return false;
     }
 
     /**
@@ -409,25 +330,31 @@ public final class URDFSimpleController {
      * 로봇 루트 바디의 "현재 엔티티 기준 로컬 오프셋" 반환
      */
     public float[] getRootLinkLocalPosition(Vec3 baseWorldPos) {
-        if (!usePhysics || !physicsInitialized || physics == null || bodies.isEmpty()) {
-            return new float[]{0, 0, 0};
-        }
-
-        Object root = getRootBody();
-        if (root == null) return new float[]{0, 0, 0};
+        float[] out = new float[3];
+        getRootLinkLocalPosition(baseWorldPos, out);
+        return out;
+    }
 
-        double[] pos = physics.getBodyPosition(root);
-        if (pos == null || pos.length < 3) {
-            return new float[]{0, 0, 0};
+    /**
+     * 호출측 배열에 루트 로컬 오프셋을 기록 (렌더 경로용)
+     * @return 백엔드에서 읽었으면 true, 아니면 0을 기록하고 false
+     */
+    public boolean getRootLinkLocalPosition(Vec3 baseWorldPos, float[] out) {
+        out[0] = 0f;
+        out[1] = 0f;
+        out[2] = 0f;
+        double[] pos = renderRootPos;
+        if (!backend.getRootWorldPosition(pos)) {
+            return false;
         }
 
-        Vec3 base = (baseWorldPos != null) ? baseWorldPos : Vec3.ZERO;
-
-        return new float[]{
-                (float) (pos[0] - base.x),
-                (float) (pos[1] - base.y),
-                (float) (pos[2] - base.z)
-        };
+        double bx = baseWorldPos != null ? baseWorldPos.x : 0.0;
+        double by = baseWorldPos != null ? baseWorldPos.y : 0.0;
+        double bz = baseWorldPos != null ? baseWorldPos.z : 0.0;
+        out[0] = (float) (pos[0] - bx);
+        out[1] = (float) (pos[1] - by);
+        out[2] = (float) (pos[2] - bz);
+        return true;
     }
 
     /**
@@ -442,21 +369,9 @@ public final class URDFSimpleController {
      * ✅ 수정: 링크의 월드 위치 반환 (baseWorldPos 불필요, 바로 월드 좌표 반환)
      */
     public float[] getLinkWorldPosition(String linkName) {
-        if (!usePhysics || !physicsInitialized || physics == null) {
-            Vec3 fallback = initialAnchorPosition != null ? initialAnchorPosition : Vec3.ZERO;
-            return new float[]{
-                    (float) fallback.x,
-                    (float) fallback.y,
-                    (float) fallback.z
-            };
-        }
-
-        Object body = bodies.get(linkName);
-        if (body != null) {
-            double[] pos = physics.getBodyPosition(body);
-            if (pos != null && pos.length >= 3) {
-                return new float[]{(float) pos[0], (float) pos[1], (float) pos[2]};
-            }
+        double[] pos = new double[3];
+        if (linkName != null && backend.getLinkWorldPosition(linkName, pos)) {
+            return new float[]{(float) pos[0], (float) pos[1], (float) pos[2]};
         }
 
         Vec3 fallback = initialAnchorPosition != null ? initialAnchorPosition : Vec3.ZERO;
@@ -471,63 +386,26 @@ public final class URDFSimpleController {
      * ✅ 수정: 모든 바디 중 가장 낮은 Y 좌표 (월드 좌표계)
      */
     public float getApproxBaseHeightWorldY() {
-        if (!usePhysics || !physicsInitialized || bodies.isEmpty() || physics == null) {
+        double y = backend.getLowestPointWorldY();
+        if (Double.isNaN(y)) {
             Vec3 fallback = initialAnchorPosition != null ? initialAnchorPosition : Vec3.ZERO;
             return (float) fallback.y;
         }
-
-        double minBottomWorldY = Double.POSITIVE_INFINITY;
-
-        for (Map.Entry<String, Object> entry : bodies.entrySet()) {
-            Object body = entry.getValue();
-            if (body == null) continue;
-
-            double[] pos = physics.getBodyPosition(body);
-            if (pos == null || pos.length < 2) continue;
-
-            float radius = getLinkRadius(entry.getKey());
-            double bottomY = pos[1] - radius;
-
-            if (bottomY < minBottomWorldY) {
-                minBottomWorldY = bottomY;
-            }
-        }
-
-        if (!Double.isFinite(minBottomWorldY)) {
-            Object firstBody = bodies.values().iterator().next();
-            double[] pos = physics.getBodyPosition(firstBody);
-            if (pos == null || pos.length < 2) {
-                Vec3 fallback = initialAnchorPosition != null ? initialAnchorPosition : Vec3.ZERO;
-                return (float) fallback.y;
-            }
-            minBottomWorldY = pos[1];
-        }
-
-        return (float) minBottomWorldY;
+        return (float) y;
     }
 
     /**
      * ✅ 루트 바디의 월드 위치 반환
      */
     public double[] getRootBodyWorldPosition() {
-        if (!usePhysics || !physicsInitialized || bodies.isEmpty() || physics == null) {
-            Vec3 fallback = initialAnchorPosition != null ? initialAnchorPosition : Vec3.ZERO;
-            return new double[]{fallback.x, fallback.y, fallback.z};
-        }
-
-        Object root = getRootBody();
-        if (root == null) {
-            Vec3 fallback = initialAnchorPosition != null ? initialAnchorPosition : Vec3.ZERO;
-            return new double[]{fallback.x, fallback.y, fallback.z};
-        }
-
-        double[] pos = physics.getBodyPosition(root);
-        if (pos == null || pos.length < 3) {
+        double[] pos = new double[3];
+        if (!backend.getRootWorldPosition(pos)) {
             Vec3 fallback = initialAnchorPosition != null ? initialAnchorPosition : Vec3.ZERO;
-            return new double[]{fallback.x, fallback.y, fallback.z};
+            pos[0] = fallback.x;
+            pos[1] = fallback.y;
+            pos[2] = fallback.z;
         }
-
-        return new double[]{pos[0], pos[1], pos[2]};
+        return pos;
     }
 
     // ========================================================================
@@ -538,10 +416,39 @@ public final class URDFSimpleController {
      * ✅ 수정: 현재 엔티티 위치를 인자로 받음
      */
     public void update(float dt, Vec3 currentEntityPos) {
-        if (usePhysics && physicsInitialized) {
-            updatePhysicsWithCollision(dt, currentEntityPos);
-        } else {
-            updateKinematic(dt);
+        if (asyncInputs) {
+            // 시뮬레이션 스레드: 입력 반영 후 스텝만 (블록 충돌 갱신은 클라이언트 스레드에서 updateBlockCollision)
+            drainInputs();
+            URDFPhysicsBackend b = backend;
+            // 방금 공유 월드 백엔드로 바뀐 경우: 섬 재분류 전까지는 WORLD_LOCK 밖이므로 스텝하지 않음
+            if (!b.usesSharedWorld()) {
+                stepBackend(b, dt);
+            }
+            return;
+        }
+
+        URDFPhysicsBackend b = backend;
+        if (b.isDynamic()) {
+            updateBlockCollision(currentEntityPos);
+        }
+        stepBackend(b, dt);
+    }
+
+    /**
+     * 원거리 시뮬레이션 LOD: 동역학 없이 목표값(모션 재생)을 그대로 조인트 상태로 씀 (입력 반영 포함)
+     * 키네마틱 백엔드일 때만 호출 (물리 백엔드 조인트 상태를 덮어쓰지 않도록)
+     */
+    public void followTargets() {
+        if (asyncInputs) drainInputs();
+        if (backend.isDynamic()) return;
+        for (int i = 0; i < jointArray.length; i++) {
+            byte type = jointType[i];
+            if (type == URDFJointTable.JT_FIXED) continue;
+            float p = targetPos[i];
+            if (hasLimits[i]) p = Mth.clamp(p, lowerLimit[i], upperLimit[i]);
+            if (type == URDFJointTable.JT_CONTINUOUS) p = wrapToPi(p);
+            jointArray[i].currentPosition = p;
+            jointArray[i].currentVelocity = targetVel[i];
         }
     }
 
@@ -553,988 +460,313 @@ public final class URDFSimpleController {
     }
 
     /**
-     * ✅ 수정: 블록 충돌 업데이트 시 currentEntityPos 사용
+     * 엔티티 주변 블록 충돌/지면 갱신 (Level 접근 → 클라이언트 스레드에서만 호출)
+     * ODE4J는 섹션 스냅샷만 캡처하고 geom은 스텝 스레드가 만든다 → WORLD_LOCK 불필요
      */
-    private void updatePhysicsWithCollision(float dt, Vec3 currentEntityPos) {
-        if (blockCollisionManager != null && currentLevel != null && currentEntityPos != null) {
-            blockCollisionManager.updateCollisionArea(
-                    currentLevel,
-                    currentEntityPos.x,
-                    currentEntityPos.y,
-                    currentEntityPos.z
-            );
+    public void updateBlockCollision(Vec3 currentEntityPos) {
+        URDFPhysicsBackend b = backend;
+        if (!b.isDynamic()) return;
+        if (currentEntityPos == null) {
+            currentEntityPos = initialAnchorPosition;
         }
-
-        int subSteps = Math.max(1, physicsSubSteps);
-        float subDt = dt / subSteps;
-
-        for (int i = 0; i < subSteps; i++) {
-            if (motorsEnabled) {
-                applyJointControls();
-            }
-            physics.step(subDt);
+        if (currentLevel != null && currentEntityPos != null) {
+            b.updateEnvironment(currentLevel, currentEntityPos);
         }
-
-        syncJointStates();
     }
 
-    private void applyJointControls() {
-        for (Map.Entry<String, Object> entry : odeJoints.entrySet()) {
-            String jointName = entry.getKey();
-            Object odeJoint = entry.getValue();
-            URDFJoint urdfJoint = joints.get(jointName);
-
-            if (urdfJoint == null || !urdfJoint.isMovable()) continue;
-
-            float targetPos = target.getOrDefault(jointName, 0f);
-            float targetVel = targetVelocities.getOrDefault(jointName, 0f);
-
-            applyJointControl(odeJoint, urdfJoint, targetPos, targetVel);
-        }
+    private void stepBackend(URDFPhysicsBackend b, float dt) {
+        long t0 = URDFSimStats.start();
+        b.step(dt);
+        URDFSimStats.stop(URDFSimStats.backendStep(b.getKind()), t0);
     }
 
     // ========================================================================
-    // ODE4J 초기화
+    // 공유 월드 스텝 (시뮬레이션 스레드)
     // ========================================================================
+    // 전역 ODE 월드를 쓰는 백엔드는 로봇마다 월드를 스텝하면 안 되므로
+    // 시뮬레이션 스레드가 아래 단계로 쪼개서 모든 로봇의 제어 적용 후 월드를 서브스텝당 한 번만 스텝한다.
 
-    private void initializeODE4JClasses() throws Exception {
-        ClassLoader cl = physics.getClassLoader();
-        String base = "com.kAIS.ode4j.ode.";
-
-        odeHelperClass    = cl.loadClass(base + "OdeHelper");
-        dWorldClass       = cl.loadClass(base + "DWorld");
-        dBodyClass        = cl.loadClass(base + "DBody");
-        dMassClass        = cl.loadClass(base + "DMass");
-        dGeomClass        = cl.loadClass(base + "DGeom");
-        dHingeJointClass  = cl.loadClass(base + "DHingeJoint");
-        dSliderJointClass = cl.loadClass(base + "DSliderJoint");
-        dFixedJointClass  = cl.loadClass(base + "DFixedJoint");
-        dJointGroupClass  = cl.loadClass(base + "DJointGroup");
-
-        createMassMethod = odeHelperClass.getMethod("createMass");
+    /** 공유 월드 스텝 대상인지 (false면 update()에서 로봇별로 스텝) */
+    public boolean isPhysicsActive() {
+        return backend.usesSharedWorld();
     }
 
-    private void detectODE4JVersion() {
-        try {
-            bodySetMassMethod = dBodyClass.getMethod("setMass", dMassClass);
-            odeVersion = ODE4JVersion.V03X;
-            return;
-        } catch (NoSuchMethodException e) {
-            // ignore
-        }
-
-        try {
-            physics.getClassLoader().loadClass("com.kAIS.ode4j.ode.internal.DxMass");
-            odeVersion = ODE4JVersion.V05X;
-            return;
-        } catch (ClassNotFoundException e) {
-            // ignore
-        }
-
-        odeVersion = ODE4JVersion.V05X;
-        logger.info("Assuming ODE4J 0.5.x");
+    /** 다음 스텝에 쓸 서브스텝 수 (적응형이면 현재 선택값) */
+    public int getPhysicsSubSteps() {
+        return backend.getSubSteps();
     }
 
-    private void findMassSetMethods() {
-        try {
-            massSetBoxMethod = dMassClass.getMethod("setBox",
-                    double.class, double.class, double.class, double.class);
-        } catch (NoSuchMethodException e) {
-            try {
-                massSetBoxMethod = dMassClass.getMethod("setBoxTotal",
-                        double.class, double.class, double.class, double.class);
-            } catch (NoSuchMethodException e2) { }
-        }
-
-        try {
-            massSetSphereMethod = dMassClass.getMethod("setSphere", double.class, double.class);
-        } catch (NoSuchMethodException e) { }
+    /** 스텝 시작: 메일박스 입력 반영 + 슬립/깨우기 판정 */
+    public void beginSharedStep(float dt) {
+        drainInputs();
+        long t0 = URDFSimStats.start();
+        backend.beginSharedStep(dt);
+        sharedStepNanos = t0 != 0L ? System.nanoTime() - t0 : 0L;
     }
 
-    // ========================================================================
-    // 물리 모델 빌드
-    // ========================================================================
-
-    private void buildPhysicsModel() throws Exception {
-        if (urdfModel == null) {
-            throw new IllegalStateException("URDFModel is null");
-        }
-
-        Object world = physics.getWorld();
-        findMassSetMethods();
-
-        // 링크 → body + geom
-        for (URDFLink link : urdfModel.links) {
-            if (link == null || isFixedLink(link)) continue;
-
-            Object body = createBodyForLink(link, world);
-            if (body != null) {
-                bodies.put(link.name, body);
-
-                float radius = estimateLinkRadius(link);
-                linkRadii.put(link.name, radius);
-            }
-        }
-
-        // 조인트 생성
-        for (URDFJoint joint : joints.values()) {
-            if (!joint.isMovable()) continue;
-
-            Object odeJoint = createODEJoint(joint, world);
-            if (odeJoint != null) {
-                odeJoints.put(joint.name, odeJoint);
-            }
-        }
-
-        // 루트 바디 이름 보정
-        if (rootBodyLinkName != null && !bodies.containsKey(rootBodyLinkName)) {
-            rootBodyLinkName = bodies.keySet().stream().findFirst().orElse(null);
-        }
-
-        logger.info("Physics model: {} bodies, {} geoms, {} joints (rootBody = {})",
-                bodies.size(), geoms.size(), odeJoints.size(), rootBodyLinkName);
-
-        if (bodies.isEmpty()) {
-            throw new IllegalStateException("No ODE bodies created");
-        }
+    /** 서브스텝마다: 조인트 모터 토크/힘 적용 (월드 스텝 직전) */
+    public void applySubstepControls() {
+        long t0 = URDFSimStats.start();
+        backend.applySubstepControls();
+        if (t0 != 0L) sharedStepNanos += System.nanoTime() - t0;
     }
 
-    private float estimateLinkRadius(URDFLink link) {
-        float defaultRadius = 0.1f;
-
-        if (link.visual != null && link.visual.geometry != null) {
-            URDFLink.Geometry g = link.visual.geometry;
-            switch (g.type) {
-                case BOX:
-                    if (g.boxSize != null) {
-                        return (float) Math.sqrt(
-                                g.boxSize.x * g.boxSize.x +
-                                        g.boxSize.y * g.boxSize.y +
-                                        g.boxSize.z * g.boxSize.z
-                        ) * 0.5f;
-                    }
-                    break;
-                case SPHERE:
-                    return g.sphereRadius;
-                case CYLINDER:
-                    return Math.max(g.cylinderRadius, g.cylinderLength * 0.5f);
-                case MESH:
-                    if (g.scale != null) {
-                        return Math.max(g.scale.x, Math.max(g.scale.y, g.scale.z)) * 0.1f;
-                    }
-                    break;
-            }
-        }
-
-        String name = link.name.toLowerCase();
-        if (name.contains("torso") || name.contains("body") || name.contains("chest")) {
-            return 0.25f;
-        } else if (name.contains("head")) {
-            return 0.12f;
-        } else if (name.contains("arm") || name.contains("leg")) {
-            return 0.08f;
-        } else if (name.contains("hand") || name.contains("foot")) {
-            return 0.06f;
-        }
-
-        return defaultRadius;
+    /** 스텝 종료: 조인트 상태 읽어오기 */
+    public void endSharedStep() {
+        URDFPhysicsBackend b = backend;
+        long t0 = URDFSimStats.start();
+        b.endSharedStep();
+        if (t0 != 0L) URDFSimStats.record(URDFSimStats.backendStep(b.getKind()), sharedStepNanos + (System.nanoTime() - t0));
     }
 
     // ========================================================================
-    // Body + Geom 생성
+    // 슬립 / 깨우기
     // ========================================================================
 
-    private Object createBodyForLink(URDFLink link, Object world) {
-        try {
-            Object body = physics.createBody();
-            if (body == null) return null;
-
-            // 질량 + geom 정보
-            GeometryInfo geomInfo = setDefaultMass(body, link);
-
-            // 초기 위치 (URDF 기반, 이후 anchorPhysicsToWorld 에서 월드 위치에 정렬)
-            if (link.visual != null && link.visual.origin != null) {
-                physics.setBodyPosition(body,
-                        link.visual.origin.xyz.x * physicsScale,
-                        link.visual.origin.xyz.y * physicsScale,
-                        link.visual.origin.xyz.z * physicsScale);
-            }
-
-            Object geom = createGeomForLink(link, geomInfo);
-            if (geom != null) {
-                double[] bp = physics.getBodyPosition(body);
-                physics.setGeomPosition(geom, bp[0], bp[1], bp[2]);
-
-                physics.setGeomBody(geom, body);
-
-                try {
-                    physics.setGeomOffsetPosition(geom, 0, 0, 0);
-                } catch (Exception e) {
-                    logger.debug("setGeomOffsetPosition not available for link: {}", link.name);
-                }
-
-                geoms.put(link.name, geom);
-                physics.registerDynamicGeom(geom);
-
-                logger.debug("Created geom for link: {} (type: {}) with zero offset",
-                        link.name, geomInfo.type);
-            } else {
-                logger.warn("Failed to create geom for link: {}", link.name);
-            }
-
-            return body;
-        } catch (Exception e) {
-            logger.error("Failed to create body for {}", link.name, e);
-            return null;
-        }
+    public static boolean isSleepEnabled() {
+        return ODE4JBackend.isSleepEnabled();
     }
 
-    private static class GeometryInfo {
-        String type;
-        double lx, ly, lz;  // box dimensions
-        double radius;      // sphere/cylinder radius
-        double height;      // cylinder height
-
-        GeometryInfo(String type) {
-            this.type = type;
-        }
+    public static void setSleepEnabled(boolean enabled) {
+        ODE4JBackend.setSleepEnabled(enabled);
     }
 
-    private Object createGeomForLink(URDFLink link, GeometryInfo geomInfo) {
-        try {
-            Object geom;
-
-            switch (geomInfo.type) {
-                case "box":
-                    geom = physics.createBoxGeom(
-                            geomInfo.lx * physicsScale,
-                            geomInfo.ly * physicsScale,
-                            geomInfo.lz * physicsScale
-                    );
-                    break;
-
-                case "sphere":
-                    geom = physics.createSphereGeom(geomInfo.radius * physicsScale);
-                    break;
-
-                case "cylinder":
-                    geom = physics.createCylinderGeom(
-                            geomInfo.radius * physicsScale,
-                            geomInfo.height * physicsScale
-                    );
-                    break;
-
-                default:
-                    float radius = estimateLinkRadius(link);
-                    geom = physics.createSphereGeom(radius * physicsScale);
-                    break;
-            }
-
-            return geom;
-
-        } catch (Exception e) {
-            logger.error("Failed to create geom for {}", link.name, e);
-            return null;
-        }
+    /** 시뮬레이션 계측 로그 (조인트 제어 / 백엔드별 스텝 / 월드 스텝 등 단계별 평균/최대, 기본 꺼짐) */
+    public static void setSimulationStats(boolean enabled) {
+        URDFSimStats.setEnabled(enabled);
     }
 
-    // ========================================================================
-    // 질량 설정
-    // ========================================================================
-
-    private GeometryInfo setDefaultMass(Object body, URDFLink link) {
-        GeometryInfo geomInfo = new GeometryInfo("sphere");
-        geomInfo.radius = 0.1;
-
-        try {
-            Object mass = createMassMethod.invoke(null);
-            double density = 500.0;
-
-            double lx = 0.1, ly = 0.1, lz = 0.1;
-
-            if (link != null && link.visual != null && link.visual.geometry != null) {
-                URDFLink.Geometry geom = link.visual.geometry;
-                if (massSetBoxMethod == null && massSetSphereMethod == null) {
-                    findMassSetMethods();
-                }
-
-                switch (geom.type) {
-                    case BOX:
-                        if (geom.boxSize != null) {
-                            lx = Math.max(0.05, Math.abs(geom.boxSize.x));
-                            ly = Math.max(0.05, Math.abs(geom.boxSize.y));
-                            lz = Math.max(0.05, Math.abs(geom.boxSize.z));
-
-                            geomInfo.type = "box";
-                            geomInfo.lx = lx;
-                            geomInfo.ly = ly;
-                            geomInfo.lz = lz;
-                        }
-                        break;
-
-                    case SPHERE:
-                        if (geom.sphereRadius > 0) {
-                            double r = Math.max(0.03, Math.abs(geom.sphereRadius));
-
-                            geomInfo.type = "sphere";
-                            geomInfo.radius = r;
-
-                            if (massSetSphereMethod != null) {
-                                massSetSphereMethod.invoke(mass, density, r * physicsScale);
-                                applyMassToBody(body, mass);
-                                return geomInfo;
-                            } else {
-                                lx = ly = lz = r * 2.0;
-                            }
-                        }
-                        break;
-
-                    case CYLINDER:
-                        if (geom.cylinderRadius > 0 && geom.cylinderLength > 0) {
-                            double r = Math.max(0.03, Math.abs(geom.cylinderRadius));
-                            double h = Math.max(0.05, Math.abs(geom.cylinderLength));
-
-                            geomInfo.type = "cylinder";
-                            geomInfo.radius = r;
-                            geomInfo.height = h;
-
-                            lx = ly = r * 2.0;
-                            lz = h;
-                        }
-                        break;
-
-                    case MESH:
-                        if (geom.scale != null) {
-                            double s = Math.max(
-                                    Math.max(Math.abs(geom.scale.x), Math.abs(geom.scale.y)),
-                                    Math.abs(geom.scale.z)
-                            );
-                            s = Math.max(0.05, s);
-                            lx = ly = lz = s * 0.5;
-                        }
-                        break;
-                }
-            }
-
-            if (massSetBoxMethod != null) {
-                massSetBoxMethod.invoke(mass,
-                        density,
-                        lx * physicsScale,
-                        ly * physicsScale,
-                        lz * physicsScale);
-            } else if (massSetSphereMethod != null) {
-                double r = Math.max(0.05, Math.max(lx, Math.max(ly, lz)) * 0.5);
-                massSetSphereMethod.invoke(mass, density, r * physicsScale);
-            } else {
-                double fallbackMass = 1.0;
-                setMassValue(mass, fallbackMass);
-            }
-
-            if (link != null && link.inertial != null && link.inertial.mass != null) {
-                float mv = link.inertial.mass.value;
-                if (mv > 0 && Float.isFinite(mv)) {
-                    setMassValue(mass, mv);
-                }
-            }
-
-            applyMassToBody(body, mass);
-
-        } catch (Exception e) {
-            logger.warn("Failed to set mass for {}", link != null ? link.name : "unknown", e);
-        }
-
-        return geomInfo;
+    public static int getCollisionHullVertexLimit() {
+        return ODE4JBackend.getHullVertexLimit();
     }
 
-    private void setMassValue(Object mass, double value) {
-        try {
-            Method setMass = dMassClass.getMethod("setMass", double.class);
-            setMass.invoke(mass, value);
-            return;
-        } catch (Exception e) { }
-
-        try {
-            Method adjust = dMassClass.getMethod("adjust", double.class);
-            adjust.invoke(mass, value);
-        } catch (Exception e) { }
+    /** 메쉬 충돌 형상(볼록 껍질) 정점 수 상한 - 이후 생성되는 ODE4J 로봇부터 적용 */
+    public static void setCollisionHullVertexLimit(int limit) {
+        ODE4JBackend.setHullVertexLimit(limit);
     }
 
-    private void applyMassToBody(Object body, Object mass) throws Exception {
-        if (bodySetMassMethod != null) {
-            bodySetMassMethod.invoke(body, mass);
-            return;
-        }
-
-        try {
-            for (Method m : body.getClass().getMethods()) {
-                if (m.getName().equals("setMass") && m.getParameterCount() == 1) {
-                    if (m.getParameterTypes()[0].isAssignableFrom(mass.getClass())) {
-                        m.invoke(body, mass);
-                        return;
-                    }
-                }
-            }
-        } catch (Exception e) { }
-
-        logger.warn("Could not apply mass to body");
+    public static boolean isAdaptiveSubSteps() {
+        return URDFAdaptiveSubsteps.isEnabled();
     }
 
-    // ========================================================================
-    // 조인트 생성
-    // ========================================================================
-
-    private Object createODEJoint(URDFJoint joint, Object world) {
-        try {
-            Object parentBody = bodies.get(joint.parentLinkName);
-            Object childBody  = bodies.get(joint.childLinkName);
-
-            if (parentBody == null && childBody == null) {
-                return null;
-            }
-
-            switch (joint.type) {
-                case REVOLUTE:
-                case CONTINUOUS:
-                    return createHingeJoint(joint, world, parentBody, childBody);
-                case PRISMATIC:
-                    return createSliderJoint(joint, world, parentBody, childBody);
-                case FIXED:
-                    return createFixedJoint(joint, world, parentBody, childBody);
-                default:
-                    return null;
-            }
-        } catch (Exception e) {
-            logger.error("Failed to create joint {}", joint.name, e);
-            return null;
-        }
+    /**
+     * 적응형 서브스텝 - 스텝마다 조인트 속도/추종 오차/접촉/구속 오차로 [min, max] 안에서 고름
+     * (false면 로봇별 setPhysicsSubSteps 고정값)
+     */
+    public static void setAdaptiveSubSteps(boolean enabled, int min, int max) {
+        URDFAdaptiveSubsteps.setBounds(min, max);
+        URDFAdaptiveSubsteps.setEnabled(enabled);
     }
 
-    private Object createHingeJoint(URDFJoint joint, Object world,
-                                    Object parentBody, Object childBody) throws Exception {
-        Method createHinge = odeHelperClass.getMethod(
-                "createHingeJoint", dWorldClass, dJointGroupClass);
-        Object odeJoint = createHinge.invoke(null, world, null);
+    // ========== 충돌 브로드페이즈 ==========
 
-        Method attach = dHingeJointClass.getMethod("attach", dBodyClass, dBodyClass);
-        attach.invoke(odeJoint, childBody, parentBody);
-
-        double[] axis = getJointAxis(joint);
-        double len = Math.sqrt(axis[0] * axis[0] + axis[1] * axis[1] + axis[2] * axis[2]);
-        if (len < 1e-6) {
-            axis[0] = 0.0;
-            axis[1] = 0.0;
-            axis[2] = 1.0;
-        } else {
-            axis[0] /= len;
-            axis[1] /= len;
-            axis[2] /= len;
-        }
-
-        Method setAxis = dHingeJointClass.getMethod(
-                "setAxis", double.class, double.class, double.class);
-        setAxis.invoke(odeJoint, axis[0], axis[1], axis[2]);
-
-        // 앵커 설정 (생성 시점에도 한 번은 맞춰둠)
-        try {
-            Method setAnchor = dHingeJointClass.getMethod(
-                    "setAnchor", double.class, double.class, double.class);
-
-            double anchorX = 0.0;
-            double anchorY = 0.0;
-            double anchorZ = 0.0;
-            boolean baseFromBody = false;
-
-            if (physics != null) {
-                if (childBody != null) {
-                    double[] p = physics.getBodyPosition(childBody);
-                    if (p != null && p.length >= 3) {
-                        anchorX = p[0];
-                        anchorY = p[1];
-                        anchorZ = p[2];
-                        baseFromBody = true;
-                    }
-                }
-                if (!baseFromBody && parentBody != null) {
-                    double[] p = physics.getBodyPosition(parentBody);
-                    if (p != null && p.length >= 3) {
-                        anchorX = p[0];
-                        anchorY = p[1];
-                        anchorZ = p[2];
-                        baseFromBody = true;
-                    }
-                }
-            }
-
-            if (joint.origin != null && joint.origin.xyz != null) {
-                anchorX += joint.origin.xyz.x * physicsScale;
-                anchorY += joint.origin.xyz.y * physicsScale;
-                anchorZ += joint.origin.xyz.z * physicsScale;
-            }
-
-            setAnchor.invoke(odeJoint, anchorX, anchorY, anchorZ);
-        } catch (Exception e) {
-            // ignore
-        }
-
-        if (joint.type == URDFJoint.JointType.REVOLUTE &&
-                joint.limit != null && joint.limit.hasLimits()) {
-            setHingeJointLimits(odeJoint, joint.limit.lower, joint.limit.upper);
-        }
-
-        return odeJoint;
+    public static URDFCollisionSpaces.Broadphase getCollisionBroadphase() {
+        return URDFCollisionSpaces.getBroadphase();
     }
 
-    private void setHingeJointLimits(Object odeJoint, float lower, float upper) {
-        try {
-            Method setLo = dHingeJointClass.getMethod("setParamLoStop", double.class);
-            Method setHi = dHingeJointClass.getMethod("setParamHiStop", double.class);
-            setLo.invoke(odeJoint, (double) lower);
-            setHi.invoke(odeJoint, (double) upper);
-        } catch (Exception e) { }
+    /**
+     * 로봇 geom 서브 스페이스 종류 - 이후 생성되는 ODE4J 로봇부터 적용
+     * DEFAULT면 예전처럼 전역 스페이스에 직접 등록 (인접 링크 제외도 없음)
+     */
+    public static void setCollisionBroadphase(URDFCollisionSpaces.Broadphase kind) {
+        URDFCollisionSpaces.setBroadphase(kind);
     }
 
-    private Object createSliderJoint(URDFJoint joint, Object world,
-                                     Object parentBody, Object childBody) throws Exception {
-        Method createSlider = odeHelperClass.getMethod(
-                "createSliderJoint", dWorldClass, dJointGroupClass);
-        Object odeJoint = createSlider.invoke(null, world, null);
-
-        Method attach = dSliderJointClass.getMethod("attach", dBodyClass, dBodyClass);
-        attach.invoke(odeJoint, childBody, parentBody);
+    /** HASH 브로드페이즈 셀 레벨 (셀 크기 2^min ~ 2^max, 물리 단위) */
+    public static void setCollisionHashLevels(int min, int max) {
+        URDFCollisionSpaces.setHashLevels(min, max);
+    }
 
-        double[] axis = getJointAxis(joint);
-        Method setAxis = dSliderJointClass.getMethod(
-                "setAxis", double.class, double.class, double.class);
-        setAxis.invoke(odeJoint, axis[0], axis[1], axis[2]);
+    /** 브로드페이즈 비교용 한 줄 요약 (계측 훅이 월드 스텝 시간과 함께 로그) */
+    public static String describeCollisionWorld() {
+        int contacts = URDFCollisionSpaces.readContactCount(PhysicsManager.GetInst());
+        return String.format("broadphase=%s robotSpaces=%d robotGeoms=%d blockGeoms=%d (%d blocks) contacts=%s",
+                URDFCollisionSpaces.getBroadphase(), URDFCollisionSpaces.getRobotSpaceCount(),
+                URDFCollisionSpaces.getRobotGeomCount(), ODE4JBackend.getActiveBlockGeomCount(),
+                URDFBlockCollisionCache.getInstance().getActiveBlockCount(),
+                contacts >= 0 ? Integer.toString(contacts) : "n/a");
+    }
 
-        return odeJoint;
+    /** 캡처된 블록 충돌 스냅샷을 geom으로 반영 (시뮬레이션 스레드가 스텝 시작 때 WORLD_LOCK 안에서 호출) */
+    public static void applyBlockCollisionUpdates() {
+        URDFBlockCollisionCache.getInstance().applyPending();
     }
 
-    private Object createFixedJoint(URDFJoint joint, Object world,
-                                    Object parentBody, Object childBody) throws Exception {
-        Method createFixed = odeHelperClass.getMethod(
-                "createFixedJoint", dWorldClass, dJointGroupClass);
-        Object odeJoint = createFixed.invoke(null, world, null);
+    /**
+     * 블록 충돌 형상 - 완전 블록 그리디 병합 / 지형형 섹션 높이장
+     * 이후 빌드되는 청크 섹션부터 적용
+     */
+    public static void setBlockCollisionMerging(boolean mergeFullBlocks, boolean heightfieldTerrain) {
+        URDFBlockCollisionCache.setMergeFullBlocks(mergeFullBlocks);
+        URDFBlockCollisionCache.setHeightfieldTerrain(heightfieldTerrain);
+    }
 
-        Method attach = dFixedJointClass.getMethod("attach", dBodyClass, dBodyClass);
-        attach.invoke(odeJoint, childBody, parentBody);
+    /** 현재 잠든 물리 로봇 수 */
+    public static int getSleepingRobotCount() {
+        return ODE4JBackend.getSleepingRobotCount();
+    }
 
-        Method setFixed = dFixedJointClass.getMethod("setFixed");
-        setFixed.invoke(odeJoint);
+    /** 현재 깨어 있는 물리 로봇 수 */
+    public static int getAwakeRobotCount() {
+        return Math.max(0, PHYSICS_ROBOTS.get() - getSleepingRobotCount());
+    }
 
-        return odeJoint;
+    public boolean isSleeping() {
+        return backend.isSleeping();
     }
 
-    private double[] getJointAxis(URDFJoint joint) {
-        if (joint.axis != null && joint.axis.xyz != null) {
-            return new double[]{joint.axis.xyz.x, joint.axis.xyz.y, joint.axis.xyz.z};
-        }
-        return new double[]{0, 0, 1};
+    /** 다음 스텝 시작 시 깨움 (어느 스레드에서나 호출 가능) */
+    public void requestWake() {
+        backend.requestWake();
     }
 
     // ========================================================================
-    // 관절 제어 및 동기화
+    // 스냅샷 / 복원
     // ========================================================================
 
-    private void applyJointControl(Object odeJoint, URDFJoint urdfJoint,
-                                   float targetPos, float targetVel) {
-        try {
-            if (urdfJoint.type == URDFJoint.JointType.REVOLUTE ||
-                    urdfJoint.type == URDFJoint.JointType.CONTINUOUS) {
-
-                float currentPos = getHingeAngle(odeJoint);
-                float currentVel = getHingeAngleRate(odeJoint);
-
-                float posError = targetPos - currentPos;
-                if (urdfJoint.type == URDFJoint.JointType.CONTINUOUS) {
-                    posError = wrapToPi(posError);
-                }
-
-                float torque = physicsKp * posError + physicsKd * (targetVel - currentVel);
-                float limit = (urdfJoint.limit != null && urdfJoint.limit.effort > 0)
-                        ? urdfJoint.limit.effort : maxTorque;
-                torque = Mth.clamp(torque, -limit, limit);
-
-                addHingeTorque(odeJoint, torque);
-
-            } else if (urdfJoint.type == URDFJoint.JointType.PRISMATIC) {
-
-                float currentPos = getSliderPosition(odeJoint);
-                float currentVel = getSliderPositionRate(odeJoint);
-
-                float posError = targetPos - currentPos;
-                float force = physicsKp * posError + physicsKd * (targetVel - currentVel);
-                float limit = (urdfJoint.limit != null && urdfJoint.limit.effort > 0)
-                        ? urdfJoint.limit.effort : maxForce;
-                force = Mth.clamp(force, -limit, limit);
+    /**
+     * 현재 물리 상태 캡처 (바디 위치/회전/속도 + 조인트 목표/상태)
+     * @return 백엔드가 스냅샷을 지원하지 않으면 null
+     */
+    public URDFPhysicsSnapshot captureSnapshot() {
+        return backend.captureSnapshot();
+    }
 
-                addSliderForce(odeJoint, force);
-            }
-        } catch (Exception e) { }
+    /** 스냅샷이 이 로봇 구성과 맞는지 */
+    public boolean isSnapshotCompatible(URDFPhysicsSnapshot snapshot) {
+        return snapshot != null
+                && snapshot.getJointCount() == jointArray.length
+                && backend.isSnapshotCompatible(snapshot);
     }
 
-    private float getHingeAngle(Object joint) {
-        try {
-            Method m = dHingeJointClass.getMethod("getAngle");
-            return ((Number) m.invoke(joint)).floatValue();
-        } catch (Exception e) {
-            return 0f;
-        }
+    /** 스냅샷 그대로 복원 (비동기 모드면 다음 스텝 시작 시 적용) */
+    public boolean restoreSnapshot(URDFPhysicsSnapshot snapshot) {
+        return restoreSnapshotAt(snapshot, null);
     }
 
-    private float getHingeAngleRate(Object joint) {
-        try {
-            Method m = dHingeJointClass.getMethod("getAngleRate");
-            return ((Number) m.invoke(joint)).floatValue();
-        } catch (Exception e) {
-            return 0f;
+    /**
+     * 루트 바디가 rootWorldPos에 오도록 전체를 평행이동해서 복원 (재접속/다른 위치 스폰용)
+     * @param rootWorldPos null이면 저장된 위치 그대로
+     * @return 구성이 맞지 않아 복원하지 않았으면 false
+     */
+    public boolean restoreSnapshotAt(URDFPhysicsSnapshot snapshot, Vec3 rootWorldPos) {
+        if (!isSnapshotCompatible(snapshot)) {
+            logger.warn("Physics snapshot does not match this robot, ignored");
+            return false;
         }
+        runOnSimulation(() -> restoreSnapshotNow(snapshot, rootWorldPos));
+        return true;
     }
 
-    private void addHingeTorque(Object joint, float torque) {
-        try {
-            Method m = dHingeJointClass.getMethod("addTorque", double.class);
-            m.invoke(joint, (double) torque);
-        } catch (Exception e) { }
-    }
+    /** 바디는 백엔드가, 조인트 목표/상태는 컨트롤러가 복원 */
+    private void restoreSnapshotNow(URDFPhysicsSnapshot snapshot, Vec3 rootWorldPos) {
+        backend.restoreSnapshot(snapshot, rootWorldPos);
 
-    private float getSliderPosition(Object joint) {
-        try {
-            Method m = dSliderJointClass.getMethod("getPosition");
-            return ((Number) m.invoke(joint)).floatValue();
-        } catch (Exception e) {
-            return 0f;
+        System.arraycopy(snapshot.jointTargets, 0, targetPos, 0, targetPos.length);
+        Arrays.fill(targetVel, 0f);
+        for (int i = 0; i < jointArray.length; i++) {
+            jointArray[i].currentPosition = snapshot.jointPositions[i];
+            jointArray[i].currentVelocity = snapshot.jointVelocities[i];
         }
-    }
 
-    private float getSliderPositionRate(Object joint) {
-        try {
-            Method m = dSliderJointClass.getMethod("getPositionRate");
-            return ((Number) m.invoke(joint)).floatValue();
-        } catch (Exception e) {
-            return 0f;
-        }
+        // 복원된 상태가 곧 앵커 → setWorldContext가 다시 정렬하지 않도록
+        worldAnchored = true;
+        if (rootWorldPos != null) initialAnchorPosition = rootWorldPos;
     }
 
-    private void addSliderForce(Object joint, float force) {
-        try {
-            Method m = dSliderJointClass.getMethod("addForce", double.class);
-            m.invoke(joint, (double) force);
-        } catch (Exception e) { }
+    /** 최초 앵커링 때 안착 대신 복원할 스냅샷 (재접속 시 디스크에서 로드한 rest point) */
+    public void setSpawnSnapshot(URDFPhysicsSnapshot snapshot) {
+        this.spawnSnapshot = snapshot;
     }
 
-    private void syncJointStates() {
-        for (Map.Entry<String, Object> entry : odeJoints.entrySet()) {
-            String jointName = entry.getKey();
-            Object odeJoint = entry.getValue();
-            URDFJoint urdfJoint = joints.get(jointName);
+    /** 안착 후 처음 정지한 상태 (아직 없으면 null) */
+    public URDFPhysicsSnapshot getRestPoint() {
+        return backend.getRestPoint();
+    }
 
-            if (urdfJoint == null) continue;
+    public void setRestPoint(URDFPhysicsSnapshot snapshot) {
+        backend.setRestPoint(snapshot);
+    }
 
-            if (urdfJoint.type == URDFJoint.JointType.REVOLUTE ||
-                    urdfJoint.type == URDFJoint.JointType.CONTINUOUS) {
-                urdfJoint.currentPosition = getHingeAngle(odeJoint);
-                urdfJoint.currentVelocity = getHingeAngleRate(odeJoint);
-            } else if (urdfJoint.type == URDFJoint.JointType.PRISMATIC) {
-                urdfJoint.currentPosition = getSliderPosition(odeJoint);
-                urdfJoint.currentVelocity = getSliderPositionRate(odeJoint);
-            }
-        }
+    /**
+     * 알려진 안정 상태로 즉시 리셋
+     * @return rest point가 없거나 맞지 않으면 false (호출측은 resetPhysics로 폴백)
+     */
+    public boolean resetToRestPoint() {
+        URDFPhysicsSnapshot rp = getRestPoint();
+        return rp != null && restoreSnapshot(rp);
     }
 
     // ========================================================================
-    // 키네마틱 모드
+    // 비동기 입력
     // ========================================================================
 
-    private void updateKinematic(float dt) {
-        for (URDFJoint j : joints.values()) {
-            if (!j.isMovable()) continue;
-
-            float tgt = target.getOrDefault(j.name, j.currentPosition);
-            float pos = j.currentPosition;
-            float vel = j.currentVelocity;
-
-            if (j.type == URDFJoint.JointType.CONTINUOUS) {
-                float d = (float) Math.atan2(Math.sin(tgt - pos), Math.cos(tgt - pos));
-                tgt = pos + d;
-            }
-
-            float err = tgt - pos;
-            float acc = kp * err - kd * vel;
-
-            float maxVel = (j.limit != null && j.limit.velocity > 0f)
-                    ? j.limit.velocity : defaultMaxVel;
-
-            acc = Mth.clamp(acc, -defaultMaxAcc, defaultMaxAcc);
-            vel += acc * dt;
-            vel = Mth.clamp(vel, -maxVel, maxVel);
-            pos += vel * dt;
-
-            if (j.limit != null && j.limit.hasLimits()) {
-                pos = Mth.clamp(pos, j.limit.lower, j.limit.upper);
-                if (pos == j.limit.lower || pos == j.limit.upper) vel = 0f;
-            }
-
-            if (j.type == URDFJoint.JointType.CONTINUOUS) {
-                pos = wrapToPi(pos);
+    /**
+     * 시뮬레이션 스레드 소유 모드 on/off
+     * on이면 setTarget 등은 메일박스에만 기록되고, 다음 update() 시작 시 시뮬레이션 스레드에서 반영된다.
+     */
+    public void setAsyncInputs(boolean async) {
+        if (!async && asyncInputs) {
+            asyncInputs = false;
+            // 남은 명령은 호출 스레드에서 실행 → 진행 중인 월드 스텝이 끝난 뒤에
+            synchronized (URDFSimulationThread.WORLD_LOCK) {
+                drainInputs();
             }
-
-            j.currentVelocity = vel;
-            j.currentPosition = pos;
+            return;
         }
+        asyncInputs = async;
     }
 
-    // ========================================================================
-    // ✅ Quaternion 읽기 유틸 (ODE4J/PhysicsManager 버전 차이를 리플렉션으로 흡수)
-    // ========================================================================
-
-    private float[] tryReadBodyQuaternionWXYZ(Object body) {
-        if (body == null) return null;
-
-        // 1) PhysicsManager에 getBodyQuaternion류 메서드가 있으면 우선 사용
-        float[] q = tryReadQuaternionFromPhysicsManager(body);
-        if (q != null) return q;
-
-        // 2) 바디 객체에서 getQuaternion() 시도 (ODE4J의 표준)
-        q = tryReadQuaternionFromBodyObject(body);
-        if (q != null) return q;
-
-        // 3) 회전행렬(getRotation)로부터 복구 (마지막 수단)
-        q = tryReadQuaternionFromRotation(body);
-        return q;
+    public boolean isAsyncInputs() {
+        return asyncInputs;
     }
 
-    private float[] tryReadQuaternionFromPhysicsManager(Object body) {
-        if (physics == null) return null;
-
-        try {
-            for (Method m : physics.getClass().getMethods()) {
-                String n = m.getName();
-                if (m.getParameterCount() != 1) continue;
-
-                // 가능한 이름들 (프로젝트마다 다를 수 있어서 넓게)
-                if (!(n.equals("getBodyQuaternion") || n.equals("getBodyQuat") || n.equals("getQuaternion"))) {
-                    continue;
-                }
-
-                Object ret = m.invoke(physics, body);
-                float[] q = parseQuatWXYZ(ret);
-                if (q != null) return q;
-            }
-        } catch (Exception ignored) { }
-
-        return null;
+    private void markInput(int i, int flag) {
+        inFlags.accumulateAndGet(i, flag, (a, b) -> a | b);
+        inputsPending = true;
     }
 
-    private float[] tryReadQuaternionFromBodyObject(Object body) {
-        try {
-            // getQuaternion 오버로드들을 모두 탐색
-            for (Method m : body.getClass().getMethods()) {
-                if (!m.getName().equals("getQuaternion")) continue;
-
-                if (m.getParameterCount() == 0) {
-                    Object ret = m.invoke(body);
-                    float[] q = parseQuatWXYZ(ret);
-                    if (q != null) return q;
-                }
-
-                if (m.getParameterCount() == 1) {
-                    Class<?> pt = m.getParameterTypes()[0];
-                    try {
-                        Object tmp = pt.getDeclaredConstructor().newInstance();
-                        m.invoke(body, tmp);
-                        float[] q = parseQuatWXYZ(tmp);
-                        if (q != null) return q;
-                    } catch (Exception ignored) { }
-                }
-            }
-        } catch (Exception ignored) { }
-
-        return null;
-    }
-
-    private float[] tryReadQuaternionFromRotation(Object body) {
-        // 1) body.getRotation() 시도
-        try {
-            for (Method m : body.getClass().getMethods()) {
-                if (!m.getName().equals("getRotation")) continue;
-
-                if (m.getParameterCount() == 0) {
-                    Object rot = m.invoke(body);
-                    float[] q = parseRotationToQuatWXYZ(rot);
-                    if (q != null) return q;
-                }
-
-                if (m.getParameterCount() == 1) {
-                    Class<?> pt = m.getParameterTypes()[0];
-                    try {
-                        Object tmp = pt.getDeclaredConstructor().newInstance();
-                        m.invoke(body, tmp);
-                        float[] q = parseRotationToQuatWXYZ(tmp);
-                        if (q != null) return q;
-                    } catch (Exception ignored) { }
-                }
+    /**
+     * 동기 모드면 즉시 실행, 비동기면 시뮬레이션 스레드에서 다음 스텝 전에 실행.
+     * 비동기 명령은 beginSharedStep(WORLD_LOCK 안)에서 풀리므로 락을 다시 잡지 않음 (섬 워커가 잡으면 교착).
+     * 동기 모드는 호출 스레드가 곧 스텝 스레드 - 다른 로봇을 스텝 중인 시뮬레이션 스레드와 겹치지 않도록 락 안에서 실행.
+     */
+    private void runOnSimulation(Runnable r) {
+        if (asyncInputs) {
+            inCommands.add(r);
+            inputsPending = true;
+        } else {
+            synchronized (URDFSimulationThread.WORLD_LOCK) {
+                r.run();
             }
-        } catch (Exception ignored) { }
-
-        // 2) PhysicsManager 쪽에 getBodyRotation 류가 있다면 시도
-        if (physics != null) {
-            try {
-                for (Method m : physics.getClass().getMethods()) {
-                    String n = m.getName();
-                    if (m.getParameterCount() != 1) continue;
-                    if (!(n.equals("getBodyRotation") || n.equals("getBodyRotationMatrix"))) continue;
-
-                    Object rot = m.invoke(physics, body);
-                    float[] q = parseRotationToQuatWXYZ(rot);
-                    if (q != null) return q;
-                }
-            } catch (Exception ignored) { }
         }
-
-        return null;
     }
 
-    private float[] parseQuatWXYZ(Object qObj) {
-        if (qObj == null) return null;
-
-        // 배열 형태
-        if (qObj instanceof double[]) {
-            double[] a = (double[]) qObj;
-            if (a.length >= 4) return normalizeQuatWXYZ((float)a[0], (float)a[1], (float)a[2], (float)a[3]);
-        }
-        if (qObj instanceof float[]) {
-            float[] a = (float[]) qObj;
-            if (a.length >= 4) return normalizeQuatWXYZ(a[0], a[1], a[2], a[3]);
-        }
-
-        // ODE4J DQuaternion 계열: get0/get1/get2/get3 (w,x,y,z)
-        try {
-            Method g0 = qObj.getClass().getMethod("get0");
-            Method g1 = qObj.getClass().getMethod("get1");
-            Method g2 = qObj.getClass().getMethod("get2");
-            Method g3 = qObj.getClass().getMethod("get3");
-            float w = ((Number) g0.invoke(qObj)).floatValue();
-            float x = ((Number) g1.invoke(qObj)).floatValue();
-            float y = ((Number) g2.invoke(qObj)).floatValue();
-            float z = ((Number) g3.invoke(qObj)).floatValue();
-            return normalizeQuatWXYZ(w, x, y, z);
-        } catch (Exception ignored) { }
-
-        // 혹시 getW/getX/getY/getZ 형태
-        try {
-            Method gw = qObj.getClass().getMethod("getW");
-            Method gx = qObj.getClass().getMethod("getX");
-            Method gy = qObj.getClass().getMethod("getY");
-            Method gz = qObj.getClass().getMethod("getZ");
-            float w = ((Number) gw.invoke(qObj)).floatValue();
-            float x = ((Number) gx.invoke(qObj)).floatValue();
-            float y = ((Number) gy.invoke(qObj)).floatValue();
-            float z = ((Number) gz.invoke(qObj)).floatValue();
-            return normalizeQuatWXYZ(w, x, y, z);
-        } catch (Exception ignored) { }
+    private void drainInputs() {
+        if (!inputsPending) return;
+        inputsPending = false;
 
-        return null;
-    }
-
-    private float[] parseRotationToQuatWXYZ(Object rotObj) {
-        if (rotObj == null) return null;
-
-        // ODE4J rotation matrix는 종종 double[12] (3x4, row stride 4) 형태
-        if (rotObj instanceof double[]) {
-            double[] r = (double[]) rotObj;
-            if (r.length >= 12) {
-                float m00 = (float) r[0];
-                float m01 = (float) r[1];
-                float m02 = (float) r[2];
-                float m10 = (float) r[4];
-                float m11 = (float) r[5];
-                float m12 = (float) r[6];
-                float m20 = (float) r[8];
-                float m21 = (float) r[9];
-                float m22 = (float) r[10];
-                return quatFromMat3_WXYZ(m00,m01,m02,m10,m11,m12,m20,m21,m22);
-            }
-            if (r.length >= 9) {
-                float m00 = (float) r[0], m01 = (float) r[1], m02 = (float) r[2];
-                float m10 = (float) r[3], m11 = (float) r[4], m12 = (float) r[5];
-                float m20 = (float) r[6], m21 = (float) r[7], m22 = (float) r[8];
-                return quatFromMat3_WXYZ(m00,m01,m02,m10,m11,m12,m20,m21,m22);
+        Runnable r;
+        while ((r = inCommands.poll()) != null) {
+            try {
+                r.run();
+            } catch (Exception e) {
+                logger.warn("Queued controller command failed: {}", e.getMessage());
             }
         }
 
-        // DMatrix3 계열: get00/get01... 같은 accessor가 있을 수도 있음
-        try {
-            Method get00 = rotObj.getClass().getMethod("get00");
-            Method get01 = rotObj.getClass().getMethod("get01");
-            Method get02 = rotObj.getClass().getMethod("get02");
-            Method get10 = rotObj.getClass().getMethod("get10");
-            Method get11 = rotObj.getClass().getMethod("get11");
-            Method get12 = rotObj.getClass().getMethod("get12");
-            Method get20 = rotObj.getClass().getMethod("get20");
-            Method get21 = rotObj.getClass().getMethod("get21");
-            Method get22 = rotObj.getClass().getMethod("get22");
-
-            float m00 = ((Number)get00.invoke(rotObj)).floatValue();
-            float m01 = ((Number)get01.invoke(rotObj)).floatValue();
-            float m02 = ((Number)get02.invoke(rotObj)).floatValue();
-            float m10 = ((Number)get10.invoke(rotObj)).floatValue();
-            float m11 = ((Number)get11.invoke(rotObj)).floatValue();
-            float m12 = ((Number)get12.invoke(rotObj)).floatValue();
-            float m20 = ((Number)get20.invoke(rotObj)).floatValue();
-            float m21 = ((Number)get21.invoke(rotObj)).floatValue();
-            float m22 = ((Number)get22.invoke(rotObj)).floatValue();
-
-            return quatFromMat3_WXYZ(m00,m01,m02,m10,m11,m12,m20,m21,m22);
-        } catch (Exception ignored) { }
-
-        return null;
-    }
-
-    private float[] quatFromMat3_WXYZ(float m00,float m01,float m02,
-                                      float m10,float m11,float m12,
-                                      float m20,float m21,float m22) {
-        float tr = m00 + m11 + m22;
-
-        float w, x, y, z;
-        if (tr > 0f) {
-            float s = (float) Math.sqrt(tr + 1f) * 2f;
-            w = 0.25f * s;
-            x = (m21 - m12) / s;
-            y = (m02 - m20) / s;
-            z = (m10 - m01) / s;
-        } else if (m00 > m11 && m00 > m22) {
-            float s = (float) Math.sqrt(1f + m00 - m11 - m22) * 2f;
-            w = (m21 - m12) / s;
-            x = 0.25f * s;
-            y = (m01 + m10) / s;
-            z = (m02 + m20) / s;
-        } else if (m11 > m22) {
-            float s = (float) Math.sqrt(1f + m11 - m00 - m22) * 2f;
-            w = (m02 - m20) / s;
-            x = (m01 + m10) / s;
-            y = 0.25f * s;
-            z = (m12 + m21) / s;
-        } else {
-            float s = (float) Math.sqrt(1f + m22 - m00 - m11) * 2f;
-            w = (m10 - m01) / s;
-            x = (m02 + m20) / s;
-            y = (m12 + m21) / s;
-            z = 0.25f * s;
-        }
-
-        return normalizeQuatWXYZ(w, x, y, z);
-    }
-
-    private float[] normalizeQuatWXYZ(float w, float x, float y, float z) {
-        if (!Float.isFinite(w) || !Float.isFinite(x) || !Float.isFinite(y) || !Float.isFinite(z)) {
-            return null;
-        }
-        float n = (float) Math.sqrt(w*w + x*x + y*y + z*z);
-        if (!Float.isFinite(n) || n < 1e-8f) {
-            return new float[]{1f, 0f, 0f, 0f};
+        URDFPhysicsBackend b = backend;
+        for (int i = 0; i < jointArray.length; i++) {
+            int f = inFlags.getAndSet(i, 0);
+            if (f == 0) continue;
+            if ((f & IN_PREVIEW) != 0) {
+                jointArray[i].currentPosition = inPreviewPos[i];
+                targetPos[i] = inPreviewPos[i];
+                b.setJointPosition(i, inPreviewPos[i]);
+            }
+            if ((f & IN_TARGET) != 0) targetPos[i] = inTargetPos[i];
+            if ((f & IN_VELOCITY) != 0) targetVel[i] = inTargetVel[i];
         }
-        return new float[]{ w/n, x/n, y/n, z/n };
     }
 
     // ========================================================================
@@ -1542,16 +774,24 @@ public final class URDFSimpleController {
     // ========================================================================
 
     public void setTarget(String name, float value) {
-        URDFJoint j = joints.get(name);
-        if (j == null) return;
+        int i = indexOfJoint(name);
+        if (i < 0) return;
 
-        if (j.type == URDFJoint.JointType.CONTINUOUS) {
+        if (jointType[i] == JT_CONTINUOUS) {
             value = wrapToPi(value);
         }
-        if (j.limit != null && j.limit.hasLimits()) {
-            value = Mth.clamp(value, j.limit.lower, j.limit.upper);
+        if (hasLimits[i]) {
+            value = Mth.clamp(value, lowerLimit[i], upperLimit[i]);
+        }
+        if (Math.abs(value - targetPos[i]) > WAKE_TARGET_DELTA) {
+            requestWake();
+        }
+        if (asyncInputs) {
+            inTargetPos[i] = value;
+            markInput(i, IN_TARGET);
+        } else {
+            targetPos[i] = value;
         }
-        target.put(name, value);
     }
 
     public void setTargets(Map<String, Float> targets) {
@@ -1561,11 +801,40 @@ public final class URDFSimpleController {
     }
 
     public float getTarget(String name) {
-        return target.getOrDefault(name, 0f);
+        int i = indexOfJoint(name);
+        if (i < 0) return 0f;
+        // 아직 반영 안 된 입력이 있으면 그 값을 보여줌 (GUI 왕복 시 값이 튀지 않게)
+        return (asyncInputs && (inFlags.get(i) & IN_TARGET) != 0) ? inTargetPos[i] : targetPos[i];
     }
 
     public void setTargetVelocity(String name, float velocity) {
-        targetVelocities.put(name, velocity);
+        int i = indexOfJoint(name);
+        if (i < 0) return;
+        if (velocity != 0f) requestWake();
+        if (asyncInputs) {
+            inTargetVel[i] = velocity;
+            markInput(i, IN_VELOCITY);
+        } else {
+            targetVel[i] = velocity;
+        }
+    }
+
+    /** 조인트 인덱스 (없으면 -1). 인덱스는 컨트롤러 수명 동안 고정 */
+    public int indexOfJoint(String name) {
+        if (name == null) return -1;
+        return table.indexOf(name);
+    }
+
+    public int getJointCount() {
+        return jointArray.length;
+    }
+
+    /** 조인트별 물리 PD 게인 (setPhysicsGains/setGains는 전체 조인트를 덮어씀) */
+    public void setJointPhysicsGains(String name, float kp, float kd) {
+        int i = indexOfJoint(name);
+        if (i < 0) return;
+        jointKp[i] = kp;
+        jointKd[i] = kd;
     }
 
     public boolean hasJoint(String name) {
@@ -1621,77 +890,95 @@ public final class URDFSimpleController {
     }
 
     public void setPreviewPosition(String name, float value) {
-        URDFJoint j = joints.get(name);
-        if (j == null) return;
-        if (j.limit != null && j.limit.hasLimits()) {
-            value = Mth.clamp(value, j.limit.lower, j.limit.upper);
+        int i = indexOfJoint(name);
+        if (i < 0) return;
+        if (hasLimits[i]) {
+            value = Mth.clamp(value, lowerLimit[i], upperLimit[i]);
+        }
+        if (Math.abs(value - targetPos[i]) > WAKE_TARGET_DELTA) {
+            requestWake();
+        }
+        if (asyncInputs) {
+            inPreviewPos[i] = value;
+            markInput(i, IN_PREVIEW);
+        } else {
+            jointArray[i].currentPosition = value;
+            targetPos[i] = value;
+            backend.setJointPosition(i, value);
         }
-        j.currentPosition = value;
-        target.put(j.name, value);
     }
 
+    /** 강체 동역학 백엔드로 동작 중인지 (키네마틱이면 false) */
     public boolean isUsingPhysics() {
-        return usePhysics && physicsInitialized;
+        return backend.isDynamic();
     }
 
     public void setGains(float kp, float kd) {
-        this.kp = kp;
-        this.kd = kd;
-        this.physicsKp = kp * 5f;
-        this.physicsKd = kd * 3f;
+        table.kinematicKp = kp;
+        table.kinematicKd = kd;
+        table.physicsKp = kp * 5f;
+        table.physicsKd = kd * 3f;
+        Arrays.fill(jointKp, table.physicsKp);
+        Arrays.fill(jointKd, table.physicsKd);
     }
 
     public void setLimits(float maxVel, float maxAcc) {
-        this.defaultMaxVel = maxVel;
-        this.defaultMaxAcc = maxAcc;
+        table.maxVel = maxVel;
+        table.maxAcc = maxAcc;
     }
 
     public void setPhysicsGains(float kp, float kd) {
-        this.physicsKp = kp;
-        this.physicsKd = kd;
+        table.physicsKp = kp;
+        table.physicsKd = kd;
+        Arrays.fill(jointKp, kp);
+        Arrays.fill(jointKd, kd);
     }
 
     public void setEffortLimits(float maxTorque, float maxForce) {
-        this.maxTorque = maxTorque;
-        this.maxForce = maxForce;
+        table.maxTorque = maxTorque;
+        table.maxForce = maxForce;
     }
 
+    /** 스폰(앵커) 전에 호출 (백엔드가 앵커링 시 스케일을 반영) */
     public void setPhysicsScale(float scale) {
-        this.physicsScale = scale;
+        table.scale = scale;
     }
 
     public void setMotorsEnabled(boolean enabled) {
-        this.motorsEnabled = enabled;
+        table.motorsEnabled = enabled;
     }
 
     public boolean isMotorsEnabled() {
-        return motorsEnabled;
+        return table.motorsEnabled;
+    }
+
+    /** ODE 네이티브 조인트 모터(속도 + 최대 힘)로 구동 (false면 서브스텝마다 PD 토크) */
+    public void setNativeMotors(boolean enabled) {
+        table.nativeMotors = enabled;
+    }
+
+    public boolean isNativeMotors() {
+        return table.nativeMotors;
     }
 
     public void setPhysicsSubSteps(int subSteps) {
-        this.physicsSubSteps = Math.max(1, Math.min(subSteps, 10));
+        table.subSteps = Math.max(1, Math.min(subSteps, 10));
     }
 
     public void applyExternalForce(String linkName, float fx, float fy, float fz) {
-        if (!usePhysics) return;
-        Object body = bodies.get(linkName);
-        if (body != null && physics != null) {
-            physics.addForce(body, fx, fy, fz);
-        }
+        if (!backend.isDynamic() || linkName == null) return;
+        runOnSimulation(() -> backend.applyForce(linkName, fx, fy, fz));
     }
 
     public void applyExternalTorque(String linkName, float tx, float ty, float tz) {
-        if (!usePhysics) return;
-        Object body = bodies.get(linkName);
-        if (body != null && physics != null) {
-            physics.addTorque(body, tx, ty, tz);
-        }
+        if (!backend.isDynamic() || linkName == null) return;
+        runOnSimulation(() -> backend.applyTorque(linkName, tx, ty, tz));
     }
 
+    /** 백엔드를 바꿔도 유지됨 (ODE4J 백엔드는 전역 월드 중력을 바꿈) */
     public void setGravity(float x, float y, float z) {
-        if (physics != null) {
-            physics.setGravity(x, y, z);
-        }
+        this.gravity = new float[]{x, y, z};
+        runOnSimulation(() -> backend.setGravity(x, y, z));
     }
 
     // ========================================================================
@@ -1699,16 +986,11 @@ public final class URDFSimpleController {
     // ========================================================================
 
     public void cleanup() {
-        if (blockCollisionManager != null) {
-            blockCollisionManager.cleanup();
-            blockCollisionManager = null;
+        synchronized (URDFSimulationThread.WORLD_LOCK) {
+            releaseBackend(backend);
+            // 정리 후에도 조인트 API는 동작하도록 키네마틱으로 남김
+            this.backend = new KinematicBackend(table);
         }
-
-        bodies.clear();
-        geoms.clear();
-        odeJoints.clear();
-        linkRadii.clear();
-        physicsInitialized = false;
         worldAnchored = false;
         initialAnchorPosition = null;
 
@@ -1716,19 +998,18 @@ public final class URDFSimpleController {
     }
 
     public void resetPhysics() {
-        for (URDFJoint j : joints.values()) {
+        runOnSimulation(this::resetPhysicsNow);
+    }
+
+    private void resetPhysicsNow() {
+        for (URDFJoint j : jointArray) {
             j.currentPosition = 0f;
             j.currentVelocity = 0f;
-            target.put(j.name, 0f);
-            targetVelocities.put(j.name, 0f);
         }
+        Arrays.fill(targetPos, 0f);
+        Arrays.fill(targetVel, 0f);
 
-        for (Object body : bodies.values()) {
-            if (body != null && physics != null) {
-                physics.setBodyLinearVel(body, 0, 0, 0);
-                physics.setBodyAngularVel(body, 0, 0, 0);
-            }
-        }
+        backend.reset();
 
         worldAnchored = false;
         initialAnchorPosition = null;
@@ -1740,23 +1021,7 @@ public final class URDFSimpleController {
     // 유틸리티
     // ========================================================================
 
-    private float getLinkRadius(String linkName) {
-        Float r = linkRadii.get(linkName);
-        if (r == null || r <= 0f || !Float.isFinite(r)) {
-            r = 0.1f;
-        }
-        return r * physicsScale;
-    }
-
-    private boolean isFixedLink(URDFLink link) {
-        return "world".equals(link.name);
-    }
-
     private static float wrapToPi(float a) {
-        float twoPi = (float) (Math.PI * 2.0);
-        a = a % twoPi;
-        if (a > Math.PI) a -= twoPi;
-        if (a < -Math.PI) a += twoPi;
-        return a;
+        return URDFJointTable.wrapToPi(a);
     }
 }
@@ -13,11 +13,14 @@ import org.joml.Quaternionf;
 import org.joml.Vector3f;
 
 import java.net.*;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
 
 public class VMCListenerController extends Screen {
     private static final int BG_COLOR = 0xFF0E0E10;
@@ -119,11 +122,17 @@ public class VMCListenerController extends Screen {
         VmcListener.Diagnostics diag = listener.getDiagnostics();
         List<String> lines = new ArrayList<>();
         if (diag.running()) {
-            lines.add("§aStatus: RUNNING §l§o(Atomic Snapshot)");
+            lines.add("§aStatus: RUNNING §l§o(Triple Buffer)");
             long elapsed = System.currentTimeMillis() - diag.lastPacketTime();
             lines.add("Last packet: " + (elapsed < 1000 ? "§a" + elapsed + "ms" : "§c" + elapsed + "ms"));
-            lines.add("Active Bones: " + listener.getSnapshot().size());
+            lines.add("Active Bones: " + listener.acquireFrame().boneCount());
             lines.add("VMC Packets: " + diag.vmcPackets());
+            lines.add("Frames: " + diag.frames());
+            // 소스(퍼포머)별
+            for (String id : listener.getSourceIds()) {
+                VmcListener.Diagnostics d = listener.getDiagnostics(id);
+                lines.add(" - " + id + ": bones " + listener.acquireFrame(id).boneCount() + ", frames " + d.frames());
+            }
         } else {
             lines.add("§cStatus: STOPPED");
         }
@@ -149,31 +158,55 @@ public class VMCListenerController extends Screen {
     @Override
     public boolean isPauseScreen() { return false; }
 
-    /* ======================== VmcListener (Atomic Snapshot) ======================== */
+    /* ======================== VmcListener (멀티 소스, 셀렉터 스레드 1개) ======================== */
     public static final class VmcListener {
         private static final Logger logger = LogManager.getLogger();
         private static volatile VmcListener instance;
-        private DatagramSocket socket;
-        private Thread receiverThread;
-        private final AtomicBoolean running = new AtomicBoolean(false);
 
-        // ✅ Atomic Snapshot: 읽기/쓰기 분리
-        private final AtomicReference<Map<String, Transform>> snapshot = new AtomicReference<>(Collections.emptyMap());
-        private final Map<String, Transform> writingBuffer = new HashMap<>();
+        /** start(addr, port)로 여는 소스, 라우팅이 없는 로봇이 따르는 소스 */
+        public static final String DEFAULT_SOURCE = "default";
 
-        private final AtomicLong totalPackets = new AtomicLong(0);
-        private final AtomicLong vmcPackets = new AtomicLong(0);
-        private final AtomicLong lastPacketTime = new AtomicLong(0);
+        private static final long SELECT_TIMEOUT_MS = 500;
+        /** 한 번 깨어날 때 포트 하나에서 읽는 최대 데이터그램 수 (바쁜 포트가 다른 포트를 굶기지 않게) */
+        private static final int MAX_DATAGRAMS_PER_WAKE = 64;
+        /** 포트 하나에 여러 퍼포머가 몰릴 때 커널 버퍼에서 번들이 버려지지 않게 */
+        private static final int RECEIVE_BUFFER_BYTES = 1 << 20;
+        private static final VmcFrameBuffer.Frame EMPTY_FRAME = new VmcFrameBuffer.Frame();
 
-        private static final Set<String> STANDARD_BONE_NAMES = Set.of(
-                "Hips", "Spine", "Chest", "UpperChest", "Neck", "Head",
-                "LeftShoulder", "LeftUpperArm", "LeftLowerArm", "LeftHand",
-                "RightShoulder", "RightUpperArm", "RightLowerArm", "RightHand",
-                "LeftUpperLeg", "LeftLowerLeg", "LeftFoot",
-                "RightUpperLeg", "RightLowerLeg", "RightFoot"
-        );
+        private Selector selector;
+        private Thread receiverThread;
+        private final AtomicBoolean running = new AtomicBoolean(false);
 
-        private java.util.function.Function<String, String> boneNameNormalizer = name -> name;
+        // ✅ 소스별 디코더 → 번들/OK마다 소스별 트리플 버퍼로 게시 → 클라이언트 스레드가 읽음
+        private final Map<String, VmcSource> sources = new ConcurrentHashMap<>();
+        private final Map<Integer, Binding> bindings = new ConcurrentHashMap<>(); // 포트 → 채널
+        private final Queue<Runnable> pendingOps = new ConcurrentLinkedQueue<>(); // 셀렉터 스레드에서 실행
+        private final Map<URDFModelOpenGLWithSTL, String> routes = Collections.synchronizedMap(new WeakHashMap<>());
+
+        private volatile java.util.function.Function<String, String> boneNameNormalizer = name -> name;
+        private volatile Map<String, String> boneAliases = Map.of();
+
+        /** UDP 포트 하나 = DatagramChannel 하나, 송신 주소로 소스 구분 */
+        private static final class Binding {
+            final int port;
+            final DatagramChannel channel;
+            final Map<InetAddress, VmcSource> bySender = new ConcurrentHashMap<>();
+            volatile VmcSource fallback;
+            int sourceCount = 0; // synchronized 메서드에서만
+
+            Binding(int port, DatagramChannel channel) {
+                this.port = port;
+                this.channel = channel;
+            }
+
+            VmcSource route(SocketAddress from) {
+                if (!bySender.isEmpty() && from instanceof InetSocketAddress isa) {
+                    VmcSource s = bySender.get(isa.getAddress());
+                    if (s != null) return s;
+                }
+                return fallback;
+            }
+        }
 
         private VmcListener() {}
 
@@ -186,167 +219,260 @@ public class VMCListenerController extends Screen {
             return instance;
         }
 
+        /** 처음 보는 본 이름에만 호출됨 (결과는 디코더 바이트 테이블에 기억) */
         public void setBoneNameNormalizer(java.util.function.Function<String, String> normalizer) {
             this.boneNameNormalizer = normalizer != null ? normalizer : name -> name;
+            for (VmcSource s : sources.values()) s.setNormalizer(boneNameNormalizer, boneAliases);
         }
 
-        public synchronized void start(String addr, int port) {
-            if (running.get()) return;
-            try {
-                InetAddress bindAddr = "0.0.0.0".equals(addr) ? null : InetAddress.getByName(addr);
-                socket = bindAddr == null ? new DatagramSocket(port) : new DatagramSocket(port, bindAddr);
-                running.set(true);
-
-                writingBuffer.clear();
-                snapshot.set(Collections.emptyMap());
+        /** 별칭 → 표준 본 이름 (디코더 테이블에 미리 넣어 정규화기 호출 없이 바로 찾음) */
+        public void setBoneAliases(Map<String, String> aliases) {
+            this.boneAliases = aliases != null ? aliases : Map.of();
+            for (VmcSource s : sources.values()) s.setNormalizer(boneNameNormalizer, boneAliases);
+        }
 
-                receiverThread = new Thread(this::receiveLoop, "VMC-Receiver");
-                receiverThread.setDaemon(true);
-                receiverThread.start();
+        /** 기본 소스 시작 (기존 단일 리스너 호환) */
+        public synchronized void start(String addr, int port) {
+            if (sources.containsKey(DEFAULT_SOURCE)) return;
+            if (addSource(DEFAULT_SOURCE, addr, port, null)) {
                 logger.info("VMC Listener started on {}:{}", addr, port);
-            } catch (Exception e) {
-                logger.error("Failed to start", e);
             }
         }
 
-        public synchronized void stop() {
-            if (!running.get()) return;
-            running.set(false);
-            if (socket != null) socket.close();
-            writingBuffer.clear();
-            snapshot.set(Collections.emptyMap());
-        }
-
-        private void receiveLoop() {
-            byte[] buffer = new byte[65536];
-            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
-            boolean first = true;
+        /**
+         * VMC 소스 추가 (퍼포머 한 명) - 모든 소스는 셀렉터 스레드 하나에서 수신
+         * @param bindAddr 바인드 주소 ("0.0.0.0"/null = 전체), 같은 포트의 두 번째 소스부터는 무시
+         * @param remoteAddr 송신 주소 (null/빈 값 = 이 포트에서 다른 소스에 안 걸린 패킷 전부)
+         * @return 추가 성공 여부 (같은 id, 같은 포트+송신 주소가 이미 있으면 false)
+         */
+        public synchronized boolean addSource(String id, String bindAddr, int port, String remoteAddr) {
+            try {
+                ensureSelector();
+            } catch (Exception e) {
+                logger.error("Failed to start VMC receiver", e);
+                return false;
+            }
+            if (id == null || sources.containsKey(id)) {
+                logger.warn("VMC source '{}' already exists", id);
+                return false;
+            }
+            Binding binding = null;
+            boolean opened = false;
+            try {
+                InetAddress remote = (remoteAddr == null || remoteAddr.isBlank()) ? null : InetAddress.getByName(remoteAddr);
+
+                binding = bindings.get(port);
+                if (binding == null) {
+                    InetAddress bind = (bindAddr == null || "0.0.0.0".equals(bindAddr)) ? null : InetAddress.getByName(bindAddr);
+                    DatagramChannel channel = DatagramChannel.open();
+                    channel.configureBlocking(false);
+                    channel.setOption(StandardSocketOptions.SO_RCVBUF, RECEIVE_BUFFER_BYTES);
+                    channel.bind(new InetSocketAddress(bind, port));
+                    binding = new Binding(port, channel);
+                    opened = true;
+                }
 
-            while (running.get()) {
-                try {
-                    packet.setLength(buffer.length);
-                    socket.receive(packet);
-                    lastPacketTime.set(System.currentTimeMillis());
-                    totalPackets.incrementAndGet();
-
-                    if (first) {
-                        first = false;
-                        Minecraft.getInstance().execute(() ->
-                                Minecraft.getInstance().gui.getChat().addMessage(
-                                        Component.literal("§b[VMC] Connected! (Atomic Snapshot Mode)")));
+                VmcSource source = new VmcSource(id, port, remote, boneNameNormalizer, boneAliases);
+                if (remote == null) {
+                    if (binding.fallback != null) {
+                        logger.warn("VMC port {} already has a catch-all source '{}'", port, binding.fallback.id);
+                        if (opened) binding.channel.close();
+                        return false;
                     }
+                    binding.fallback = source;
+                } else if (binding.bySender.putIfAbsent(remote, source) != null) {
+                    logger.warn("VMC port {} already has a source for {}", port, remote.getHostAddress());
+                    if (opened) binding.channel.close();
+                    return false;
+                }
 
-                    processOscPacket(buffer, packet.getLength());
-                    commitSnapshot(); // ✅ 패킷 처리 후 Atomic Commit
-                } catch (Exception ignored) {}
+                if (opened) {
+                    Binding b = binding;
+                    bindings.put(port, b);
+                    pendingOps.add(() -> {
+                        try {
+                            b.channel.register(selector, SelectionKey.OP_READ, b);
+                        } catch (Exception e) {
+                            logger.error("Failed to register VMC port {}", b.port, e);
+                        }
+                    });
+                    selector.wakeup();
+                }
+                binding.sourceCount++;
+                sources.put(id, source);
+                logger.info("VMC source added: {}", source.describe());
+                return true;
+            } catch (Exception e) {
+                logger.error("Failed to add VMC source '{}' on port {}", id, port, e);
+                if (opened) {
+                    try {
+                        binding.channel.close();
+                    } catch (Exception ignored) {}
+                }
+                return false;
             }
         }
 
-        private void commitSnapshot() {
-            Map<String, Transform> newSnapshot = new HashMap<>(writingBuffer.size());
-            for (var e : writingBuffer.entrySet()) {
-                Transform src = e.getValue();
-                if (src == null) continue;
-                Transform dst = new Transform();
-                dst.position.set(src.position);
-                dst.rotation.set(src.rotation);
-                newSnapshot.put(e.getKey(), dst);
+        public synchronized boolean removeSource(String id) {
+            VmcSource source = id != null ? sources.remove(id) : null;
+            if (source == null) return false;
+
+            Binding binding = bindings.get(source.port);
+            if (binding != null) {
+                if (binding.fallback == source) binding.fallback = null;
+                if (source.remote != null) binding.bySender.remove(source.remote, source);
+                if (--binding.sourceCount <= 0) {
+                    bindings.remove(source.port);
+                    pendingOps.add(() -> closeQuietly(binding.channel));
+                }
             }
-            snapshot.set(Collections.unmodifiableMap(newSnapshot));
+            // 빈 프레임 게시는 쓰기 스레드(셀렉터)에서
+            pendingOps.add(source::reset);
+            if (selector != null) selector.wakeup();
+            logger.info("VMC source removed: {}", source.describe());
+            return true;
         }
 
-        private void processOscPacket(byte[] data, int length) {
-            if (length < 8) return;
-            if (startsWith(data, 0, "#bundle")) processBundleRecursive(data, 0, length);
-            else processOscMessage(data, 0, length);
+        /** 모든 소스 정지 (로봇 라우팅은 유지 → 같은 id로 다시 추가하면 그대로 이어짐) */
+        public synchronized void stop() {
+            if (receiverThread == null) return;
+            running.set(false);
+            selector.wakeup();
+            // 쓰기 스레드가 하나만 있도록 셀렉터 스레드 종료를 기다림 (채널 닫고 빈 프레임 게시 후 끝남)
+            if (receiverThread != null) {
+                try {
+                    receiverThread.join(500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            sources.clear();
+            bindings.clear();
+            pendingOps.clear();
+            selector = null;
+            receiverThread = null;
         }
 
-        private void processBundleRecursive(byte[] data, int offset, int length) {
-            int pos = offset + 16;
-            while (pos + 4 <= offset + length) {
-                int size = readInt(data, pos);
-                pos += 4;
-                if (pos + size > offset + length) break;
-                if (startsWith(data, pos, "#bundle")) processBundleRecursive(data, pos, size);
-                else processOscMessage(data, pos, size);
-                pos += size;
-            }
+        private void ensureSelector() throws java.io.IOException {
+            if (running.get()) return;
+            if (receiverThread != null) stop(); // 셀렉터 스레드가 오류로 끝난 경우 남은 상태 정리
+            selector = Selector.open();
+            running.set(true);
+            receiverThread = new Thread(this::selectLoop, "VMC-Receiver");
+            receiverThread.setDaemon(true);
+            receiverThread.start();
         }
 
-        private void processOscMessage(byte[] data, int offset, int length) {
-            int pos = offset;
-            int end = offset + length;
-            String address = readString(data, pos, end);
-            if (address == null) return;
-            pos += padLen(address);
-
-            String types = readString(data, pos, end);
-            if (types == null || !types.startsWith(",")) return;
-            pos += padLen(types);
-
-            List<Object> args = new ArrayList<>();
-            for (int i = 1; i < types.length(); i++) {
-                char t = types.charAt(i);
-                if (t == 'f' && pos + 4 <= end) {
-                    args.add(Float.intBitsToFloat(readInt(data, pos)));
-                    pos += 4;
-                } else if (t == 's') {
-                    String s = readString(data, pos, end);
-                    args.add(s);
-                    pos += padLen(s);
-                } else return;
+        private void selectLoop() {
+            byte[] buffer = new byte[65536];
+            ByteBuffer buf = ByteBuffer.wrap(buffer);
+            Selector sel = selector;
+            try {
+                while (running.get()) {
+                    Runnable op;
+                    while ((op = pendingOps.poll()) != null) op.run();
+                    // 준비된 키만 콜백 (selectedKeys 집합/이터레이터 없이)
+                    sel.select(key -> drain(key, buffer, buf), SELECT_TIMEOUT_MS);
+                }
+            } catch (Exception e) {
+                if (running.get()) logger.error("VMC receiver stopped", e);
+            } finally {
+                running.set(false);
+                for (Binding b : bindings.values()) closeQuietly(b.channel);
+                closeQuietly(sel);
+                for (VmcSource s : sources.values()) s.reset();
             }
-            handleVmcMessage(address, args.toArray());
         }
 
-        private void handleVmcMessage(String address, Object[] args) {
-            if (!address.startsWith("/VMC/Ext/")) return;
-            vmcPackets.incrementAndGet();
-
-            if (address.equals("/VMC/Ext/Bone/Pos")) {
-                if (args.length >= 8 && args[0] instanceof String rawName) {
-                    String normalized = boneNameNormalizer.apply(rawName);
-                    if (normalized != null && STANDARD_BONE_NAMES.contains(normalized)) {
-                        Transform t = writingBuffer.computeIfAbsent(normalized, k -> new Transform());
-                        t.position.set(getFloat(args, 1), getFloat(args, 2), getFloat(args, 3));
-                        t.rotation.set(getFloat(args, 4), getFloat(args, 5), getFloat(args, 6), getFloat(args, 7)).normalize();
-                    }
+        private void drain(SelectionKey key, byte[] buffer, ByteBuffer buf) {
+            Binding binding = (Binding) key.attachment();
+            for (int i = 0; i < MAX_DATAGRAMS_PER_WAKE; i++) {
+                SocketAddress from;
+                try {
+                    buf.clear();
+                    from = binding.channel.receive(buf);
+                } catch (Exception e) {
+                    logger.debug("VMC receive failed on port {}: {}", binding.port, e.toString());
+                    return;
                 }
+                if (from == null) return;
+
+                // 데이터그램 하나 = 번들 전체 → 끝난 뒤에만 게시 (본 일부만 갱신된 프레임이 보이지 않음)
+                VmcSource source = binding.route(from);
+                if (source == null) continue;
+                try {
+                    source.accept(buffer, buf.position());
+                } catch (Exception ignored) {}
             }
         }
 
-        private static boolean startsWith(byte[] d, int o, String p) {
-            byte[] pb = p.getBytes(StandardCharsets.US_ASCII);
-            if (o + pb.length > d.length) return false;
-            for (int i = 0; i < pb.length; i++) if (d[o + i] != pb[i]) return false;
-            return true;
+        private static void closeQuietly(java.io.Closeable c) {
+            try {
+                c.close();
+            } catch (Exception ignored) {}
         }
-        private static int readInt(byte[] d, int o) {
-            return ((d[o] & 0xFF) << 24) | ((d[o + 1] & 0xFF) << 16) | ((d[o + 2] & 0xFF) << 8) | (d[o + 3] & 0xFF);
+
+        public boolean isRunning() { return running.get(); }
+
+        /** 소스 id 목록 (이름순) */
+        public List<String> getSourceIds() {
+            List<String> ids = new ArrayList<>(sources.keySet());
+            Collections.sort(ids);
+            return ids;
         }
-        private static String readString(byte[] d, int o, int e) {
-            int l = 0;
-            while (o + l < e && d[o + l] != 0) l++;
-            return o + l >= e ? null : new String(d, o, l, StandardCharsets.US_ASCII);
+
+        // ========== 로봇 라우팅 ==========
+
+        /** 이 로봇을 특정 소스로 구동 (null이면 라우팅 해제 → 기본 소스) */
+        public void route(URDFModelOpenGLWithSTL renderer, String sourceId) {
+            if (renderer == null) return;
+            if (sourceId == null) routes.remove(renderer);
+            else routes.put(renderer, sourceId);
         }
-        private static int padLen(String s) {
-            int l = s.getBytes(StandardCharsets.US_ASCII).length + 1;
-            return l + ((4 - (l % 4)) & 3);
+
+        public String getRoute(URDFModelOpenGLWithSTL renderer) {
+            String id = renderer != null ? routes.get(renderer) : null;
+            return id != null ? id : DEFAULT_SOURCE;
         }
-        private static float getFloat(Object[] a, int i) {
-            if (i >= a.length) return 0f;
-            Object o = a[i];
-            return o instanceof Number n ? n.floatValue() : 0f;
+
+        /**
+         * 최신 완전 프레임 (클라이언트 스레드 전용, 다음 호출 전까지 내용 고정)
+         * 새 프레임이 없으면 직전 프레임을 그대로 돌려줌 - 할당/복사 없음, 소스가 없으면 빈 프레임
+         */
+        VmcFrameBuffer.Frame acquireFrame(String sourceId) {
+            VmcSource s = sourceId != null ? sources.get(sourceId) : null;
+            return s != null ? s.acquire() : EMPTY_FRAME;
         }
 
-        public boolean isRunning() { return running.get(); }
+        VmcFrameBuffer.Frame acquireFrame(URDFModelOpenGLWithSTL renderer) {
+            return acquireFrame(getRoute(renderer));
+        }
 
-        public Map<String, Transform> getSnapshot() {
-            return snapshot.get();
+        VmcFrameBuffer.Frame acquireFrame() {
+            return acquireFrame(DEFAULT_SOURCE);
         }
 
+        /** 전체 합계 (recent = 소스 설명 목록) */
         public Diagnostics getDiagnostics() {
-            return new Diagnostics(running.get(), lastPacketTime.get(), totalPackets.get(), vmcPackets.get(), List.of());
+            long last = 0, total = 0, vmc = 0, frames = 0;
+            List<String> described = new ArrayList<>();
+            for (String id : getSourceIds()) {
+                VmcSource s = sources.get(id);
+                if (s == null) continue;
+                Diagnostics d = s.diagnostics(running.get());
+                last = Math.max(last, d.lastPacketTime());
+                total += d.totalPackets();
+                vmc += d.vmcPackets();
+                frames += d.frames();
+                described.add(s.describe());
+            }
+            return new Diagnostics(running.get(), last, total, vmc, frames, described);
+        }
+
+        public Diagnostics getDiagnostics(String sourceId) {
+            VmcSource s = sourceId != null ? sources.get(sourceId) : null;
+            return s != null ? s.diagnostics(running.get())
+                    : new Diagnostics(false, 0, 0, 0, 0, List.of());
         }
 
         public static class Transform {
@@ -354,6 +480,6 @@ public class VMCListenerController extends Screen {
             public final Quaternionf rotation = new Quaternionf();
         }
 
-        public record Diagnostics(boolean running, long lastPacketTime, long totalPackets, long vmcPackets, List<String> recent) {}
+        public record Diagnostics(boolean running, long lastPacketTime, long totalPackets, long vmcPackets, long frames, List<String> recent) {}
     }
 }
\ No newline at end of file
@@ -19,8 +19,21 @@ final class VmcDrive {
     private static final VMCListenerController.VmcListener.Transform TMP_RUA   = new VMCListenerController.VmcListener.Transform();
     private static final VMCListenerController.VmcListener.Transform TMP_RLA   = new VMCListenerController.VmcListener.Transform();
 
+    private static final Quaternionf TMP_SRC_ROT = new Quaternionf();
+
     private static final Map<String, Float> LOCAL_FRAME = new HashMap<>();
 
+    // 본 ID (VmcOscDecoder.STANDARD_BONE_NAMES 인덱스)
+    private static final int HIPS = VmcOscDecoder.boneId("Hips");
+    private static final int SPINE = VmcOscDecoder.boneId("Spine");
+    private static final int CHEST = VmcOscDecoder.boneId("Chest");
+    private static final int NECK = VmcOscDecoder.boneId("Neck");
+    private static final int HEAD = VmcOscDecoder.boneId("Head");
+    private static final int LEFT_UPPER_ARM = VmcOscDecoder.boneId("LeftUpperArm");
+    private static final int LEFT_LOWER_ARM = VmcOscDecoder.boneId("LeftLowerArm");
+    private static final int RIGHT_UPPER_ARM = VmcOscDecoder.boneId("RightUpperArm");
+    private static final int RIGHT_LOWER_ARM = VmcOscDecoder.boneId("RightLowerArm");
+
     // ============================================
     // 🎯 URDF 축 정의 (Chest 프레임 기준)
     // ============================================
@@ -83,17 +96,26 @@ final class VmcDrive {
         return dst;
     }
 
+    /** 프레임의 본 회전을 바로 URDF 좌표계로 (Transform 복사 없이) */
+    private static VMCListenerController.VmcListener.Transform toUrdf(
+            URDFModelOpenGLWithSTL renderer,
+            VmcFrameBuffer.Frame bones,
+            int bone,
+            VMCListenerController.VmcListener.Transform dst
+    ) {
+        if (!bones.has(bone)) return null;
+        renderer.trackingRotToUrdf(bones.rotation(bone, TMP_SRC_ROT), dst.rotation);
+        return dst;
+    }
+
     static void tick(URDFModelOpenGLWithSTL renderer, Map<String, Float> outFrame) {
         var listener = VMCListenerController.VmcListener.getInstance();
-        Map<String, VMCListenerController.VmcListener.Transform> bones = listener.getSnapshot();
+        VmcFrameBuffer.Frame bones = listener.acquireFrame(renderer); // 이 로봇에 라우팅된 소스 (없으면 기본 소스)
         if (bones.isEmpty()) return;
 
-        var chestSrc = bones.get("Chest");
-        if (chestSrc == null) chestSrc = bones.get("Spine");
-        if (chestSrc == null) chestSrc = bones.get("Hips");
-        if (chestSrc == null) return;
-
-        var chest = toUrdf(renderer, chestSrc, TMP_CHEST);
+        int chestBone = bones.has(CHEST) ? CHEST : bones.has(SPINE) ? SPINE : HIPS;
+        var chest = toUrdf(renderer, bones, chestBone, TMP_CHEST);
+        if (chest == null) return;
 
         Map<String, Float> frame = (outFrame != null) ? outFrame : LOCAL_FRAME;
         frame.clear();
@@ -110,17 +132,15 @@ final class VmcDrive {
     private static void processArm(
             URDFModelOpenGLWithSTL renderer,
             Map<String, Float> frame,
-            Map<String, VMCListenerController.VmcListener.Transform> bones,
+            VmcFrameBuffer.Frame bones,
             VMCListenerController.VmcListener.Transform parentBone,
             boolean isLeft
     ) {
-        String upperName = isLeft ? "LeftUpperArm" : "RightUpperArm";
-        String lowerName = isLeft ? "LeftLowerArm" : "RightLowerArm";
-
-        var upperSrc = bones.get(upperName);
-        if (upperSrc == null) return;
+        int upperBone = isLeft ? LEFT_UPPER_ARM : RIGHT_UPPER_ARM;
+        int lowerBone = isLeft ? LEFT_LOWER_ARM : RIGHT_LOWER_ARM;
 
-        var upper = toUrdf(renderer, upperSrc, isLeft ? TMP_LUA : TMP_RUA);
+        var upper = toUrdf(renderer, bones, upperBone, isLeft ? TMP_LUA : TMP_RUA);
+        if (upper == null) return;
 
         // === 1) Shoulder: 정규화 + 캘리브레이션 적용 ===
         Quaternionf parentRot = new Quaternionf(parentBone.rotation).normalize();
@@ -172,10 +192,8 @@ final class VmcDrive {
         }
 
         // === Elbow: UpperArm → LowerArm (Z축 twist) ===
-        var lowerSrc = bones.get(lowerName);
-        if (lowerSrc != null) {
-            var lower = toUrdf(renderer, lowerSrc, isLeft ? TMP_LLA : TMP_RLA);
-
+        var lower = toUrdf(renderer, bones, lowerBone, isLeft ? TMP_LLA : TMP_RLA);
+        if (lower != null) {
             Quaternionf upperRot = new Quaternionf(upper.rotation).normalize();
             Quaternionf lowerRot = new Quaternionf(lower.rotation).normalize();
             Quaternionf localElbow = new Quaternionf(upperRot).conjugate().mul(lowerRot).normalize();
@@ -198,15 +216,13 @@ final class VmcDrive {
     private static void processHead(
             URDFModelOpenGLWithSTL renderer,
             Map<String, Float> frame,
-            Map<String, VMCListenerController.VmcListener.Transform> bones,
+            VmcFrameBuffer.Frame bones,
             VMCListenerController.VmcListener.Transform chest
     ) {
-        var headSrc = bones.get("Head");
-        if (headSrc == null) return;
-        var head = toUrdf(renderer, headSrc, TMP_HEAD);
+        var head = toUrdf(renderer, bones, HEAD, TMP_HEAD);
+        if (head == null) return;
 
-        var neckSrc = bones.get("Neck");
-        var neck = (neckSrc != null) ? toUrdf(renderer, neckSrc, TMP_NECK) : null;
+        var neck = toUrdf(renderer, bones, NECK, TMP_NECK);
         var parent = (neck != null) ? neck : chest;
 
         Quaternionf parentRot = new Quaternionf(parent.rotation).normalize();
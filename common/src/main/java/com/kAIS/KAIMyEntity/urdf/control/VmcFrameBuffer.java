@@ -0,0 +1,86 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * VMC 프레임 트리플 버퍼 (락 없음, 할당 없음)
+ *
+ * - 쓰기: 수신 스레드 하나. writeFrame()에 채우고 publish() → 가운데 버퍼와 교환
+ * - 읽기: 클라이언트 스레드 하나. acquire()는 새 프레임이 있을 때만 가운데 버퍼와 교환하고,
+ *   돌려준 Frame은 다음 acquire() 전까지 바뀌지 않음 (번들/OK 단위로 한 번에 게시된 완전한 프레임)
+ */
+final class VmcFrameBuffer {
+
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;
+
+    /** 본 포즈 [본ID * 7 + (px, py, pz, qx, qy, qz, qw)] + 존재 비트 */
+    static final class Frame {
+        final float[] pose = new float[VmcOscDecoder.BONE_COUNT * VmcOscDecoder.SLOT_SIZE];
+        int mask = 0;
+        long sequence = 0;
+
+        boolean has(int bone) {
+            return bone >= 0 && (mask & (1 << bone)) != 0;
+        }
+
+        boolean isEmpty() {
+            return mask == 0;
+        }
+
+        int boneCount() {
+            return Integer.bitCount(mask);
+        }
+
+        Vector3f position(int bone, Vector3f dst) {
+            int o = bone * VmcOscDecoder.SLOT_SIZE;
+            return dst.set(pose[o], pose[o + 1], pose[o + 2]);
+        }
+
+        Quaternionf rotation(int bone, Quaternionf dst) {
+            int o = bone * VmcOscDecoder.SLOT_SIZE;
+            return dst.set(pose[o + 3], pose[o + 4], pose[o + 5], pose[o + 6]);
+        }
+
+        /** 디코더의 본 슬롯을 통째로 복사 (수신 스레드) */
+        void load(float[][] bones, boolean[] present, long seq) {
+            int m = 0;
+            for (int b = 0; b < VmcOscDecoder.BONE_COUNT; b++) {
+                if (!present[b]) continue;
+                System.arraycopy(bones[b], 0, pose, b * VmcOscDecoder.SLOT_SIZE, VmcOscDecoder.SLOT_SIZE);
+                m |= 1 << b;
+            }
+            mask = m;
+            sequence = seq;
+        }
+
+        void clear(long seq) {
+            mask = 0;
+            sequence = seq;
+        }
+    }
+
+    private final Frame[] frames = { new Frame(), new Frame(), new Frame() };
+    // 가운데 버퍼 인덱스 | FRESH(읽기 측이 아직 안 가져감)
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int writeIndex = 0; // 수신 스레드 전용
+    private int readIndex = 2;  // 클라이언트 스레드 전용
+
+    Frame writeFrame() {
+        return frames[writeIndex];
+    }
+
+    void publish() {
+        writeIndex = middle.getAndSet(writeIndex | FRESH) & INDEX_MASK;
+    }
+
+    Frame acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            readIndex = middle.getAndSet(readIndex) & INDEX_MASK;
+        }
+        return frames[readIndex];
+    }
+}
@@ -0,0 +1,293 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * VMC(OSC over UDP) 패킷 디코더 - 수신 루프에서 할당 없이 동작
+ *
+ * - 주소/타입 태그는 String으로 만들지 않고 미리 만든 바이트 패턴과 직접 비교
+ * - 본 이름 → 본 ID는 바이트 키 해시 테이블 (STANDARD_BONE_NAMES + 별칭으로 시드)
+ *   테이블에 없는 이름만 한 번 String으로 만들어 정규화기에 물어보고 결과(본이 아니면 -1)를 테이블에 기억
+ * - /VMC/Ext/Bone/Pos 값은 bones[본ID][7] (px, py, pz, qx, qy, qz, qw)에 바로 기록
+ */
+final class VmcOscDecoder {
+
+    /** 본 ID = 이 목록의 인덱스 */
+    static final List<String> STANDARD_BONE_NAMES = List.of(
+            "Hips", "Spine", "Chest", "UpperChest", "Neck", "Head",
+            "LeftShoulder", "LeftUpperArm", "LeftLowerArm", "LeftHand",
+            "RightShoulder", "RightUpperArm", "RightLowerArm", "RightHand",
+            "LeftUpperLeg", "LeftLowerLeg", "LeftFoot",
+            "RightUpperLeg", "RightLowerLeg", "RightFoot"
+    );
+    static final int BONE_COUNT = STANDARD_BONE_NAMES.size();
+    static final int SLOT_SIZE = 7;
+
+    static int boneId(String name) {
+        return STANDARD_BONE_NAMES.indexOf(name);
+    }
+
+    private static final byte[] BUNDLE = ascii("#bundle");
+    private static final byte[] VMC_EXT = ascii("/VMC/Ext/");
+    private static final byte[] BONE_POS = ascii("/VMC/Ext/Bone/Pos");
+    private static final byte[] FRAME_OK = ascii("/VMC/Ext/OK");
+    private static final byte[] BONE_POS_TYPES = ascii(",sfffffff");
+
+    /** 정규화기로 알아낸 이름을 기억하는 상한 (이상한 이름이 끝없이 와도 테이블이 커지지 않게) */
+    private static final int MAX_LEARNED_NAMES = 512;
+
+    // 디코딩 결과 (수신 스레드 전용)
+    final float[][] bones = new float[BONE_COUNT][SLOT_SIZE];
+    final boolean[] present = new boolean[BONE_COUNT];
+    int bonesWritten = 0;      // 마지막 decode에서 기록된 Bone/Pos 수
+    int vmcMessages = 0;       // 마지막 decode의 /VMC/Ext/* 메시지 수
+    boolean frameMarker = false; // 마지막 decode에 /VMC/Ext/OK 포함
+
+    private volatile Function<String, String> normalizer = name -> name;
+    private volatile Map<String, String> aliases = Map.of();
+    private volatile BoneTable table = buildTable(name -> name, Map.of());
+
+    void setNormalizer(Function<String, String> normalizer, Map<String, String> aliases) {
+        Function<String, String> n = normalizer != null ? normalizer : name -> name;
+        Map<String, String> a = aliases != null ? aliases : Map.of();
+        this.normalizer = n;
+        this.aliases = a;
+        this.table = buildTable(n, a);
+    }
+
+    void setAliases(Map<String, String> aliases) {
+        setNormalizer(normalizer, aliases);
+    }
+
+    void setNormalizer(Function<String, String> normalizer) {
+        setNormalizer(normalizer, aliases);
+    }
+
+    void clear() {
+        for (float[] slot : bones) Arrays.fill(slot, 0f);
+        Arrays.fill(present, false);
+    }
+
+    // ========================================================================
+    // 디코딩
+    // ========================================================================
+
+    /** 데이터그램 하나 (메시지 또는 번들) */
+    void decode(byte[] data, int length) {
+        bonesWritten = 0;
+        vmcMessages = 0;
+        frameMarker = false;
+        if (length < 8) return;
+        if (matches(data, 0, length, BUNDLE)) decodeBundle(data, 0, length);
+        else decodeMessage(data, 0, length);
+    }
+
+    private void decodeBundle(byte[] data, int offset, int length) {
+        int end = offset + length;
+        int pos = offset + 16; // "#bundle\0" + timetag
+        while (pos + 4 <= end) {
+            int size = readInt(data, pos);
+            pos += 4;
+            if (size < 0 || pos + size > end) break;
+            if (matches(data, pos, pos + size, BUNDLE)) decodeBundle(data, pos, size);
+            else decodeMessage(data, pos, size);
+            pos += size;
+        }
+    }
+
+    private void decodeMessage(byte[] data, int offset, int length) {
+        int end = offset + length;
+        int addrLen = cstringLength(data, offset, end);
+        if (addrLen < 0) return;
+        if (!startsWith(data, offset, addrLen, VMC_EXT)) return;
+        vmcMessages++;
+
+        if (equalsExact(data, offset, addrLen, FRAME_OK)) {
+            frameMarker = true;
+            return;
+        }
+        if (!equalsExact(data, offset, addrLen, BONE_POS)) return;
+
+        int pos = offset + padded(addrLen);
+        int typesLen = cstringLength(data, pos, end);
+        if (typesLen < BONE_POS_TYPES.length || !startsWith(data, pos, typesLen, BONE_POS_TYPES)) return;
+        pos += padded(typesLen);
+
+        int nameLen = cstringLength(data, pos, end);
+        if (nameLen < 0) return;
+        int bone = lookupBone(data, pos, nameLen);
+        pos += padded(nameLen);
+        if (bone < 0 || pos + 28 > end) return;
+
+        float[] slot = bones[bone];
+        for (int i = 0; i < SLOT_SIZE; i++) {
+            slot[i] = Float.intBitsToFloat(readInt(data, pos));
+            pos += 4;
+        }
+        normalizeQuat(slot);
+        present[bone] = true;
+        bonesWritten++;
+    }
+
+    private int lookupBone(byte[] data, int off, int len) {
+        BoneTable t = table;
+        int id = t.find(data, off, len);
+        if (id != BoneTable.MISSING) return id;
+
+        // 처음 보는 이름: 한 번만 String으로 정규화 → 기억
+        String raw = new String(data, off, len, StandardCharsets.US_ASCII);
+        id = resolve(normalizer, raw);
+        if (t.learned < MAX_LEARNED_NAMES) {
+            t.put(Arrays.copyOfRange(data, off, off + len), id);
+            t.learned++;
+        }
+        return id;
+    }
+
+    private static int resolve(Function<String, String> normalizer, String raw) {
+        String normalized;
+        try {
+            normalized = normalizer.apply(raw);
+        } catch (RuntimeException e) {
+            normalized = null;
+        }
+        return normalized != null ? STANDARD_BONE_NAMES.indexOf(normalized) : -1;
+    }
+
+    private static BoneTable buildTable(Function<String, String> normalizer, Map<String, String> aliases) {
+        BoneTable t = new BoneTable();
+        for (int i = 0; i < BONE_COUNT; i++) {
+            String name = STANDARD_BONE_NAMES.get(i);
+            t.put(ascii(name), resolve(normalizer, name));
+        }
+        for (Map.Entry<String, String> e : aliases.entrySet()) {
+            String alias = e.getKey();
+            if (alias == null || e.getValue() == null) continue;
+            int id = STANDARD_BONE_NAMES.indexOf(e.getValue());
+            if (id < 0) continue;
+            t.putIfAbsent(ascii(alias), id);
+            t.putIfAbsent(ascii(alias.toLowerCase(Locale.ROOT)), id);
+        }
+        return t;
+    }
+
+    private static void normalizeQuat(float[] slot) {
+        float x = slot[3], y = slot[4], z = slot[5], w = slot[6];
+        float len2 = x * x + y * y + z * z + w * w;
+        if (len2 < 1e-12f || !Float.isFinite(len2)) {
+            slot[3] = 0f; slot[4] = 0f; slot[5] = 0f; slot[6] = 1f;
+            return;
+        }
+        float inv = (float) (1.0 / Math.sqrt(len2));
+        slot[3] = x * inv; slot[4] = y * inv; slot[5] = z * inv; slot[6] = w * inv;
+    }
+
+    // ========================================================================
+    // 바이트 유틸
+    // ========================================================================
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /** 널 종료 문자열 길이 (종료 문자 없으면 -1) */
+    private static int cstringLength(byte[] d, int o, int end) {
+        for (int i = o; i < end; i++) if (d[i] == 0) return i - o;
+        return -1;
+    }
+
+    /** OSC 문자열이 차지하는 바이트 (널 포함, 4바이트 정렬) */
+    private static int padded(int len) {
+        return (len + 4) & ~3;
+    }
+
+    private static boolean matches(byte[] d, int o, int end, byte[] p) {
+        if (o + p.length > end) return false;
+        for (int i = 0; i < p.length; i++) if (d[o + i] != p[i]) return false;
+        return true;
+    }
+
+    private static boolean startsWith(byte[] d, int o, int len, byte[] p) {
+        if (len < p.length) return false;
+        for (int i = 0; i < p.length; i++) if (d[o + i] != p[i]) return false;
+        return true;
+    }
+
+    private static boolean equalsExact(byte[] d, int o, int len, byte[] p) {
+        return len == p.length && startsWith(d, o, len, p);
+    }
+
+    private static int readInt(byte[] d, int o) {
+        return ((d[o] & 0xFF) << 24) | ((d[o + 1] & 0xFF) << 16) | ((d[o + 2] & 0xFF) << 8) | (d[o + 3] & 0xFF);
+    }
+
+    // ========================================================================
+    // 바이트 키 해시 테이블 (오픈 어드레싱, 값 = 본 ID 또는 -1)
+    // ========================================================================
+
+    private static final class BoneTable {
+        static final int MISSING = Integer.MIN_VALUE;
+
+        private byte[][] keys = new byte[128][];
+        private int[] values = new int[128];
+        private int size = 0;
+        int learned = 0;
+
+        int find(byte[] d, int off, int len) {
+            int mask = keys.length - 1;
+            for (int i = hash(d, off, len) & mask; ; i = (i + 1) & mask) {
+                byte[] k = keys[i];
+                if (k == null) return MISSING;
+                if (k.length == len && Arrays.equals(k, 0, len, d, off, off + len)) return values[i];
+            }
+        }
+
+        void putIfAbsent(byte[] key, int value) {
+            if (find(key, 0, key.length) == MISSING) put(key, value);
+        }
+
+        void put(byte[] key, int value) {
+            if ((size + 1) * 2 > keys.length) grow();
+            int mask = keys.length - 1;
+            for (int i = hash(key, 0, key.length) & mask; ; i = (i + 1) & mask) {
+                byte[] k = keys[i];
+                if (k == null) {
+                    keys[i] = key;
+                    values[i] = value;
+                    size++;
+                    return;
+                }
+                if (Arrays.equals(k, key)) {
+                    values[i] = value;
+                    return;
+                }
+            }
+        }
+
+        private void grow() {
+            byte[][] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new byte[oldKeys.length * 2][];
+            values = new int[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) put(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        /** FNV-1a */
+        private static int hash(byte[] d, int off, int len) {
+            int h = 0x811C9DC5;
+            for (int i = 0; i < len; i++) {
+                h ^= d[off + i] & 0xFF;
+                h *= 0x01000193;
+            }
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.kAIS.KAIMyEntity.urdf.control;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.network.chat.Component;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * VMC 입력 소스 하나 (퍼포머 한 명)
+ *
+ * - 포트 하나 + (선택) 송신 주소로 구분. 송신 주소가 없으면 그 포트에서 다른 소스에 안 걸린 패킷을 전부 받음
+ * - 디코더/프레임 순번은 셀렉터 스레드 전용, 프레임은 소스별 트리플 버퍼로 클라이언트 스레드에 게시
+ */
+final class VmcSource {
+    final String id;
+    final int port;
+    final InetAddress remote; // null = 이 포트의 나머지 전부
+
+    private final VmcOscDecoder decoder = new VmcOscDecoder();
+    private final VmcFrameBuffer frames = new VmcFrameBuffer();
+
+    // 셀렉터 스레드 전용
+    private long frameSequence = 0;
+    private boolean markerSeen = false; // 송신측이 /VMC/Ext/OK를 보내면 그 단위로만 게시
+    private boolean connected = false;
+
+    private final AtomicLong totalPackets = new AtomicLong(0);
+    private final AtomicLong vmcPackets = new AtomicLong(0);
+    private final AtomicLong lastPacketTime = new AtomicLong(0);
+    private final AtomicLong publishedFrames = new AtomicLong(0);
+
+    VmcSource(String id, int port, InetAddress remote,
+              Function<String, String> normalizer, Map<String, String> aliases) {
+        this.id = id;
+        this.port = port;
+        this.remote = remote;
+        decoder.setNormalizer(normalizer, aliases);
+    }
+
+    void setNormalizer(Function<String, String> normalizer, Map<String, String> aliases) {
+        decoder.setNormalizer(normalizer, aliases);
+    }
+
+    // ========================================================================
+    // 셀렉터 스레드
+    // ========================================================================
+
+    /** 데이터그램 하나 (번들 전체) 처리 → 완전한 프레임이면 게시 */
+    void accept(byte[] data, int length) {
+        lastPacketTime.set(System.currentTimeMillis());
+        totalPackets.incrementAndGet();
+
+        if (!connected) {
+            connected = true;
+            Minecraft.getInstance().execute(() ->
+                    Minecraft.getInstance().gui.getChat().addMessage(
+                            Component.literal("§b[VMC] Connected! (" + id + ", port " + port + ")")));
+        }
+
+        decoder.decode(data, length);
+        vmcPackets.addAndGet(decoder.vmcMessages);
+        if (decoder.frameMarker) markerSeen = true;
+        if (decoder.frameMarker || (!markerSeen && decoder.bonesWritten > 0)) {
+            frames.writeFrame().load(decoder.bones, decoder.present, ++frameSequence);
+            frames.publish();
+            publishedFrames.incrementAndGet();
+        }
+    }
+
+    /** 소스 제거/리스너 정지 시 빈 프레임 게시 */
+    void reset() {
+        decoder.clear();
+        markerSeen = false;
+        connected = false;
+        frames.writeFrame().clear(++frameSequence);
+        frames.publish();
+    }
+
+    // ========================================================================
+    // 클라이언트 스레드
+    // ========================================================================
+
+    VmcFrameBuffer.Frame acquire() {
+        return frames.acquire();
+    }
+
+    VMCListenerController.VmcListener.Diagnostics diagnostics(boolean running) {
+        return new VMCListenerController.VmcListener.Diagnostics(running, lastPacketTime.get(),
+                totalPackets.get(), vmcPackets.get(), publishedFrames.get(), List.of());
+    }
+
+    String describe() {
+        return id + " @" + port + (remote != null ? " ← " + remote.getHostAddress() : "");
+    }
+}
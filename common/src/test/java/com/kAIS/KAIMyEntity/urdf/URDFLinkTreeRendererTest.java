@@ -0,0 +1,195 @@
+package com.kAIS.KAIMyEntity.urdf;
+
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 링크 트리 렌더 순회 헤드리스 테스트 (GL / Minecraft 인스턴스 없이 VertexConsumer 목으로 구동)
+ */
+class URDFLinkTreeRendererTest {
+
+    private static final int TRIANGLES_PER_LINK = 64;
+    private static final int WARMUP_FRAMES = 20_000;
+    private static final int MEASURED_FRAMES = 2_000;
+
+    private URDFModel model;
+    private URDFPoseBuffer poseBuffer;
+    private URDFPoseBuffer.Pose pose;
+    private URDFLinkTreeRenderer tree;
+    private CountingConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        // base ─(revolute)→ arm ─(prismatic)→ tip(반투명) ─(fixed)→ tool
+        model = new URDFModel("test_robot");
+        model.addLink(link("base", 0f));
+        model.addLink(link("arm", 0.3f));
+        model.addLink(link("tip", 0f));
+        model.addLink(link("tool", 0f));
+        model.addJoint(joint("shoulder", URDFJoint.JointType.REVOLUTE, "base", "arm", 0f, 0f, 1f));
+        model.addJoint(joint("slide", URDFJoint.JointType.PRISMATIC, "arm", "tip", 1f, 0f, 0f));
+        model.addJoint(joint("mount", URDFJoint.JointType.FIXED, "tip", "tool", 1f, 0f, 0f));
+        model.buildHierarchy();
+
+        Map<String, URDFLinkTreeRenderer.LinkDraw> draws = new HashMap<>();
+        for (URDFLink link : model.links) {
+            boolean translucent = link.name.equals("tip");
+            draws.put(link.name, new URDFLinkTreeRenderer.LinkDraw(mesh(TRIANGLES_PER_LINK),
+                    200, 200, 200, translucent ? 128 : 255, translucent, new float[TRIANGLES_PER_LINK * 6]));
+        }
+
+        poseBuffer = new URDFPoseBuffer(model.joints);
+        pose = poseBuffer.newPose();
+        tree = new URDFLinkTreeRenderer(model, poseBuffer, draws);
+        consumer = new CountingConsumer();
+    }
+
+    @Test
+    void writesEachLinkIntoItsOwnPass() {
+        tree.rootPose().identity();
+        tree.rootNormal().identity();
+
+        // 불투명 3링크 / 반투명 1링크, 삼각형당 정점 3개
+        tree.render(consumer, pose, false, 0x00F000F0, 0);
+        assertEquals(3 * TRIANGLES_PER_LINK * 3, consumer.vertices);
+
+        consumer.vertices = 0;
+        tree.render(consumer, pose, true, 0x00F000F0, 0);
+        assertEquals(TRIANGLES_PER_LINK * 3, consumer.vertices);
+    }
+
+    @Test
+    void frameAllocatesNothing() {
+        com.sun.management.ThreadMXBean mx = allocationBean();
+        assumeTrue(mx != null, "thread allocation counter not available");
+
+        for (int i = 0; i < WARMUP_FRAMES; i++) renderFrame(i);
+
+        // 측정 호출 자체의 할당을 빼고 비교
+        long calib0 = mx.getCurrentThreadAllocatedBytes();
+        long calib1 = mx.getCurrentThreadAllocatedBytes();
+        long overhead = calib1 - calib0;
+
+        long before = mx.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_FRAMES; i++) renderFrame(i);
+        long after = mx.getCurrentThreadAllocatedBytes();
+
+        assertEquals(0L, after - before - overhead,
+                "render traversal allocated over " + MEASURED_FRAMES + " frames");
+    }
+
+    /** URDFModelOpenGLWithSTL.renderRobotTree와 같은 순서: 루트 설정 → 불투명 → 반투명 */
+    private void renderFrame(int frame) {
+        pose.jointPositions[0] = (frame % 628) * 0.01f;
+        pose.jointPositions[1] = (frame % 100) * 0.001f;
+
+        tree.rootPose().identity().translate(0.5f, 0f, -0.5f);
+        tree.rootNormal().identity();
+        tree.render(consumer, pose, false, 0x00F000F0, 0);
+        tree.render(consumer, pose, true, 0x00F000F0, 0);
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean mx)) return null;
+        if (!mx.isThreadAllocatedMemorySupported()) return null;
+        mx.setThreadAllocatedMemoryEnabled(true);
+        return mx;
+    }
+
+    // ========================================================================
+    // 테스트 모델
+    // ========================================================================
+
+    private static URDFLink link(String name, float visualZ) {
+        URDFLink link = new URDFLink(name);
+        link.visual = new URDFLink.Visual();
+        link.visual.geometry = new URDFLink.Geometry();
+        link.visual.geometry.type = URDFLink.Geometry.GeometryType.MESH;
+        link.visual.origin.xyz.set(0f, 0f, visualZ);
+        link.visual.origin.rpy.set(0f, 0.2f, 0f);
+        return link;
+    }
+
+    private static URDFJoint joint(String name, URDFJoint.JointType type, String parent, String child,
+                                   float ax, float ay, float az) {
+        URDFJoint joint = new URDFJoint(name, type);
+        joint.parentLinkName = parent;
+        joint.childLinkName = child;
+        joint.origin.xyz.set(0f, 0f, 0.5f);
+        joint.origin.rpy.set(0.1f, 0f, 0f);
+        joint.axis.xyz.set(ax, ay, az);
+        return joint;
+    }
+
+    private static STLLoader.STLMesh mesh(int triangles) {
+        STLLoader.STLMesh mesh = new STLLoader.STLMesh();
+        for (int t = 0; t < triangles; t++) {
+            STLLoader.Triangle tri = new STLLoader.Triangle();
+            tri.vertices[0].set(t, 0f, 0f);
+            tri.vertices[1].set(t, 1f, 0f);
+            tri.vertices[2].set(t, 0f, 1f);
+            tri.normal.set(1f, 0f, 0f);
+            mesh.triangles.add(tri);
+        }
+        return mesh;
+    }
+
+    /**
+     * 정점 수만 세는 목. addVertex(Matrix4f, ...)의 바닐라 기본 구현은 임시 Vector3f를 만들므로
+     * (실제 BufferBuilder에서는 JIT가 스칼라로 치환) 목에서는 스크래치로 대체해 순회 자체의 할당만 잰다.
+     */
+    private static final class CountingConsumer implements VertexConsumer {
+        private final Vector3f scratch = new Vector3f();
+        int vertices;
+        float checksum;
+
+        @Override
+        public VertexConsumer addVertex(Matrix4f pose, float x, float y, float z) {
+            pose.transformPosition(x, y, z, scratch);
+            return addVertex(scratch.x, scratch.y, scratch.z);
+        }
+
+        @Override
+        public VertexConsumer addVertex(float x, float y, float z) {
+            vertices++;
+            checksum += x + y + z;
+            return this;
+        }
+
+        @Override
+        public VertexConsumer setColor(int r, int g, int b, int a) {
+            return this;
+        }
+
+        @Override
+        public VertexConsumer setUv(float u, float v) {
+            return this;
+        }
+
+        @Override
+        public VertexConsumer setUv1(int u, int v) {
+            return this;
+        }
+
+        @Override
+        public VertexConsumer setUv2(int u, int v) {
+            return this;
+        }
+
+        @Override
+        public VertexConsumer setNormal(float x, float y, float z) {
+            checksum += x;
+            return this;
+        }
+    }
+}
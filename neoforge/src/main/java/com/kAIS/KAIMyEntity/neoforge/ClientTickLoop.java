@@ -16,9 +16,17 @@ public final class ClientTickLoop {
     public static URDFModelOpenGLWithSTL renderer;
     public static final List<URDFModelOpenGLWithSTL> renderers = new ArrayList<>();
 
+    /** 첫 틱 / 일시정지 복귀 등 긴 공백 후에도 한 번에 이 이상 진행하지 않음 */
+    private static final float MAX_TICK_DT = 0.25f;
+    private static long lastTickNanos = 0L;
+
     @SubscribeEvent
     public static void onClientTick(ClientTickEvent.Post event) {
-        float dt = 1.0f / 20.0f;
+        // 실제 경과 시간 (서버 렉/프레임 드랍으로 틱 간격이 50ms가 아닐 수 있음)
+        long now = System.nanoTime();
+        float dt = lastTickNanos == 0L ? 1.0f / 20.0f
+                : Math.min((now - lastTickNanos) / 1_000_000_000f, MAX_TICK_DT);
+        lastTickNanos = now;
         PosePipeline.getInstance().onClientTick(dt, renderer, renderers);
     }
 
@@ -17,6 +17,8 @@ public class KAIMyEntityNeoForgeClient {
     public static void clientSetup(FMLClientSetupEvent event) {
         KAIMyEntityClient.logger.info("KAIMyEntity InitClient begin...");
         KAIMyEntityClient.initClient();
+        KAIMyEntityConfig.applyUrdfLod();
+        KAIMyEntityConfig.applyUrdfSimulation();
         KAIMyEntityRegisterClient.Register();
         KAIMyEntityClient.logger.info("KAIMyEntity InitClient successful (URDF only).");
     }
@@ -1,5 +1,10 @@
 package com.kAIS.KAIMyEntity.neoforge.config;
 
+import com.kAIS.KAIMyEntity.urdf.URDFLodSettings;
+import com.kAIS.KAIMyEntity.urdf.URDFSimulationThread;
+import com.kAIS.KAIMyEntity.urdf.control.URDFCollisionSpaces;
+import com.kAIS.KAIMyEntity.urdf.control.URDFPhysicsBackend;
+import com.kAIS.KAIMyEntity.urdf.control.URDFSimpleController;
 import net.neoforged.neoforge.common.ModConfigSpec;
 
 public final class KAIMyEntityConfig {
@@ -7,6 +12,29 @@ public final class KAIMyEntityConfig {
     public static ModConfigSpec.BooleanValue openGLEnableLighting;
     public static ModConfigSpec.IntValue modelPoolMaxCount;
     public static ModConfigSpec.BooleanValue isMMDShaderEnabled;
+    public static ModConfigSpec.DoubleValue urdfLodNearDistance;
+    public static ModConfigSpec.DoubleValue urdfLodFarDistance;
+    public static ModConfigSpec.BooleanValue urdfImpostorsEnabled;
+    public static ModConfigSpec.IntValue urdfImpostorViews;
+    public static ModConfigSpec.IntValue urdfImpostorResolution;
+    public static ModConfigSpec.BooleanValue urdfSimulationLod;
+    public static ModConfigSpec.IntValue urdfSimMidRateDivisor;
+    public static ModConfigSpec.BooleanValue urdfSimulationThread;
+    public static ModConfigSpec.IntValue urdfSimulationRateHz;
+    public static ModConfigSpec.BooleanValue urdfSleepEnabled;
+    public static ModConfigSpec.EnumValue<URDFPhysicsBackend.Kind> urdfPhysicsBackend;
+    public static ModConfigSpec.BooleanValue urdfLegacyArticulatedSolver;
+    public static ModConfigSpec.IntValue urdfCollisionHullVertices;
+    public static ModConfigSpec.BooleanValue urdfNativeJointMotors;
+    public static ModConfigSpec.BooleanValue urdfAdaptiveSubSteps;
+    public static ModConfigSpec.IntValue urdfMinSubSteps;
+    public static ModConfigSpec.IntValue urdfMaxSubSteps;
+    public static ModConfigSpec.EnumValue<URDFCollisionSpaces.Broadphase> urdfCollisionBroadphase;
+    public static ModConfigSpec.IntValue urdfHashMinLevel;
+    public static ModConfigSpec.IntValue urdfHashMaxLevel;
+    public static ModConfigSpec.BooleanValue urdfMergeBlockBoxes;
+    public static ModConfigSpec.BooleanValue urdfHeightfieldTerrain;
+    public static ModConfigSpec.BooleanValue urdfSimulationStats;
 
     static {
         ModConfigSpec.Builder builder = new ModConfigSpec.Builder();
@@ -15,6 +43,69 @@ public final class KAIMyEntityConfig {
         modelPoolMaxCount = builder.defineInRange("modelPoolMaxCount", 20, 0, 100);
         isMMDShaderEnabled = builder.define("isMMDShaderEnabled", false);
         builder.pop();
+        builder.push("URDFLod");
+        urdfLodNearDistance = builder.defineInRange("nearDistance", 24.0, 0.0, 512.0);
+        urdfLodFarDistance = builder.defineInRange("farDistance", 64.0, 0.0, 512.0);
+        urdfImpostorsEnabled = builder.define("impostorsEnabled", true);
+        urdfImpostorViews = builder.defineInRange("impostorViews", 8, 1, 16);
+        urdfImpostorResolution = builder.defineInRange("impostorResolution", 128, 32, 512);
+        urdfSimulationLod = builder.define("simulationLod", true);
+        urdfSimMidRateDivisor = builder.defineInRange("simMidRateDivisor", 2, 2, 4);
+        builder.pop();
+        builder.push("URDFSimulation");
+        urdfSimulationThread = builder.define("dedicatedThread", true);
+        urdfSimulationRateHz = builder.defineInRange("rateHz", 200, 20, 1000);
+        urdfSleepEnabled = builder.define("sleepWhenIdle", true);
+        urdfPhysicsBackend = builder.defineEnum("physicsBackend", URDFPhysicsBackend.Kind.ODE4J);
+        // 예전 키 (physicsBackend 이전) - 기존 설정 파일 호환용으로만 읽음
+        urdfLegacyArticulatedSolver = builder.define("articulatedSolver", false);
+        urdfCollisionHullVertices = builder.defineInRange("collisionHullVertices", 32, 8, 256);
+        urdfNativeJointMotors = builder.define("nativeJointMotors", false);
+        urdfAdaptiveSubSteps = builder.define("adaptiveSubSteps", true);
+        urdfMinSubSteps = builder.defineInRange("minSubSteps", 1, 1, 16);
+        urdfMaxSubSteps = builder.defineInRange("maxSubSteps", 8, 1, 16);
+        urdfCollisionBroadphase = builder.defineEnum("collisionBroadphase", URDFCollisionSpaces.Broadphase.DEFAULT);
+        urdfHashMinLevel = builder.defineInRange("hashMinLevel", -3, -10, 10);
+        urdfHashMaxLevel = builder.defineInRange("hashMaxLevel", 2, -10, 10);
+        urdfMergeBlockBoxes = builder.define("mergeBlockBoxes", true);
+        urdfHeightfieldTerrain = builder.define("heightfieldTerrain", false);
+        urdfSimulationStats = builder.define("simulationStats", false);
+        builder.pop();
         config = builder.build();
     }
-}
\ No newline at end of file
+
+    /** URDF LOD 설정을 공통 모듈로 전달 */
+    public static void applyUrdfLod() {
+        URDFLodSettings.setThresholds(urdfLodNearDistance.get().floatValue(), urdfLodFarDistance.get().floatValue());
+        URDFLodSettings.setImpostorsEnabled(urdfImpostorsEnabled.get());
+        URDFLodSettings.setImpostorViews(urdfImpostorViews.get());
+        URDFLodSettings.setImpostorResolution(urdfImpostorResolution.get());
+        URDFLodSettings.setSimulationLodEnabled(urdfSimulationLod.get());
+        URDFLodSettings.setSimMidRateDivisor(urdfSimMidRateDivisor.get());
+    }
+
+    /** URDF 시뮬레이션 스레드 설정을 공통 모듈로 전달 */
+    public static void applyUrdfSimulation() {
+        URDFSimulationThread sim = URDFSimulationThread.getInstance();
+        sim.setRateHz(urdfSimulationRateHz.get());
+        sim.setEnabled(urdfSimulationThread.get());
+        URDFSimpleController.setSleepEnabled(urdfSleepEnabled.get());
+        URDFSimpleController.setDefaultBackend(physicsBackend());
+        URDFSimpleController.setCollisionHullVertexLimit(urdfCollisionHullVertices.get());
+        URDFSimpleController.setNativeMotorsDefault(urdfNativeJointMotors.get());
+        URDFSimpleController.setAdaptiveSubSteps(urdfAdaptiveSubSteps.get(), urdfMinSubSteps.get(), urdfMaxSubSteps.get());
+        URDFSimpleController.setCollisionBroadphase(urdfCollisionBroadphase.get());
+        URDFSimpleController.setCollisionHashLevels(urdfHashMinLevel.get(), urdfHashMaxLevel.get());
+        URDFSimpleController.setBlockCollisionMerging(urdfMergeBlockBoxes.get(), urdfHeightfieldTerrain.get());
+        URDFSimpleController.setSimulationStats(urdfSimulationStats.get());
+    }
+
+    /** physicsBackend가 기본값 그대로면 예전 articulatedSolver = true 설정을 이어받음 */
+    private static URDFPhysicsBackend.Kind physicsBackend() {
+        URDFPhysicsBackend.Kind kind = urdfPhysicsBackend.get();
+        if (kind == URDFPhysicsBackend.Kind.ODE4J && urdfLegacyArticulatedSolver.get()) {
+            return URDFPhysicsBackend.Kind.ARTICULATED;
+        }
+        return kind;
+    }
+}